@@ -1,10 +1,16 @@
 package com.care;
 
+import com.care.dao.AnalyticsRollupDAO;
+import com.care.dao.EntityCache;
+import com.care.dao.MessageJournal;
+import com.care.service.AuthenticationService;
 import com.care.util.DatabaseDriver;
 import com.care.util.ViewFactory;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 /**
  * Main Application Entry Point for CARE
  * Customer Assistance and Resource Engine
@@ -19,6 +25,9 @@ public class App extends Application {
             
             if (dbDriver.testConnection()) {
                 System.out.println("✓ Database initialized successfully");
+                
+                // Hash plain-text passwords left from old data, off the UI thread
+                AuthenticationService.getInstance().migrateLegacyPasswordsAsync();
             } else {
                 System.err.println("✗ Database connection failed!");
                 return;
@@ -34,9 +43,10 @@ public class App extends Application {
             // Application shutdown hook
             primaryStage.setOnCloseRequest(event -> {
                 System.out.println("Closing application...");
+                MessageJournal.getInstance().shutdown();
                 dbDriver.closeConnection();
             });
-            
+        
         } catch (Exception e) {
             System.err.println("Error starting application!");
             e.printStackTrace();
@@ -46,12 +56,45 @@ public class App extends Application {
     @Override
     public void stop() {
         // Clean up resources when application stops
+        // Flush queued messages before the database is closed
+        MessageJournal.getInstance().shutdown();
         DatabaseDriver.getInstance().closeConnection();
+        EntityCache.getAllStats().forEach(stats -> System.out.println("Entity cache " + stats));
         System.out.println("Application stopped successfully");
     }
     
     public static void main(String[] args) {
+        // Maintenance commands run without the UI:
+        //   --rebuild-analytics  recompute the analytics rollups from history
+        //   --check-analytics    report rollup counters that differ from the raw tables
+        if (args.length > 0 && ("--rebuild-analytics".equals(args[0]) || "--check-analytics".equals(args[0]))) {
+            System.exit(runAnalyticsCommand(args[0]));
+        }
+        
         launch(args);
     }
+    
+    private static int runAnalyticsCommand(String command) {
+        AnalyticsRollupDAO rollupDAO = new AnalyticsRollupDAO();
+        int exitCode;
+        
+        if ("--rebuild-analytics".equals(command)) {
+            exitCode = rollupDAO.rebuild() ? 0 : 1;
+        } else {
+            List<String> mismatches = rollupDAO.verify();
+            if (mismatches == null) {
+                exitCode = 1;
+            } else if (mismatches.isEmpty()) {
+                System.out.println("✓ Analytics rollups are consistent");
+                exitCode = 0;
+            } else {
+                System.out.println("⚠ " + mismatches.size() + " analytics rollup counters differ (run --rebuild-analytics):");
+                mismatches.forEach(mismatch -> System.out.println("  " + mismatch));
+                exitCode = 2;
+            }
+        }
+        
+        DatabaseDriver.getInstance().closeConnection();
+        return exitCode;
+    }
 }
-
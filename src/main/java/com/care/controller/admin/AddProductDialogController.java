@@ -2,6 +2,7 @@ package com.care.controller.admin;
 
 import com.care.dao.ProductDAO;
 import com.care.model.Product;
+import com.care.service.ManualIngestionService;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
@@ -96,9 +97,13 @@ public class AddProductDialogController {
         product.setCategory(category);
         
         try {
-            int productId = productDAO.createProductWithManual(product, selectedManualFile);
+            int productId = productDAO.createProduct(product);
             
             if (productId > 0) {
+                // The manual is processed in the background so the dialog closes right away
+                if (selectedManualFile != null) {
+                    ManualIngestionService.getInstance().submit(productId, name + " Manual", selectedManualFile);
+                }
                 productCreated = true;
                 System.out.println("✓ Product created with ID: " + productId);
                 closeDialog();
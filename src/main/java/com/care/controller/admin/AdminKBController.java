@@ -1,9 +1,15 @@
 package com.care.controller.admin;
 
 import com.care.dao.KnowledgeBaseDAO;
+import com.care.model.IngestionJob;
 import com.care.model.KnowledgeBase;
+import com.care.model.KnowledgeSearchHit;
 import com.care.model.Product;
+import com.care.service.KnowledgeSearchService;
+import com.care.service.ManualIngestionService;
 import com.care.service.ProductService;
+import com.care.util.KnowledgeSearchView;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -29,13 +35,23 @@ public class AdminKBController {
     @FXML private Label totalProductsLabel;
     @FXML private Label manualsUploadedLabel;
     @FXML private Label manualsMissingLabel;
+    @FXML private TextField kbSearchField;
+    @FXML private ComboBox<String> kbCategoryFilterCombo;
+    @FXML private CheckBox kbSelectedProductOnlyCheck;
+    @FXML private ListView<KnowledgeSearchHit> kbSearchResultsList;
     
     private ProductService productService;
     private KnowledgeBaseDAO knowledgeBaseDAO;
+    private ManualIngestionService ingestionService;
+    private ManualIngestionService.IngestionListener ingestionListener;
+    private KnowledgeSearchService searchService;
+    private KnowledgeSearchView searchView;
     
     public AdminKBController() {
         this.productService = new ProductService();
         this.knowledgeBaseDAO = new KnowledgeBaseDAO();
+        this.ingestionService = ManualIngestionService.getInstance();
+        this.searchService = new KnowledgeSearchService();
     }
     
     @FXML
@@ -62,6 +78,11 @@ public class AdminKBController {
         
         // 5. Load Data
         loadProductsWithManualStatus();
+        setupSearch();
+        
+        // 6. Follow background manual processing
+        ingestionListener = job -> Platform.runLater(() -> handleIngestionUpdate(job));
+        ingestionService.addListener(ingestionListener);
     }
     
     /**
@@ -79,6 +100,8 @@ public class AdminKBController {
                     setText(item);
                     if (item.contains("Uploaded")) {
                         setStyle("-fx-text-fill: #28a745; -fx-font-weight: bold;");
+                    } else if (item.contains("Processing") || item.contains("Queued")) {
+                        setStyle("-fx-text-fill: #d39e00; -fx-font-weight: bold;");
                     } else {
                         setStyle("-fx-text-fill: #dc3545; -fx-font-weight: bold;");
                     }
@@ -126,7 +149,14 @@ public class AdminKBController {
                     ProductKB productKB = getTableView().getItems().get(getIndex());
                     
                     // Logic: Toggle buttons based on status
-                    if (productKB.isHasManual()) {
+                    if (productKB.isIngesting()) {
+                        // Manual being processed -> Show Cancel only
+                        uploadBtn.setText("⏹ Cancel");
+                        uploadBtn.getStyleClass().removeAll("primary-button");
+                        uploadBtn.getStyleClass().add("secondary-button");
+                        
+                        container.getChildren().remove(deleteBtn);
+                    } else if (productKB.isHasManual()) {
                         // Manual Exists -> Show Update & Delete
                         uploadBtn.setText("📝 Update");
                         uploadBtn.getStyleClass().removeAll("primary-button");
@@ -150,10 +180,56 @@ public class AdminKBController {
         });
     }
     
+    /**
+     * Search across all manuals, optionally by category or for the selected product
+     */
+    private void setupSearch() {
+        searchView = new KnowledgeSearchView(kbSearchField, kbSearchResultsList, null);
+        loadSearchCategories();
+        
+        productsKBTable.getSelectionModel().selectedItemProperty().addListener((obs, oldItem, newItem) -> {
+            if (kbSelectedProductOnlyCheck.isSelected()) {
+                handleSearchFilterChange();
+            }
+        });
+    }
+    
+    private void loadSearchCategories() {
+        String selected = kbCategoryFilterCombo.getValue();
+        
+        kbCategoryFilterCombo.getItems().clear();
+        kbCategoryFilterCombo.getItems().add("All Categories");
+        kbCategoryFilterCombo.getItems().addAll(searchService.getCategories());
+        kbCategoryFilterCombo.setValue(selected != null && kbCategoryFilterCombo.getItems().contains(selected)
+            ? selected : "All Categories");
+    }
+    
+    /**
+     * Pick up added or removed manuals in the category list and the search results
+     */
+    private void reloadSearch() {
+        loadSearchCategories();
+        searchView.refresh();
+    }
+    
+    @FXML
+    private void handleSearchFilterChange() {
+        if (searchView == null) {
+            return;
+        }
+        
+        String category = kbCategoryFilterCombo.getValue();
+        ProductKB selected = productsKBTable.getSelectionModel().getSelectedItem();
+        Integer productId = kbSelectedProductOnlyCheck.isSelected() && selected != null ? selected.getProductId() : null;
+        
+        searchView.setFilters(productId, category == null || category.equals("All Categories") ? null : category);
+    }
+    
     @FXML
     private void handleRefresh() {
         System.out.println("Refreshing knowledge base...");
         loadProductsWithManualStatus();
+        reloadSearch();
     }
     
     private void loadProductsWithManualStatus() {
@@ -171,6 +247,10 @@ public class AdminKBController {
                 
                 // Wrap in ProductKB
                 ProductKB productKB = new ProductKB(product, hasManual, filePath);
+                IngestionJob activeJob = ingestionService.getActiveJob(product.getProductId());
+                if (activeJob != null) {
+                    productKB.setIngestionStatus(activeJob);
+                }
                 productsKBTable.getItems().add(productKB);
                 
                 if (hasManual) uploadedCount++; else missingCount++;
@@ -190,6 +270,14 @@ public class AdminKBController {
     }
     
     private void handleUploadManual(ProductKB productKB) {
+        if (productKB.isIngesting()) {
+            IngestionJob job = ingestionService.getActiveJob(productKB.getProductId());
+            if (job != null) {
+                ingestionService.cancel(job.getJobId());
+            }
+            return;
+        }
+        
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select Manual PDF");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
@@ -197,29 +285,59 @@ public class AdminKBController {
         File selectedFile = fileChooser.showOpenDialog(productsKBTable.getScene().getWindow());
         
         if (selectedFile != null) {
-            try {
-                boolean success;
-                if (productKB.isHasManual()) {
-                    success = knowledgeBaseDAO.updateManual(productKB.getProductId(), selectedFile);
-                } else {
-                    success = knowledgeBaseDAO.createWithFile(
-                        productKB.getProductId(),
-                        productKB.getProductName() + " Manual",
-                        selectedFile
-                    );
-                }
-                
-                if (success) {
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                    alert.setTitle("Success");
-                    alert.setHeaderText("Manual Uploaded");
-                    alert.setContentText("The manual for " + productKB.getProductName() + " has been processed.");
-                    alert.showAndWait();
-                    loadProductsWithManualStatus(); 
+            // Text extraction runs in the background; progress shows in the status column
+            IngestionJob job = ingestionService.submit(
+                productKB.getProductId(),
+                productKB.getProductName() + " Manual",
+                selectedFile
+            );
+            
+            if (job == null) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText("Upload Failed");
+                alert.setContentText("The manual for " + productKB.getProductName() + " could not be queued for processing.");
+                alert.showAndWait();
+            }
+        }
+    }
+    
+    /**
+     * Show progress of a manual being processed and reload once it is done
+     * Runs on the FX thread
+     */
+    private void handleIngestionUpdate(IngestionJob job) {
+        // Stop listening once this view has been closed
+        if (productsKBTable.getScene() == null) {
+            ingestionService.removeListener(ingestionListener);
+            return;
+        }
+        
+        if (!job.isFinished()) {
+            for (ProductKB productKB : productsKBTable.getItems()) {
+                if (productKB.getProductId() == job.getProductId()) {
+                    productKB.setIngestionStatus(job);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
+            productsKBTable.refresh();
+            return;
+        }
+        
+        loadProductsWithManualStatus();
+        reloadSearch();
+        
+        if (IngestionJob.COMPLETED.equals(job.getStatus())) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Success");
+            alert.setHeaderText("Manual Uploaded");
+            alert.setContentText("\"" + job.getTitle() + "\" has been processed (" + job.getPagesTotal() + " pages).");
+            alert.show();
+        } else if (IngestionJob.FAILED.equals(job.getStatus())) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("Manual Processing Failed");
+            alert.setContentText("\"" + job.getTitle() + "\" could not be processed: " + job.getErrorMessage());
+            alert.show();
         }
     }
     
@@ -233,6 +351,7 @@ public class AdminKBController {
             if (response == ButtonType.OK) {
                 if (knowledgeBaseDAO.delete(productKB.getProductId())) {
                     loadProductsWithManualStatus();
+                    reloadSearch();
                 }
             }
         });
@@ -274,7 +393,8 @@ public class AdminKBController {
         private final String category;
         private final boolean hasManual;
         private final String filePath;
-        private final String manualStatus;
+        private String manualStatus;
+        private boolean ingesting;
 
         public ProductKB(Product p, boolean hasManual, String filePath) {
             this.productId = p.getProductId();
@@ -291,5 +411,13 @@ public class AdminKBController {
         public boolean isHasManual() { return hasManual; }
         public String getFilePath() { return filePath; }
         public String getManualStatus() { return manualStatus; }
+        public boolean isIngesting() { return ingesting; }
+        
+        public void setIngestionStatus(IngestionJob job) {
+            this.ingesting = true;
+            this.manualStatus = IngestionJob.QUEUED.equals(job.getStatus())
+                ? "Queued"
+                : String.format("Processing %d%%", Math.round(job.getProgress() * 100));
+        }
     }
 }
\ No newline at end of file
@@ -1,12 +1,12 @@
 package com.care.controller.admin;
 
-import com.care.dao.ChatSessionDAO;
 import com.care.dao.TicketDAO;
+import com.care.model.DashboardSnapshot;
 import com.care.model.Message;
 import com.care.service.AnalyticsService;
-import com.care.service.ProductService;
 import com.care.service.ReportGeneratorService;
-import com.care.service.UserService;
+import com.care.util.DashboardLoader;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -58,17 +58,14 @@ public class AdminOverviewController {
     @FXML private TableColumn<EscalationRow, String> statusCol;
     @FXML private TableColumn<EscalationRow, Void> actionsCol;
     
-    private UserService userService;
-    private ProductService productService;
-    private ChatSessionDAO chatSessionDAO;
+    @FXML private Button reportBtn;
+    
     private TicketDAO ticketDAO;
     private AnalyticsService analyticsService;
     private ReportGeneratorService reportGenerator;
+    private DashboardLoader dashboardLoader;
     
     public AdminOverviewController() {
-        this.userService = new UserService();
-        this.productService = new ProductService();
-        this.chatSessionDAO = new ChatSessionDAO();
         this.ticketDAO = new TicketDAO();
         this.analyticsService = new AnalyticsService();
         this.reportGenerator = new ReportGeneratorService();
@@ -147,35 +144,20 @@ public class AdminOverviewController {
             File file = fileChooser.showSaveDialog(stage);
             
             if (file != null) {
-                // Generate the PDF
-                boolean success = reportGenerator.generateAnalyticsReport(file.getAbsolutePath());
+                // Generate the PDF off the FX thread, showing progress on the button
+                String buttonText = reportBtn.getText();
+                reportBtn.setDisable(true);
+                reportBtn.setText("Generating... 0%");
                 
-                if (success) {
-                    // Show success alert with option to open
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                    alert.setTitle("Report Generated");
-                    alert.setHeaderText("PDF Report Created Successfully!");
-                    alert.setContentText("Report saved to:\n" + file.getAbsolutePath() + 
-                                       "\n\nWould you like to open it now?");
-                    
-                    ButtonType openButton = new ButtonType("Open Report");
-                    ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
-                    alert.getButtonTypes().setAll(openButton, closeButton);
-                    
-                    alert.showAndWait().ifPresent(response -> {
-                        if (response == openButton) {
-                            try {
-                                Desktop.getDesktop().open(file);
-                            } catch (Exception e) {
-                                System.err.println("Could not open PDF: " + e.getMessage());
-                            }
-                        }
-                    });
-                } else {
-                    showError("Failed to generate PDF report. Check console for details.");
-                }
+                reportGenerator.generateAnalyticsReportAsync(file.getAbsolutePath(), (fraction, step) ->
+                    Platform.runLater(() -> reportBtn.setText(String.format("%s... %.0f%%", step, fraction * 100)))
+                ).whenComplete((success, error) -> Platform.runLater(() -> {
+                    reportBtn.setText(buttonText);
+                    reportBtn.setDisable(false);
+                    showReportResult(file, error == null && Boolean.TRUE.equals(success));
+                }));
             }
-            
+        
         } catch (Exception e) {
             System.err.println("Error generating PDF report");
             e.printStackTrace();
@@ -183,6 +165,33 @@ public class AdminOverviewController {
         }
     }
     
+    private void showReportResult(File file, boolean success) {
+        if (success) {
+            // Show success alert with option to open
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Report Generated");
+            alert.setHeaderText("PDF Report Created Successfully!");
+            alert.setContentText("Report saved to:\n" + file.getAbsolutePath() + 
+                               "\n\nWould you like to open it now?");
+            
+            ButtonType openButton = new ButtonType("Open Report");
+            ButtonType closeButton = new ButtonType("Close", ButtonBar.ButtonData.CANCEL_CLOSE);
+            alert.getButtonTypes().setAll(openButton, closeButton);
+            
+            alert.showAndWait().ifPresent(response -> {
+                if (response == openButton) {
+                    try {
+                        Desktop.getDesktop().open(file);
+                    } catch (Exception e) {
+                        System.err.println("Could not open PDF: " + e.getMessage());
+                    }
+                }
+            });
+        } else {
+            showError("Failed to generate PDF report. Check console for details.");
+        }
+    }
+    
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -192,135 +201,105 @@ public class AdminOverviewController {
     }
     
     private void loadDashboard() {
-        try {
-            // Load real data where available, supplement with dummy data
-            loadKeyMetrics();
-            loadCharts();
-            loadEscalationDetails();
-            
-            System.out.println("✓ Dashboard loaded successfully");
-        } catch (Exception e) {
-            System.err.println("Error loading dashboard");
-            e.printStackTrace();
+        // Drop a load that is still running (refresh clicked twice)
+        if (dashboardLoader != null) {
+            dashboardLoader.cancel();
         }
+        
+        // Widgets load in parallel off the FX thread and appear as they arrive
+        dashboardLoader = new DashboardLoader("Admin overview");
+        dashboardLoader.cancelWhenRemoved(escalationDetailsTable);
+        dashboardLoader.prepare("Analytics rollups", analyticsService::ensureRollups);
+        
+        dashboardLoader.load("Key metrics", analyticsService::getDashboardSnapshot,
+                             this::showKeyMetrics, this::showEmptyKeyMetrics);
+        dashboardLoader.load("Product escalation chart", analyticsService::getEscalationsByProduct,
+                             this::showProductEscalationChart);
+        dashboardLoader.load("Resolution type chart", analyticsService::getResolutionTypeDistribution,
+                             this::showResolutionTypeChart);
+        dashboardLoader.load("Escalation details", this::queryEscalationDetails,
+                             this::showEscalationDetails);
+        dashboardLoader.logWhenDone();
     }
     
-    private void loadKeyMetrics() {
-        try {
-            // Load real data from SQL database
-            int totalUsers = userService.getAllUsers().size();
-            int totalProducts = productService.getAllProducts().size();
-            int activeSessions = chatSessionDAO.getActiveSessions().size();
-            int openTickets = ticketDAO.getByStatus("OPEN").size() + 
-                             ticketDAO.getByStatus("IN_PROGRESS").size();
-            int totalChats = analyticsService.getTotalChatSessions();
-            double escalationRate = analyticsService.getEscalationRate();
-            int resolvedTickets = analyticsService.getResolvedTicketsCount();
-            double satisfaction = analyticsService.getUserSatisfactionScore();
-            
-            // Display real data from database
-            totalUsersText.setText(String.valueOf(totalUsers));
-            totalChatsText.setText(String.valueOf(totalChats));
-            activeSessionsText.setText(String.valueOf(activeSessions));
-            totalProductsText.setText(String.valueOf(totalProducts));
-            escalationRateText.setText(String.format("%.1f%%", escalationRate));
-            openTicketsText.setText(String.valueOf(openTickets));
-            resolvedTicketsText.setText(String.valueOf(resolvedTickets));
-            satisfactionText.setText(String.format("%.1f", satisfaction));
-            
-            System.out.println("✓ Metrics loaded from database:");
-            System.out.println("  - Total Users: " + totalUsers);
-            System.out.println("  - Total Chats: " + totalChats);
-            System.out.println("  - Active Sessions: " + activeSessions);
-            System.out.println("  - Total Products: " + totalProducts);
-            System.out.println("  - Escalation Rate: " + String.format("%.1f%%", escalationRate));
-            System.out.println("  - Open Tickets: " + openTickets);
-            System.out.println("  - Resolved Tickets: " + resolvedTickets);
-            System.out.println("  - Satisfaction: " + String.format("%.1f", satisfaction));
-            
-        } catch (Exception e) {
-            System.err.println("Error loading metrics from database: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Show zeros if database has errors
-            totalUsersText.setText("0");
-            totalChatsText.setText("0");
-            activeSessionsText.setText("0");
-            totalProductsText.setText("0");
-            escalationRateText.setText("0.0%");
-            openTicketsText.setText("0");
-            resolvedTicketsText.setText("0");
-            satisfactionText.setText("0.0");
-        }
+    private void showKeyMetrics(DashboardSnapshot snapshot) {
+        int totalUsers = snapshot.getTotalUsers();
+        int totalProducts = snapshot.getTotalProducts();
+        int activeSessions = snapshot.getActiveSessions();
+        int openTickets = snapshot.getUnresolvedTicketCount();
+        int totalChats = snapshot.getTotalSessions();
+        double escalationRate = snapshot.getEscalationRate();
+        int resolvedTickets = snapshot.getResolvedTicketCount();
+        double satisfaction = analyticsService.getUserSatisfactionScore(snapshot);
+        
+        // Display real data from database
+        totalUsersText.setText(String.valueOf(totalUsers));
+        totalChatsText.setText(String.valueOf(totalChats));
+        activeSessionsText.setText(String.valueOf(activeSessions));
+        totalProductsText.setText(String.valueOf(totalProducts));
+        escalationRateText.setText(String.format("%.1f%%", escalationRate));
+        openTicketsText.setText(String.valueOf(openTickets));
+        resolvedTicketsText.setText(String.valueOf(resolvedTickets));
+        satisfactionText.setText(String.format("%.1f", satisfaction));
+        
+        System.out.println("✓ Metrics loaded from database:");
+        System.out.println("  - Total Users: " + totalUsers);
+        System.out.println("  - Total Chats: " + totalChats);
+        System.out.println("  - Active Sessions: " + activeSessions);
+        System.out.println("  - Total Products: " + totalProducts);
+        System.out.println("  - Escalation Rate: " + String.format("%.1f%%", escalationRate));
+        System.out.println("  - Open Tickets: " + openTickets);
+        System.out.println("  - Resolved Tickets: " + resolvedTickets);
+        System.out.println("  - Satisfaction: " + String.format("%.1f", satisfaction));
     }
     
-    private void loadCharts() {
-        try {
-            loadProductEscalationChart();
-            System.out.println("✓ Product escalation chart loaded");
-        } catch (Exception e) {
-            System.err.println("Error loading product chart: " + e.getMessage());
-        }
-        
-        try {
-            loadResolutionTypeChart();
-            System.out.println("✓ Resolution type chart loaded");
-        } catch (Exception e) {
-            System.err.println("Error loading resolution chart: " + e.getMessage());
-        }
+    private void showEmptyKeyMetrics() {
+        // Show zeros if database has errors
+        totalUsersText.setText("0");
+        totalChatsText.setText("0");
+        activeSessionsText.setText("0");
+        totalProductsText.setText("0");
+        escalationRateText.setText("0.0%");
+        openTicketsText.setText("0");
+        resolvedTicketsText.setText("0");
+        satisfactionText.setText("0.0");
     }
     
-    private void loadProductEscalationChart() {
-        try {
-            // Load real escalation data from SQL database
-            Map<String, Integer> escalations = analyticsService.getEscalationsByProduct();
-            
-            XYChart.Series<String, Number> series = new XYChart.Series<>();
-            series.setName("Escalations");
-            
-            if (escalations.isEmpty()) {
-                // Show "No Data" if database is empty
-                series.getData().add(new XYChart.Data<>("No Data Yet", 0));
-            } else {
-                // Display real data from database
-                for (Map.Entry<String, Integer> entry : escalations.entrySet()) {
-                    series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
-                }
-                System.out.println("✓ Loaded " + escalations.size() + " products with escalations");
+    private void showProductEscalationChart(Map<String, Integer> escalations) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Escalations");
+        
+        if (escalations.isEmpty()) {
+            // Show "No Data" if database is empty
+            series.getData().add(new XYChart.Data<>("No Data Yet", 0));
+        } else {
+            // Display real data from database
+            for (Map.Entry<String, Integer> entry : escalations.entrySet()) {
+                series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
             }
-            
-            productEscalationChart.getData().clear();
-            productEscalationChart.getData().add(series);
-        } catch (Exception e) {
-            System.err.println("Error loading product escalation chart: " + e.getMessage());
-            e.printStackTrace();
+            System.out.println("✓ Loaded " + escalations.size() + " products with escalations");
         }
+        
+        productEscalationChart.getData().clear();
+        productEscalationChart.getData().add(series);
     }
     
-    private void loadResolutionTypeChart() {
-        try {
-            // Load real resolution data from SQL database
-            Map<String, Double> distribution = analyticsService.getResolutionTypeDistribution();
-            
-            ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
-            
-            if (distribution.isEmpty() || distribution.values().stream().allMatch(v -> v == 0.0)) {
-                // Show "No Data" if database is empty
-                pieData.add(new PieChart.Data("No Data Yet (100%)", 100.0));
-            } else {
-                // Display real data from database
-                for (Map.Entry<String, Double> entry : distribution.entrySet()) {
-                    pieData.add(new PieChart.Data(entry.getKey() + " (" + 
-                        String.format("%.1f%%", entry.getValue()) + ")", entry.getValue()));
-                }
-                System.out.println("✓ Loaded resolution distribution: " + distribution);
+    private void showResolutionTypeChart(Map<String, Double> distribution) {
+        ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
+        
+        if (distribution.isEmpty() || distribution.values().stream().allMatch(v -> v == 0.0)) {
+            // Show "No Data" if database is empty
+            pieData.add(new PieChart.Data("No Data Yet (100%)", 100.0));
+        } else {
+            // Display real data from database
+            for (Map.Entry<String, Double> entry : distribution.entrySet()) {
+                pieData.add(new PieChart.Data(entry.getKey() + " (" + 
+                    String.format("%.1f%%", entry.getValue()) + ")", entry.getValue()));
             }
-            
-            resolutionTypeChart.setData(pieData);
-        } catch (Exception e) {
-            System.err.println("Error loading resolution type chart: " + e.getMessage());
-            e.printStackTrace();
+            System.out.println("✓ Loaded resolution distribution: " + distribution);
         }
+        
+        resolutionTypeChart.setData(pieData);
     }
     
     private void loadEscalationTrendsChart() {
@@ -353,33 +332,34 @@ public class AdminOverviewController {
         }
     }
     
-    private void loadEscalationDetails() {
-        try {
-            ObservableList<EscalationRow> rows = FXCollections.observableArrayList();
-            
-            // Load real escalation data from SQL database
-            List<AnalyticsService.EscalationDetail> details = analyticsService.getEscalationDetails();
-            
-            for (AnalyticsService.EscalationDetail detail : details) {
-                rows.add(new EscalationRow(
-                    detail.getTicketId(),
-                    detail.getUserName(),
-                    detail.getProductName(),
-                    detail.getEscalatedAt(),
-                    detail.getMessageCount(),
-                    detail.getPriority(),
-                    getTicketStatus(detail.getTicketId()),
-                    detail.getConversationHistory()
-                ));
-            }
-            
-            escalationDetailsTable.setItems(rows);
-            System.out.println("✓ Loaded " + rows.size() + " escalation details from database");
-            
-        } catch (Exception e) {
-            System.err.println("Error loading escalation details: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Build the escalation rows (runs on a background thread)
+     */
+    private List<EscalationRow> queryEscalationDetails() {
+        List<EscalationRow> rows = new ArrayList<>();
+        
+        // Load real escalation data from SQL database
+        List<AnalyticsService.EscalationDetail> details = analyticsService.getEscalationDetails();
+        
+        for (AnalyticsService.EscalationDetail detail : details) {
+            rows.add(new EscalationRow(
+                detail.getTicketId(),
+                detail.getUserName(),
+                detail.getProductName(),
+                detail.getEscalatedAt(),
+                detail.getMessageCount(),
+                detail.getPriority(),
+                getTicketStatus(detail.getTicketId()),
+                detail.getConversationHistory()
+            ));
         }
+        
+        return rows;
+    }
+    
+    private void showEscalationDetails(List<EscalationRow> rows) {
+        escalationDetailsTable.setItems(FXCollections.observableArrayList(rows));
+        System.out.println("✓ Loaded " + rows.size() + " escalation details from database");
     }
     
     /**
@@ -1,7 +1,9 @@
 package com.care.controller.admin;
 
+import com.care.model.DashboardSnapshot;
 import com.care.model.Message;
 import com.care.service.AnalyticsService;
+import com.care.util.DashboardLoader;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -61,6 +63,7 @@ public class AdminReportsController {
     @FXML private TableColumn<AnalyticsService.EscalationDetail, Void> escalationActionsCol;
     
     private AnalyticsService analyticsService;
+    private DashboardLoader dashboardLoader;
     
     public AdminReportsController() {
         this.analyticsService = new AnalyticsService();
@@ -137,49 +140,59 @@ public class AdminReportsController {
     }
     
     private void loadAnalytics() {
-        try {
-            // Load key metrics
-            loadKeyMetrics();
-            
-            // Load charts
-            loadProductEscalationChart();
-            loadTicketStatusChart();
-            loadSessionsTimeChart();
-            loadResolutionTypeChart();
-            loadEscalationTrendsChart();
-            
-            // Load satisfaction score
-            loadSatisfactionScore();
-            
-            // Load tables
-            loadTopIssues();
-            loadAgentPerformance();
-            loadEscalationDetails();
-            
-            System.out.println("✓ Analytics loaded successfully");
-        } catch (Exception e) {
-            System.err.println("Error loading analytics");
-            e.printStackTrace();
+        // Drop a load that is still running (refresh clicked twice)
+        if (dashboardLoader != null) {
+            dashboardLoader.cancel();
         }
+        
+        // Widgets load in parallel off the FX thread and appear as they arrive
+        dashboardLoader = new DashboardLoader("Admin reports");
+        dashboardLoader.cancelWhenRemoved(topIssuesTable);
+        dashboardLoader.prepare("Analytics rollups", analyticsService::ensureRollups);
+        
+        // Key metrics and satisfaction score share the snapshot
+        dashboardLoader.load("Key metrics", analyticsService::getDashboardSnapshot, snapshot -> {
+            showKeyMetrics(snapshot);
+            showSatisfactionScore(snapshot);
+        });
+        
+        // Charts
+        dashboardLoader.load("Product escalation chart", analyticsService::getEscalationsByProduct,
+                             this::showProductEscalationChart);
+        dashboardLoader.load("Ticket status chart", analyticsService::getTicketStatusDistribution,
+                             this::showTicketStatusChart);
+        dashboardLoader.load("Sessions chart", analyticsService::getSessionsByDate,
+                             this::showSessionsTimeChart);
+        dashboardLoader.load("Resolution type chart", analyticsService::getResolutionTypeDistribution,
+                             this::showResolutionTypeChart);
+        dashboardLoader.load("Escalation trends chart", analyticsService::getEscalationsByHour,
+                             this::showEscalationTrendsChart);
+        
+        // Tables
+        dashboardLoader.load("Top issues", analyticsService::getTopIssues, this::showTopIssues);
+        dashboardLoader.load("Agent performance", analyticsService::getAgentPerformance,
+                             this::showAgentPerformance);
+        dashboardLoader.load("Escalation details", analyticsService::getEscalationDetails,
+                             this::showEscalationDetails);
+        
+        dashboardLoader.logWhenDone();
     }
     
-    private void loadKeyMetrics() {
-        int totalChats = analyticsService.getTotalChatSessions();
+    private void showKeyMetrics(DashboardSnapshot snapshot) {
+        int totalChats = snapshot.getTotalSessions();
         totalChatsText.setText(String.valueOf(totalChats));
         
-        double escalationRate = analyticsService.getEscalationRate();
+        double escalationRate = snapshot.getEscalationRate();
         escalationRateText.setText(String.format("%.1f%%", escalationRate));
         
-        int resolvedTickets = analyticsService.getResolvedTicketsCount();
+        int resolvedTickets = snapshot.getResolvedTicketCount();
         resolvedTicketsText.setText(String.valueOf(resolvedTickets));
         
         double avgResponseTime = analyticsService.getAverageResponseTime();
         avgResponseTimeText.setText(String.format("%.1f min", avgResponseTime));
     }
     
-    private void loadProductEscalationChart() {
-        Map<String, Integer> escalationsByProduct = analyticsService.getEscalationsByProduct();
-        
+    private void showProductEscalationChart(Map<String, Integer> escalationsByProduct) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Escalations");
         
@@ -194,9 +207,7 @@ public class AdminReportsController {
         productEscalationChart.setLegendVisible(false);
     }
     
-    private void loadTicketStatusChart() {
-        Map<String, Integer> statusDistribution = analyticsService.getTicketStatusDistribution();
-        
+    private void showTicketStatusChart(Map<String, Integer> statusDistribution) {
         ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
         
         for (Map.Entry<String, Integer> entry : statusDistribution.entrySet()) {
@@ -215,9 +226,7 @@ public class AdminReportsController {
         }
     }
     
-    private void loadSessionsTimeChart() {
-        Map<String, Integer> sessionsByDate = analyticsService.getSessionsByDate();
-        
+    private void showSessionsTimeChart(Map<String, Integer> sessionsByDate) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Sessions");
         
@@ -230,18 +239,14 @@ public class AdminReportsController {
         sessionsTimeChart.setLegendVisible(false);
     }
     
-    private void loadTopIssues() {
-        List<AnalyticsService.IssueData> issues = analyticsService.getTopIssues();
-        topIssuesTable.getItems().clear();
-        topIssuesTable.getItems().addAll(issues);
+    private void showTopIssues(List<AnalyticsService.IssueData> issues) {
+        topIssuesTable.getItems().setAll(issues);
         
         System.out.println("✓ Loaded " + issues.size() + " top issues");
     }
     
-    private void loadAgentPerformance() {
-        List<AnalyticsService.AgentPerformance> performances = analyticsService.getAgentPerformance();
-        agentPerformanceTable.getItems().clear();
-        agentPerformanceTable.getItems().addAll(performances);
+    private void showAgentPerformance(List<AnalyticsService.AgentPerformance> performances) {
+        agentPerformanceTable.getItems().setAll(performances);
         
         System.out.println("✓ Loaded " + performances.size() + " agent performance records");
     }
@@ -261,9 +266,7 @@ public class AdminReportsController {
         }
     }
     
-    private void loadResolutionTypeChart() {
-        Map<String, Double> resolutionTypes = analyticsService.getResolutionTypeDistribution();
-        
+    private void showResolutionTypeChart(Map<String, Double> resolutionTypes) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Resolution Type");
         
@@ -276,9 +279,7 @@ public class AdminReportsController {
         resolutionTypeChart.setLegendVisible(true);
     }
     
-    private void loadEscalationTrendsChart() {
-        Map<String, Integer> escalationsByHour = analyticsService.getEscalationsByHour();
-        
+    private void showEscalationTrendsChart(Map<String, Integer> escalationsByHour) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Escalations");
         
@@ -296,18 +297,16 @@ public class AdminReportsController {
         escalationTrendsChart.setLegendVisible(false);
     }
     
-    private void loadSatisfactionScore() {
-        double score = analyticsService.getUserSatisfactionScore();
+    private void showSatisfactionScore(DashboardSnapshot snapshot) {
+        double score = analyticsService.getUserSatisfactionScore(snapshot);
         satisfactionScoreText.setText(String.format("%.1f", score));
         
-        int totalSessions = analyticsService.getTotalChatSessions();
+        int totalSessions = snapshot.getTotalSessions();
         satisfactionDetailsText.setText("Based on " + totalSessions + " chat sessions (simulated data)");
     }
     
-    private void loadEscalationDetails() {
-        List<AnalyticsService.EscalationDetail> details = analyticsService.getEscalationDetails();
-        escalationDetailsTable.getItems().clear();
-        escalationDetailsTable.getItems().addAll(details);
+    private void showEscalationDetails(List<AnalyticsService.EscalationDetail> details) {
+        escalationDetailsTable.getItems().setAll(details);
         
         System.out.println("✓ Loaded " + details.size() + " escalation details");
     }
@@ -1,15 +1,13 @@
 package com.care.controller.admin;
 
-import com.care.dao.ChatSessionDAO;
 import com.care.dao.MessageDAO;
-import com.care.dao.ProductDAO;
+import com.care.dao.TicketViewDAO;
 import com.care.dao.UserDAO;
-import com.care.model.ChatSession;
 import com.care.model.Message;
-import com.care.model.Product;
-import com.care.model.Ticket;
+import com.care.model.TicketView;
 import com.care.model.User;
 import com.care.service.TicketService;
+import com.care.util.LazyTablePager;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
@@ -17,8 +15,8 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -43,19 +41,19 @@ public class AdminTicketsController {
     @FXML private TableColumn<TicketDisplay, String> createdAtCol;
     @FXML private TableColumn<TicketDisplay, Void> actionsCol;
     
+    private static final int PAGE_SIZE = 100;
+    
     private TicketService ticketService;
-    private ChatSessionDAO chatSessionDAO;
+    private TicketViewDAO ticketViewDAO;
     private MessageDAO messageDAO;
     private UserDAO userDAO;
-    private ProductDAO productDAO;
-    private List<Ticket> allTickets;
+    private LazyTablePager<TicketDisplay> pager;
     
     public AdminTicketsController() {
         this.ticketService = new TicketService();
-        this.chatSessionDAO = new ChatSessionDAO();
+        this.ticketViewDAO = new TicketViewDAO();
         this.messageDAO = new MessageDAO();
         this.userDAO = new UserDAO();
-        this.productDAO = new ProductDAO();
     }
     
     @FXML
@@ -93,6 +91,14 @@ public class AdminTicketsController {
         // Setup actions column
         setupActionsColumn();
         
+        // Rows are loaded a page at a time as the table scrolls
+        pager = new LazyTablePager<>(ticketsTable, PAGE_SIZE, (after, limit) ->
+            ticketViewDAO.getPage(getStatusFilter(), getPriorityFilter(), null,
+                                  after != null ? after.getView() : null, limit)
+                .stream()
+                .map(TicketDisplay::new)
+                .collect(Collectors.toList()));
+        
         // Load data
         loadTickets();
     }
@@ -151,15 +157,14 @@ public class AdminTicketsController {
     }
     
     /**
-     * Load tickets from database
+     * Load the first page of tickets matching the filters
      */
     private void loadTickets() {
         try {
-            allTickets = ticketService.getAllTickets();
-            System.out.println("✓ Loaded " + allTickets.size() + " tickets from database");
-            
-            applyFilters();
-            
+            pager.reset();
+            updateStats();
+            System.out.println("✓ Loaded " + pager.getLoadedCount() + " tickets from database");
+        
         } catch (Exception e) {
             System.err.println("Error loading tickets");
             e.printStackTrace();
@@ -174,51 +179,33 @@ public class AdminTicketsController {
     
     /**
      * Apply filters to tickets
+     * Filtering runs in the database, so only matching rows are loaded
      */
     private void applyFilters() {
+        loadTickets();
+    }
+    
+    private String getStatusFilter() {
         String statusFilter = statusFilterCombo.getValue();
+        return statusFilter == null || "All Statuses".equals(statusFilter) ? null : statusFilter;
+    }
+    
+    private String getPriorityFilter() {
         String priorityFilter = priorityFilterCombo.getValue();
-        
-        List<Ticket> filteredTickets = allTickets;
-        
-        // Apply status filter
-        if (!"All Statuses".equals(statusFilter)) {
-            filteredTickets = filteredTickets.stream()
-                .filter(ticket -> statusFilter.equals(ticket.getStatus()))
-                .collect(Collectors.toList());
-        }
-        
-        // Apply priority filter
-        if (!"All Priorities".equals(priorityFilter)) {
-            filteredTickets = filteredTickets.stream()
-                .filter(ticket -> priorityFilter.equals(ticket.getPriority()))
-                .collect(Collectors.toList());
-        }
-        
-        // Convert to display objects
-        ticketsTable.getItems().clear();
-        for (Ticket ticket : filteredTickets) {
-            TicketDisplay display = new TicketDisplay(ticket);
-            ticketsTable.getItems().add(display);
-        }
-        
-        // Update stats based on filtered tickets
-        updateStats(filteredTickets);
+        return priorityFilter == null || "All Priorities".equals(priorityFilter) ? null : priorityFilter;
     }
     
     /**
-     * Update statistics labels based on the provided ticket list
+     * Update statistics labels for all tickets matching the filters
      */
-    private void updateStats(List<Ticket> tickets) {
-        int total = tickets.size();
-        int open = (int) tickets.stream().filter(t -> "OPEN".equals(t.getStatus())).count();
-        int inProgress = (int) tickets.stream().filter(t -> "IN_PROGRESS".equals(t.getStatus())).count();
-        int resolved = (int) tickets.stream().filter(t -> "RESOLVED".equals(t.getStatus())).count();
+    private void updateStats() {
+        Map<String, Integer> counts = ticketViewDAO.getStatusCounts(getStatusFilter(), getPriorityFilter(), null);
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
         
         totalTicketsLabel.setText("Total Tickets: " + total);
-        openTicketsLabel.setText("Open: " + open);
-        inProgressTicketsLabel.setText("In Progress: " + inProgress);
-        resolvedTicketsLabel.setText("Resolved: " + resolved);
+        openTicketsLabel.setText("Open: " + counts.getOrDefault("OPEN", 0));
+        inProgressTicketsLabel.setText("In Progress: " + counts.getOrDefault("IN_PROGRESS", 0));
+        resolvedTicketsLabel.setText("Resolved: " + counts.getOrDefault("RESOLVED", 0));
     }
     
     /**
@@ -264,7 +251,7 @@ public class AdminTicketsController {
             dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
             
             dialog.show();
-            
+        
         } catch (Exception e) {
             System.err.println("Error loading conversation: " + e.getMessage());
             e.printStackTrace();
@@ -332,7 +319,7 @@ public class AdminTicketsController {
                     loadTickets(); // Refresh
                 }
             });
-            
+        
         } catch (Exception e) {
             System.err.println("Error assigning agent: " + e.getMessage());
             e.printStackTrace();
@@ -370,7 +357,8 @@ public class AdminTicketsController {
     /**
      * Inner class for table display
      */
-    private class TicketDisplay {
+    private static class TicketDisplay {
+        private TicketView view;
         private int ticketId;
         private int sessionId;
         private String userName;
@@ -380,23 +368,19 @@ public class AdminTicketsController {
         private String agentName;
         private String formattedDate;
         
-        public TicketDisplay(Ticket ticket) {
-            this.ticketId = ticket.getTicketId();
-            this.sessionId = ticket.getSessionId();
-            this.priority = ticket.getPriority();
-            this.status = ticket.getStatus();
+        public TicketDisplay(TicketView view) {
+            this.view = view;
+            this.ticketId = view.getTicketId();
+            this.sessionId = view.getSessionId();
+            this.priority = view.getPriority();
+            this.status = view.getStatus();
             
-            // Get session info
-            ChatSession session = chatSessionDAO.getById(ticket.getSessionId());
-            if (session != null) {
-                // Get user name
-                User user = userDAO.findById(session.getUserId());
-                this.userName = user != null ? user.getName() : "Unknown User";
+            // Session info
+            if (view.isSessionFound()) {
+                this.userName = view.getUserName() != null ? view.getUserName() : "Unknown User";
                 
-                // Get product name
-                if (session.getProductId() != null) {
-                    Product product = productDAO.findById(session.getProductId());
-                    this.productName = product != null ? product.getName() : "Unknown Product";
+                if (view.getProductId() != null) {
+                    this.productName = view.getProductName() != null ? view.getProductName() : "Unknown Product";
                 } else {
                     this.productName = "No Product";
                 }
@@ -405,23 +389,13 @@ public class AdminTicketsController {
                 this.productName = "Unknown";
             }
             
-            // Get agent name
-            if (ticket.getAssignedAgentId() != null) {
-                User agent = userDAO.findById(ticket.getAssignedAgentId());
-                this.agentName = agent != null ? agent.getName() : "Unassigned";
-            } else {
-                this.agentName = "Unassigned";
-            }
+            // Agent name
+            this.agentName = view.getAgentName() != null ? view.getAgentName() : "Unassigned";
             
-            // Format date
-            if (ticket.getCreatedAt() != null) {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
-                this.formattedDate = ticket.getCreatedAt().format(formatter);
-            } else {
-                this.formattedDate = "N/A";
-            }
+            this.formattedDate = view.getFormattedCreatedAt();
         }
         
+        public TicketView getView() { return view; }
         public int getTicketId() { return ticketId; }
         public int getSessionId() { return sessionId; }
         public String getUserName() { return userName; }
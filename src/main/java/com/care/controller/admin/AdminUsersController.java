@@ -1,6 +1,8 @@
 package com.care.controller.admin;
 
 import com.care.model.User;
+import com.care.service.UserImportService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
@@ -11,14 +13,17 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.text.Text; // Added for text measurement
 import javafx.beans.property.SimpleStringProperty;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.util.Callback;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
@@ -40,6 +45,8 @@ public class AdminUsersController {
     @FXML private Label adminsCountLabel;
     @FXML private Label agentsCountLabel;
     @FXML private Label usersCountLabel;
+    @FXML private Button importBtn;
+    @FXML private Button exportBtn;
     
     private com.care.service.UserService userService;
     private List<User> allUsers;
@@ -217,6 +224,112 @@ public class AdminUsersController {
         }
     }
     
+    @FXML
+    private void handleImportUsers() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Users");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV or JSON Lines", "*.csv", "*.jsonl", "*.ndjson"),
+            new FileChooser.ExtensionFilter("All Files", "*.*")
+        );
+        
+        File file = fileChooser.showOpenDialog(usersTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        // Import off the FX thread, showing progress on the button
+        String buttonText = importBtn.getText();
+        importBtn.setDisable(true);
+        importBtn.setText("Importing...");
+        
+        UserImportService.getInstance().importUsersAsync(file.toPath(), (processed, imported, rejected) ->
+            Platform.runLater(() -> importBtn.setText("Imported " + imported + " / " + processed))
+        ).whenComplete((result, error) -> Platform.runLater(() -> {
+            importBtn.setText(buttonText);
+            importBtn.setDisable(false);
+            
+            if (error != null) {
+                System.err.println("Error importing users");
+                error.printStackTrace();
+                showAlert(Alert.AlertType.ERROR, "Import Failed", "Could not import " + file.getName(),
+                    error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                return;
+            }
+            
+            String details = result.getImported() + " of " + result.getProcessed() + " users imported in " +
+                             String.format("%.1f", result.getElapsedMillis() / 1000.0) + " s.";
+            if (result.getRejectsFile() != null) {
+                details += "\n\n" + result.getRejected() + " rows were rejected. See:\n" + result.getRejectsFile();
+            }
+            showAlert(result.getRejected() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION,
+                "Import Complete", "Imported users from " + file.getName(), details);
+            loadUsers();
+        }));
+    }
+    
+    @FXML
+    private void handleExportUsers() {
+        // Hashes let the export be imported again with working logins
+        Alert choice = new Alert(Alert.AlertType.CONFIRMATION);
+        choice.setTitle("Export Users");
+        choice.setHeaderText("Include password hashes?");
+        choice.setContentText("Exports with password hashes can be imported again with working logins. " +
+                            "Keep such files private.");
+        ButtonType withHashes = new ButtonType("With Hashes");
+        ButtonType withoutHashes = new ButtonType("Without Hashes");
+        choice.getButtonTypes().setAll(withHashes, withoutHashes, ButtonType.CANCEL);
+        
+        Optional<ButtonType> answer = choice.showAndWait();
+        if (answer.isEmpty() || answer.get() == ButtonType.CANCEL) {
+            return;
+        }
+        boolean includeHashes = answer.get() == withHashes;
+        
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Users");
+        fileChooser.setInitialFileName("CARE_Users_" +
+            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+            new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl")
+        );
+        
+        File file = fileChooser.showSaveDialog(usersTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        String buttonText = exportBtn.getText();
+        exportBtn.setDisable(true);
+        exportBtn.setText("Exporting...");
+        
+        UserImportService.getInstance().exportUsersAsync(file.toPath(), includeHashes, (processed, written, rejected) ->
+            Platform.runLater(() -> exportBtn.setText("Exported " + written))
+        ).whenComplete((count, error) -> Platform.runLater(() -> {
+            exportBtn.setText(buttonText);
+            exportBtn.setDisable(false);
+            
+            if (error != null) {
+                System.err.println("Error exporting users");
+                error.printStackTrace();
+                showAlert(Alert.AlertType.ERROR, "Export Failed", "Could not export users",
+                    error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+            } else {
+                showAlert(Alert.AlertType.INFORMATION, "Export Complete", count + " users exported",
+                    "Saved to:\n" + file.getAbsolutePath());
+            }
+        }));
+    }
+    
+    private void showAlert(Alert.AlertType type, String title, String header, String content) {
+        Alert alert = new Alert(type);
+        alert.setTitle(title);
+        alert.setHeaderText(header);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+    
     @FXML
     private void handleRefresh() {
         loadUsers();
@@ -1,17 +1,18 @@
 package com.care.controller.agent;
 
-import com.care.dao.ChatSessionDAO;
 import com.care.dao.MessageDAO;
-import com.care.dao.ProductDAO;
-import com.care.dao.TicketDAO;
-import com.care.dao.UserDAO;
-import com.care.model.ChatSession;
+import com.care.dao.MessageSearchDAO;
+import com.care.dao.TicketViewDAO;
 import com.care.model.Message;
-import com.care.model.Product;
-import com.care.model.Ticket;
-import com.care.model.User;
+import com.care.model.MessageSearchHit;
+import com.care.model.TicketEvent;
+import com.care.model.TicketView;
 import com.care.service.TicketService;
+import com.care.util.EventBus;
+import com.care.util.LazyTablePager;
 import com.care.util.SessionManager;
+import com.care.util.TranscriptSearchView;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -24,8 +25,13 @@ import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -47,24 +53,26 @@ public class AgentOverviewController {
     @FXML private Text totalTicketsText;
     @FXML private Text openTicketsText;
     @FXML private Text inProgressTicketsText;
+    @FXML private TextField searchField;
+    @FXML private ListView<MessageSearchHit> searchResultsList;
+    
+    private static final int PAGE_SIZE = 100;
+    
+    private static ExecutorService ticketEventExecutor;
     
     private SessionManager sessionManager;
-    private TicketDAO ticketDAO;
+    private TicketViewDAO ticketViewDAO;
     private TicketService ticketService;
-    private ChatSessionDAO chatSessionDAO;
     private MessageDAO messageDAO;
-    private UserDAO userDAO;
-    private ProductDAO productDAO;
-    private List<TicketDisplay> allTickets;
+    private LazyTablePager<TicketDisplay> pager;
+    private TranscriptSearchView transcriptSearch;
+    private EventBus.Subscription ticketSubscription;
     
     public AgentOverviewController() {
         this.sessionManager = SessionManager.getInstance();
-        this.ticketDAO = new TicketDAO();
+        this.ticketViewDAO = new TicketViewDAO();
         this.ticketService = new TicketService();
-        this.chatSessionDAO = new ChatSessionDAO();
         this.messageDAO = new MessageDAO();
-        this.userDAO = new UserDAO();
-        this.productDAO = new ProductDAO();
     }
     
     @FXML
@@ -83,9 +91,30 @@ public class AgentOverviewController {
         // Setup actions column
         setupActionsColumn();
         
+        // Rows are loaded a page at a time as the table scrolls
+        pager = new LazyTablePager<>(ticketsTable, PAGE_SIZE, (after, limit) ->
+            ticketViewDAO.getPage(getStatusFilter(), null, getAgentId(),
+                                  after != null ? after.getView() : null, limit)
+                .stream()
+                .map(this::createTicketDisplay)
+                .collect(Collectors.toList()));
+        
+        // Search covers every transcript, so hits come newest first; ranking
+        // all matches of a common word would read the whole index
+        transcriptSearch = new TranscriptSearchView(searchField, searchResultsList, null,
+            MessageSearchDAO.Order.NEWEST, this::handleOpenSearchHit);
+        
         // Load tickets
         loadTickets();
         autoResizeColumns();
+        
+        // Ticket changes from anywhere in the app update their rows in place
+        ticketSubscription = EventBus.getInstance().subscribe(TicketEvent.class, this::applyTicketEvents);
+        ticketsTable.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                ticketSubscription.unsubscribe();
+            }
+        });
     }
     
     private void setupTableColumns() {
@@ -196,40 +225,22 @@ public class AgentOverviewController {
         System.out.println("Refresh clicked");
         loadTickets();
         autoResizeColumns();
+        transcriptSearch.refresh();
     }
     
     private void handleFilterChange() {
-        String filter = statusFilter.getValue();
-        List<TicketDisplay> filtered;
-        
-        if (filter.equals("All")) {
-            filtered = allTickets;
-            ticketsTable.getItems().setAll(allTickets);
-        } else {
-            filtered = allTickets.stream()
-                    .filter(t -> t.getStatus().equals(filter))
-                    .collect(Collectors.toList());
-            ticketsTable.getItems().setAll(filtered);
-        }
-        
-        // Update statistics based on filtered tickets
-        updateStatistics(filtered);
+        loadTickets();
         autoResizeColumns();
     }
     
     private void loadTickets() {
         try {
-            int agentId = sessionManager.getCurrentUser().getUserId();
-            List<Ticket> tickets = ticketDAO.getByAgentId(agentId);
-            
-            allTickets = tickets.stream()
-                    .map(this::createTicketDisplay)
-                    .collect(Collectors.toList());
+            pager.reset();
             
-            ticketsTable.getItems().setAll(allTickets);
-            updateStatistics(allTickets);
+            // Statistics cover every matching ticket, not only the loaded pages
+            updateStatistics(ticketViewDAO.getStatusCounts(getStatusFilter(), null, getAgentId()));
             
-            System.out.println("✓ Loaded " + tickets.size() + " tickets for agent ID: " + agentId);
+            System.out.println("✓ Loaded " + pager.getLoadedCount() + " tickets for agent ID: " + getAgentId());
         } catch (Exception e) {
             System.err.println("Error loading tickets");
             e.printStackTrace();
@@ -237,50 +248,133 @@ public class AgentOverviewController {
         }
     }
     
-    private TicketDisplay createTicketDisplay(Ticket ticket) {
-        TicketDisplay display = new TicketDisplay();
-        display.setTicket(ticket);
-        display.setTicketId(ticket.getTicketId());
-        display.setSessionId(ticket.getSessionId());
-        display.setStatus(ticket.getStatus());
-        display.setPriority(ticket.getPriority());
-        
-        if (ticket.getCreatedAt() != null) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
-            display.setCreatedAt(ticket.getCreatedAt().format(formatter));
-        } else {
-            display.setCreatedAt("N/A");
+    private static synchronized ExecutorService getTicketEventExecutor() {
+        if (ticketEventExecutor == null) {
+            // One thread, so batches are read and applied in the order they were published
+            ticketEventExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "care-ticket-events");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        return ticketEventExecutor;
+    }
+    
+    /**
+     * Insert, replace or remove the rows of changed tickets
+     * The changed tickets (one query per batch) and the statistics are read in
+     * the background; rows keep the newest-first order, and tickets that would
+     * land past the loaded pages are left for the pager to load.
+     */
+    private void applyTicketEvents(List<TicketEvent> events) {
+        Set<Integer> changedIds = new LinkedHashSet<>();
+        for (TicketEvent event : events) {
+            if (event.getKind() != TicketEvent.Kind.DELETED) {
+                changedIds.add(event.getTicketId());
+            }
+        }
+        String status = getStatusFilter();
+        int agentId = getAgentId();
         
-        // Load related data
-        try {
-            ChatSession session = chatSessionDAO.getById(ticket.getSessionId());
-            if (session != null) {
-                User user = userDAO.findById(session.getUserId());
-                if (user != null) {
-                    display.setUserName(user.getName());
+        getTicketEventExecutor().execute(() -> {
+            try {
+                Map<Integer, TicketView> views = ticketViewDAO.getByIds(changedIds);
+                Map<String, Integer> counts = ticketViewDAO.getStatusCounts(status, null, agentId);
+                Platform.runLater(() -> applyTicketRows(events, views, counts, status));
+            } catch (Exception e) {
+                System.err.println("Error loading changed tickets");
+                e.printStackTrace();
+            }
+        });
+    }
+    
+    private void applyTicketRows(List<TicketEvent> events, Map<Integer, TicketView> views,
+                                 Map<String, Integer> counts, String countedStatus) {
+        List<TicketDisplay> rows = ticketsTable.getItems();
+        
+        for (TicketEvent event : events) {
+            int index = indexOfTicket(event.getTicketId());
+            TicketView view = views.get(event.getTicketId());
+            
+            if (view == null || !matchesFilters(view)) {
+                if (index >= 0) {
+                    rows.remove(index);
                 }
-                
-                Product product = productDAO.findById(session.getProductId());
-                if (product != null) {
-                    display.setProductName(product.getName());
+            } else if (index >= 0) {
+                rows.set(index, createTicketDisplay(view));
+            } else {
+                int position = insertPosition(view);
+                if (position < rows.size() || !pager.hasMore()) {
+                    rows.add(position, createTicketDisplay(view));
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error loading related data for ticket " + ticket.getTicketId());
         }
         
+        // The filter changed meanwhile: loadTickets() already counted for the new one
+        if (Objects.equals(countedStatus, getStatusFilter())) {
+            updateStatistics(counts);
+        }
+    }
+    
+    private boolean matchesFilters(TicketView view) {
+        String status = getStatusFilter();
+        return (status == null || status.equals(view.getStatus()))
+            && Integer.valueOf(getAgentId()).equals(view.getAssignedAgentId());
+    }
+    
+    private int indexOfTicket(int ticketId) {
+        List<TicketDisplay> rows = ticketsTable.getItems();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getTicketId() == ticketId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Find where a ticket goes in the newest-first order of the loaded rows
+     */
+    private int insertPosition(TicketView view) {
+        List<TicketDisplay> rows = ticketsTable.getItems();
+        for (int i = 0; i < rows.size(); i++) {
+            TicketView row = rows.get(i).getView();
+            int order = view.getCreatedAt().compareTo(row.getCreatedAt());
+            if (order > 0 || (order == 0 && view.getTicketId() > row.getTicketId())) {
+                return i;
+            }
+        }
+        return rows.size();
+    }
+    
+    private int getAgentId() {
+        return sessionManager.getCurrentUser().getUserId();
+    }
+    
+    private String getStatusFilter() {
+        String filter = statusFilter.getValue();
+        return filter == null || filter.equals("All") ? null : filter;
+    }
+    
+    private TicketDisplay createTicketDisplay(TicketView view) {
+        TicketDisplay display = new TicketDisplay();
+        display.setView(view);
+        display.setTicketId(view.getTicketId());
+        display.setSessionId(view.getSessionId());
+        display.setStatus(view.getStatus());
+        display.setPriority(view.getPriority());
+        display.setCreatedAt(view.getFormattedCreatedAt());
+        display.setUserName(view.getUserName());
+        display.setProductName(view.getProductName());
         return display;
     }
     
-    private void updateStatistics(List<TicketDisplay> tickets) {
-        int total = tickets.size();
-        long open = tickets.stream().filter(t -> t.getStatus().equals("OPEN")).count();
-        long inProgress = tickets.stream().filter(t -> t.getStatus().equals("IN_PROGRESS")).count();
+    private void updateStatistics(Map<String, Integer> counts) {
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
         
         totalTicketsText.setText(String.valueOf(total));
-        openTicketsText.setText(String.valueOf(open));
-        inProgressTicketsText.setText(String.valueOf(inProgress));
+        openTicketsText.setText(String.valueOf(counts.getOrDefault("OPEN", 0)));
+        inProgressTicketsText.setText(String.valueOf(counts.getOrDefault("IN_PROGRESS", 0)));
     }
     
     private void autoResizeColumns() {
@@ -309,12 +403,28 @@ public class AgentOverviewController {
     }
     
     private void handleViewTicket(TicketDisplay ticketDisplay) {
+        showConversation("Ticket #" + ticketDisplay.getTicketId() + " - Conversation History",
+            ticketDisplay.getSessionId(),
+            new Text("Customer: " + ticketDisplay.getUserName()),
+            new Text("Product: " + ticketDisplay.getProductName()),
+            new Text("Status: " + ticketDisplay.getStatus() + " | Priority: " + ticketDisplay.getPriority()));
+    }
+    
+    private void handleOpenSearchHit(MessageSearchHit hit) {
+        showConversation("Session #" + hit.getSessionId() + " - Conversation History",
+            hit.getSessionId(),
+            new Text("Customer: " + (hit.getUserName() != null ? hit.getUserName() : "Unknown")),
+            new Text("Product: " + (hit.getProductName() != null ? hit.getProductName() : "Unknown")),
+            new Text("Session status: " + hit.getSessionStatus()));
+    }
+    
+    private void showConversation(String title, int sessionId, Text... details) {
         try {
-            List<Message> messages = messageDAO.getBySessionId(ticketDisplay.getSessionId());
+            List<Message> messages = messageDAO.getBySessionId(sessionId);
             
             Stage dialogStage = new Stage();
             dialogStage.initModality(Modality.APPLICATION_MODAL);
-            dialogStage.setTitle("Ticket #" + ticketDisplay.getTicketId() + " - Conversation History");
+            dialogStage.setTitle(title);
             
             VBox container = new VBox(15);
             container.setPadding(new Insets(20));
@@ -327,11 +437,7 @@ public class AgentOverviewController {
             // Info box
             VBox infoBox = new VBox(5);
             infoBox.setStyle("-fx-background-color: white; -fx-padding: 15; -fx-background-radius: 8;");
-            infoBox.getChildren().addAll(
-                new Text("Customer: " + ticketDisplay.getUserName()),
-                new Text("Product: " + ticketDisplay.getProductName()),
-                new Text("Status: " + ticketDisplay.getStatus() + " | Priority: " + ticketDisplay.getPriority())
-            );
+            infoBox.getChildren().addAll(details);
             
             // Messages scroll pane
             VBox messagesBox = new VBox(10);
@@ -373,7 +479,7 @@ public class AgentOverviewController {
             scene.getStylesheets().add(getClass().getResource("/com/care/styles/main.css").toExternalForm());
             dialogStage.setScene(scene);
             dialogStage.showAndWait();
-            
+        
         } catch (Exception e) {
             System.err.println("Error viewing ticket conversation");
             e.printStackTrace();
@@ -436,13 +542,12 @@ public class AgentOverviewController {
                 
                 // Update ticket status if checked
                 if (markInProgressCheck.isSelected()) {
-                    ticketService.updateTicketStatus(ticketDisplay.getTicket().getTicketId(), "IN_PROGRESS");
+                    ticketService.updateTicketStatus(ticketDisplay.getTicketId(), "IN_PROGRESS");
                 }
                 
                 showInfo("Reply sent successfully!");
                 dialogStage.close();
-                loadTickets(); // Refresh table
-                
+            
             } catch (Exception ex) {
                 System.err.println("Error sending reply");
                 ex.printStackTrace();
@@ -477,7 +582,7 @@ public class AgentOverviewController {
             if (response == ButtonType.OK) {
                 try {
                     boolean success = ticketService.updateTicketStatus(
-                        ticketDisplay.getTicket().getTicketId(), "RESOLVED");
+                        ticketDisplay.getTicketId(), "RESOLVED");
                     
                     if (success) {
                         // Add system message
@@ -488,7 +593,6 @@ public class AgentOverviewController {
                         messageDAO.create(systemMsg);
                         
                         showInfo("Ticket #" + ticketDisplay.getTicketId() + " marked as resolved!");
-                        loadTickets(); // Refresh
                     } else {
                         showError("Failed to resolve ticket.");
                     }
@@ -519,7 +623,7 @@ public class AgentOverviewController {
     
     // Inner class for table display
     public static class TicketDisplay {
-        private Ticket ticket;
+        private TicketView view;
         private int ticketId;
         private int sessionId;
         private String userName;
@@ -528,8 +632,8 @@ public class AgentOverviewController {
         private String priority;
         private String createdAt;
         
-        public Ticket getTicket() { return ticket; }
-        public void setTicket(Ticket ticket) { this.ticket = ticket; }
+        public TicketView getView() { return view; }
+        public void setView(TicketView view) { this.view = view; }
         
         public int getTicketId() { return ticketId; }
         public void setTicketId(int ticketId) { this.ticketId = ticketId; }
@@ -1,15 +1,19 @@
 package com.care.controller.shared;
 
 import com.care.model.User;
-import com.care.service.UserService;
+import com.care.service.AuthenticationService;
 import com.care.util.SessionManager;
 import com.care.util.ViewFactory;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Controller for Login View
  * Handles user authentication
@@ -22,12 +26,12 @@ public class LoginController {
     @FXML private Button loginButton;
     @FXML private Button registerButton;
     
-    private UserService userService;
+    private AuthenticationService authService;
     private ViewFactory viewFactory;
     private SessionManager sessionManager;
     
     public LoginController() {
-        this.userService = new UserService();
+        this.authService = AuthenticationService.getInstance();
         this.viewFactory = ViewFactory.getInstance();
         this.sessionManager = SessionManager.getInstance();
     }
@@ -49,9 +53,26 @@ public class LoginController {
             return;
         }
         
-        // Authenticate user
-        User user = userService.authenticate(email, password);
-        
+        // Authenticate user off the FX thread (BCrypt takes tens of milliseconds)
+        loginButton.setDisable(true);
+        errorLabel.setVisible(false);
+        authService.authenticateAsync(email, password).whenComplete((user, error) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    showError("Too many login attempts in progress. Please try again.");
+                } else {
+                    System.err.println("✗ Login failed: " + cause.getMessage());
+                    showError("Invalid email or password");
+                }
+            } else {
+                completeLogin(user);
+            }
+        }));
+    }
+    
+    private void completeLogin(User user) {
         if (user != null) {
             // Set session
             sessionManager.setCurrentUser(user);
@@ -3,26 +3,29 @@ package com.care.controller.user;
 import com.care.dao.ChatSessionDAO;
 import com.care.dao.MessageDAO;
 import com.care.model.ChatSession;
+import com.care.model.KnowledgeSearchHit;
 import com.care.model.Message;
+import com.care.model.MessageEvent;
 import com.care.model.Product;
 import com.care.model.Ticket;
 import com.care.service.AIService;
+import com.care.service.ConversationHistoryManager;
 import com.care.service.TicketService;
+import com.care.util.ChatTaskExecutor;
+import com.care.util.ChatTranscript;
+import com.care.util.CoalescingTextUpdater;
+import com.care.util.Config;
+import com.care.util.EventBus;
+import com.care.util.KnowledgeSearchView;
 import com.care.util.SessionManager;
 import com.care.util.ViewFactory;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
 import javafx.scene.control.Button;
-import javafx.scene.control.Label; // Changed from Text to Label
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.layout.HBox; // Added HBox
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
 
 import java.io.File;
@@ -30,6 +33,7 @@ import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Controller for Chat Area with OpenAI Integration
@@ -38,24 +42,32 @@ public class ChatAreaController {
     
     @FXML private Text chatTitleText;
     @FXML private Text chatSubtitleText;
-    @FXML private ScrollPane messagesScrollPane;
-    @FXML private VBox messagesContainer;
+    @FXML private ListView<ChatTranscript.Entry> messagesList;
     @FXML private TextField messageInputField;
     @FXML private Button sendBtn;
     @FXML private Button attachBtn;
     @FXML private Button escalateBtn;
     @FXML private Button endChatBtn;
+    @FXML private Button manualSearchBtn;
+    @FXML private VBox manualSearchPane;
+    @FXML private TextField manualSearchField;
+    @FXML private ListView<KnowledgeSearchHit> manualSearchResultsList;
     
     private ViewFactory viewFactory;
     private AIService aiService;
     private ChatSessionDAO chatSessionDAO;
     private MessageDAO messageDAO;
     private TicketService ticketService;
+    private ChatTaskExecutor taskExecutor;
+    private ChatTranscript transcript;
+    private KnowledgeSearchView manualSearchView;
+    private EventBus.Subscription messageSubscription;
     
     private ChatSession currentSession;
     private Product currentProduct;
     private List<Message> conversationHistory;
     private File attachedImageFile;
+    private Future<?> pendingResponse;
     
     public ChatAreaController() {
         this.viewFactory = ViewFactory.getInstance();
@@ -63,6 +75,7 @@ public class ChatAreaController {
         this.chatSessionDAO = new ChatSessionDAO();
         this.messageDAO = new MessageDAO();
         this.ticketService = new TicketService();
+        this.taskExecutor = ChatTaskExecutor.getInstance();
         this.conversationHistory = new ArrayList<>();
     }
     
@@ -70,9 +83,23 @@ public class ChatAreaController {
     private void initialize() {
         System.out.println("Initializing ChatAreaController...");
         
-        // Auto-scroll to bottom when new messages added
-        messagesContainer.heightProperty().addListener((obs, oldVal, newVal) -> {
-            messagesScrollPane.setVvalue(1.0);
+        // Only the bubbles on screen get nodes; older messages load on scroll-up
+        transcript = new ChatTranscript(messagesList, Config.getInstance().getChatHistoryPageSize(),
+            (beforeMessageId, limit) -> loadTranscriptPage(beforeMessageId, limit));
+        
+        // Manual search pane stays out of the layout until opened
+        manualSearchPane.managedProperty().bind(manualSearchPane.visibleProperty());
+        manualSearchPane.setVisible(false);
+        
+        // Agent replies and system notes show up while the chat is open
+        messageSubscription = EventBus.getInstance().subscribe(MessageEvent.class, this::handleMessageEvents);
+        
+        // Stop AI calls still running when the user navigates away
+        messagesList.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                taskExecutor.cancelOwner(this);
+                messageSubscription.unsubscribe();
+            }
         });
         
         // Focus on input field
@@ -131,32 +158,16 @@ public class ChatAreaController {
                 chatTitleText.setText("Chat Support - " + currentProduct.getName());
                 chatSubtitleText.setText("Continuing Previous Conversation");
                 
-                // Clear container and history first
-                messagesContainer.getChildren().clear();
+                // Clear history first, then show the newest page of previous messages
                 conversationHistory.clear();
-                
-                // Load previous messages
-                List<Message> previousMessages = messageDAO.getBySessionId(currentSession.getSessionId());
-                System.out.println("✓ Loaded " + previousMessages.size() + " previous messages for session " + currentSession.getSessionId());
-                
-                // Add messages to UI and conversation history
-                for (Message msg : previousMessages) {
-                    System.out.println("  - Adding message: " + msg.getSenderType() + " - " + 
-                                     (msg.getContent().length() > 50 ? msg.getContent().substring(0, 50) + "..." : msg.getContent()));
-                    
-                    // Add to UI
-                    addMessage(msg.getSenderType(), msg.getContent());
-                    
-                    // Add to conversation history for AI context (exclude SYSTEM messages)
-                    if (!"SYSTEM".equals(msg.getSenderType())) {
-                        conversationHistory.add(msg);
-                    }
-                }
+                int displayed = transcript.loadLatest();
+                System.out.println("✓ Displayed " + displayed + " previous messages for session " + currentSession.getSessionId() +
+                                 (transcript.hasOlder() ? " (older ones load on scroll-up)" : ""));
                 
                 // Add continuation message if there were previous messages
-                if (previousMessages.size() > 0) {
+                if (displayed > 0) {
                     addMessage("SYSTEM", "Continuing your previous conversation. You can keep chatting!");
-                    System.out.println("✓ Displayed " + previousMessages.size() + " previous messages in chat");
+                    loadConversationHistory();
                 } else {
                     // Empty session - just show welcome
                     String welcomeMsg = "Hello! I'm your AI support assistant. I'm here to help you with " + 
@@ -166,6 +177,7 @@ public class ChatAreaController {
                     
                     // Add to conversation history
                     Message welcomeMsgObj = new Message();
+                    welcomeMsgObj.setSessionId(currentSession.getSessionId());
                     welcomeMsgObj.setSenderType("BOT");
                     welcomeMsgObj.setContent(welcomeMsg);
                     conversationHistory.add(welcomeMsgObj);
@@ -187,6 +199,7 @@ public class ChatAreaController {
             // Update chat title
             chatTitleText.setText("Chat Support - " + currentProduct.getName());
             chatSubtitleText.setText("AI-Powered Support Assistant");
+            transcript.clear();
             
             // Create new chat session in database
             currentSession = new ChatSession();
@@ -207,6 +220,13 @@ public class ChatAreaController {
                 
                 // Save welcome message
                 saveMessage(sessionId, "BOT", welcomeMsg);
+                
+                // Keep history in the same order as a reloaded session
+                Message welcomeMsgObj = new Message();
+                welcomeMsgObj.setSessionId(sessionId);
+                welcomeMsgObj.setSenderType("BOT");
+                welcomeMsgObj.setContent(welcomeMsg);
+                conversationHistory.add(welcomeMsgObj);
             } else {
                     System.err.println("❌ Failed to create chat session - sessionId: " + sessionId);
                 addMessage("SYSTEM", "⚠ Failed to start chat session. Please try again.");
@@ -221,6 +241,73 @@ public class ChatAreaController {
         }
     }
     
+    /**
+     * Load one page of stored messages for the transcript
+     */
+    private List<ChatTranscript.Entry> loadTranscriptPage(int beforeMessageId, int limit) {
+        List<ChatTranscript.Entry> entries = new ArrayList<>();
+        for (Message msg : messageDAO.getPageBefore(currentSession.getSessionId(), beforeMessageId, limit)) {
+            entries.add(new ChatTranscript.Entry(msg.getMessageId(), msg.getSenderType(), msg.getContent(), null));
+        }
+        return entries;
+    }
+    
+    /**
+     * Load the AI context of a continued session in the background
+     * The transcript only holds what is on screen; the AI gets the session's
+     * summary plus the non-system messages that are not in it yet.
+     */
+    private void loadConversationHistory() {
+        int sessionId = currentSession.getSessionId();
+        sendBtn.setDisable(true);
+        
+        taskExecutor.submit("history:" + sessionId, currentSession.getUserId(), this, () -> {
+            List<Message> history = ConversationHistoryManager.getInstance().loadHistory(sessionId);
+            
+            Platform.runLater(() -> {
+                // Agent messages that arrived as events meanwhile are in the history too
+                conversationHistory.removeIf(msg -> msg.getMessageId() > 0 &&
+                    history.stream().anyMatch(loaded -> loaded.getMessageId() == msg.getMessageId()));
+                conversationHistory.addAll(0, history);
+                sendBtn.setDisable(false);
+            });
+        });
+    }
+    
+    /**
+     * Append messages other users wrote into this session
+     * The customer's own and the bot's messages are already on screen, so only
+     * agent and system messages are added, skipping any the transcript loaded itself.
+     */
+    private void handleMessageEvents(List<MessageEvent> events) {
+        if (currentSession == null) {
+            return;
+        }
+        
+        for (MessageEvent event : events) {
+            Message msg = event.getMessage();
+            if (event.getSessionId() != currentSession.getSessionId()
+                    || "USER".equals(msg.getSenderType()) || "BOT".equals(msg.getSenderType())
+                    || isDisplayed(msg.getMessageId())) {
+                continue;
+            }
+            
+            transcript.append(new ChatTranscript.Entry(msg.getMessageId(), msg.getSenderType(), msg.getContent(), null));
+            if (!"SYSTEM".equals(msg.getSenderType())) {
+                conversationHistory.add(msg);
+            }
+        }
+    }
+    
+    private boolean isDisplayed(int messageId) {
+        for (ChatTranscript.Entry entry : messagesList.getItems()) {
+            if (entry.getMessageId() == messageId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Handle attach image button click
      */
@@ -255,6 +342,11 @@ public class ChatAreaController {
             return;
         }
         
+        // Enter in the input field still fires while the send button is disabled
+        if (pendingResponse != null && !pendingResponse.isDone()) {
+            return;
+        }
+        
         if (currentSession == null || currentProduct == null) {
             addMessage("SYSTEM", "⚠ No active chat session.");
             return;
@@ -300,6 +392,7 @@ public class ChatAreaController {
         
         // Add to conversation history
         Message userMsg = new Message();
+        userMsg.setSessionId(currentSession.getSessionId());
         userMsg.setSenderType("USER");
         userMsg.setContent(userMessage);
         conversationHistory.add(userMsg);
@@ -308,11 +401,18 @@ public class ChatAreaController {
         sendBtn.setDisable(true);
         attachBtn.setDisable(true);
         
-        // Show typing indicator
-        addMessage("BOT", "⏳ Analyzing...");
+        // The worker gets its own copy: message events keep appending to the
+        // live history on the FX thread while the request is in flight
+        List<Message> historySnapshot = List.copyOf(conversationHistory);
+        
+        // Show typing indicator; streamed text replaces it in the same bubble
+        ChatTranscript.Entry responseEntry = addMessage("BOT", "⏳ Analyzing...");
+        CoalescingTextUpdater responseUpdater = new CoalescingTextUpdater(responseEntry::setText);
+        responseUpdater.start();
         
-        // Get AI response in background thread
-        new Thread(() -> {
+        // Get AI response in the background; cancelled if the view is closed
+        String taskKey = "send:" + currentSession.getSessionId() + ":" + messageContent;
+        pendingResponse = taskExecutor.submit(taskKey, currentSession.getUserId(), this, () -> {
             try {
                 String aiResponse;
                 if (imageBase64Final != null) {
@@ -321,32 +421,34 @@ public class ChatAreaController {
                         userMessage.isEmpty() ? "What can you see in this image? Please describe any issues or problems." : userMessage,
                         imageBase64Final,
                         currentProduct.getProductId(),
-                        conversationHistory
+                        historySnapshot
                     );
                 } else {
-                    // Use regular text API
-                    aiResponse = aiService.generateResponse(
+                    // Use regular text API, showing tokens as they arrive
+                    aiResponse = aiService.streamResponse(
                         userMessage,
                         currentProduct.getProductId(),
-                        conversationHistory
+                        historySnapshot,
+                        responseUpdater::append
                     );
                 }
                 
                 // Update UI on JavaFX thread
                 Platform.runLater(() -> {
-                    // Remove typing indicator (last item in list)
-                    if (!messagesContainer.getChildren().isEmpty()) {
-                        messagesContainer.getChildren().remove(messagesContainer.getChildren().size() - 1);
+                    if (pendingResponse.isCancelled()) {
+                        responseUpdater.stop();
+                        return;
                     }
                     
-                    // Add AI response
-                    addMessage("BOT", aiResponse);
+                    // Show the complete AI response in the streaming bubble
+                    responseUpdater.finish(aiResponse);
                     
-                    // Save AI response to database
+                    // Save AI response to database once the stream is complete
                     saveMessage(currentSession.getSessionId(), "BOT", aiResponse);
                     
                     // Add to conversation history
                     Message botMsg = new Message();
+                    botMsg.setSessionId(currentSession.getSessionId());
                     botMsg.setSenderType("BOT");
                     botMsg.setContent(aiResponse);
                     conversationHistory.add(botMsg);
@@ -362,17 +464,19 @@ public class ChatAreaController {
                 e.printStackTrace();
                 
                 Platform.runLater(() -> {
-                    // Remove typing indicator
-                    if (!messagesContainer.getChildren().isEmpty()) {
-                        messagesContainer.getChildren().remove(messagesContainer.getChildren().size() - 1);
+                    // Remove typing indicator / partial response
+                    responseUpdater.stop();
+                    if (pendingResponse.isCancelled()) {
+                        return;
                     }
+                    transcript.remove(responseEntry);
                     
                     addMessage("SYSTEM", "⚠ Error getting response. Please try again.");
                     sendBtn.setDisable(false);
                     attachBtn.setDisable(false);
                 });
             }
-        }).start();
+        });
     }
     
     /**
@@ -389,50 +493,7 @@ public class ChatAreaController {
      * Add message with attached image to UI
      */
     private void addMessageWithImage(String senderType, String content, File imageFile) {
-        VBox messageBox = new VBox(8);
-        messageBox.setMaxWidth(450);
-        
-        // Add text if present
-        if (!content.isEmpty()) {
-            Label textLabel = new Label(content);
-            textLabel.setWrapText(true);
-            textLabel.getStyleClass().add("message-bubble");
-            
-            if (senderType.equals("USER")) {
-                textLabel.getStyleClass().add("message-user");
-            } else {
-                textLabel.getStyleClass().add("message-bot");
-            }
-            
-            messageBox.getChildren().add(textLabel);
-        }
-        
-        // Add image
-        try {
-            Image image = new Image(new FileInputStream(imageFile));
-            ImageView imageView = new ImageView(image);
-            imageView.setPreserveRatio(true);
-            imageView.setFitWidth(300);
-            imageView.setStyle("-fx-border-color: #e0e0e0; -fx-border-width: 1px; -fx-border-radius: 8px;");
-            messageBox.getChildren().add(imageView);
-        } catch (Exception e) {
-            System.err.println("Error displaying image: " + e.getMessage());
-        }
-        
-        // Create row container
-        HBox rowContainer = new HBox();
-        rowContainer.setFillHeight(true);
-        
-        if (senderType.equals("USER")) {
-            rowContainer.setAlignment(Pos.CENTER_RIGHT);
-            rowContainer.setPadding(new Insets(5, 5, 5, 50));
-        } else {
-            rowContainer.setAlignment(Pos.CENTER_LEFT);
-            rowContainer.setPadding(new Insets(5, 50, 5, 5));
-        }
-        
-        rowContainer.getChildren().add(messageBox);
-        messagesContainer.getChildren().add(rowContainer);
+        transcript.append(new ChatTranscript.Entry(0, senderType, content, imageFile));
     }
     
     /**
@@ -451,52 +512,35 @@ public class ChatAreaController {
         }
     }
     
-    // =========================================================================
-    // UPDATED METHOD: Uses HBox and Label to make bubbles fit content properly
-    // =========================================================================
-    private void addMessage(String senderType, String content) {
-        // 1. Create the Bubble (Label)
-        // Label is better than Text because it supports background CSS and padding natively
-        Label messageLabel = new Label(content);
-        messageLabel.setWrapText(true);
-        messageLabel.getStyleClass().add("message-bubble"); // Base style
-
-        // 2. Apply Specific Styles based on Sender
-        if (senderType.equals("USER")) {
-            messageLabel.getStyleClass().add("message-user");
-        } else if (senderType.equals("BOT")) {
-            messageLabel.getStyleClass().add("message-bot");
-        } else if (senderType.equals("SYSTEM")) {
-            // Optional: You might want a specific style for system alerts
-            messageLabel.setStyle("-fx-background-color: #ffeeba; -fx-text-fill: #856404; -fx-background-radius: 10;");
-        } else {
-            messageLabel.getStyleClass().add("message-agent");
+    /**
+     * Add a message bubble to the transcript
+     * Returns the entry so streamed responses can update it in place
+     */
+    private ChatTranscript.Entry addMessage(String senderType, String content) {
+        return transcript.append(new ChatTranscript.Entry(senderType, content));
+    }
+    
+    /**
+     * Show or hide the search over the current product's manual
+     */
+    @FXML
+    private void handleToggleManualSearch() {
+        if (currentProduct == null) {
+            addMessage("SYSTEM", "⚠ No product selected. Please select a product to search its manual.");
+            return;
         }
-
-        // 3. Create a Row Container (HBox)
-        // This HBox holds the bubble and allows it to align Left or Right
-        HBox rowContainer = new HBox();
-        rowContainer.setFillHeight(true);
-
-        // 4. Alignment Logic
-        if (senderType.equals("USER")) {
-            // User floats Right
-            rowContainer.setAlignment(Pos.CENTER_RIGHT);
-            // Padding: Top, Right, Bottom, Left
-            // We give 50px padding on the LEFT to ensure the User bubble doesn't stretch to the left edge
-            rowContainer.setPadding(new Insets(5, 5, 5, 50));
-        } else {
-            // Bot/Agent floats Left
-            rowContainer.setAlignment(Pos.CENTER_LEFT);
-            // We give 50px padding on the RIGHT to ensure the Bot bubble doesn't stretch to the right edge
-            rowContainer.setPadding(new Insets(5, 50, 5, 5));
+        
+        if (manualSearchView == null) {
+            manualSearchView = new KnowledgeSearchView(manualSearchField, manualSearchResultsList,
+                currentProduct.getProductId());
         }
         
-        // 5. Add Bubble to Row
-        rowContainer.getChildren().add(messageLabel);
-
-        // 6. Add Row to the main VBox
-        messagesContainer.getChildren().add(rowContainer);
+        boolean show = !manualSearchPane.isVisible();
+        manualSearchPane.setVisible(show);
+        manualSearchBtn.setText(show ? "✕ Close Manual" : "📖 Search Manual");
+        if (show) {
+            manualSearchField.requestFocus();
+        }
     }
     
     @FXML
@@ -518,8 +562,9 @@ public class ChatAreaController {
             sendBtn.setDisable(true);
             escalateBtn.setDisable(true);
             
-            // Simulate brief delay
-            new Thread(() -> {
+            // Simulate brief delay (a double click reuses the pending escalation)
+            String taskKey = "escalate:" + currentSession.getSessionId();
+            taskExecutor.submit(taskKey, currentSession.getUserId(), this, () -> {
                 try {
                     Thread.sleep(1500); 
                     
@@ -527,6 +572,7 @@ public class ChatAreaController {
                         try {
                             System.out.println("Updating session status to ESCALATED...");
             chatSessionDAO.updateStatus(currentSession.getSessionId(), "ESCALATED");
+            ConversationHistoryManager.getInstance().evict(currentSession.getSessionId());
             
                             System.out.println("Assigning to agent Steve (ID: 2)...");
                             chatSessionDAO.assignToAgent(currentSession.getSessionId(), 2);
@@ -564,9 +610,10 @@ public class ChatAreaController {
                         }
                     });
                 } catch (InterruptedException e) {
-                    e.printStackTrace();
+                    // Cancelled: the view was closed before the agent was requested
+                    Thread.currentThread().interrupt();
                 }
-            }).start();
+            });
         }
     }
     
@@ -590,8 +637,10 @@ public class ChatAreaController {
     @FXML
     private void handleEndChat() {
         System.out.println("Ending chat session");
+        taskExecutor.cancelOwner(this);
         if (currentSession != null) {
             chatSessionDAO.updateStatus(currentSession.getSessionId(), "CLOSED");
+            ConversationHistoryManager.getInstance().evict(currentSession.getSessionId());
             addMessage("SYSTEM", "👋 Chat session ended. Thank you for using CARE support!");
         }
         Platform.runLater(() -> {
@@ -2,10 +2,13 @@ package com.care.controller.user;
 
 import com.care.dao.ChatSessionDAO;
 import com.care.dao.MessageDAO;
+import com.care.dao.MessageSearchDAO;
 import com.care.dao.ProductDAO;
 import com.care.model.ChatSession;
+import com.care.model.MessageSearchHit;
 import com.care.model.Product;
 import com.care.util.SessionManager;
+import com.care.util.TranscriptSearchView;
 import com.care.util.ViewFactory;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -32,12 +35,15 @@ public class UserHistoryController {
     @FXML private TableColumn<ChatSessionDisplay, String> statusCol;
     @FXML private TableColumn<ChatSessionDisplay, Integer> messagesCountCol;
     @FXML private TableColumn<ChatSessionDisplay, Void> actionsCol;
+    @FXML private TextField searchField;
+    @FXML private ListView<MessageSearchHit> searchResultsList;
 
     private final SessionManager sessionManager;
     private final ChatSessionDAO chatSessionDAO;
     private final MessageDAO messageDAO;
     private final ProductDAO productDAO;
     private List<ChatSession> allSessions;
+    private TranscriptSearchView transcriptSearch;
 
     public UserHistoryController() {
         this.sessionManager = SessionManager.getInstance();
@@ -68,14 +74,45 @@ public class UserHistoryController {
             new SimpleIntegerProperty(c.getValue().getMessageCount()).asObject());
 
         setupActionsColumn();
+        setupSearch();
         loadHistory();
         autoResizeColumns();
     }
 
+    private void setupSearch() {
+        if (!sessionManager.isLoggedIn()) {
+            return;
+        }
+
+        // Customers only search their own sessions, so every hit can be ranked
+        int userId = sessionManager.getCurrentUser().getUserId();
+        transcriptSearch = new TranscriptSearchView(searchField, searchResultsList, userId,
+            MessageSearchDAO.Order.RELEVANCE, this::openSearchHit);
+    }
+
+    private void openSearchHit(MessageSearchHit hit) {
+        ChatSession session = null;
+        if (allSessions != null) {
+            session = allSessions.stream()
+                .filter(s -> s.getSessionId() == hit.getSessionId())
+                .findFirst()
+                .orElse(null);
+        }
+        if (session == null) {
+            session = chatSessionDAO.getById(hit.getSessionId());
+        }
+        if (session != null) {
+            handleContinueChat(session);
+        }
+    }
+
     @FXML
     private void handleRefresh() {
         System.out.println("Refreshing history...");
         loadHistory();
+        if (transcriptSearch != null) {
+            transcriptSearch.refresh();
+        }
     }
 
     @FXML
@@ -0,0 +1,272 @@
+package com.care.dao;
+
+import com.care.model.DashboardSnapshot;
+import com.care.util.DatabaseDriver;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for analytics aggregates
+ * Counts are read from the analytics_rollups counters maintained by
+ * {@link AnalyticsRollupDAO}, so each metric costs one row per bucket
+ * (day, hour, product, agent) instead of a scan of sessions or tickets.
+ */
+public class AnalyticsDAO {
+    
+    private DatabaseDriver databaseDriver;
+    
+    public AnalyticsDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Get all headline dashboard counts in one query
+     */
+    public DashboardSnapshot getDashboardSnapshot() {
+        String query = "SELECT " +
+                      "(SELECT COUNT(*) FROM users) AS total_users, " +
+                      "(SELECT COUNT(*) FROM products) AS total_products, " +
+                      "SUM(CASE WHEN metric IN ('SESSIONS_ACTIVE', 'SESSIONS_CLOSED', 'SESSIONS_ESCALATED') THEN value END) AS total_sessions, " +
+                      "SUM(CASE metric WHEN 'SESSIONS_ACTIVE' THEN value END) AS active_sessions, " +
+                      "SUM(CASE metric WHEN 'SESSIONS_CLOSED' THEN value END) AS closed_sessions, " +
+                      "SUM(CASE metric WHEN 'SESSIONS_ESCALATED' THEN value END) AS escalated_sessions, " +
+                      "SUM(CASE metric WHEN 'TICKETS_OPEN' THEN value END) AS open_tickets, " +
+                      "SUM(CASE metric WHEN 'TICKETS_IN_PROGRESS' THEN value END) AS in_progress_tickets, " +
+                      "SUM(CASE metric WHEN 'TICKETS_RESOLVED' THEN value END) AS resolved_tickets, " +
+                      "SUM(CASE metric WHEN 'TICKETS_CLOSED' THEN value END) AS closed_tickets " +
+                      "FROM analytics_rollups WHERE dimension = 'TOTAL' AND bucket = ''";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            // SUM over no counters is NULL, which getInt reads as 0
+            if (rs.next()) {
+                return new DashboardSnapshot(
+                    rs.getInt("total_users"),
+                    rs.getInt("total_products"),
+                    rs.getInt("total_sessions"),
+                    rs.getInt("active_sessions"),
+                    rs.getInt("closed_sessions"),
+                    rs.getInt("escalated_sessions"),
+                    rs.getInt("open_tickets"),
+                    rs.getInt("in_progress_tickets"),
+                    rs.getInt("resolved_tickets"),
+                    rs.getInt("closed_tickets")
+                );
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading dashboard snapshot");
+            e.printStackTrace();
+        }
+        
+        return DashboardSnapshot.empty();
+    }
+    
+    /**
+     * Get number of escalated sessions per product name, highest first
+     */
+    public Map<String, Integer> getEscalationsByProduct() {
+        Map<String, Integer> escalations = new LinkedHashMap<>();
+        String query = "SELECT p.name, SUM(r.value) AS escalations " +
+                      "FROM analytics_rollups r JOIN products p ON p.product_id = CAST(r.bucket AS INTEGER) " +
+                      "WHERE r.dimension = 'PRODUCT' AND r.metric = 'ESCALATIONS' AND r.value > 0 " +
+                      "GROUP BY p.name ORDER BY escalations DESC, p.name";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                escalations.put(rs.getString("name"), rs.getInt("escalations"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading escalations by product");
+            e.printStackTrace();
+        }
+        
+        return escalations;
+    }
+    
+    /**
+     * Get number of tickets per status
+     */
+    public Map<String, Integer> getTicketCountsByStatus() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        String query = "SELECT substr(metric, 9) AS status, value AS ticket_count FROM analytics_rollups " +
+                      "WHERE dimension = 'TOTAL' AND bucket = '' AND metric IN " +
+                      "('TICKETS_OPEN', 'TICKETS_IN_PROGRESS', 'TICKETS_RESOLVED', 'TICKETS_CLOSED')";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                counts.put(rs.getString("status"), rs.getInt("ticket_count"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading ticket status counts");
+            e.printStackTrace();
+        }
+        
+        return counts;
+    }
+    
+    /**
+     * Get number of sessions started per day
+     * 
+     * @param sinceDay First day to include ("yyyy-MM-dd")
+     * @return Map of day ("yyyy-MM-dd") to session count, oldest first
+     */
+    public Map<String, Integer> getSessionCountsByDay(String sinceDay) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        String query = "SELECT bucket AS day, value AS session_count FROM analytics_rollups " +
+                      "WHERE dimension = 'DAY' AND metric = 'SESSIONS' AND bucket >= ? AND value > 0 " +
+                      "ORDER BY bucket";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, sinceDay);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                counts.put(rs.getString("day"), rs.getInt("session_count"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading sessions by day");
+            e.printStackTrace();
+        }
+        
+        return counts;
+    }
+    
+    /**
+     * Get number of tickets created in each hour of the day
+     * 
+     * @return 24 counts, index 0 = 00:00-00:59
+     */
+    public int[] getTicketCountsByHour() {
+        int[] counts = new int[24];
+        String query = "SELECT CAST(bucket AS INTEGER) AS hour, value AS ticket_count FROM analytics_rollups " +
+                      "WHERE dimension = 'HOUR' AND metric = 'TICKETS'";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                int hour = rs.getInt("hour");
+                if (!rs.wasNull() && hour >= 0 && hour < 24) {
+                    counts[hour] = rs.getInt("ticket_count");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading tickets by hour");
+            e.printStackTrace();
+        }
+        
+        return counts;
+    }
+    
+    /**
+     * Get ticket counts for every agent
+     */
+    public List<AgentTicketCounts> getAgentTicketCounts() {
+        List<AgentTicketCounts> agents = new ArrayList<>();
+        String query = "SELECT u.name, " +
+                      "SUM(CASE r.metric WHEN 'TICKETS' THEN r.value END) AS assigned, " +
+                      "SUM(CASE r.metric WHEN 'RESOLUTIONS' THEN r.value END) AS resolved, " +
+                      "SUM(CASE r.metric WHEN 'RESOLUTION_MINUTES' THEN r.value END) AS resolution_minutes, " +
+                      "SUM(CASE r.metric WHEN 'TIMED_RESOLUTIONS' THEN r.value END) AS timed_resolutions " +
+                      "FROM users u LEFT JOIN analytics_rollups r " +
+                      "ON r.dimension = 'AGENT' AND r.bucket = CAST(u.user_id AS TEXT) " +
+                      "WHERE u.role = 'AGENT' " +
+                      "GROUP BY u.user_id, u.name ORDER BY u.user_id";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                long timed = rs.getLong("timed_resolutions");
+                double avgHours = timed > 0 ? rs.getLong("resolution_minutes") / 60.0 / timed : 0.0;
+                agents.add(new AgentTicketCounts(
+                    rs.getString("name"),
+                    rs.getInt("assigned"),
+                    rs.getInt("resolved"),
+                    avgHours
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading agent ticket counts");
+            e.printStackTrace();
+        }
+        
+        return agents;
+    }
+    
+    /**
+     * Stream every user message with its session's product and status
+     * Runs as one forward-only cursor over messages, sessions and products,
+     * so the caller sees each row once without loading the table into memory.
+     * Sessions without a product are skipped. Stops early if the calling thread is interrupted.
+     */
+    public void scanUserMessages(UserMessageVisitor visitor) {
+        String query = "SELECT s.product_id, p.name, s.status = 'ESCALATED' AS escalated, m.content " +
+                      "FROM messages m " +
+                      "JOIN chat_sessions s ON s.session_id = m.session_id " +
+                      "JOIN products p ON p.product_id = s.product_id " +
+                      "WHERE m.sender_type = 'USER'";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setFetchSize(1000);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // The view that asked was closed or refreshed; stop stepping the query
+                    System.out.println("⚠ User message scan interrupted");
+                    return;
+                }
+                visitor.visit(rs.getInt(1), rs.getString(2), rs.getBoolean(3), rs.getString(4));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning user messages");
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Receives rows from {@link #scanUserMessages}
+     */
+    public interface UserMessageVisitor {
+        void visit(int productId, String productName, boolean escalated, String content);
+    }
+    
+    /**
+     * Ticket totals of one agent
+     */
+    public static class AgentTicketCounts {
+        private final String agentName;
+        private final int assignedTickets;
+        private final int resolvedTickets;
+        private final double avgResolutionHours;
+        
+        public AgentTicketCounts(String agentName, int assignedTickets, int resolvedTickets, double avgResolutionHours) {
+            this.agentName = agentName;
+            this.assignedTickets = assignedTickets;
+            this.resolvedTickets = resolvedTickets;
+            this.avgResolutionHours = avgResolutionHours;
+        }
+        
+        public String getAgentName() { return agentName; }
+        public int getAssignedTickets() { return assignedTickets; }
+        public int getResolvedTickets() { return resolvedTickets; }
+        public double getAvgResolutionHours() { return avgResolutionHours; }
+    }
+}
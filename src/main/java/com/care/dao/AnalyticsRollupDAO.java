@@ -0,0 +1,425 @@
+package com.care.dao;
+
+import com.care.util.DatabaseDriver;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for the analytics_rollups counters
+ * Session and ticket writes pass the row as it was before and after the
+ * change to {@link #applySessionChange}/{@link #applyTicketChange} inside
+ * their own transaction; the difference is added to the affected counters.
+ * {@link #rebuild()} recomputes every counter from the raw tables and
+ * {@link #verify()} reports counters that have drifted from them.
+ * 
+ * The full-text indexes (migrations 003 and 004) are kept in sync by
+ * triggers because messages and manual pages are written from several
+ * places, including the message journal and cascading deletes. Sessions
+ * and tickets are only written by ChatSessionDAO and TicketDAO and no
+ * delete cascades into them, so the counters are moved there instead,
+ * next to the bucket rules that rebuild() mirrors in SQL.
+ */
+public class AnalyticsRollupDAO {
+    
+    public static final String TOTAL = "TOTAL";
+    public static final String DAY = "DAY";
+    public static final String HOUR = "HOUR";
+    public static final String PRODUCT = "PRODUCT";
+    public static final String AGENT = "AGENT";
+    
+    // Written by rebuild(); without it the counters have never been backfilled
+    private static final String BUILT_MARKER = "ROLLUPS_BUILT";
+    private static final Object backfillLock = new Object();
+    private static volatile boolean backfillChecked;
+    
+    private static final String RESOLVED_FILTER = "status IN ('RESOLVED', 'CLOSED')";
+    private static final String RESOLUTION_MINUTES =
+        "CAST(ROUND((julianday(resolved_at) - julianday(created_at)) * 1440) AS INTEGER)";
+    
+    // Each query yields (dimension, bucket, metric, value) and must match the
+    // contributions added in addSessionCounters/addTicketCounters
+    private static final String[] REBUILD_QUERIES = {
+        "SELECT 'TOTAL', '', 'SESSIONS_' || status, COUNT(*) FROM chat_sessions " +
+            "WHERE status IS NOT NULL GROUP BY status",
+        "SELECT 'DAY', substr(created_at, 1, 10), 'SESSIONS', COUNT(*) FROM chat_sessions " +
+            "WHERE created_at IS NOT NULL GROUP BY 2",
+        "SELECT 'DAY', substr(created_at, 1, 10), 'ESCALATIONS', COUNT(*) FROM chat_sessions " +
+            "WHERE created_at IS NOT NULL AND status = 'ESCALATED' GROUP BY 2",
+        "SELECT 'PRODUCT', CAST(product_id AS TEXT), 'SESSIONS', COUNT(*) FROM chat_sessions " +
+            "WHERE product_id IS NOT NULL GROUP BY product_id",
+        "SELECT 'PRODUCT', CAST(product_id AS TEXT), 'ESCALATIONS', COUNT(*) FROM chat_sessions " +
+            "WHERE product_id IS NOT NULL AND status = 'ESCALATED' GROUP BY product_id",
+        "SELECT 'TOTAL', '', 'TICKETS_' || status, COUNT(*) FROM tickets " +
+            "WHERE status IS NOT NULL GROUP BY status",
+        "SELECT 'HOUR', substr(created_at, 12, 2), 'TICKETS', COUNT(*) FROM tickets " +
+            "WHERE created_at IS NOT NULL GROUP BY 2",
+        "SELECT 'DAY', substr(resolved_at, 1, 10), 'RESOLUTIONS', COUNT(*) FROM tickets " +
+            "WHERE resolved_at IS NOT NULL AND " + RESOLVED_FILTER + " GROUP BY 2",
+        "SELECT 'AGENT', CAST(assigned_agent_id AS TEXT), 'TICKETS', COUNT(*) FROM tickets " +
+            "WHERE assigned_agent_id IS NOT NULL GROUP BY assigned_agent_id",
+        "SELECT 'AGENT', CAST(assigned_agent_id AS TEXT), 'RESOLUTIONS', COUNT(*) FROM tickets " +
+            "WHERE assigned_agent_id IS NOT NULL AND " + RESOLVED_FILTER + " GROUP BY assigned_agent_id",
+        "SELECT 'AGENT', CAST(assigned_agent_id AS TEXT), 'TIMED_RESOLUTIONS', COUNT(*) FROM tickets " +
+            "WHERE assigned_agent_id IS NOT NULL AND resolved_at IS NOT NULL AND created_at IS NOT NULL AND " +
+            RESOLVED_FILTER + " GROUP BY assigned_agent_id",
+        "SELECT 'AGENT', CAST(assigned_agent_id AS TEXT), 'RESOLUTION_MINUTES', SUM(" + RESOLUTION_MINUTES + ") FROM tickets " +
+            "WHERE assigned_agent_id IS NOT NULL AND resolved_at IS NOT NULL AND created_at IS NOT NULL AND " +
+            RESOLVED_FILTER + " GROUP BY assigned_agent_id"
+    };
+    
+    private DatabaseDriver databaseDriver;
+    
+    public AnalyticsRollupDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Read the rollup-relevant columns of a session
+     * Called on the writer connection inside the caller's transaction
+     *
+     * @return Session row, or null if it doesn't exist
+     */
+    public SessionRow readSession(Connection connection, int sessionId) throws SQLException {
+        String query = "SELECT status, product_id, created_at FROM chat_sessions WHERE session_id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, sessionId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                int productId = rs.getInt("product_id");
+                return new SessionRow(rs.getString("status"), rs.wasNull() ? null : productId,
+                                      rs.getString("created_at"));
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Read the rollup-relevant columns of a ticket
+     * Called on the writer connection inside the caller's transaction
+     *
+     * @return Ticket row, or null if it doesn't exist
+     */
+    public TicketRow readTicket(Connection connection, int ticketId) throws SQLException {
+        String query = "SELECT status, assigned_agent_id, created_at, resolved_at, " +
+                      RESOLUTION_MINUTES + " AS resolution_minutes FROM tickets WHERE ticket_id = ?";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, ticketId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                int agentId = rs.getInt("assigned_agent_id");
+                Integer agent = rs.wasNull() ? null : agentId;
+                return new TicketRow(rs.getString("status"), agent, rs.getString("created_at"),
+                                     rs.getString("resolved_at"), rs.getLong("resolution_minutes"));
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Move the counters of a session from its old to its new state
+     *
+     * @param before Row before the write (null for an insert)
+     * @param after Row after the write (null for a delete)
+     */
+    public void applySessionChange(Connection connection, SessionRow before, SessionRow after) throws SQLException {
+        Map<String, Long> deltas = new HashMap<>();
+        addSessionCounters(deltas, before, -1);
+        addSessionCounters(deltas, after, 1);
+        applyDeltas(connection, deltas);
+    }
+    
+    /**
+     * Move the counters of a ticket from its old to its new state
+     *
+     * @param before Row before the write (null for an insert)
+     * @param after Row after the write (null for a delete)
+     */
+    public void applyTicketChange(Connection connection, TicketRow before, TicketRow after) throws SQLException {
+        Map<String, Long> deltas = new HashMap<>();
+        addTicketCounters(deltas, before, -1);
+        addTicketCounters(deltas, after, 1);
+        applyDeltas(connection, deltas);
+    }
+    
+    private void addSessionCounters(Map<String, Long> deltas, SessionRow row, long sign) {
+        if (row == null) {
+            return;
+        }
+        
+        boolean escalated = "ESCALATED".equals(row.status);
+        if (row.status != null) {
+            add(deltas, TOTAL, "", "SESSIONS_" + row.status, sign);
+        }
+        if (row.createdAt != null) {
+            String day = substr(row.createdAt, 1, 10);
+            add(deltas, DAY, day, "SESSIONS", sign);
+            if (escalated) {
+                add(deltas, DAY, day, "ESCALATIONS", sign);
+            }
+        }
+        if (row.productId != null) {
+            String product = String.valueOf(row.productId);
+            add(deltas, PRODUCT, product, "SESSIONS", sign);
+            if (escalated) {
+                add(deltas, PRODUCT, product, "ESCALATIONS", sign);
+            }
+        }
+    }
+    
+    private void addTicketCounters(Map<String, Long> deltas, TicketRow row, long sign) {
+        if (row == null) {
+            return;
+        }
+        
+        boolean resolved = "RESOLVED".equals(row.status) || "CLOSED".equals(row.status);
+        boolean timed = resolved && row.resolvedAt != null && row.createdAt != null;
+        if (row.status != null) {
+            add(deltas, TOTAL, "", "TICKETS_" + row.status, sign);
+        }
+        if (row.createdAt != null) {
+            add(deltas, HOUR, substr(row.createdAt, 12, 2), "TICKETS", sign);
+        }
+        if (resolved && row.resolvedAt != null) {
+            add(deltas, DAY, substr(row.resolvedAt, 1, 10), "RESOLUTIONS", sign);
+        }
+        if (row.agentId != null) {
+            String agent = String.valueOf(row.agentId);
+            add(deltas, AGENT, agent, "TICKETS", sign);
+            if (resolved) {
+                add(deltas, AGENT, agent, "RESOLUTIONS", sign);
+            }
+            if (timed) {
+                add(deltas, AGENT, agent, "TIMED_RESOLUTIONS", sign);
+                add(deltas, AGENT, agent, "RESOLUTION_MINUTES", sign * row.resolutionMinutes);
+            }
+        }
+    }
+    
+    private static void add(Map<String, Long> deltas, String dimension, String bucket, String metric, long amount) {
+        deltas.merge(key(dimension, bucket, metric), amount, Long::sum);
+    }
+    
+    private static String key(String dimension, String bucket, String metric) {
+        return dimension + '\u0000' + bucket + '\u0000' + metric;
+    }
+    
+    /**
+     * Same as SQLite substr(text, start, length) for the ASCII timestamps stored here
+     */
+    private static String substr(String text, int start, int length) {
+        int from = Math.min(start - 1, text.length());
+        return text.substring(from, Math.min(from + length, text.length()));
+    }
+    
+    private void applyDeltas(Connection connection, Map<String, Long> deltas) throws SQLException {
+        String upsert = "INSERT INTO analytics_rollups (dimension, bucket, metric, value) VALUES (?, ?, ?, ?) " +
+                       "ON CONFLICT(dimension, metric, bucket) DO UPDATE SET value = value + excluded.value";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(upsert)) {
+            int pending = 0;
+            for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                if (delta.getValue() == 0) {
+                    continue; // e.g. the status didn't change
+                }
+                
+                String[] parts = delta.getKey().split("\u0000", -1);
+                stmt.setString(1, parts[0]);
+                stmt.setString(2, parts[1]);
+                stmt.setString(3, parts[2]);
+                stmt.setLong(4, delta.getValue());
+                stmt.addBatch();
+                pending++;
+            }
+            
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+    
+    /**
+     * Backfill the counters once per process if they have never been built
+     * Callers that arrive while the backfill runs wait for it; if the check
+     * or the backfill fails, the next call tries again.
+     */
+    public void ensureBuilt() {
+        if (backfillChecked) {
+            return;
+        }
+        
+        synchronized (backfillLock) {
+            if (backfillChecked) {
+                return;
+            }
+            
+            String query = "SELECT 1 FROM analytics_rollups WHERE dimension = 'TOTAL' AND metric = ? AND bucket = ''";
+            
+            try (Connection connection = databaseDriver.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setString(1, BUILT_MARKER);
+                if (stmt.executeQuery().next()) {
+                    backfillChecked = true;
+                    return;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error checking analytics rollups");
+                e.printStackTrace();
+                return;
+            }
+            
+            System.out.println("Analytics rollups not built yet, backfilling from history...");
+            // The marker row is committed with the counters, so success means they are in place
+            backfillChecked = rebuild();
+        }
+    }
+    
+    /**
+     * Recompute every counter from chat_sessions and tickets
+     *
+     * @return true if the rollups were rebuilt
+     */
+    public boolean rebuild() {
+        long start = System.currentTimeMillis();
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM analytics_rollups");
+                for (String query : REBUILD_QUERIES) {
+                    stmt.executeUpdate("INSERT INTO analytics_rollups (dimension, bucket, metric, value) " + query);
+                }
+                stmt.executeUpdate("INSERT INTO analytics_rollups (dimension, bucket, metric, value) " +
+                                  "VALUES ('TOTAL', '', '" + BUILT_MARKER + "', 1)");
+                
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            
+            System.out.println("✓ Analytics rollups rebuilt in " + (System.currentTimeMillis() - start) + "ms");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Error rebuilding analytics rollups: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Compare every counter with a fresh aggregate of the raw tables
+     * Both sides are read in one transaction so concurrent writes can't
+     * show up as drift.
+     *
+     * @return One line per counter that differs (empty if consistent), or null if the check failed
+     */
+    public List<String> verify() {
+        Map<String, Long> expected = new TreeMap<>();
+        Map<String, Long> actual = new TreeMap<>();
+        
+        try (Connection connection = databaseDriver.getReadConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            
+            try (Statement stmt = connection.createStatement()) {
+                for (String query : REBUILD_QUERIES) {
+                    collect(stmt.executeQuery(query), expected);
+                }
+                collect(stmt.executeQuery("SELECT dimension, bucket, metric, value FROM analytics_rollups " +
+                                         "WHERE metric <> '" + BUILT_MARKER + "'"), actual);
+            } finally {
+                if (autoCommit) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error verifying analytics rollups");
+            e.printStackTrace();
+            return null;
+        }
+        
+        List<String> mismatches = new ArrayList<>();
+        Map<String, Long> all = new TreeMap<>(expected);
+        actual.forEach(all::putIfAbsent);
+        
+        for (String key : all.keySet()) {
+            long want = expected.getOrDefault(key, 0L);
+            long have = actual.getOrDefault(key, 0L);
+            if (want != have) {
+                mismatches.add(key.replace('\u0000', '/') + ": expected " + want + ", found " + have);
+            }
+        }
+        
+        return mismatches;
+    }
+    
+    private static void collect(ResultSet rs, Map<String, Long> counters) throws SQLException {
+        try (rs) {
+            while (rs.next()) {
+                long value = rs.getLong(4);
+                if (value != 0) {
+                    counters.merge(key(rs.getString(1), rs.getString(2), rs.getString(3)), value, Long::sum);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Columns of a chat session that feed the rollups
+     */
+    public static class SessionRow {
+        private final String status;
+        private final Integer productId;
+        private final String createdAt;
+        
+        public SessionRow(String status, Integer productId, String createdAt) {
+            this.status = status;
+            this.productId = productId;
+            this.createdAt = createdAt;
+        }
+        
+        public String getStatus() { return status; }
+        public Integer getProductId() { return productId; }
+        public String getCreatedAt() { return createdAt; }
+    }
+    
+    /**
+     * Columns of a ticket that feed the rollups
+     */
+    public static class TicketRow {
+        private final String status;
+        private final Integer agentId;
+        private final String createdAt;
+        private final String resolvedAt;
+        private final long resolutionMinutes;
+        
+        public TicketRow(String status, Integer agentId, String createdAt, String resolvedAt, long resolutionMinutes) {
+            this.status = status;
+            this.agentId = agentId;
+            this.createdAt = createdAt;
+            this.resolvedAt = resolvedAt;
+            this.resolutionMinutes = resolutionMinutes;
+        }
+        
+        public String getStatus() { return status; }
+        public Integer getAgentId() { return agentId; }
+        public String getCreatedAt() { return createdAt; }
+        public String getResolvedAt() { return resolvedAt; }
+        public long getResolutionMinutes() { return resolutionMinutes; }
+    }
+}
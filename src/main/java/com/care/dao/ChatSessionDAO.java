@@ -1,7 +1,11 @@
 package com.care.dao;
 
 import com.care.model.ChatSession;
+import com.care.model.ConversationSummary;
+import com.care.model.DataEvent;
+import com.care.model.SessionEvent;
 import com.care.util.DatabaseDriver;
+import com.care.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -9,13 +13,24 @@ import java.util.List;
 
 /**
  * Data Access Object for ChatSession table
+ * Creating a session and changing its status are published as a {@link SessionEvent}.
  */
 public class ChatSessionDAO {
     
-    private Connection connection;
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String SELECT_BY_USER =
+        "SELECT * FROM chat_sessions WHERE user_id = ? ORDER BY created_at DESC";
+    static final String SELECT_ACTIVE =
+        "SELECT * FROM chat_sessions WHERE status = 'ACTIVE' ORDER BY created_at DESC";
+    static final String SELECT_BY_AGENT =
+        "SELECT * FROM chat_sessions WHERE assigned_agent_id = ? ORDER BY created_at DESC";
+    
+    private DatabaseDriver databaseDriver;
+    private AnalyticsRollupDAO rollupDAO;
     
     public ChatSessionDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
+        this.rollupDAO = new AnalyticsRollupDAO();
     }
     
     /**
@@ -24,31 +39,55 @@ public class ChatSessionDAO {
     public int create(ChatSession session) {
         String query = "INSERT INTO chat_sessions (user_id, product_id, status) VALUES (?, ?, ?)";
         
-        try {
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, session.getUserId());
-            stmt.setInt(2, session.getProductId());
-            stmt.setString(3, session.getStatus());
-            
-            System.out.println("Creating chat session: user_id=" + session.getUserId() + 
-                             ", product_id=" + session.getProductId() + ", status=" + session.getStatus());
+        try (Connection connection = databaseDriver.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
             
-            int rowsAffected = stmt.executeUpdate();
-            stmt.close();
-            
-            if (rowsAffected > 0) {
-                // Use fallback - query last inserted ID
-                Statement lastIdStmt = connection.createStatement();
-                ResultSet rs = lastIdStmt.executeQuery("SELECT last_insert_rowid()");
-                if (rs.next()) {
-                    int sessionId = rs.getInt(1);
-                    session.setSessionId(sessionId);
-                    rs.close();
+            try {
+                PreparedStatement stmt = connection.prepareStatement(query);
+                stmt.setInt(1, session.getUserId());
+                stmt.setInt(2, session.getProductId());
+                stmt.setString(3, session.getStatus());
+                
+                System.out.println("Creating chat session: user_id=" + session.getUserId() + 
+                                 ", product_id=" + session.getProductId() + ", status=" + session.getStatus());
+                
+                int rowsAffected = stmt.executeUpdate();
+                stmt.close();
+                
+                if (rowsAffected > 0) {
+                    // Use fallback - query last inserted ID
+                    Statement lastIdStmt = connection.createStatement();
+                    ResultSet rs = lastIdStmt.executeQuery("SELECT last_insert_rowid()");
+                    if (rs.next()) {
+                        int sessionId = rs.getInt(1);
+                        session.setSessionId(sessionId);
+                        rs.close();
+                        lastIdStmt.close();
+                        
+                        rollupDAO.applySessionChange(connection, null, rollupDAO.readSession(connection, sessionId));
+                        if (autoCommit) {
+                            connection.commit();
+                        }
+                        System.out.println("✓ Chat session created with ID: " + sessionId);
+                        EventBus.getInstance().publish(new SessionEvent(DataEvent.Kind.CREATED, sessionId, session.getStatus()));
+                        return sessionId;
+                    }
                     lastIdStmt.close();
-                    System.out.println("✓ Chat session created with ID: " + sessionId);
-                    return sessionId;
                 }
-                lastIdStmt.close();
+                
+                if (autoCommit) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
             }
         } catch (SQLException e) {
             System.err.println("❌ Error creating chat session: " + e.getMessage());
@@ -64,7 +103,8 @@ public class ChatSessionDAO {
     public ChatSession getById(int sessionId) {
         String query = "SELECT * FROM chat_sessions WHERE session_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, sessionId);
             ResultSet rs = stmt.executeQuery();
             
@@ -84,9 +124,9 @@ public class ChatSessionDAO {
      */
     public List<ChatSession> getByUserId(int userId) {
         List<ChatSession> sessions = new ArrayList<>();
-        String query = "SELECT * FROM chat_sessions WHERE user_id = ? ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_USER)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
             
@@ -109,13 +149,11 @@ public class ChatSessionDAO {
     public boolean updateStatus(int sessionId, String status) {
         String query = "UPDATE chat_sessions SET status = ?, updated_at = CURRENT_TIMESTAMP WHERE session_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, status);
-            stmt.setInt(2, sessionId);
-            
-            int rowsAffected = stmt.executeUpdate();
+        try {
+            int rowsAffected = updateSession(sessionId, query, status, sessionId);
             if (rowsAffected > 0) {
                 System.out.println("✓ Session " + sessionId + " status updated to: " + status);
+                EventBus.getInstance().publish(new SessionEvent(DataEvent.Kind.UPDATED, sessionId, status));
                 return true;
             }
         } catch (SQLException e) {
@@ -132,13 +170,11 @@ public class ChatSessionDAO {
     public boolean assignToAgent(int sessionId, int agentId) {
         String query = "UPDATE chat_sessions SET assigned_agent_id = ?, status = 'ESCALATED', updated_at = CURRENT_TIMESTAMP WHERE session_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, agentId);
-            stmt.setInt(2, sessionId);
-            
-            int rowsAffected = stmt.executeUpdate();
+        try {
+            int rowsAffected = updateSession(sessionId, query, agentId, sessionId);
             if (rowsAffected > 0) {
                 System.out.println("✓ Session " + sessionId + " assigned to agent: " + agentId);
+                EventBus.getInstance().publish(new SessionEvent(DataEvent.Kind.UPDATED, sessionId, "ESCALATED"));
                 return true;
             }
         } catch (SQLException e) {
@@ -149,6 +185,44 @@ public class ChatSessionDAO {
         return false;
     }
     
+    /**
+     * Run an UPDATE on one session and move its analytics rollups in the same transaction
+     *
+     * @return Number of rows updated
+     */
+    private int updateSession(int sessionId, String query, Object... params) throws SQLException {
+        try (Connection connection = databaseDriver.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                
+                AnalyticsRollupDAO.SessionRow before = rollupDAO.readSession(connection, sessionId);
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    rollupDAO.applySessionChange(connection, before, rollupDAO.readSession(connection, sessionId));
+                }
+                
+                if (autoCommit) {
+                    connection.commit();
+                }
+                return rowsAffected;
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+    
     /**
      * Get all sessions (for analytics)
      */
@@ -156,7 +230,8 @@ public class ChatSessionDAO {
         List<ChatSession> sessions = new ArrayList<>();
         String query = "SELECT * FROM chat_sessions ORDER BY created_at DESC";
         
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             Statement stmt = connection.createStatement()) {
             ResultSet rs = stmt.executeQuery(query);
             
             while (rs.next()) {
@@ -175,10 +250,10 @@ public class ChatSessionDAO {
      */
     public List<ChatSession> getActiveSessions() {
         List<ChatSession> sessions = new ArrayList<>();
-        String query = "SELECT * FROM chat_sessions WHERE status = 'ACTIVE' ORDER BY created_at DESC";
         
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(query);
+        try (Connection connection = databaseDriver.getReadConnection();
+             Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(SELECT_ACTIVE);
             
             while (rs.next()) {
                 sessions.add(mapResultSetToSession(rs));
@@ -196,9 +271,9 @@ public class ChatSessionDAO {
      */
     public List<ChatSession> getByAgentId(int agentId) {
         List<ChatSession> sessions = new ArrayList<>();
-        String query = "SELECT * FROM chat_sessions WHERE assigned_agent_id = ? ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_AGENT)) {
             stmt.setInt(1, agentId);
             ResultSet rs = stmt.executeQuery();
             
@@ -213,6 +288,61 @@ public class ChatSessionDAO {
         return sessions;
     }
     
+    /**
+     * Get the running summary of a session's older messages
+     * 
+     * @return The stored summary, or an empty summary if none has been written yet
+     */
+    public ConversationSummary getSummary(int sessionId) {
+        String query = "SELECT * FROM chat_session_summaries WHERE session_id = ?";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, sessionId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return new ConversationSummary(
+                    sessionId,
+                    rs.getString("summary"),
+                    rs.getInt("summarized_count"),
+                    rs.getInt("token_count")
+                );
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading summary for session: " + sessionId);
+            e.printStackTrace();
+        }
+        
+        ConversationSummary empty = new ConversationSummary();
+        empty.setSessionId(sessionId);
+        return empty;
+    }
+    
+    /**
+     * Insert or replace the running summary of a session
+     */
+    public boolean saveSummary(ConversationSummary summary) {
+        String query = "INSERT INTO chat_session_summaries (session_id, summary, summarized_count, token_count) " +
+                      "VALUES (?, ?, ?, ?) " +
+                      "ON CONFLICT(session_id) DO UPDATE SET summary = excluded.summary, " +
+                      "summarized_count = excluded.summarized_count, token_count = excluded.token_count, " +
+                      "updated_at = CURRENT_TIMESTAMP";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, summary.getSessionId());
+            stmt.setString(2, summary.getSummary());
+            stmt.setInt(3, summary.getSummarizedCount());
+            stmt.setInt(4, summary.getTokenCount());
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error saving summary for session: " + summary.getSessionId());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
     /**
      * Map ResultSet to ChatSession object
      */
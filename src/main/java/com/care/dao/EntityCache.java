@@ -0,0 +1,136 @@
+package com.care.dao;
+
+import com.care.util.Config;
+import com.care.util.IntLruCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache of reference rows by primary key
+ * Products and users are looked up by ID again and again (every AI call,
+ * every table row) but rarely change. The owning DAO loads a row on a miss
+ * and invalidates it after every write, so readers never see a row older
+ * than the last committed update made through the DAO.
+ * 
+ * Model objects are mutable, so the cache keeps its own copy and hands out
+ * a fresh copy on every hit.
+ */
+public class EntityCache<V> {
+    
+    private static final List<EntityCache<?>> caches = new CopyOnWriteArrayList<>();
+    
+    private final String name;
+    private final boolean enabled;
+    private final UnaryOperator<V> copier;
+    private final IntLruCache<V> entries;
+    
+    // Bumped on every invalidation; a load that raced a write is not cached
+    private long generation;
+    
+    // Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    /**
+     * @param name Name used in metrics
+     * @param copier Creates an independent copy of a row
+     */
+    public EntityCache(String name, UnaryOperator<V> copier) {
+        Config config = Config.getInstance();
+        this.name = name;
+        this.enabled = config.isEntityCacheEnabled();
+        this.copier = copier;
+        this.entries = new IntLruCache<>(config.getEntityCacheMaxEntries());
+        caches.add(this);
+    }
+    
+    /**
+     * Get a row, loading it on a miss
+     * 
+     * @param id Primary key
+     * @param loader Loads the row from the database (may return null)
+     * @return The row, or null if it does not exist
+     */
+    public V get(int id, IntFunction<V> loader) {
+        if (!enabled) {
+            bypassed.incrementAndGet();
+            return loader.apply(id);
+        }
+        
+        long loadGeneration;
+        synchronized (this) {
+            V cached = entries.get(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return copier.apply(cached);
+            }
+            loadGeneration = generation;
+        }
+        
+        misses.incrementAndGet();
+        V loaded = loader.apply(id);
+        
+        if (loaded != null) {
+            V copy = copier.apply(loaded);
+            synchronized (this) {
+                if (generation == loadGeneration && entries.put(id, copy)) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        
+        return loaded;
+    }
+    
+    /**
+     * Drop a row after it was updated or deleted
+     */
+    public synchronized void invalidate(int id) {
+        entries.remove(id);
+        generation++;
+        invalidations.incrementAndGet();
+    }
+    
+    /**
+     * Drop all rows (after bulk writes)
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        generation++;
+        invalidations.incrementAndGet();
+    }
+    
+    /**
+     * Get hit rate and size metrics
+     */
+    public String getStats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return String.format("%s: enabled=%s, size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d, bypassed=%d",
+            name, enabled, size, entries.capacity(), hitCount, misses.get(),
+            lookups > 0 ? 100.0 * hitCount / lookups : 0.0, evictions.get(), invalidations.get(), bypassed.get());
+    }
+    
+    /**
+     * Get metrics of every entity cache created so far
+     */
+    public static List<String> getAllStats() {
+        List<String> stats = new ArrayList<>();
+        for (EntityCache<?> cache : caches) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,226 @@
+package com.care.dao;
+
+import com.care.model.IngestionJob;
+import com.care.util.DatabaseDriver;
+import com.care.util.PdfPageExtractor;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for manual ingestion jobs and their staged pages
+ */
+public class IngestionJobDAO {
+    
+    private DatabaseDriver databaseDriver;
+    
+    public IngestionJobDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Create a queued job
+     * 
+     * @return The new job ID, or -1 if failed
+     */
+    public int create(IngestionJob job) {
+        String query = "INSERT INTO kb_ingest_jobs (product_id, title, source_path, status) VALUES (?, ?, ?, ?) RETURNING job_id";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, job.getProductId());
+            stmt.setString(2, job.getTitle());
+            stmt.setString(3, job.getSourcePath());
+            stmt.setString(4, job.getStatus());
+            
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                job.setJobId(rs.getInt(1));
+                return job.getJobId();
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error creating ingestion job: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Mark a job as running once its page count is known
+     */
+    public boolean markRunning(int jobId, int pagesTotal) {
+        String query = "UPDATE kb_ingest_jobs SET status = 'RUNNING', pages_total = ? WHERE job_id = ?";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, pagesTotal);
+            stmt.setInt(2, jobId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error updating ingestion job: " + jobId);
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Stage a batch of extracted pages and add them to the job's progress
+     * Batches may arrive out of page order from parallel extraction threads
+     */
+    public boolean insertPages(int jobId, List<PdfPageExtractor.Page> pages) {
+        String insertQuery = "INSERT OR REPLACE INTO kb_ingest_pages (job_id, page_number, content) VALUES (?, ?, ?)";
+        String progressQuery = "UPDATE kb_ingest_jobs SET pages_done = pages_done + ?, char_count = char_count + ? WHERE job_id = ?";
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement insertStmt = connection.prepareStatement(insertQuery);
+                 PreparedStatement progressStmt = connection.prepareStatement(progressQuery)) {
+                long chars = 0;
+                for (PdfPageExtractor.Page page : pages) {
+                    insertStmt.setInt(1, jobId);
+                    insertStmt.setInt(2, page.getPageNumber());
+                    insertStmt.setString(3, page.getText());
+                    insertStmt.addBatch();
+                    chars += page.getText().length();
+                }
+                insertStmt.executeBatch();
+                
+                progressStmt.setInt(1, pages.size());
+                progressStmt.setLong(2, chars);
+                progressStmt.setInt(3, jobId);
+                progressStmt.executeUpdate();
+                
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error staging pages for ingestion job: " + jobId);
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Record the final state of a job and drop its staged pages
+     */
+    public boolean finish(int jobId, String status, String errorMessage) {
+        String updateQuery = "UPDATE kb_ingest_jobs SET status = ?, error_message = ?, finished_at = CURRENT_TIMESTAMP WHERE job_id = ?";
+        String deleteQuery = "DELETE FROM kb_ingest_pages WHERE job_id = ?";
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement updateStmt = connection.prepareStatement(updateQuery);
+                 PreparedStatement deleteStmt = connection.prepareStatement(deleteQuery)) {
+                updateStmt.setString(1, status);
+                updateStmt.setString(2, errorMessage);
+                updateStmt.setInt(3, jobId);
+                updateStmt.executeUpdate();
+                
+                deleteStmt.setInt(1, jobId);
+                deleteStmt.executeUpdate();
+                
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error finishing ingestion job: " + jobId);
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Fail jobs left queued or running by a previous run of the application
+     * 
+     * @return Number of jobs marked as failed
+     */
+    public int failInterruptedJobs() {
+        String deleteQuery = "DELETE FROM kb_ingest_pages WHERE job_id IN " +
+                            "(SELECT job_id FROM kb_ingest_jobs WHERE status IN ('QUEUED', 'RUNNING'))";
+        String updateQuery = "UPDATE kb_ingest_jobs SET status = 'FAILED', error_message = 'Interrupted by application shutdown', " +
+                            "finished_at = CURRENT_TIMESTAMP WHERE status IN ('QUEUED', 'RUNNING')";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate(deleteQuery);
+            return stmt.executeUpdate(updateQuery);
+        } catch (SQLException e) {
+            System.err.println("Error cleaning up interrupted ingestion jobs");
+            e.printStackTrace();
+            return 0;
+        }
+    }
+    
+    /**
+     * Get job by ID
+     */
+    public IngestionJob getById(int jobId) {
+        String query = "SELECT * FROM kb_ingest_jobs WHERE job_id = ?";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, jobId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return mapResultSetToJob(rs);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading ingestion job: " + jobId);
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get the most recent jobs, newest first
+     */
+    public List<IngestionJob> getRecent(int limit) {
+        List<IngestionJob> jobs = new ArrayList<>();
+        String query = "SELECT * FROM kb_ingest_jobs ORDER BY job_id DESC LIMIT ?";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, limit);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                jobs.add(mapResultSetToJob(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading ingestion jobs");
+            e.printStackTrace();
+        }
+        
+        return jobs;
+    }
+    
+    /**
+     * Map ResultSet to IngestionJob object
+     */
+    private IngestionJob mapResultSetToJob(ResultSet rs) throws SQLException {
+        IngestionJob job = new IngestionJob(rs.getInt("product_id"), rs.getString("title"), rs.getString("source_path"));
+        job.setJobId(rs.getInt("job_id"));
+        job.setStatus(rs.getString("status"));
+        job.setPagesTotal(rs.getInt("pages_total"));
+        job.setPagesDone(rs.getInt("pages_done"));
+        job.setCharCount(rs.getLong("char_count"));
+        job.setErrorMessage(rs.getString("error_message"));
+        return job;
+    }
+}
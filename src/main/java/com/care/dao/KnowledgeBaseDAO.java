@@ -1,7 +1,10 @@
 package com.care.dao;
 
+import com.care.model.IngestionJob;
 import com.care.model.KnowledgeBase;
+import com.care.util.Config;
 import com.care.util.DatabaseDriver;
+import com.care.util.TextChunker;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,6 +18,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Data Access Object for Knowledge Base table
@@ -22,11 +27,29 @@ import java.util.List;
  */
 public class KnowledgeBaseDAO {
     
-    private Connection connection;
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String SELECT_BY_PRODUCT =
+        "SELECT * FROM knowledge_base WHERE product_id = ?";
+    static final String SELECT_ALL_BY_PRODUCT =
+        "SELECT * FROM knowledge_base WHERE product_id = ? ORDER BY kb_id";
+    static final String COUNT_BY_PRODUCT =
+        "SELECT COUNT(*) FROM knowledge_base WHERE product_id = ?";
+    
+    private DatabaseDriver databaseDriver;
+    private KnowledgeChunkDAO chunkDAO;
+    private TextChunker chunker;
     private static final String MANUALS_DIR = "manuals/";
     
+    // Staged pages are chunked in pieces of about this size
+    private static final int CHUNK_BUFFER_CHARS = 32_000;
+    
+    // Notified with the product ID after a manual is uploaded, replaced or deleted
+    private static final List<IntConsumer> manualChangeListeners = new CopyOnWriteArrayList<>();
+    
     public KnowledgeBaseDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
+        this.chunkDAO = new KnowledgeChunkDAO();
+        this.chunker = TextChunker.fromConfig(Config.getInstance());
         // Create manuals directory if it doesn't exist
         try {
             Files.createDirectories(Paths.get(MANUALS_DIR));
@@ -36,6 +59,24 @@ public class KnowledgeBaseDAO {
         }
     }
     
+    /**
+     * Register a callback run after a product's manual changes
+     * Used by caches that hold data derived from the manual
+     */
+    public static void addManualChangeListener(IntConsumer listener) {
+        manualChangeListeners.add(listener);
+    }
+    
+    private static void fireManualChanged(int productId) {
+        for (IntConsumer listener : manualChangeListeners) {
+            try {
+                listener.accept(productId);
+            } catch (Exception e) {
+                System.err.println("Error in manual change listener: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Get all knowledge base articles
      */
@@ -43,7 +84,8 @@ public class KnowledgeBaseDAO {
         List<KnowledgeBase> articles = new ArrayList<>();
         String query = "SELECT * FROM knowledge_base ORDER BY title";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -61,9 +103,8 @@ public class KnowledgeBaseDAO {
      * Get knowledge base articles for a specific product
      */
     public KnowledgeBase getByProductId(int productId) {
-        String query = "SELECT * FROM knowledge_base WHERE product_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_PRODUCT)) {
             stmt.setInt(1, productId);
             ResultSet rs = stmt.executeQuery();
             
@@ -78,13 +119,34 @@ public class KnowledgeBaseDAO {
         return null;
     }
     
+    /**
+     * Get every knowledge base entry for a product
+     */
+    public List<KnowledgeBase> getAllByProductId(int productId) {
+        List<KnowledgeBase> articles = new ArrayList<>();
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_ALL_BY_PRODUCT)) {
+            stmt.setInt(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                articles.add(mapResultSetToKB(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading KB entries for product: " + productId);
+            e.printStackTrace();
+        }
+        
+        return articles;
+    }
+    
     /**
      * Check if a product has a manual
      */
     public boolean hasManual(int productId) {
-        String query = "SELECT COUNT(*) FROM knowledge_base WHERE product_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(COUNT_BY_PRODUCT)) {
             stmt.setInt(1, productId);
             ResultSet rs = stmt.executeQuery();
             
@@ -100,71 +162,159 @@ public class KnowledgeBaseDAO {
     }
     
     /**
-     * Create knowledge base entry with file upload
+     * Split an existing entry into chunks
+     * Used for entries created before chunking existed (e.g. the seeded FAQ rows)
      */
-    public boolean createWithFile(int productId, String title, File pdfFile) {
-        // Save file to disk
-        String savedFilePath = saveFile(pdfFile, productId);
+    public boolean rebuildChunks(KnowledgeBase kb) {
+        return chunkDAO.replaceChunks(kb.getKbId(), kb.getProductId(), chunker.split(kb.getContent()));
+    }
+    
+    /**
+     * Publish the pages staged by an ingestion job as the product's manual
+     * Creates the knowledge base entry or replaces the existing manual. The
+     * document text is assembled inside SQLite and the pages are chunked as
+     * they are read back, so the whole manual is never held in memory.
+     * Entry, content, pages and chunks are committed together.
+     * 
+     * @param job Job whose pages are staged in kb_ingest_pages
+     * @param pdfFile Uploaded PDF, copied into the manuals directory
+     * @return true if the manual was published
+     */
+    public boolean publishIngestedManual(IngestionJob job, File pdfFile) {
+        int productId = job.getProductId();
         
+        String savedFilePath = saveFile(pdfFile, productId);
         if (savedFilePath == null) {
             return false;
         }
         
-        // Read file content (for AI/search later)
-        String content = extractTextFromPDF(pdfFile);
+        String existingQuery = "SELECT kb_id, file_path FROM knowledge_base WHERE product_id = ? ORDER BY kb_id LIMIT 1";
+        String insertQuery = "INSERT INTO knowledge_base (product_id, title, content, file_path) VALUES (?, ?, '', ?) RETURNING kb_id";
+        // knowledge_base has no updated_at column
+        String updateFileQuery = "UPDATE knowledge_base SET file_path = ? WHERE product_id = ?";
+        String contentQuery = "UPDATE knowledge_base SET content = " +
+                             "(SELECT COALESCE(group_concat(content, char(10) ORDER BY page_number), '') " +
+                             "FROM kb_ingest_pages WHERE job_id = ?) WHERE product_id = ?";
+        String pagesQuery = "SELECT content FROM kb_ingest_pages WHERE job_id = ? ORDER BY page_number";
+        // Pages stay searchable one by one (kb_pages_fts follows kb_pages through triggers)
+        String deletePagesQuery = "DELETE FROM kb_pages WHERE product_id = ?";
+        String insertPagesQuery = "INSERT INTO kb_pages (kb_id, product_id, page_number, content) " +
+                                 "SELECT ?, ?, page_number, content FROM kb_ingest_pages WHERE job_id = ? ORDER BY page_number";
         
-        String query = "INSERT INTO knowledge_base (product_id, title, content, file_path) VALUES (?, ?, ?, ?)";
+        String oldFilePath = null;
+        int chunkCount = 0;
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, productId);
-            stmt.setString(2, title);
-            stmt.setString(3, content);
-            stmt.setString(4, savedFilePath);
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
             
-            int rowsAffected = stmt.executeUpdate();
-            System.out.println("✓ Manual uploaded for product ID: " + productId);
-            return rowsAffected > 0;
+            try {
+                int kbId = -1;
+                try (PreparedStatement stmt = connection.prepareStatement(existingQuery)) {
+                    stmt.setInt(1, productId);
+                    ResultSet rs = stmt.executeQuery();
+                    if (rs.next()) {
+                        kbId = rs.getInt("kb_id");
+                        oldFilePath = rs.getString("file_path");
+                    }
+                    rs.close();
+                }
+                
+                if (kbId < 0) {
+                    try (PreparedStatement stmt = connection.prepareStatement(insertQuery)) {
+                        stmt.setInt(1, productId);
+                        stmt.setString(2, job.getTitle());
+                        stmt.setString(3, savedFilePath);
+                        ResultSet rs = stmt.executeQuery();
+                        if (!rs.next()) {
+                            connection.rollback();
+                            return false;
+                        }
+                        kbId = rs.getInt(1);
+                        rs.close();
+                    }
+                } else {
+                    try (PreparedStatement stmt = connection.prepareStatement(updateFileQuery)) {
+                        stmt.setString(1, savedFilePath);
+                        stmt.setInt(2, productId);
+                        stmt.executeUpdate();
+                    }
+                }
+                
+                // Every entry of the product holds the manual; index it once
+                try (PreparedStatement stmt = connection.prepareStatement(contentQuery)) {
+                    stmt.setInt(1, job.getJobId());
+                    stmt.setInt(2, productId);
+                    stmt.executeUpdate();
+                }
+                chunkDAO.deleteByProductId(productId);
+                
+                try (PreparedStatement stmt = connection.prepareStatement(deletePagesQuery)) {
+                    stmt.setInt(1, productId);
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = connection.prepareStatement(insertPagesQuery)) {
+                    stmt.setInt(1, kbId);
+                    stmt.setInt(2, productId);
+                    stmt.setInt(3, job.getJobId());
+                    stmt.executeUpdate();
+                }
+                
+                // Chunk a few pages at a time so chunks can span page breaks
+                try (PreparedStatement stmt = connection.prepareStatement(pagesQuery)) {
+                    stmt.setInt(1, job.getJobId());
+                    ResultSet rs = stmt.executeQuery();
+                    
+                    StringBuilder buffer = new StringBuilder();
+                    while (rs.next()) {
+                        buffer.append(rs.getString("content")).append('\n');
+                        if (buffer.length() >= CHUNK_BUFFER_CHARS) {
+                            chunkCount = appendChunks(kbId, productId, chunkCount, buffer);
+                        }
+                    }
+                    chunkCount = appendChunks(kbId, productId, chunkCount, buffer);
+                    rs.close();
+                }
+                
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
-            System.err.println("Error creating knowledge base entry");
+            System.err.println("Error publishing manual for product ID: " + productId);
             e.printStackTrace();
             return false;
         }
+        
+        if (oldFilePath != null && !oldFilePath.equals(savedFilePath)) {
+            deleteFile(oldFilePath);
+        }
+        
+        System.out.println("✓ Manual published for product ID: " + productId + " (" +
+                         job.getPagesTotal() + " pages, " + chunkCount + " chunks)");
+        fireManualChanged(productId);
+        return true;
     }
     
     /**
-     * Update/replace manual for a product
+     * Chunk and store buffered text, then clear the buffer
+     * 
+     * @return Index for the next chunk
+     * @throws SQLException if the chunks could not be stored (rolls back the caller's transaction)
      */
-    public boolean updateManual(int productId, File pdfFile) {
-        // Delete old file if exists
-        KnowledgeBase existing = getByProductId(productId);
-        if (existing != null && existing.getFilePath() != null) {
-            deleteFile(existing.getFilePath());
+    private int appendChunks(int kbId, int productId, int startIndex, StringBuilder buffer) throws SQLException {
+        if (buffer.length() == 0) {
+            return startIndex;
         }
         
-        // Save new file
-        String savedFilePath = saveFile(pdfFile, productId);
-        if (savedFilePath == null) {
-            return false;
-        }
-        
-        // Read content
-        String content = extractTextFromPDF(pdfFile);
-        
-        String query = "UPDATE knowledge_base SET content = ?, file_path = ?, updated_at = CURRENT_TIMESTAMP WHERE product_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, content);
-            stmt.setString(2, savedFilePath);
-            stmt.setInt(3, productId);
-            
-            int rowsAffected = stmt.executeUpdate();
-            System.out.println("✓ Manual updated for product ID: " + productId);
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.err.println("Error updating manual");
-            e.printStackTrace();
-            return false;
+        int next = chunkDAO.appendChunks(kbId, productId, startIndex, chunker.split(buffer.toString()));
+        buffer.setLength(0);
+        if (next < 0) {
+            throw new SQLException("Failed to store manual chunks for product " + productId);
         }
+        return next;
     }
     
     /**
@@ -177,11 +327,17 @@ public class KnowledgeBaseDAO {
             deleteFile(kb.getFilePath());
         }
         
+        // Chunks and pages are removed by ON DELETE CASCADE
         String query = "DELETE FROM knowledge_base WHERE product_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, productId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                fireManualChanged(productId);
+            }
+            return deleted;
         } catch (SQLException e) {
             System.err.println("Error deleting KB entry");
             e.printStackTrace();
@@ -191,8 +347,16 @@ public class KnowledgeBaseDAO {
     
     /**
      * Save PDF file to disk
+     * A file already in the manuals directory (a re-ingested manual) is kept
+     * where it is, so its name does not gain another product prefix.
      */
     private String saveFile(File sourceFile, int productId) {
+        Path manualsDir = Paths.get(MANUALS_DIR);
+        Path sourceDir = sourceFile.toPath().toAbsolutePath().normalize().getParent();
+        if (manualsDir.toAbsolutePath().normalize().equals(sourceDir)) {
+            return manualsDir.resolve(sourceFile.getName()).toString();
+        }
+        
         try {
             String fileName = "product_" + productId + "_" + sourceFile.getName();
             Path targetPath = Paths.get(MANUALS_DIR + fileName);
@@ -221,42 +385,6 @@ public class KnowledgeBaseDAO {
         }
     }
     
-    /**
-     * Extract text from PDF using Apache PDFBox
-     */
-    private String extractTextFromPDF(File pdfFile) {
-        try {
-            System.out.println("Extracting text from PDF: " + pdfFile.getName());
-            
-            // Load PDF document
-            org.apache.pdfbox.pdmodel.PDDocument document = 
-                org.apache.pdfbox.pdmodel.PDDocument.load(pdfFile);
-            
-            // Extract text
-            org.apache.pdfbox.text.PDFTextStripper stripper = 
-                new org.apache.pdfbox.text.PDFTextStripper();
-            String text = stripper.getText(document);
-            
-            // Close document
-            document.close();
-            
-            // Limit text size to avoid database issues (first 50000 characters)
-            if (text.length() > 50000) {
-                text = text.substring(0, 50000) + "\n... [Content truncated]";
-                System.out.println("⚠ PDF text truncated to 50,000 characters");
-            }
-            
-            System.out.println("✓ Extracted " + text.length() + " characters from PDF");
-            return text;
-            
-        } catch (Exception e) {
-            System.err.println("Error extracting text from PDF: " + e.getMessage());
-            e.printStackTrace();
-            // Return basic info if extraction fails
-            return "Manual file: " + pdfFile.getName() + "\n[Text extraction failed: " + e.getMessage() + "]";
-        }
-    }
-    
     /**
      * Map ResultSet to KnowledgeBase object
      */
@@ -0,0 +1,193 @@
+package com.care.dao;
+
+import com.care.model.KnowledgeChunk;
+import com.care.util.DatabaseDriver;
+import com.care.util.TokenCounter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the kb_chunks table
+ * Stores manuals as retrieval-sized passages
+ */
+public class KnowledgeChunkDAO {
+    
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String DELETE_BY_KB =
+        "DELETE FROM kb_chunks WHERE kb_id = ?";
+    static final String SELECT_BY_PRODUCT =
+        "SELECT * FROM kb_chunks WHERE product_id = ? ORDER BY kb_id, chunk_index";
+    static final String SELECT_VERSION =
+        "SELECT COUNT(*), COALESCE(MAX(chunk_id), 0) FROM kb_chunks WHERE product_id = ?";
+    static final String DELETE_BY_PRODUCT =
+        "DELETE FROM kb_chunks WHERE product_id = ?";
+    
+    private DatabaseDriver databaseDriver;
+    
+    public KnowledgeChunkDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Replace all chunks of a knowledge base entry in one transaction
+     *
+     * @param kbId Knowledge base entry the chunks belong to
+     * @param productId Product of the entry
+     * @param chunks Chunk texts in document order
+     * @return true if the chunks were stored
+     */
+    public boolean replaceChunks(int kbId, int productId, List<String> chunks) {
+        String insertQuery = "INSERT INTO kb_chunks (kb_id, product_id, chunk_index, content, token_count) VALUES (?, ?, ?, ?, ?)";
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement deleteStmt = connection.prepareStatement(DELETE_BY_KB);
+                 PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+                deleteStmt.setInt(1, kbId);
+                deleteStmt.executeUpdate();
+                
+                for (int i = 0; i < chunks.size(); i++) {
+                    insertStmt.setInt(1, kbId);
+                    insertStmt.setInt(2, productId);
+                    insertStmt.setInt(3, i);
+                    insertStmt.setString(4, chunks.get(i));
+                    insertStmt.setInt(5, TokenCounter.getInstance().count(chunks.get(i)));
+                    insertStmt.addBatch();
+                }
+                insertStmt.executeBatch();
+                
+                if (autoCommit) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+            
+            System.out.println("✓ Stored " + chunks.size() + " chunks for KB entry " + kbId);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error storing chunks for KB entry: " + kbId);
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Add chunks after the existing ones of a knowledge base entry
+     * Meant to be called repeatedly inside the caller's transaction while a
+     * large manual is streamed in
+     *
+     * @param startIndex chunk_index of the first new chunk
+     * @return The index after the last stored chunk, or -1 if failed
+     */
+    public int appendChunks(int kbId, int productId, int startIndex, List<String> chunks) {
+        String insertQuery = "INSERT INTO kb_chunks (kb_id, product_id, chunk_index, content, token_count) VALUES (?, ?, ?, ?, ?)";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement insertStmt = connection.prepareStatement(insertQuery)) {
+            int index = startIndex;
+            for (String chunk : chunks) {
+                insertStmt.setInt(1, kbId);
+                insertStmt.setInt(2, productId);
+                insertStmt.setInt(3, index++);
+                insertStmt.setString(4, chunk);
+                insertStmt.setInt(5, TokenCounter.getInstance().count(chunk));
+                insertStmt.addBatch();
+            }
+            insertStmt.executeBatch();
+            return index;
+        } catch (SQLException e) {
+            System.err.println("Error appending chunks for KB entry: " + kbId);
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Get all chunks for a product, in document order
+     */
+    public List<KnowledgeChunk> getByProductId(int productId) {
+        List<KnowledgeChunk> chunks = new ArrayList<>();
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_PRODUCT)) {
+            stmt.setInt(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                chunks.add(mapResultSetToChunk(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading chunks for product: " + productId);
+            e.printStackTrace();
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Get a cheap fingerprint of a product's chunks
+     * Changes whenever chunks are added, replaced or deleted, so callers can
+     * tell whether an in-memory index built from them is still current
+     */
+    public String getVersion(int productId) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_VERSION)) {
+            stmt.setInt(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1) + ":" + rs.getLong(2);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading chunk version for product: " + productId);
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Delete all chunks of a product
+     */
+    public boolean deleteByProductId(int productId) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(DELETE_BY_PRODUCT)) {
+            stmt.setInt(1, productId);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error deleting chunks for product: " + productId);
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Map ResultSet to KnowledgeChunk object
+     */
+    private KnowledgeChunk mapResultSetToChunk(ResultSet rs) throws SQLException {
+        KnowledgeChunk chunk = new KnowledgeChunk();
+        chunk.setChunkId(rs.getInt("chunk_id"));
+        chunk.setKbId(rs.getInt("kb_id"));
+        chunk.setProductId(rs.getInt("product_id"));
+        chunk.setChunkIndex(rs.getInt("chunk_index"));
+        chunk.setContent(rs.getString("content"));
+        chunk.setTokenCount(rs.getInt("token_count"));
+        return chunk;
+    }
+}
@@ -0,0 +1,225 @@
+package com.care.dao;
+
+import com.care.model.KnowledgeSearchHit;
+import com.care.util.DatabaseDriver;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for full-text search over manual pages
+ * Queries the kb_pages_fts index (migration 004), which triggers keep in sync
+ * with kb_pages. Product and category filters are added to the MATCH as
+ * product_id terms, so only the pages of those products are ranked. The best
+ * page ids are picked from the index alone; snippets (against the text part of
+ * the query only) and joins are done for those pages only. Later pages
+ * continue from the last hit (keyset on rank, page_id).
+ */
+public class KnowledgeSearchDAO {
+    
+    // Tokens of context on each side of the matched terms in a snippet
+    private static final int SNIPPET_TOKENS = 16;
+    
+    private static final String SELECT_HIT =
+        "SELECT pg.page_id, pg.kb_id, pg.product_id, pg.page_number, kb.title, " +
+        "p.name AS product_name, p.category, top.rank, " +
+        "(SELECT snippet(kb_pages_fts, 0, char(2), char(3), '…', " + SNIPPET_TOKENS + ") " +
+        " FROM kb_pages_fts WHERE kb_pages_fts MATCH ? AND kb_pages_fts.rowid = top.page_id) AS snippet " +
+        "FROM top " +
+        "JOIN kb_pages pg ON pg.page_id = top.page_id " +
+        "JOIN knowledge_base kb ON kb.kb_id = pg.kb_id " +
+        "LEFT JOIN products p ON p.product_id = pg.product_id " +
+        "ORDER BY top.rank, top.page_id";
+    
+    private static volatile Boolean indexAvailable;
+    
+    private DatabaseDriver databaseDriver;
+    
+    public KnowledgeSearchDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Check if the manual search index exists (migration 004 has been applied)
+     */
+    public boolean isIndexAvailable() {
+        if (indexAvailable == null) {
+            String query = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'kb_pages_fts'";
+            
+            try (Connection connection = databaseDriver.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                indexAvailable = stmt.executeQuery().next();
+            } catch (SQLException e) {
+                System.err.println("Error checking for the manual search index");
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return indexAvailable;
+    }
+    
+    /**
+     * Get one page of manual pages matching a full-text query
+     *
+     * @param matchQuery FTS5 query on the page text (already escaped)
+     * @param productId Only this product's manual (null for all)
+     * @param category Only manuals of products in this category (null for all)
+     * @param after Last hit of the previous page (null for the first page)
+     * @param limit Maximum number of hits
+     * @return Hits, best first; fewer than limit when the last match is reached
+     */
+    public List<KnowledgeSearchHit> search(String matchQuery, Integer productId, String category,
+                                           KnowledgeSearchHit after, int limit) {
+        try (Connection connection = databaseDriver.getReadConnection()) {
+            return search(connection, matchQuery, productId, category, after, limit);
+        } catch (SQLException e) {
+            System.err.println("Error searching manuals: " + matchQuery);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Same as {@link #search(String, Integer, String, KnowledgeSearchHit, int)},
+     * on a given connection (e.g. a scratch database for benchmarks)
+     *
+     * @throws SQLException if the query fails
+     */
+    public static List<KnowledgeSearchHit> search(Connection connection, String matchQuery, Integer productId,
+                                                  String category, KnowledgeSearchHit after, int limit) throws SQLException {
+        List<KnowledgeSearchHit> hits = new ArrayList<>();
+        
+        String contentMatch = "content : (" + matchQuery + ")";
+        StringBuilder match = new StringBuilder(contentMatch);
+        if (productId != null) {
+            match.append(" AND product_id : \"").append(productId).append('"');
+        }
+        if (category != null) {
+            List<Integer> productIds = getProductIdsInCategory(connection, category);
+            if (productIds.isEmpty()) {
+                return hits;
+            }
+            match.append(" AND product_id : (");
+            for (int i = 0; i < productIds.size(); i++) {
+                match.append(i > 0 ? " OR \"" : "\"").append(productIds.get(i)).append('"');
+            }
+            match.append(')');
+        }
+        
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder(
+            "WITH top AS (SELECT rowid AS page_id, rank FROM kb_pages_fts WHERE kb_pages_fts MATCH ?");
+        params.add(match.toString());
+        
+        if (after != null) {
+            query.append(" AND (rank > ? OR (rank = ? AND rowid > ?))");
+            params.add(after.getRank());
+            params.add(after.getRank());
+            params.add(after.getPageId());
+        }
+        query.append(" ORDER BY rank, rowid LIMIT ?) ").append(SELECT_HIT);
+        params.add(limit);
+        params.add(contentMatch);
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                hits.add(mapResultSetToHit(rs));
+            }
+        }
+        
+        return hits;
+    }
+    
+    /**
+     * Get the full text of a manual page
+     *
+     * @return The text, or null if the page no longer exists
+     */
+    public String getPageContent(int pageId) {
+        String query = "SELECT content FROM kb_pages WHERE page_id = ?";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setInt(1, pageId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getString("content");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading manual page: " + pageId);
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Get the product categories that have a manual
+     */
+    public List<String> getCategories() {
+        List<String> categories = new ArrayList<>();
+        String query = "SELECT DISTINCT p.category FROM products p " +
+                      "WHERE EXISTS (SELECT 1 FROM knowledge_base kb WHERE kb.product_id = p.product_id) " +
+                      "ORDER BY p.category";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                categories.add(rs.getString("category"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading manual categories");
+            e.printStackTrace();
+        }
+        
+        return categories;
+    }
+    
+    private static List<Integer> getProductIdsInCategory(Connection connection, String category) throws SQLException {
+        List<Integer> productIds = new ArrayList<>();
+        // Products without manual pages would only lengthen the query
+        String query = "SELECT p.product_id FROM products p WHERE p.category = ? " +
+                      "AND EXISTS (SELECT 1 FROM kb_pages pg WHERE pg.product_id = p.product_id) " +
+                      "ORDER BY p.product_id";
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, category);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                productIds.add(rs.getInt("product_id"));
+            }
+        }
+        
+        return productIds;
+    }
+    
+    /**
+     * Map ResultSet to KnowledgeSearchHit object
+     */
+    private static KnowledgeSearchHit mapResultSetToHit(ResultSet rs) throws SQLException {
+        int pageNumber = rs.getInt("page_number");
+        Integer page = rs.wasNull() ? null : pageNumber;
+        
+        return new KnowledgeSearchHit(
+            rs.getInt("page_id"),
+            rs.getInt("kb_id"),
+            rs.getInt("product_id"),
+            page,
+            rs.getString("title"),
+            rs.getString("product_name"),
+            rs.getString("category"),
+            rs.getString("snippet"),
+            rs.getDouble("rank")
+        );
+    }
+}
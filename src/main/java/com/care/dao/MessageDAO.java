@@ -1,10 +1,14 @@
 package com.care.dao;
 
 import com.care.model.Message;
+import com.care.model.MessageEvent;
 import com.care.util.DatabaseDriver;
+import com.care.util.EventBus;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -12,60 +16,128 @@ import java.util.List;
  */
 public class MessageDAO {
     
-    private Connection connection;
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String SELECT_BY_SESSION =
+        "SELECT * FROM messages WHERE session_id = ? ORDER BY timestamp ASC";
+    static final String SELECT_PAGE_BEFORE =
+        "SELECT * FROM messages WHERE session_id = ? AND message_id < ? ORDER BY message_id DESC LIMIT ?";
+    static final String DELETE_BY_SESSION =
+        "DELETE FROM messages WHERE session_id = ?";
+    static final String COUNT_BY_SESSION =
+        "SELECT COUNT(*) FROM messages WHERE session_id = ?";
+    static final String SELECT_HISTORY_FROM =
+        "SELECT * FROM messages WHERE session_id = ? AND sender_type <> 'SYSTEM' ORDER BY message_id LIMIT -1 OFFSET ?";
+    static final String COUNT_HISTORY_BEFORE =
+        "SELECT COUNT(*) FROM messages WHERE session_id = ? AND message_id < ? AND sender_type <> 'SYSTEM'";
+    
+    // 256 rows of 3 parameters stay under SQLite's default limit of 999 bound parameters
+    private static final int ROWS_PER_INSERT = 256;
+    
+    private DatabaseDriver databaseDriver;
     
     public MessageDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
     }
     
     /**
      * Create a new message
+     * Goes through the {@link MessageJournal}, so depending on the configured
+     * durability mode the insert may be group-committed with other messages.
+     * 
+     * @return The new message ID, 0 if the message was only queued (ASYNC mode), or -1 on failure
      */
     public int create(Message message) {
-        String query = "INSERT INTO messages (session_id, sender_type, content) VALUES (?, ?, ?)";
+        System.out.println("Saving message: session=" + message.getSessionId() + 
+                         ", sender=" + message.getSenderType());
         
-        try {
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, message.getSessionId());
-            stmt.setString(2, message.getSenderType());
-            stmt.setString(3, message.getContent());
-            
-            System.out.println("Saving message: session=" + message.getSessionId() + 
-                             ", sender=" + message.getSenderType());
+        int messageId = MessageJournal.getInstance().append(message);
+        if (messageId > 0) {
+            System.out.println("✓ Message created with ID: " + messageId);
+        }
+        return messageId;
+    }
+    
+    /**
+     * Insert messages in a single transaction
+     * Rows go in multi-row INSERT ... RETURNING statements of up to
+     * ROWS_PER_INSERT messages. The transcript FTS index flushes its pending
+     * terms at the end of every statement, so one statement per row cost
+     * several times more than the insert itself. Once committed, every
+     * message is published on the {@link EventBus}.
+     *
+     * @throws SQLException if any insert fails (the whole batch is rolled back)
+     */
+    void insertBatch(List<Message> messages) throws SQLException {
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
             
-            int rowsAffected = stmt.executeUpdate();
-            stmt.close();
+            try {
+                for (int from = 0; from < messages.size(); from += ROWS_PER_INSERT) {
+                    insertRows(connection, messages.subList(from, Math.min(messages.size(), from + ROWS_PER_INSERT)));
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        
+        EventBus eventBus = EventBus.getInstance();
+        for (Message message : messages) {
+            eventBus.publish(new MessageEvent(message));
+        }
+    }
+    
+    /**
+     * Insert rows with one statement and set their generated IDs
+     * RETURNING hands the IDs back in no particular order; AUTOINCREMENT
+     * gives the rows ascending IDs in VALUES order, so the sorted IDs line
+     * up with the messages.
+     */
+    private void insertRows(Connection connection, List<Message> rows) throws SQLException {
+        StringBuilder query = new StringBuilder("INSERT INTO messages (session_id, sender_type, content) VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            query.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        query.append(" RETURNING message_id");
+        
+        int[] ids = new int[rows.size()];
+        int count = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            int parameter = 1;
+            for (Message message : rows) {
+                stmt.setInt(parameter++, message.getSessionId());
+                stmt.setString(parameter++, message.getSenderType());
+                stmt.setString(parameter++, message.getContent());
+            }
             
-            if (rowsAffected > 0) {
-                // Use fallback - query last inserted ID
-                Statement lastIdStmt = connection.createStatement();
-                ResultSet rs = lastIdStmt.executeQuery("SELECT last_insert_rowid()");
-                if (rs.next()) {
-                    int messageId = rs.getInt(1);
-                    message.setMessageId(messageId);
-                    rs.close();
-                    lastIdStmt.close();
-                    System.out.println("✓ Message created with ID: " + messageId);
-                    return messageId;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next() && count < ids.length) {
+                    ids[count++] = rs.getInt(1);
                 }
-                lastIdStmt.close();
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error creating message: " + e.getMessage());
-            e.printStackTrace();
+        }
+        if (count != rows.size()) {
+            throw new SQLException("Inserted " + rows.size() + " messages but got " + count + " IDs back");
         }
         
-        return -1;
+        Arrays.sort(ids);
+        for (int i = 0; i < ids.length; i++) {
+            rows.get(i).setMessageId(ids[i]);
+        }
     }
     
     /**
      * Get all messages for a session
      */
     public List<Message> getBySessionId(int sessionId) {
+        flushPendingWrites(sessionId);
         List<Message> messages = new ArrayList<>();
-        String query = "SELECT * FROM messages WHERE session_id = ? ORDER BY timestamp ASC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_SESSION)) {
             stmt.setInt(1, sessionId);
             ResultSet rs = stmt.executeQuery();
             
@@ -82,13 +154,101 @@ public class MessageDAO {
         return messages;
     }
     
+    /**
+     * Get one page of a session's messages, walking back from the newest
+     * Keyset paging on (session_id, message_id): each page starts right
+     * before the oldest message of the previous one, so a page costs the
+     * same however far back it is.
+     *
+     * @param sessionId Session to read
+     * @param beforeMessageId Only messages older than this ID (0 for the newest page)
+     * @param limit Maximum number of messages
+     * @return Messages oldest first; fewer than limit when the start of the session is reached
+     */
+    public List<Message> getPageBefore(int sessionId, int beforeMessageId, int limit) {
+        flushPendingWrites(sessionId);
+        List<Message> messages = new ArrayList<>();
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_PAGE_BEFORE)) {
+            stmt.setInt(1, sessionId);
+            stmt.setInt(2, beforeMessageId > 0 ? beforeMessageId : Integer.MAX_VALUE);
+            stmt.setInt(3, limit);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                messages.add(mapResultSetToMessage(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading message page for session: " + sessionId);
+            e.printStackTrace();
+        }
+        
+        Collections.reverse(messages);
+        return messages;
+    }
+    
+    /**
+     * Get the AI context of a session, skipping the leading messages already summarized
+     *
+     * @param sessionId Session to read
+     * @param skip Number of leading non-system messages to leave out
+     * @return The remaining non-system messages, oldest first
+     */
+    public List<Message> getHistoryFrom(int sessionId, int skip) {
+        flushPendingWrites(sessionId);
+        List<Message> messages = new ArrayList<>();
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_HISTORY_FROM)) {
+            stmt.setInt(1, sessionId);
+            stmt.setInt(2, Math.max(0, skip));
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                messages.add(mapResultSetToMessage(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading history for session: " + sessionId);
+            e.printStackTrace();
+        }
+        
+        return messages;
+    }
+    
+    /**
+     * Count the non-system messages of a session older than a message
+     *
+     * @return Position of the message among the session's non-system messages
+     */
+    public int getHistoryPosition(int sessionId, int messageId) {
+        flushPendingWrites(sessionId);
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(COUNT_HISTORY_BEFORE)) {
+            stmt.setInt(1, sessionId);
+            stmt.setInt(2, messageId);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting history for session: " + sessionId);
+            e.printStackTrace();
+        }
+        
+        return 0;
+    }
+    
     /**
      * Get message by ID
      */
     public Message getById(int messageId) {
         String query = "SELECT * FROM messages WHERE message_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, messageId);
             ResultSet rs = stmt.executeQuery();
             
@@ -107,9 +267,10 @@ public class MessageDAO {
      * Delete all messages for a session
      */
     public boolean deleteBySessionId(int sessionId) {
-        String query = "DELETE FROM messages WHERE session_id = ?";
+        flushPendingWrites(sessionId);
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(DELETE_BY_SESSION)) {
             stmt.setInt(1, sessionId);
             int rowsAffected = stmt.executeUpdate();
             System.out.println("✓ Deleted " + rowsAffected + " messages for session: " + sessionId);
@@ -125,9 +286,10 @@ public class MessageDAO {
      * Get message count for a session
      */
     public int getMessageCount(int sessionId) {
-        String query = "SELECT COUNT(*) FROM messages WHERE session_id = ?";
+        flushPendingWrites(sessionId);
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(COUNT_BY_SESSION)) {
             stmt.setInt(1, sessionId);
             ResultSet rs = stmt.executeQuery();
             
@@ -142,6 +304,17 @@ public class MessageDAO {
         return 0;
     }
     
+    /**
+     * Make a session's queued (ASYNC) messages visible before reading it
+     * Reads of other sessions don't wait for the writer.
+     */
+    private void flushPendingWrites(int sessionId) {
+        MessageJournal journal = MessageJournal.getInstance();
+        if (journal.getPendingCount(sessionId) > 0) {
+            journal.flush();
+        }
+    }
+    
     /**
      * Map ResultSet to Message object
      */
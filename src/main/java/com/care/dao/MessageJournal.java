@@ -0,0 +1,376 @@
+package com.care.dao;
+
+import com.care.model.Message;
+import com.care.util.Config;
+import com.care.util.DatabaseDriver;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind journal for chat messages
+ * Messages are queued and written by a single background thread that
+ * group-commits everything waiting in the queue in one transaction, so a burst
+ * of chat turns costs one fsync instead of one per message.
+ * 
+ * Durability modes (messages.durability in config.properties):
+ * - SYNC: each message is written in its own transaction on the caller's thread
+ * - GROUP_COMMIT: the caller waits until the batch containing its message commits
+ * - ASYNC: the caller returns as soon as the message is queued
+ * 
+ * When the queue is full, callers block until there is room (back-pressure).
+ * A caller that holds the writer connection (inside a transaction) never
+ * waits for the writer thread, which would need that same connection.
+ */
+public class MessageJournal {
+    
+    /**
+     * How long create() waits before its message is considered durable
+     */
+    public enum DurabilityMode {
+        SYNC,
+        GROUP_COMMIT,
+        ASYNC
+    }
+    
+    private static MessageJournal instance;
+    
+    // Gap between arrivals after which a batch is committed without waiting further
+    private static final long QUIET_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    
+    private final MessageDAO messageDAO;
+    private final DurabilityMode mode;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingMessage> queue;
+    private Thread writerThread;
+    private volatile boolean shuttingDown;
+    
+    // Messages queued or in the batch being written; dropped only after their commit
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Map<Integer, Integer> outstandingBySession = new ConcurrentHashMap<>();
+    
+    // Metrics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicInteger maxBatch = new AtomicInteger();
+    private final AtomicLong backPressureWaits = new AtomicLong();
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private MessageJournal() {
+        Config config = Config.getInstance();
+        this.messageDAO = new MessageDAO();
+        this.mode = parseMode(config.getMessageDurability());
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getMessageGroupCommitDelayMillis());
+        this.maxBatchSize = config.getMessageBatchSize();
+        this.queue = new ArrayBlockingQueue<>(config.getMessageQueueCapacity());
+    }
+    
+    private static DurabilityMode parseMode(String value) {
+        try {
+            return DurabilityMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠ Unknown messages.durability '" + value + "', using GROUP_COMMIT");
+            return DurabilityMode.GROUP_COMMIT;
+        }
+    }
+    
+    /**
+     * Get the singleton instance of MessageJournal
+     * 
+     * @return MessageJournal instance
+     */
+    public static synchronized MessageJournal getInstance() {
+        if (instance == null) {
+            instance = new MessageJournal();
+        }
+        return instance;
+    }
+    
+    /**
+     * Append a message to the journal
+     * 
+     * @param message Message to store; its ID is set once it has been written
+     * @return The new message ID, 0 if the message was queued (ASYNC), or -1 on failure
+     */
+    public int append(Message message) {
+        if (mode == DurabilityMode.SYNC || shuttingDown) {
+            return writeDirect(message);
+        }
+        // The writer thread would block on the connection this thread holds
+        if (mode == DurabilityMode.GROUP_COMMIT && DatabaseDriver.getInstance().holdsWriter()) {
+            return writeDirect(message);
+        }
+        
+        PendingMessage pending = new PendingMessage(message);
+        if (!enqueue(pending)) {
+            return writeDirect(message);
+        }
+        
+        if (mode == DurabilityMode.ASYNC) {
+            return 0;
+        }
+        
+        try {
+            return pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Wait until every message queued so far has been committed
+     * Returns at once if the calling thread holds the writer connection, since
+     * the writer thread cannot commit until it is released.
+     */
+    public void flush() {
+        if (writerThread == null || outstanding.get() == 0) {
+            return;
+        }
+        if (DatabaseDriver.getInstance().holdsWriter()) {
+            System.err.println("⚠ Message journal not flushed: caller holds the writer connection");
+            return;
+        }
+        
+        PendingMessage marker = new PendingMessage(null);
+        if (enqueue(marker)) {
+            try {
+                marker.future.get(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("⚠ Timed out flushing message journal");
+            }
+        }
+    }
+    
+    /**
+     * Flush pending messages and stop the writer thread
+     * Called from App.stop() before the database is closed
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            if (shuttingDown) {
+                return;
+            }
+            shuttingDown = true;
+            thread = writerThread;
+        }
+        
+        if (thread != null) {
+            // The writer drains the queue before exiting
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        // Anything that slipped in while the writer was exiting
+        List<PendingMessage> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            commit(leftover);
+        }
+        
+        System.out.println("Message journal stopped (" + getStats() + ")");
+    }
+    
+    /**
+     * Get number of messages not yet committed (queued or being written)
+     */
+    public int getPendingCount() {
+        return outstanding.get();
+    }
+    
+    /**
+     * Get number of a session's messages not yet committed
+     */
+    public int getPendingCount(int sessionId) {
+        return outstandingBySession.getOrDefault(sessionId, 0);
+    }
+    
+    public DurabilityMode getMode() {
+        return mode;
+    }
+    
+    /**
+     * Get journal throughput and batching metrics
+     */
+    public String getStats() {
+        long batchCount = batches.get();
+        return String.format("mode=%s, enqueued=%d, committed=%d, failed=%d, batches=%d, avgBatch=%.1f, maxBatch=%d, backPressureWaits=%d",
+            mode, enqueued.get(), committed.get(), failed.get(), batchCount,
+            batchCount > 0 ? (double) committed.get() / batchCount : 0.0, maxBatch.get(), backPressureWaits.get());
+    }
+    
+    /**
+     * Put a message on the queue, blocking while the queue is full
+     */
+    private boolean enqueue(PendingMessage pending) {
+        ensureWriterStarted();
+        
+        // Counted before the writer can see it, so flush() never misses it
+        if (pending.message != null) {
+            countOutstanding(pending.message, 1);
+        }
+        try {
+            if (!queue.offer(pending)) {
+                backPressureWaits.incrementAndGet();
+                queue.put(pending);
+            }
+            if (pending.message != null) {
+                enqueued.incrementAndGet();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            if (pending.message != null) {
+                countOutstanding(pending.message, -1);
+            }
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private void countOutstanding(Message message, int delta) {
+        outstanding.addAndGet(delta);
+        // A session's entry is dropped once its count is back to zero
+        outstandingBySession.merge(message.getSessionId(), delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+    
+    private synchronized void ensureWriterStarted() {
+        if (writerThread == null && !shuttingDown) {
+            writerThread = new Thread(this::runWriter, "care-message-journal");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+    
+    /**
+     * Writer loop: take the first waiting message, then keep collecting until
+     * the batch is full or the group-commit delay has passed
+     */
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        
+        while (!shuttingDown || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                
+                // Linger while messages keep arriving, but stop as soon as the
+                // queue goes quiet so a lone message isn't held for the full delay
+                while (batch.size() < maxBatchSize && !shuttingDown) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(Math.min(remaining, QUIET_NANOS), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Interrupted by shutdown(): loop again to drain what is left
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            
+            commit(batch);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * Write one batch in a single transaction and complete its futures
+     */
+    private void commit(List<PendingMessage> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            if (pending.message != null) {
+                messages.add(pending.message);
+            }
+        }
+        
+        if (!messages.isEmpty()) {
+            try {
+                messageDAO.insertBatch(messages);
+                committed.addAndGet(messages.size());
+                batches.incrementAndGet();
+                maxBatch.accumulateAndGet(messages.size(), Math::max);
+            } catch (SQLException e) {
+                // The batch was rolled back; retry one by one so a single bad row
+                // (e.g. a deleted session) doesn't lose the rest
+                System.err.println("⚠ Message batch of " + messages.size() + " failed, retrying individually: " + e.getMessage());
+                for (Message message : messages) {
+                    writeDirect(message);
+                }
+            }
+        }
+        
+        for (Message message : messages) {
+            countOutstanding(message, -1);
+        }
+        for (PendingMessage pending : batch) {
+            pending.future.complete(pending.message != null ? pending.message.getMessageId() : 0);
+        }
+    }
+    
+    /**
+     * Write a single message in its own transaction
+     */
+    private int writeDirect(Message message) {
+        try {
+            messageDAO.insertBatch(List.of(message));
+            committed.incrementAndGet();
+            batches.incrementAndGet();
+            return message.getMessageId();
+        } catch (SQLException e) {
+            failed.incrementAndGet();
+            message.setMessageId(-1);
+            System.err.println("❌ Error creating message: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
+    /**
+     * Queue entry; a null message marks a flush request
+     */
+    private static class PendingMessage {
+        private final Message message;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        
+        PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+}
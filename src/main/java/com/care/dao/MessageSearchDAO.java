@@ -0,0 +1,163 @@
+package com.care.dao;
+
+import com.care.model.MessageSearchHit;
+import com.care.util.DatabaseDriver;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for full-text search over chat messages
+ * Queries the messages_fts index (migration 003), which triggers keep in
+ * sync with the messages table. Hits come one page per query and continue
+ * from the last hit of the previous page (keyset paging on rank, message_id
+ * or on message_id alone), so later pages never re-read the earlier ones.
+ */
+public class MessageSearchDAO {
+    
+    /**
+     * Order of search hits
+     */
+    public enum Order {
+        /** Best bm25 match first; every match is scored before the first page */
+        RELEVANCE,
+        /** Newest message first; stops reading the index once the page is full */
+        NEWEST
+    }
+    
+    // Tokens of context on each side of the matched terms in a snippet
+    private static final int SNIPPET_TOKENS = 16;
+    
+    private static final String SELECT_HIT =
+        "SELECT m.message_id, m.session_id, m.sender_type, m.timestamp, " +
+        "snippet(messages_fts, 0, char(2), char(3), '…', " + SNIPPET_TOKENS + ") AS snippet, " +
+        "messages_fts.rank AS rank, s.status AS session_status, s.product_id, " +
+        "u.name AS user_name, p.name AS product_name " +
+        "FROM messages_fts " +
+        "JOIN messages m ON m.message_id = messages_fts.rowid " +
+        "JOIN chat_sessions s ON s.session_id = m.session_id " +
+        "LEFT JOIN users u ON u.user_id = s.user_id " +
+        "LEFT JOIN products p ON p.product_id = s.product_id " +
+        "WHERE messages_fts MATCH ?";
+    
+    private static volatile Boolean indexAvailable;
+    
+    private DatabaseDriver databaseDriver;
+    
+    public MessageSearchDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Check if the full-text index exists (FTS5 is compiled into the driver
+     * and migration 003 has been applied)
+     */
+    public boolean isIndexAvailable() {
+        if (indexAvailable == null) {
+            String query = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'messages_fts'";
+            
+            try (Connection connection = databaseDriver.getReadConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                indexAvailable = stmt.executeQuery().next();
+            } catch (SQLException e) {
+                System.err.println("Error checking for the message search index");
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return indexAvailable;
+    }
+    
+    /**
+     * Get one page of messages matching a full-text query
+     *
+     * @param matchQuery FTS5 query expression (already escaped)
+     * @param userId Only sessions of this customer (null for all)
+     * @param order Order of the hits
+     * @param after Last hit of the previous page (null for the first page)
+     * @param limit Maximum number of hits
+     * @return Hits; fewer than limit when the last match is reached
+     */
+    public List<MessageSearchHit> search(String matchQuery, Integer userId, Order order,
+                                         MessageSearchHit after, int limit) {
+        try (Connection connection = databaseDriver.getReadConnection()) {
+            return search(connection, matchQuery, userId, order, after, limit);
+        } catch (SQLException e) {
+            System.err.println("Error searching messages: " + matchQuery);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Same as {@link #search(String, Integer, Order, MessageSearchHit, int)},
+     * on a given connection (e.g. a scratch database for benchmarks)
+     *
+     * @throws SQLException if the query fails
+     */
+    public static List<MessageSearchHit> search(Connection connection, String matchQuery, Integer userId, Order order,
+                                                MessageSearchHit after, int limit) throws SQLException {
+        List<MessageSearchHit> hits = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder query = new StringBuilder(SELECT_HIT);
+        params.add(matchQuery);
+        
+        if (userId != null) {
+            query.append(" AND s.user_id = ?");
+            params.add(userId);
+        }
+        
+        if (order == Order.NEWEST) {
+            // A rowid bound is handled inside the FTS5 scan
+            if (after != null) {
+                query.append(" AND messages_fts.rowid < ?");
+                params.add(after.getMessageId());
+            }
+            query.append(" ORDER BY messages_fts.rowid DESC LIMIT ?");
+        } else {
+            if (after != null) {
+                query.append(" AND (messages_fts.rank > ? OR (messages_fts.rank = ? AND m.message_id > ?))");
+                params.add(after.getRank());
+                params.add(after.getRank());
+                params.add(after.getMessageId());
+            }
+            query.append(" ORDER BY messages_fts.rank, m.message_id LIMIT ?");
+        }
+        params.add(limit);
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                hits.add(mapResultSetToHit(rs));
+            }
+        }
+        
+        return hits;
+    }
+    
+    /**
+     * Map ResultSet to MessageSearchHit object
+     */
+    private static MessageSearchHit mapResultSetToHit(ResultSet rs) throws SQLException {
+        int productId = rs.getInt("product_id");
+        Integer product = rs.wasNull() ? null : productId;
+        
+        return new MessageSearchHit(
+            rs.getInt("message_id"),
+            rs.getInt("session_id"),
+            rs.getString("sender_type"),
+            rs.getString("timestamp"),
+            rs.getString("snippet"),
+            rs.getDouble("rank"),
+            rs.getString("session_status"),
+            product,
+            rs.getString("user_name"),
+            rs.getString("product_name")
+        );
+    }
+}
@@ -17,10 +17,13 @@ import java.util.List;
  */
 public class ProductDAO {
     
-    private Connection connection;
+    // Shared by all ProductDAO instances
+    private static final EntityCache<Product> cache = new EntityCache<>("products", Product::new);
+    
+    private DatabaseDriver databaseDriver;
     
     public ProductDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
     }
     
     /**
@@ -30,7 +33,8 @@ public class ProductDAO {
         List<Product> products = new ArrayList<>();
         String query = "SELECT * FROM products ORDER BY name";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -47,12 +51,17 @@ public class ProductDAO {
     }
     
     /**
-     * Get product by ID
+     * Get product by ID (cached)
      */
     public Product getById(int productId) {
+        return cache.get(productId, this::loadById);
+    }
+    
+    private Product loadById(int productId) {
         String query = "SELECT * FROM products WHERE product_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, productId);
             ResultSet rs = stmt.executeQuery();
             
@@ -74,7 +83,8 @@ public class ProductDAO {
         List<Product> products = new ArrayList<>();
         String query = "SELECT * FROM products WHERE category = ? ORDER BY name";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, category);
             ResultSet rs = stmt.executeQuery();
             
@@ -96,7 +106,8 @@ public class ProductDAO {
         List<String> categories = new ArrayList<>();
         String query = "SELECT DISTINCT category FROM products ORDER BY category";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -113,24 +124,10 @@ public class ProductDAO {
     }
     
     /**
-     * Get product by ID
+     * Get product by ID (cached)
      */
     public Product findById(int productId) {
-        String query = "SELECT * FROM products WHERE product_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, productId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return mapResultSetToProduct(rs);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error finding product by ID");
-            e.printStackTrace();
-        }
-        
-        return null;
+        return cache.get(productId, this::loadById);
     }
     
     /**
@@ -139,7 +136,8 @@ public class ProductDAO {
     public boolean insert(Product product) {
         String query = "INSERT INTO products (name, model_version, category) VALUES (?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, product.getName());
             stmt.setString(2, product.getModelVersion());
             stmt.setString(3, product.getCategory());
@@ -154,18 +152,19 @@ public class ProductDAO {
     }
     
     /**
-     * Create product with manual (SQLite compatible)
-     * Creates product first, then adds manual if provided
+     * Create product and return its ID (SQLite compatible)
+     * Manuals are added separately through the ingestion service
      * 
      * @param product Product to create
-     * @param manualFile PDF file of the manual (can be null)
      * @return The new product ID, or -1 if failed
      */
-    public int createProductWithManual(Product product, java.io.File manualFile) {
+    public int createProduct(Product product) {
         String insertProductQuery = "INSERT INTO products (name, model_version, category) VALUES (?, ?, ?)";
         String getLastIdQuery = "SELECT last_insert_rowid() as id";
         
-        try {
+        int productId = -1;
+        
+        try (Connection connection = databaseDriver.getConnection()) {
             // Ensure auto-commit is enabled
             boolean originalAutoCommit = connection.getAutoCommit();
             if (!originalAutoCommit) {
@@ -188,43 +187,20 @@ public class ProductDAO {
                 ResultSet rs = stmt.executeQuery(getLastIdQuery);
                 
                 if (rs.next()) {
-                    int productId = rs.getInt("id");
+                    productId = rs.getInt("id");
                     product.setProductId(productId);
-                    rs.close();
-                    stmt.close();
-                    
                     System.out.println("✓ Product created with ID: " + productId + " (committed to database)");
-                    
-                    // If manual file provided, create KB entry
-                    if (manualFile != null) {
-                        try {
-                            KnowledgeBaseDAO kbDAO = new KnowledgeBaseDAO();
-                            boolean kbCreated = kbDAO.createWithFile(productId, 
-                                                                     product.getName() + " Manual", 
-                                                                     manualFile);
-                            
-                            if (kbCreated) {
-                                System.out.println("✓ Manual uploaded for product ID: " + productId);
-                            } else {
-                                System.err.println("⚠ Product created but manual upload failed");
-                            }
-                        } catch (Exception e) {
-                            System.err.println("⚠ Product created but error uploading manual: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                    }
-                    
-                    return productId;
                 }
+                rs.close();
+                stmt.close();
             }
-            
-            return -1;
-            
         } catch (SQLException e) {
             System.err.println("Error creating product");
             e.printStackTrace();
             return -1;
         }
+        
+        return productId;
     }
     
     /**
@@ -233,7 +209,8 @@ public class ProductDAO {
     public boolean update(Product product) {
         String query = "UPDATE products SET name = ?, model_version = ?, category = ? WHERE product_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, product.getName());
             stmt.setString(2, product.getModelVersion());
             stmt.setString(3, product.getCategory());
@@ -245,6 +222,8 @@ public class ProductDAO {
             System.err.println("Error updating product");
             e.printStackTrace();
             return false;
+        } finally {
+            cache.invalidate(product.getProductId());
         }
     }
     
@@ -259,10 +238,12 @@ public class ProductDAO {
             
             // Then delete the product
             String query = "DELETE FROM products WHERE product_id = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, productId);
-            int rowsAffected = stmt.executeUpdate();
-            stmt.close();
+            int rowsAffected;
+            try (Connection connection = databaseDriver.getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setInt(1, productId);
+                rowsAffected = stmt.executeUpdate();
+            }
             
             if (rowsAffected > 0) {
                 System.out.println("✓ Product deleted (ID: " + productId + ")");
@@ -274,6 +255,8 @@ public class ProductDAO {
             System.err.println("Error deleting product");
             e.printStackTrace();
             return false;
+        } finally {
+            cache.invalidate(productId);
         }
     }
     
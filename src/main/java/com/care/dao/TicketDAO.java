@@ -1,7 +1,10 @@
 package com.care.dao;
 
+import com.care.model.DataEvent;
 import com.care.model.Ticket;
+import com.care.model.TicketEvent;
 import com.care.util.DatabaseDriver;
+import com.care.util.EventBus;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -10,13 +13,28 @@ import java.util.List;
 
 /**
  * Data Access Object for Ticket operations
+ * Every successful write is published as a {@link TicketEvent}.
  */
 public class TicketDAO {
     
-    private Connection connection;
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String SELECT_BY_SESSION =
+        "SELECT * FROM tickets WHERE session_id = ?";
+    static final String SELECT_BY_STATUS =
+        "SELECT * FROM tickets WHERE status = ? ORDER BY created_at DESC";
+    static final String SELECT_BY_PRIORITY =
+        "SELECT * FROM tickets WHERE priority = ? ORDER BY created_at DESC";
+    static final String SELECT_BY_AGENT =
+        "SELECT * FROM tickets WHERE assigned_agent_id = ? ORDER BY created_at DESC";
+    static final String SELECT_UNASSIGNED =
+        "SELECT * FROM tickets WHERE assigned_agent_id IS NULL ORDER BY created_at DESC";
+    
+    private DatabaseDriver databaseDriver;
+    private AnalyticsRollupDAO rollupDAO;
     
     public TicketDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
+        this.rollupDAO = new AnalyticsRollupDAO();
     }
     
     /**
@@ -25,43 +43,67 @@ public class TicketDAO {
     public int createTicket(Ticket ticket) {
         String insertQuery = "INSERT INTO tickets (session_id, assigned_agent_id, priority, status) VALUES (?, ?, ?, ?)";
         
-        try {
-            PreparedStatement stmt = connection.prepareStatement(insertQuery);
-            System.out.println("Creating ticket: session_id=" + ticket.getSessionId() + 
-                             ", agent_id=" + ticket.getAssignedAgentId() + 
-                             ", priority=" + ticket.getPriority() + 
-                             ", status=" + ticket.getStatus());
-            
-            stmt.setInt(1, ticket.getSessionId());
-            if (ticket.getAssignedAgentId() != null && ticket.getAssignedAgentId() > 0) {
-                stmt.setInt(2, ticket.getAssignedAgentId());
-            } else {
-                stmt.setNull(2, Types.INTEGER);
-            }
-            stmt.setString(3, ticket.getPriority());
-            stmt.setString(4, ticket.getStatus());
-            
-            int rowsAffected = stmt.executeUpdate();
-            stmt.close();
+        try (Connection connection = databaseDriver.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
             
-            if (rowsAffected > 0) {
-                // Use fallback - query last inserted ID
-                Statement lastIdStmt = connection.createStatement();
-                ResultSet rs = lastIdStmt.executeQuery("SELECT last_insert_rowid()");
-                if (rs.next()) {
-                    int ticketId = rs.getInt(1);
-                    ticket.setTicketId(ticketId);
-                    rs.close();
+            try {
+                PreparedStatement stmt = connection.prepareStatement(insertQuery);
+                System.out.println("Creating ticket: session_id=" + ticket.getSessionId() + 
+                                 ", agent_id=" + ticket.getAssignedAgentId() + 
+                                 ", priority=" + ticket.getPriority() + 
+                                 ", status=" + ticket.getStatus());
+                
+                stmt.setInt(1, ticket.getSessionId());
+                if (ticket.getAssignedAgentId() != null && ticket.getAssignedAgentId() > 0) {
+                    stmt.setInt(2, ticket.getAssignedAgentId());
+                } else {
+                    stmt.setNull(2, Types.INTEGER);
+                }
+                stmt.setString(3, ticket.getPriority());
+                stmt.setString(4, ticket.getStatus());
+                
+                int rowsAffected = stmt.executeUpdate();
+                stmt.close();
+                
+                if (rowsAffected > 0) {
+                    // Use fallback - query last inserted ID
+                    Statement lastIdStmt = connection.createStatement();
+                    ResultSet rs = lastIdStmt.executeQuery("SELECT last_insert_rowid()");
+                    if (rs.next()) {
+                        int ticketId = rs.getInt(1);
+                        ticket.setTicketId(ticketId);
+                        rs.close();
+                        lastIdStmt.close();
+                        
+                        rollupDAO.applyTicketChange(connection, null, rollupDAO.readTicket(connection, ticketId));
+                        if (autoCommit) {
+                            connection.commit();
+                        }
+                        System.out.println("✓ Ticket created with ID: " + ticketId);
+                        EventBus.getInstance().publish(new TicketEvent(DataEvent.Kind.CREATED, ticketId));
+                        return ticketId;
+                    }
                     lastIdStmt.close();
-                    System.out.println("✓ Ticket created with ID: " + ticketId);
-                    return ticketId;
                 }
-                lastIdStmt.close();
+                
+                if (autoCommit) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
             }
             
             System.err.println("❌ No rows affected when creating ticket");
             return -1;
-            
+        
         } catch (SQLException e) {
             System.err.println("❌ Error creating ticket: " + e.getMessage());
             e.printStackTrace();
@@ -76,7 +118,8 @@ public class TicketDAO {
         List<Ticket> tickets = new ArrayList<>();
         String query = "SELECT * FROM tickets ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -98,7 +141,8 @@ public class TicketDAO {
     public Ticket findById(int ticketId) {
         String query = "SELECT * FROM tickets WHERE ticket_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, ticketId);
             ResultSet rs = stmt.executeQuery();
             
@@ -117,9 +161,8 @@ public class TicketDAO {
      * Get ticket by session ID
      */
     public Ticket findBySessionId(int sessionId) {
-        String query = "SELECT * FROM tickets WHERE session_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_SESSION)) {
             stmt.setInt(1, sessionId);
             ResultSet rs = stmt.executeQuery();
             
@@ -139,9 +182,9 @@ public class TicketDAO {
      */
     public List<Ticket> getByStatus(String status) {
         List<Ticket> tickets = new ArrayList<>();
-        String query = "SELECT * FROM tickets WHERE status = ? ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_STATUS)) {
             stmt.setString(1, status);
             ResultSet rs = stmt.executeQuery();
             
@@ -161,9 +204,9 @@ public class TicketDAO {
      */
     public List<Ticket> getByPriority(String priority) {
         List<Ticket> tickets = new ArrayList<>();
-        String query = "SELECT * FROM tickets WHERE priority = ? ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_PRIORITY)) {
             stmt.setString(1, priority);
             ResultSet rs = stmt.executeQuery();
             
@@ -183,9 +226,9 @@ public class TicketDAO {
      */
     public List<Ticket> getByAgentId(int agentId) {
         List<Ticket> tickets = new ArrayList<>();
-        String query = "SELECT * FROM tickets WHERE assigned_agent_id = ? ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_AGENT)) {
             stmt.setInt(1, agentId);
             ResultSet rs = stmt.executeQuery();
             
@@ -205,9 +248,9 @@ public class TicketDAO {
      */
     public List<Ticket> getUnassignedTickets() {
         List<Ticket> tickets = new ArrayList<>();
-        String query = "SELECT * FROM tickets WHERE assigned_agent_id IS NULL ORDER BY created_at DESC";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_UNASSIGNED)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -223,17 +266,19 @@ public class TicketDAO {
     
     /**
      * Update ticket status
+     * resolved_at is stamped the first time a ticket is resolved or closed
+     * and cleared when it is reopened
      */
     public boolean updateStatus(int ticketId, String status) {
-        String query = "UPDATE tickets SET status = ? WHERE ticket_id = ?";
+        String query = "UPDATE tickets SET status = ?, updated_at = CURRENT_TIMESTAMP, " +
+                      "resolved_at = CASE WHEN ? IN ('RESOLVED', 'CLOSED') THEN COALESCE(resolved_at, CURRENT_TIMESTAMP) END " +
+                      "WHERE ticket_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, status);
-            stmt.setInt(2, ticketId);
-            
-            int rowsAffected = stmt.executeUpdate();
+        try {
+            int rowsAffected = updateTicket(ticketId, query, status, status, ticketId);
             if (rowsAffected > 0) {
                 System.out.println("✓ Ticket " + ticketId + " status updated to: " + status);
+                EventBus.getInstance().publish(new TicketEvent(DataEvent.Kind.UPDATED, ticketId));
                 return true;
             }
         } catch (SQLException e) {
@@ -248,15 +293,14 @@ public class TicketDAO {
      * Assign ticket to agent
      */
     public boolean assignAgent(int ticketId, int agentId) {
-        String query = "UPDATE tickets SET assigned_agent_id = ?, status = 'IN_PROGRESS' WHERE ticket_id = ?";
+        String query = "UPDATE tickets SET assigned_agent_id = ?, status = 'IN_PROGRESS', resolved_at = NULL, " +
+                      "updated_at = CURRENT_TIMESTAMP WHERE ticket_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, agentId);
-            stmt.setInt(2, ticketId);
-            
-            int rowsAffected = stmt.executeUpdate();
+        try {
+            int rowsAffected = updateTicket(ticketId, query, agentId, ticketId);
             if (rowsAffected > 0) {
                 System.out.println("✓ Ticket " + ticketId + " assigned to agent: " + agentId);
+                EventBus.getInstance().publish(new TicketEvent(DataEvent.Kind.UPDATED, ticketId));
                 return true;
             }
         } catch (SQLException e) {
@@ -273,13 +317,15 @@ public class TicketDAO {
     public boolean updatePriority(int ticketId, String priority) {
         String query = "UPDATE tickets SET priority = ? WHERE ticket_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, priority);
             stmt.setInt(2, ticketId);
             
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 System.out.println("✓ Ticket " + ticketId + " priority updated to: " + priority);
+                EventBus.getInstance().publish(new TicketEvent(DataEvent.Kind.UPDATED, ticketId));
                 return true;
             }
         } catch (SQLException e) {
@@ -296,12 +342,12 @@ public class TicketDAO {
     public boolean delete(int ticketId) {
         String query = "DELETE FROM tickets WHERE ticket_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setInt(1, ticketId);
-            int rowsAffected = stmt.executeUpdate();
+        try {
+            int rowsAffected = updateTicket(ticketId, query, ticketId);
             
             if (rowsAffected > 0) {
                 System.out.println("✓ Ticket deleted (ID: " + ticketId + ")");
+                EventBus.getInstance().publish(new TicketEvent(DataEvent.Kind.DELETED, ticketId));
                 return true;
             }
         } catch (SQLException e) {
@@ -312,6 +358,44 @@ public class TicketDAO {
         return false;
     }
     
+    /**
+     * Run an UPDATE or DELETE on one ticket and move its analytics rollups in the same transaction
+     *
+     * @return Number of rows changed
+     */
+    private int updateTicket(int ticketId, String query, Object... params) throws SQLException {
+        try (Connection connection = databaseDriver.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                
+                AnalyticsRollupDAO.TicketRow before = rollupDAO.readTicket(connection, ticketId);
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    rollupDAO.applyTicketChange(connection, before, rollupDAO.readTicket(connection, ticketId));
+                }
+                
+                if (autoCommit) {
+                    connection.commit();
+                }
+                return rowsAffected;
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+    
     /**
      * Map ResultSet to Ticket object
      */
@@ -331,6 +415,11 @@ public class TicketDAO {
             ticket.setCreatedAt(LocalDateTime.parse(createdAt.replace(" ", "T")));
         }
         
+        String resolvedAt = rs.getString("resolved_at");
+        if (resolvedAt != null) {
+            ticket.setResolvedAt(LocalDateTime.parse(resolvedAt.replace(" ", "T")));
+        }
+        
         return ticket;
     }
 }
@@ -0,0 +1,213 @@
+package com.care.dao;
+
+import com.care.model.TicketView;
+import com.care.util.DatabaseDriver;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for ticket table rows
+ * Returns tickets already joined with customer, product and agent names,
+ * one page per query. Pages are ordered newest first and continue from
+ * the last row of the previous page (keyset paging on created_at, ticket_id),
+ * so loading page 500 costs the same as loading page 1.
+ */
+public class TicketViewDAO {
+    
+    private static final String SELECT_VIEW =
+        "SELECT t.ticket_id, t.session_id, t.priority, t.status, t.created_at, t.assigned_agent_id, " +
+        "a.name AS agent_name, s.session_id IS NOT NULL AS session_found, s.product_id, " +
+        "u.name AS user_name, p.name AS product_name " +
+        "FROM tickets t " +
+        "LEFT JOIN chat_sessions s ON s.session_id = t.session_id " +
+        "LEFT JOIN users u ON u.user_id = s.user_id " +
+        "LEFT JOIN products p ON p.product_id = s.product_id " +
+        "LEFT JOIN users a ON a.user_id = t.assigned_agent_id";
+    
+    private DatabaseDriver databaseDriver;
+    
+    public TicketViewDAO() {
+        this.databaseDriver = DatabaseDriver.getInstance();
+    }
+    
+    /**
+     * Get one page of tickets, newest first
+     *
+     * @param status Only tickets with this status (null for all)
+     * @param priority Only tickets with this priority (null for all)
+     * @param agentId Only tickets assigned to this agent (null for all)
+     * @param after Last row of the previous page (null for the first page)
+     * @param limit Maximum number of rows
+     * @return Ticket rows
+     */
+    public List<TicketView> getPage(String status, String priority, Integer agentId, TicketView after, int limit) {
+        List<TicketView> tickets = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        String query = buildPageQuery(status, priority, agentId, after, params);
+        params.add(limit);
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                tickets.add(mapResultSetToTicketView(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading ticket page");
+            e.printStackTrace();
+        }
+        
+        return tickets;
+    }
+    
+    /**
+     * Get the rows of some tickets, e.g. the ones named in a batch of ticket events
+     *
+     * @param ticketIds Tickets to read
+     * @return Map of ticket ID to row (deleted tickets are absent)
+     */
+    public Map<Integer, TicketView> getByIds(Collection<Integer> ticketIds) {
+        Map<Integer, TicketView> tickets = new HashMap<>();
+        if (ticketIds.isEmpty()) {
+            return tickets;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(ticketIds.size(), "?"));
+        String query = SELECT_VIEW + " WHERE t.ticket_id IN (" + placeholders + ")";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            int index = 1;
+            for (Integer ticketId : ticketIds) {
+                stmt.setInt(index++, ticketId);
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                TicketView view = mapResultSetToTicketView(rs);
+                tickets.put(view.getTicketId(), view);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading tickets: " + ticketIds);
+            e.printStackTrace();
+        }
+        
+        return tickets;
+    }
+    
+    /**
+     * Count tickets per status under the same filters as {@link #getPage}
+     *
+     * @return Map of status to ticket count (statuses without tickets are absent)
+     */
+    public Map<String, Integer> getStatusCounts(String status, String priority, Integer agentId) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<Object> params = new ArrayList<>();
+        String query = buildCountQuery(status, priority, agentId, params);
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                counts.put(rs.getString("status"), rs.getInt("ticket_count"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting tickets");
+            e.printStackTrace();
+        }
+        
+        return counts;
+    }
+    
+    /**
+     * Build the query for one page of {@link #getPage}; the caller adds the LIMIT parameter
+     */
+    static String buildPageQuery(String status, String priority, Integer agentId, TicketView after, List<Object> params) {
+        StringBuilder where = buildFilter(status, priority, agentId, params);
+        
+        if (after != null) {
+            where.append(where.length() == 0 ? " WHERE " : " AND ");
+            where.append("(t.created_at, t.ticket_id) < (?, ?)");
+            params.add(after.getCreatedAt());
+            params.add(after.getTicketId());
+        }
+        
+        return SELECT_VIEW + where + " ORDER BY t.created_at DESC, t.ticket_id DESC LIMIT ?";
+    }
+    
+    /**
+     * Build the query of {@link #getStatusCounts}
+     */
+    static String buildCountQuery(String status, String priority, Integer agentId, List<Object> params) {
+        return "SELECT t.status, COUNT(*) AS ticket_count FROM tickets t" +
+               buildFilter(status, priority, agentId, params) + " GROUP BY t.status";
+    }
+    
+    /**
+     * Build the WHERE clause for the given filters
+     * Only the filters that are set become conditions, so SQLite can pick the
+     * matching tickets index
+     */
+    private static StringBuilder buildFilter(String status, String priority, Integer agentId, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        
+        if (status != null) {
+            conditions.add("t.status = ?");
+            params.add(status);
+        }
+        if (priority != null) {
+            conditions.add("t.priority = ?");
+            params.add(priority);
+        }
+        if (agentId != null) {
+            conditions.add("t.assigned_agent_id = ?");
+            params.add(agentId);
+        }
+        
+        StringBuilder where = new StringBuilder();
+        if (!conditions.isEmpty()) {
+            where.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return where;
+    }
+    
+    /**
+     * Map ResultSet to TicketView object
+     */
+    private TicketView mapResultSetToTicketView(ResultSet rs) throws SQLException {
+        int agentId = rs.getInt("assigned_agent_id");
+        Integer assignedAgentId = rs.wasNull() ? null : agentId;
+        
+        int productId = rs.getInt("product_id");
+        Integer sessionProductId = rs.wasNull() ? null : productId;
+        
+        return new TicketView(
+            rs.getInt("ticket_id"),
+            rs.getInt("session_id"),
+            rs.getString("priority"),
+            rs.getString("status"),
+            rs.getString("created_at"),
+            assignedAgentId,
+            rs.getString("agent_name"),
+            rs.getBoolean("session_found"),
+            sessionProductId,
+            rs.getString("user_name"),
+            rs.getString("product_name")
+        );
+    }
+}
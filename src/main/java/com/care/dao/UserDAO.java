@@ -7,8 +7,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for Users table
@@ -16,10 +23,19 @@ import java.util.List;
  */
 public class UserDAO {
     
-    private Connection connection;
+    // Hot-path queries; QueryPlanTest checks that each one is served by an index
+    static final String SELECT_BY_CREDENTIALS =
+        "SELECT * FROM users WHERE email = ? AND password_hash = ?";
+    static final String SELECT_BY_EMAIL =
+        "SELECT * FROM users WHERE email = ?";
+    
+    // Shared by all UserDAO instances
+    private static final EntityCache<User> cache = new EntityCache<>("users", User::new);
+    
+    private DatabaseDriver databaseDriver;
     
     public UserDAO() {
-        this.connection = DatabaseDriver.getInstance().getConnection();
+        this.databaseDriver = DatabaseDriver.getInstance();
     }
     
     /**
@@ -30,9 +46,8 @@ public class UserDAO {
      * @return User object or null if not found
      */
     public User findByEmailAndPassword(String email, String password) {
-        String query = "SELECT * FROM users WHERE email = ? AND password_hash = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_CREDENTIALS)) {
             stmt.setString(1, email);
             stmt.setString(2, password);
             
@@ -56,9 +71,8 @@ public class UserDAO {
      * @return User object or null if not found
      */
     public User findByEmail(String email) {
-        String query = "SELECT * FROM users WHERE email = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(SELECT_BY_EMAIL)) {
             stmt.setString(1, email);
             ResultSet rs = stmt.executeQuery();
             
@@ -80,9 +94,14 @@ public class UserDAO {
      * @return User object or null if not found
      */
     public User findById(int userId) {
+        return cache.get(userId, this::loadById);
+    }
+    
+    private User loadById(int userId) {
         String query = "SELECT * FROM users WHERE user_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
             
@@ -107,7 +126,8 @@ public class UserDAO {
         String query = "INSERT INTO users (email, password_hash, role, name, license_key, is_2fa_enabled, preferred_language) " +
                       "VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, user.getEmail());
             stmt.setString(2, user.getPasswordHash());
             stmt.setString(3, user.getRole());
@@ -118,7 +138,7 @@ public class UserDAO {
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             System.err.println("Error inserting user");
             e.printStackTrace();
@@ -126,6 +146,80 @@ public class UserDAO {
         }
     }
     
+    /**
+     * Insert many users in one transaction
+     * Rows are sent with addBatch/executeBatch. A row whose email is already
+     * taken (e.g. added by someone else since it was checked) is skipped
+     * instead of failing the whole batch.
+     * 
+     * @param users Users with their password already hashed
+     * @return Per user, true if it was inserted
+     * @throws SQLException if the batch fails (nothing is inserted)
+     */
+    public boolean[] insertBatch(List<User> users) throws SQLException {
+        String query = "INSERT OR IGNORE INTO users (email, password_hash, role, name, license_key, is_2fa_enabled, preferred_language) " +
+                      "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (User user : users) {
+                    stmt.setString(1, user.getEmail());
+                    stmt.setString(2, user.getPasswordHash());
+                    stmt.setString(3, user.getRole());
+                    stmt.setString(4, user.getName());
+                    stmt.setString(5, user.getLicenseKey());
+                    stmt.setInt(6, user.is2faEnabled() ? 1 : 0);
+                    stmt.setString(7, user.getPreferredLanguage());
+                    stmt.addBatch();
+                }
+                
+                int[] counts = stmt.executeBatch();
+                connection.commit();
+                
+                boolean[] inserted = new boolean[users.size()];
+                for (int i = 0; i < inserted.length && i < counts.length; i++) {
+                    inserted[i] = counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO;
+                }
+                return inserted;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    
+    /**
+     * Get the email of every user, lower-cased
+     * For checking a large import for duplicates without a query per row.
+     * 
+     * @return Set of emails
+     */
+    public Set<String> findAllEmails() {
+        Set<String> emails = new HashSet<>();
+        String query = "SELECT email FROM users";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                String email = rs.getString(1);
+                if (email != null) {
+                    emails.add(email.toLowerCase(Locale.ROOT));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding user emails");
+            e.printStackTrace();
+        }
+        
+        return emails;
+    }
+    
     /**
      * Update an existing user
      * 
@@ -136,7 +230,8 @@ public class UserDAO {
         String query = "UPDATE users SET email = ?, password_hash = ?, role = ?, name = ?, " +
                       "license_key = ?, is_2fa_enabled = ?, preferred_language = ? WHERE user_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setString(1, user.getEmail());
             stmt.setString(2, user.getPasswordHash());
             stmt.setString(3, user.getRole());
@@ -148,12 +243,115 @@ public class UserDAO {
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             System.err.println("Error updating user");
             e.printStackTrace();
             return false;
+        } finally {
+            cache.invalidate(user.getUserId());
+        }
+    }
+    
+    /**
+     * Replace a user's password hash, unless it changed since it was read
+     * Touches only password_hash, for rehashing on login.
+     * 
+     * @param userId User to update
+     * @param oldHash Stored value the new hash was derived from
+     * @param newHash New BCrypt hash
+     * @return true if the stored value was still oldHash and was replaced
+     */
+    public boolean updatePasswordHash(int userId, String oldHash, String newHash) {
+        String query = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, oldHash);
+            return stmt.executeUpdate() > 0;
+        
+        } catch (SQLException e) {
+            System.err.println("Error updating password hash for user ID: " + userId);
+            e.printStackTrace();
+            return false;
+        } finally {
+            cache.invalidate(userId);
+        }
+    }
+    
+    /**
+     * Replace many password hashes in one transaction
+     * Rows whose stored value changed since it was read are left alone.
+     * 
+     * @param oldHashes Stored value per user ID
+     * @param newHashes New BCrypt hash per user ID
+     * @return Number of users updated, or -1 if the batch failed and was rolled back
+     */
+    public int updatePasswordHashes(Map<Integer, String> oldHashes, Map<Integer, String> newHashes) {
+        String query = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        
+        try (Connection connection = databaseDriver.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+                for (Map.Entry<Integer, String> entry : newHashes.entrySet()) {
+                    stmt.setString(1, entry.getValue());
+                    stmt.setInt(2, entry.getKey());
+                    stmt.setString(3, oldHashes.get(entry.getKey()));
+                    stmt.addBatch();
+                }
+                
+                int updated = 0;
+                for (int count : stmt.executeBatch()) {
+                    updated += Math.max(count, 0);
+                }
+                connection.commit();
+                return updated;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        
+        } catch (SQLException e) {
+            System.err.println("Error updating password hashes");
+            e.printStackTrace();
+            return -1;
+        } finally {
+            for (Integer userId : newHashes.keySet()) {
+                cache.invalidate(userId);
+            }
+        }
+    }
+    
+    /**
+     * Get the stored password of every user that still has a plain-text one
+     * 
+     * @return Stored value per user ID
+     */
+    public Map<Integer, String> findLegacyPasswords() {
+        Map<Integer, String> passwords = new LinkedHashMap<>();
+        // BCrypt hashes are 60 characters starting with $2a$, $2b$ or $2y$; the
+        // exact format is checked again before anything is rehashed
+        String query = "SELECT user_id, password_hash FROM users " +
+                      "WHERE password_hash IS NOT NULL AND (length(password_hash) <> 60 OR substr(password_hash, 1, 2) <> '$2')";
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                passwords.put(rs.getInt("user_id"), rs.getString("password_hash"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding legacy passwords");
+            e.printStackTrace();
         }
+        
+        return passwords;
     }
     
     /**
@@ -165,15 +363,18 @@ public class UserDAO {
     public boolean delete(int userId) {
         String query = "DELETE FROM users WHERE user_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setInt(1, userId);
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             System.err.println("Error deleting user");
             e.printStackTrace();
             return false;
+        } finally {
+            cache.invalidate(userId);
         }
     }
     
@@ -186,7 +387,8 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String query = "SELECT * FROM users";
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -200,6 +402,36 @@ public class UserDAO {
         return users;
     }
     
+    /**
+     * Read every user in ID order, one row at a time
+     * Rows are handed over as they come off the cursor, so exporting a large
+     * table never holds more than one user in memory.
+     * 
+     * @param consumer Receives each user; an exception it throws stops the read
+     * @return Number of users read, or -1 if the query failed
+     */
+    public int streamAll(Consumer<User> consumer) {
+        String query = "SELECT * FROM users ORDER BY user_id";
+        int count = 0;
+        
+        try (Connection connection = databaseDriver.getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setFetchSize(500);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                consumer.accept(mapResultSetToUser(rs));
+                count++;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error streaming users");
+            e.printStackTrace();
+            return -1;
+        }
+        
+        return count;
+    }
+    
     /**
      * Map ResultSet to User object
      * 
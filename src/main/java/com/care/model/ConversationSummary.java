@@ -0,0 +1,72 @@
+package com.care.model;
+
+/**
+ * ConversationSummary Model - Running summary of the older part of a chat
+ * Messages that no longer fit the history token budget are folded into the
+ * summary, which is sent to the AI in their place
+ * Corresponds to the chat_session_summaries table in the database
+ */
+public class ConversationSummary {
+    private int sessionId;
+    private String summary;
+    private int summarizedCount; // Leading non-system messages already in the summary
+    private int tokenCount;
+    
+    // Constructors
+    public ConversationSummary() {
+        this.summary = "";
+    }
+    
+    public ConversationSummary(int sessionId, String summary, int summarizedCount, int tokenCount) {
+        this.sessionId = sessionId;
+        this.summary = summary;
+        this.summarizedCount = summarizedCount;
+        this.tokenCount = tokenCount;
+    }
+    
+    // Getters and Setters
+    public int getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(int sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public String getSummary() {
+        return summary;
+    }
+    
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+    
+    public int getSummarizedCount() {
+        return summarizedCount;
+    }
+    
+    public void setSummarizedCount(int summarizedCount) {
+        this.summarizedCount = summarizedCount;
+    }
+    
+    public int getTokenCount() {
+        return tokenCount;
+    }
+    
+    public void setTokenCount(int tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+    
+    public boolean isEmpty() {
+        return summary == null || summary.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        return "ConversationSummary{" +
+                "sessionId=" + sessionId +
+                ", summarizedCount=" + summarizedCount +
+                ", tokenCount=" + tokenCount +
+                '}';
+    }
+}
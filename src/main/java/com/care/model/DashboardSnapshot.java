@@ -0,0 +1,122 @@
+package com.care.model;
+
+/**
+ * DashboardSnapshot Model - Headline counts for the admin dashboard
+ * Read in a single aggregate query so all figures come from the same
+ * point in time
+ */
+public class DashboardSnapshot {
+    private final int totalUsers;
+    private final int totalProducts;
+    private final int totalSessions;
+    private final int activeSessions;
+    private final int closedSessions;
+    private final int escalatedSessions;
+    private final int openTickets;
+    private final int inProgressTickets;
+    private final int resolvedTickets;
+    private final int closedTickets;
+    
+    public DashboardSnapshot(int totalUsers, int totalProducts, int totalSessions, int activeSessions,
+                             int closedSessions, int escalatedSessions, int openTickets,
+                             int inProgressTickets, int resolvedTickets, int closedTickets) {
+        this.totalUsers = totalUsers;
+        this.totalProducts = totalProducts;
+        this.totalSessions = totalSessions;
+        this.activeSessions = activeSessions;
+        this.closedSessions = closedSessions;
+        this.escalatedSessions = escalatedSessions;
+        this.openTickets = openTickets;
+        this.inProgressTickets = inProgressTickets;
+        this.resolvedTickets = resolvedTickets;
+        this.closedTickets = closedTickets;
+    }
+    
+    /**
+     * Empty snapshot, shown when the database cannot be read
+     */
+    public static DashboardSnapshot empty() {
+        return new DashboardSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    
+    // Getters
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+    
+    public int getTotalProducts() {
+        return totalProducts;
+    }
+    
+    public int getTotalSessions() {
+        return totalSessions;
+    }
+    
+    public int getActiveSessions() {
+        return activeSessions;
+    }
+    
+    public int getClosedSessions() {
+        return closedSessions;
+    }
+    
+    public int getEscalatedSessions() {
+        return escalatedSessions;
+    }
+    
+    public int getOpenTickets() {
+        return openTickets;
+    }
+    
+    public int getInProgressTickets() {
+        return inProgressTickets;
+    }
+    
+    public int getResolvedTickets() {
+        return resolvedTickets;
+    }
+    
+    public int getClosedTickets() {
+        return closedTickets;
+    }
+    
+    /**
+     * Tickets still waiting for an agent (OPEN + IN_PROGRESS)
+     */
+    public int getUnresolvedTicketCount() {
+        return openTickets + inProgressTickets;
+    }
+    
+    /**
+     * Tickets that are done (RESOLVED + CLOSED)
+     */
+    public int getResolvedTicketCount() {
+        return resolvedTickets + closedTickets;
+    }
+    
+    /**
+     * Get percentage of sessions that were escalated to an agent
+     */
+    public double getEscalationRate() {
+        return totalSessions > 0 ? (escalatedSessions * 100.0) / totalSessions : 0.0;
+    }
+    
+    /**
+     * Get percentage of sessions closed without an agent
+     */
+    public double getAiResolvedRate() {
+        return totalSessions > 0 ? (closedSessions * 100.0) / totalSessions : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        return "DashboardSnapshot{" +
+                "users=" + totalUsers +
+                ", products=" + totalProducts +
+                ", sessions=" + totalSessions +
+                ", escalated=" + escalatedSessions +
+                ", openTickets=" + getUnresolvedTicketCount() +
+                ", resolvedTickets=" + getResolvedTicketCount() +
+                '}';
+    }
+}
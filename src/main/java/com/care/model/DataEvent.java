@@ -0,0 +1,42 @@
+package com.care.model;
+
+/**
+ * DataEvent - Base of the change events published on the {@link com.care.util.EventBus}
+ * Names the changed row by its ID; subscribers read the current state
+ * themselves when they need more than the event carries.
+ */
+public abstract class DataEvent {
+    
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+    
+    private final Kind kind;
+    private final int id;
+    
+    protected DataEvent(Kind kind, int id) {
+        this.kind = kind;
+        this.id = id;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    /**
+     * Get the primary key of the changed row
+     */
+    public int getId() {
+        return id;
+    }
+    
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "kind=" + kind +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package com.care.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IngestionJob Model - Background extraction of one uploaded manual
+ * Progress counters are updated from the extraction threads while the job runs
+ * Corresponds to the kb_ingest_jobs table in the database
+ */
+public class IngestionJob {
+    
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+    
+    private int jobId;
+    private int productId;
+    private String title;
+    private String sourcePath;
+    private volatile String status;
+    private volatile int pagesTotal;
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private final AtomicLong charCount = new AtomicLong();
+    private volatile String errorMessage;
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+    
+    // Constructors
+    public IngestionJob() {
+        this.status = QUEUED;
+    }
+    
+    public IngestionJob(int productId, String title, String sourcePath) {
+        this();
+        this.productId = productId;
+        this.title = title;
+        this.sourcePath = sourcePath;
+    }
+    
+    // Getters and Setters
+    public int getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(int jobId) {
+        this.jobId = jobId;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getSourcePath() {
+        return sourcePath;
+    }
+    
+    public void setSourcePath(String sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public int getPagesTotal() {
+        return pagesTotal;
+    }
+    
+    public void setPagesTotal(int pagesTotal) {
+        this.pagesTotal = pagesTotal;
+    }
+    
+    public int getPagesDone() {
+        return pagesDone.get();
+    }
+    
+    public void setPagesDone(int pagesDone) {
+        this.pagesDone.set(pagesDone);
+    }
+    
+    public long getCharCount() {
+        return charCount.get();
+    }
+    
+    public void setCharCount(long charCount) {
+        this.charCount.set(charCount);
+    }
+    
+    /**
+     * Record a batch of extracted pages
+     */
+    public void addProgress(int pages, long chars) {
+        pagesDone.addAndGet(pages);
+        charCount.addAndGet(chars);
+    }
+    
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    
+    /**
+     * Ask the job to stop; extraction threads check this between pages
+     */
+    public void requestCancel() {
+        cancelRequested.set(true);
+    }
+    
+    public boolean isCancelRequested() {
+        return cancelRequested.get();
+    }
+    
+    public boolean isFinished() {
+        return COMPLETED.equals(status) || FAILED.equals(status) || CANCELLED.equals(status);
+    }
+    
+    /**
+     * Get fraction of pages extracted (0.0 - 1.0)
+     */
+    public double getProgress() {
+        int total = pagesTotal;
+        return total > 0 ? Math.min(1.0, (double) pagesDone.get() / total) : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        return "IngestionJob{" +
+                "jobId=" + jobId +
+                ", productId=" + productId +
+                ", status=" + status +
+                ", pages=" + pagesDone.get() + "/" + pagesTotal +
+                ", chars=" + charCount.get() +
+                '}';
+    }
+}
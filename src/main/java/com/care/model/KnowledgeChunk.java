@@ -0,0 +1,88 @@
+package com.care.model;
+
+/**
+ * KnowledgeChunk Model - One passage of a product manual
+ * Manuals are split into chunks at upload time so only the passages
+ * relevant to a question are sent to the AI
+ * Corresponds to the kb_chunks table in the database
+ */
+public class KnowledgeChunk {
+    private int chunkId;
+    private int kbId;
+    private int productId;
+    private int chunkIndex;
+    private String content;
+    private int tokenCount;
+    
+    // Constructors
+    public KnowledgeChunk() {
+    }
+    
+    public KnowledgeChunk(int kbId, int productId, int chunkIndex, String content, int tokenCount) {
+        this.kbId = kbId;
+        this.productId = productId;
+        this.chunkIndex = chunkIndex;
+        this.content = content;
+        this.tokenCount = tokenCount;
+    }
+    
+    // Getters and Setters
+    public int getChunkId() {
+        return chunkId;
+    }
+    
+    public void setChunkId(int chunkId) {
+        this.chunkId = chunkId;
+    }
+    
+    public int getKbId() {
+        return kbId;
+    }
+    
+    public void setKbId(int kbId) {
+        this.kbId = kbId;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+    
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+    
+    public void setChunkIndex(int chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public int getTokenCount() {
+        return tokenCount;
+    }
+    
+    public void setTokenCount(int tokenCount) {
+        this.tokenCount = tokenCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "KnowledgeChunk{" +
+                "chunkId=" + chunkId +
+                ", kbId=" + kbId +
+                ", productId=" + productId +
+                ", chunkIndex=" + chunkIndex +
+                ", tokenCount=" + tokenCount +
+                '}';
+    }
+}
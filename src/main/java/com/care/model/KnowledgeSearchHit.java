@@ -0,0 +1,86 @@
+package com.care.model;
+
+/**
+ * KnowledgeSearchHit Model - A manual page matching a knowledge base search
+ * Read-only row joined with its manual and product. The snippet marks matched
+ * terms with {@link MessageSearchHit#HIGHLIGHT_START} and
+ * {@link MessageSearchHit#HIGHLIGHT_END}, like transcript search hits.
+ */
+public class KnowledgeSearchHit {
+    private final int pageId;
+    private final int kbId;
+    private final int productId;
+    private final Integer pageNumber; // null if the entry was not ingested page by page
+    private final String title;
+    private final String productName;
+    private final String category;
+    private final String snippet;
+    private final double rank; // bm25 score, lower is better; also the paging cursor
+    
+    public KnowledgeSearchHit(int pageId, int kbId, int productId, Integer pageNumber, String title,
+                              String productName, String category, String snippet, double rank) {
+        this.pageId = pageId;
+        this.kbId = kbId;
+        this.productId = productId;
+        this.pageNumber = pageNumber;
+        this.title = title;
+        this.productName = productName;
+        this.category = category;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+    
+    // Getters
+    public int getPageId() {
+        return pageId;
+    }
+    
+    public int getKbId() {
+        return kbId;
+    }
+    
+    public int getProductId() {
+        return productId;
+    }
+    
+    public Integer getPageNumber() {
+        return pageNumber;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public String getProductName() {
+        return productName;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public String getSnippet() {
+        return snippet;
+    }
+    
+    public double getRank() {
+        return rank;
+    }
+    
+    /**
+     * Get where the hit is, e.g. "Router Manual, page 12"
+     */
+    public String getLocation() {
+        return pageNumber != null ? title + ", page " + pageNumber : title;
+    }
+    
+    @Override
+    public String toString() {
+        return "KnowledgeSearchHit{" +
+                "pageId=" + pageId +
+                ", kbId=" + kbId +
+                ", pageNumber=" + pageNumber +
+                ", rank=" + rank +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package com.care.model;
+
+/**
+ * MessageEvent - A message was stored
+ * Messages are never edited, so the event carries the stored message itself
+ * and subscribers can show it without reading it back.
+ */
+public class MessageEvent extends DataEvent {
+    private final Message message;
+    
+    public MessageEvent(Message message) {
+        super(Kind.CREATED, message.getMessageId());
+        this.message = message;
+    }
+    
+    public Message getMessage() {
+        return message;
+    }
+    
+    public int getSessionId() {
+        return message.getSessionId();
+    }
+}
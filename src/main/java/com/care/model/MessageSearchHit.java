@@ -0,0 +1,87 @@
+package com.care.model;
+
+/**
+ * MessageSearchHit Model - A message matching a transcript search
+ * Read-only row joined with its session, customer and product. The snippet
+ * marks matched terms with {@link #HIGHLIGHT_START} and {@link #HIGHLIGHT_END}.
+ */
+public class MessageSearchHit {
+    public static final char HIGHLIGHT_START = '\u0002';
+    public static final char HIGHLIGHT_END = '\u0003';
+    
+    private final int messageId;
+    private final int sessionId;
+    private final String senderType;
+    private final String timestamp;
+    private final String snippet;
+    private final double rank; // bm25 score, lower is better; also the paging cursor
+    private final String sessionStatus;
+    private final Integer productId;
+    private final String userName;
+    private final String productName;
+    
+    public MessageSearchHit(int messageId, int sessionId, String senderType, String timestamp, String snippet,
+                            double rank, String sessionStatus, Integer productId, String userName, String productName) {
+        this.messageId = messageId;
+        this.sessionId = sessionId;
+        this.senderType = senderType;
+        this.timestamp = timestamp;
+        this.snippet = snippet;
+        this.rank = rank;
+        this.sessionStatus = sessionStatus;
+        this.productId = productId;
+        this.userName = userName;
+        this.productName = productName;
+    }
+    
+    // Getters
+    public int getMessageId() {
+        return messageId;
+    }
+    
+    public int getSessionId() {
+        return sessionId;
+    }
+    
+    public String getSenderType() {
+        return senderType;
+    }
+    
+    public String getTimestamp() {
+        return timestamp;
+    }
+    
+    public String getSnippet() {
+        return snippet;
+    }
+    
+    public double getRank() {
+        return rank;
+    }
+    
+    public String getSessionStatus() {
+        return sessionStatus;
+    }
+    
+    public Integer getProductId() {
+        return productId;
+    }
+    
+    public String getUserName() {
+        return userName;
+    }
+    
+    public String getProductName() {
+        return productName;
+    }
+    
+    @Override
+    public String toString() {
+        return "MessageSearchHit{" +
+                "messageId=" + messageId +
+                ", sessionId=" + sessionId +
+                ", senderType='" + senderType + '\'' +
+                ", rank=" + rank +
+                '}';
+    }
+}
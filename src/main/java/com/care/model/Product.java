@@ -24,6 +24,14 @@ public class Product {
         this.category = category;
     }
     
+    public Product(Product other) {
+        this.productId = other.productId;
+        this.name = other.name;
+        this.modelVersion = other.modelVersion;
+        this.category = other.category;
+        this.createdAt = other.createdAt;
+    }
+    
     // Getters and Setters
     public int getProductId() {
         return productId;
@@ -0,0 +1,24 @@
+package com.care.model;
+
+/**
+ * SessionEvent - A chat session was created or changed status
+ */
+public class SessionEvent extends DataEvent {
+    private final String status;
+    
+    public SessionEvent(Kind kind, int sessionId, String status) {
+        super(kind, sessionId);
+        this.status = status;
+    }
+    
+    public int getSessionId() {
+        return getId();
+    }
+    
+    /**
+     * Get the status the session has after the change
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,15 @@
+package com.care.model;
+
+/**
+ * TicketEvent - A ticket was created, updated (status, agent, priority) or deleted
+ */
+public class TicketEvent extends DataEvent {
+    
+    public TicketEvent(Kind kind, int ticketId) {
+        super(kind, ticketId);
+    }
+    
+    public int getTicketId() {
+        return getId();
+    }
+}
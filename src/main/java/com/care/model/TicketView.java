@@ -0,0 +1,118 @@
+package com.care.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * TicketView Model - A ticket joined with its customer, product and agent names
+ * Read-only row used by the ticket tables
+ */
+public class TicketView {
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    
+    private final int ticketId;
+    private final int sessionId;
+    private final String priority;
+    private final String status;
+    private final String createdAt; // Raw database value, also the paging cursor
+    private final Integer assignedAgentId;
+    private final String agentName;
+    private final boolean sessionFound;
+    private final Integer productId;
+    private final String userName;
+    private final String productName;
+    
+    public TicketView(int ticketId, int sessionId, String priority, String status, String createdAt,
+                      Integer assignedAgentId, String agentName, boolean sessionFound,
+                      Integer productId, String userName, String productName) {
+        this.ticketId = ticketId;
+        this.sessionId = sessionId;
+        this.priority = priority;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.assignedAgentId = assignedAgentId;
+        this.agentName = agentName;
+        this.sessionFound = sessionFound;
+        this.productId = productId;
+        this.userName = userName;
+        this.productName = productName;
+    }
+    
+    // Getters
+    public int getTicketId() {
+        return ticketId;
+    }
+    
+    public int getSessionId() {
+        return sessionId;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Integer getAssignedAgentId() {
+        return assignedAgentId;
+    }
+    
+    /**
+     * Name of the assigned agent (null if unassigned or the agent no longer exists)
+     */
+    public String getAgentName() {
+        return agentName;
+    }
+    
+    /**
+     * Check if the ticket's chat session still exists
+     */
+    public boolean isSessionFound() {
+        return sessionFound;
+    }
+    
+    public Integer getProductId() {
+        return productId;
+    }
+    
+    /**
+     * Name of the customer who opened the session (null if not found)
+     */
+    public String getUserName() {
+        return userName;
+    }
+    
+    /**
+     * Name of the session's product (null if none or not found)
+     */
+    public String getProductName() {
+        return productName;
+    }
+    
+    /**
+     * Get creation time formatted for tables ("N/A" if unknown)
+     */
+    public String getFormattedCreatedAt() {
+        if (createdAt == null) {
+            return "N/A";
+        }
+        return LocalDateTime.parse(createdAt.replace(" ", "T")).format(DISPLAY_FORMAT);
+    }
+    
+    @Override
+    public String toString() {
+        return "TicketView{" +
+                "ticketId=" + ticketId +
+                ", status='" + status + '\'' +
+                ", priority='" + priority + '\'' +
+                ", userName='" + userName + '\'' +
+                ", productName='" + productName + '\'' +
+                '}';
+    }
+}
@@ -32,6 +32,19 @@ public class User {
         this.preferredLanguage = "en";
     }
     
+    public User(User other) {
+        this.userId = other.userId;
+        this.email = other.email;
+        this.passwordHash = other.passwordHash;
+        this.role = other.role;
+        this.name = other.name;
+        this.licenseKey = other.licenseKey;
+        this.is2faEnabled = other.is2faEnabled;
+        this.preferredLanguage = other.preferredLanguage;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     // Getters and Setters
     public int getUserId() {
         return userId;
@@ -1,50 +1,53 @@
 package com.care.service;
 
-import com.care.model.KnowledgeBase;
 import com.care.model.Product;
-import com.care.dao.KnowledgeBaseDAO;
 import com.care.dao.ProductDAO;
 import com.care.util.Config;
-import com.theokanning.openai.completion.chat.ChatCompletionRequest;
-import com.theokanning.openai.completion.chat.ChatCompletionResult;
-import com.theokanning.openai.completion.chat.ChatMessage;
-import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * AI Service for handling chatbot interactions using OpenAI API
+ * All requests go through the shared {@link AITransport}
  */
 public class AIService {
     
-    private OpenAiService openAiService;
+    /**
+     * Receives pieces of a streamed response as they arrive
+     */
+    public interface TokenListener {
+        void onToken(String token);
+    }
+    
+    // Streaming metrics (shared by all instances)
+    private static final AtomicLong streams = new AtomicLong();
+    private static final AtomicLong failedStreams = new AtomicLong();
+    private static final AtomicLong totalFirstTokenNanos = new AtomicLong();
+    private static final AtomicLong maxFirstTokenNanos = new AtomicLong();
+    private static final AtomicLong totalStreamNanos = new AtomicLong();
+    
+    private AITransport transport;
     private Config config;
     private ProductDAO productDAO;
-    private KnowledgeBaseDAO knowledgeBaseDAO;
+    private KnowledgeRetrievalService retrievalService;
+    private ResponseCache responseCache;
+    private ConversationHistoryManager historyManager;
     
     public AIService() {
         this.config = Config.getInstance();
         this.productDAO = new ProductDAO();
-        this.knowledgeBaseDAO = new KnowledgeBaseDAO();
+        this.retrievalService = KnowledgeRetrievalService.getInstance();
+        this.responseCache = ResponseCache.getInstance();
+        this.historyManager = ConversationHistoryManager.getInstance();
         
-        // Initialize OpenAI service if configured
+        // Initialize OpenAI transport if configured
         if (config.isOpenAIConfigured()) {
-            try {
-                this.openAiService = new OpenAiService(config.getOpenAIApiKey(), Duration.ofSeconds(60));
-                System.out.println("✓ OpenAI service initialized with model: " + config.getOpenAIModel());
-            } catch (Exception e) {
-                System.err.println("Error initializing OpenAI service");
-                e.printStackTrace();
-            }
+            this.transport = AITransport.getInstance();
+            System.out.println("✓ OpenAI service initialized with model: " + config.getOpenAIModel());
         } else {
             System.err.println("⚠ OpenAI not configured. Please set API key in config.properties");
         }
@@ -59,70 +62,300 @@ public class AIService {
      * @return AI-generated response
      */
     public String generateResponse(String userMessage, int productId, List<com.care.model.Message> conversationHistory) {
+        return generateResponse(userMessage, productId, conversationHistory, true);
+    }
+    
+    /**
+     * Generate AI response, optionally bypassing the response cache
+     * 
+     * @param useCache false to always ask the model (e.g. when the user asks to regenerate)
+     */
+    public String generateResponse(String userMessage, int productId, List<com.care.model.Message> conversationHistory,
+                                   boolean useCache) {
         if (!config.isOpenAIConfigured()) {
             return "⚠ AI service not configured. Please contact administrator to set up OpenAI API key.";
         }
         
-        if (openAiService == null) {
-            return "⚠ AI service initialization failed. Please check configuration.";
+        boolean cacheable = useCache && isStandaloneQuestion(userMessage, conversationHistory);
+        if (cacheable) {
+            String cached = responseCache.get(productId, userMessage);
+            if (cached != null) {
+                System.out.println("✓ AI response served from cache");
+                return cached;
+            }
         }
         
         try {
-            // Get product context
-            Product product = productDAO.getById(productId);
-            String productContext = buildProductContext(product, productId);
+            JSONObject requestBody = buildRequest(buildMessages(userMessage, productId, conversationHistory), false);
+            
+            // Get response from OpenAI
+            HttpResponse<String> response = AITransport.await(transport.postJson("chat", requestBody));
+            if (response.statusCode() != 200) {
+                System.err.println("OpenAI API error: " + response.statusCode());
+                System.err.println("Response: " + response.body());
+                return "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
+            }
             
-            // Build message list
-            List<ChatMessage> messages = new ArrayList<>();
+            JSONObject result = new JSONObject(response.body());
+            String aiResponse = extractContent(result);
+            JSONObject usage = result.optJSONObject("usage");
+            System.out.println("✓ AI response generated (" + (usage != null ? usage.optInt("total_tokens") : 0) + " tokens)");
             
-            // System message with context
-            messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), 
-                "You are a helpful customer support assistant for CARE (Customer Assistance and Resource Engine). " +
-                "You help users with technical support questions about their products. " +
-                "Be professional, friendly, and concise. " +
-                "If you don't know the answer, suggest escalating to a human agent.\n\n" +
-                productContext));
+            if (cacheable) {
+                responseCache.put(productId, userMessage, aiResponse);
+            }
+            return aiResponse;
             
-            // Add conversation history (convert from Message to ChatMessage)
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (com.care.model.Message msg : conversationHistory) {
-                    String role = msg.getSenderType().equals("USER") ? 
-                                ChatMessageRole.USER.value() : 
-                                ChatMessageRole.ASSISTANT.value();
-                    messages.add(new ChatMessage(role, msg.getContent()));
-                }
+        } catch (InterruptedException e) {
+            // Cancelled by the caller (chat view closed)
+            Thread.currentThread().interrupt();
+            System.out.println("⚠ AI response cancelled");
+            return "⚠ Response cancelled.";
+        } catch (Exception e) {
+            System.err.println("Error generating AI response");
+            e.printStackTrace();
+            return "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
+        }
+    }
+    
+    /**
+     * Generate AI response as a stream of tokens
+     * Sends the same prompt as generateResponse but asks for a server-sent
+     * event stream, handing each piece of text to the listener as soon as it
+     * arrives. Blocks the calling thread until the stream ends.
+     * 
+     * @param userMessage The user's message
+     * @param productId The product being discussed
+     * @param conversationHistory Previous messages in the conversation
+     * @param listener Receives each token (called on the calling thread)
+     * @return The complete response, or an error message like generateResponse
+     */
+    public String streamResponse(String userMessage, int productId, List<com.care.model.Message> conversationHistory,
+                                 TokenListener listener) {
+        return streamResponse(userMessage, productId, conversationHistory, listener, true);
+    }
+    
+    /**
+     * Generate AI response as a stream of tokens, optionally bypassing the response cache
+     * A cached answer is handed to the listener as a single token.
+     * 
+     * @param useCache false to always ask the model
+     */
+    public String streamResponse(String userMessage, int productId, List<com.care.model.Message> conversationHistory,
+                                 TokenListener listener, boolean useCache) {
+        if (!config.isOpenAIConfigured()) {
+            return "⚠ AI service not configured. Please contact administrator to set up OpenAI API key.";
+        }
+        
+        boolean cacheable = useCache && isStandaloneQuestion(userMessage, conversationHistory);
+        if (cacheable) {
+            String cached = responseCache.get(productId, userMessage);
+            if (cached != null) {
+                System.out.println("✓ AI response served from cache");
+                listener.onToken(cached);
+                return cached;
             }
+        }
+        
+        long start = System.nanoTime();
+        long firstTokenNanos = -1;
+        int chunks = 0;
+        StringBuilder answer = new StringBuilder();
+        
+        try {
+            JSONObject requestBody = buildRequest(buildMessages(userMessage, productId, conversationHistory), true);
             
-            // Add current user message
-            messages.add(new ChatMessage(ChatMessageRole.USER.value(), userMessage));
+            HttpResponse<AITransport.LineReader> response = AITransport.await(transport.postLines("chat.stream", requestBody));
             
-            // Create completion request
-            ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
-                    .model(config.getOpenAIModel())
-                    .messages(messages)
-                    .maxTokens(config.getMaxTokens())
-                    .temperature(config.getTemperature())
-                    .build();
+            // Closing the reader on the way out (also when interrupted while waiting) aborts the request
+            try (AITransport.LineReader lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    StringBuilder error = new StringBuilder();
+                    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                        error.append(line).append('\n');
+                    }
+                    System.err.println("OpenAI API error: " + response.statusCode());
+                    System.err.println("Response: " + error.toString().trim());
+                    failedStreams.incrementAndGet();
+                    return "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
+                }
+                
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    // Skip blank event separators, comments and other SSE fields
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    
+                    String data = line.substring(5).trim();
+                    if ("[DONE]".equals(data)) {
+                        break;
+                    }
+                    
+                    JSONArray choices = new JSONObject(data).optJSONArray("choices");
+                    if (choices == null || choices.isEmpty()) {
+                        continue;
+                    }
+                    JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+                    if (delta == null || delta.isNull("content")) {
+                        continue;
+                    }
+                    
+                    String token = delta.optString("content", "");
+                    if (token.isEmpty()) {
+                        continue;
+                    }
+                    
+                    if (firstTokenNanos < 0) {
+                        firstTokenNanos = System.nanoTime() - start;
+                    }
+                    chunks++;
+                    answer.append(token);
+                    listener.onToken(token);
+                }
+            }
             
-            // Get response from OpenAI
-            ChatCompletionResult result = openAiService.createChatCompletion(completionRequest);
+            if (answer.length() == 0) {
+                failedStreams.incrementAndGet();
+                System.err.println("⚠ AI stream ended without any content");
+                return "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
+            }
             
-            String aiResponse = result.getChoices().get(0).getMessage().getContent();
-            System.out.println("✓ AI response generated (" + result.getUsage().getTotalTokens() + " tokens)");
+            long totalNanos = System.nanoTime() - start;
+            streams.incrementAndGet();
+            totalFirstTokenNanos.addAndGet(firstTokenNanos);
+            maxFirstTokenNanos.accumulateAndGet(firstTokenNanos, Math::max);
+            totalStreamNanos.addAndGet(totalNanos);
             
-            return aiResponse;
+            System.out.println("✓ AI response streamed (" + chunks + " chunks, first token " +
+                             firstTokenNanos / 1_000_000 + "ms, total " + totalNanos / 1_000_000 + "ms)");
             
+            if (cacheable) {
+                responseCache.put(productId, userMessage, answer.toString());
+            }
+            return answer.toString();
+            
+        } catch (InterruptedException e) {
+            // Cancelled by the caller (chat view closed)
+            Thread.currentThread().interrupt();
+            System.out.println("⚠ AI response stream cancelled");
+            return "⚠ Response cancelled.";
         } catch (Exception e) {
-            System.err.println("Error generating AI response");
+            failedStreams.incrementAndGet();
+            System.err.println("Error streaming AI response");
             e.printStackTrace();
             return "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
         }
     }
     
     /**
-     * Build product context from product info and knowledge base
+     * Only the opening question of a conversation is cached: later answers
+     * depend on what was said before
+     * The history may already end with the current message.
      */
-    private String buildProductContext(Product product, int productId) {
+    private static boolean isStandaloneQuestion(String userMessage, List<com.care.model.Message> conversationHistory) {
+        if (conversationHistory == null) {
+            return true;
+        }
+        
+        int userTurns = 0;
+        boolean endsWithCurrent = false;
+        for (com.care.model.Message msg : conversationHistory) {
+            if ("USER".equals(msg.getSenderType())) {
+                userTurns++;
+                endsWithCurrent = userMessage.equals(msg.getContent());
+            }
+        }
+        return userTurns == 0 || (userTurns == 1 && endsWithCurrent);
+    }
+    
+    /**
+     * Build the chat messages for a text request: system prompt with product
+     * context, the conversation so far and the new user message
+     */
+    private JSONArray buildMessages(String userMessage, int productId,
+                                    List<com.care.model.Message> conversationHistory) {
+        // Get product context
+        Product product = productDAO.getById(productId);
+        String productContext = buildProductContext(product, productId, userMessage, conversationHistory);
+        
+        // Build message list
+        JSONArray messages = new JSONArray();
+        
+        // System message with context
+        messages.put(chatMessage("system", 
+            "You are a helpful customer support assistant for CARE (Customer Assistance and Resource Engine). " +
+            "You help users with technical support questions about their products. " +
+            "Be professional, friendly, and concise. " +
+            "If you don't know the answer, suggest escalating to a human agent.\n\n" +
+            productContext));
+        
+        // Add the recent conversation that fits the history budget
+        addHistory(messages, userMessage, conversationHistory);
+        
+        // Add current user message
+        messages.put(chatMessage("user", userMessage));
+        
+        return messages;
+    }
+    
+    /**
+     * Add the conversation so far: a summary of older messages followed by
+     * the newest messages that fit the history token budget
+     */
+    private void addHistory(JSONArray messages, String userMessage,
+                            List<com.care.model.Message> conversationHistory) {
+        ConversationHistoryManager.HistoryWindow window = historyManager.buildWindow(userMessage, conversationHistory);
+        
+        if (window.hasSummary()) {
+            messages.put(chatMessage("system", "Summary of the earlier conversation:\n" + window.getSummary()));
+        }
+        
+        // Convert from Message to API roles
+        for (com.care.model.Message msg : window.getMessages()) {
+            String role = msg.getSenderType().equals("USER") ? "user" : "assistant";
+            messages.put(chatMessage(role, msg.getContent()));
+        }
+    }
+    
+    /**
+     * Build a chat completion request body with the configured model settings
+     */
+    private JSONObject buildRequest(JSONArray messages, boolean stream) {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", config.getOpenAIModel());
+        requestBody.put("max_tokens", config.getMaxTokens());
+        requestBody.put("temperature", config.getTemperature());
+        requestBody.put("messages", messages);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+    
+    private static JSONObject chatMessage(String role, Object content) {
+        JSONObject message = new JSONObject();
+        message.put("role", role);
+        message.put("content", content);
+        return message;
+    }
+    
+    /**
+     * Get the text of the first choice of a chat completion response
+     */
+    private static String extractContent(JSONObject result) {
+        return result.getJSONArray("choices")
+            .getJSONObject(0)
+            .getJSONObject("message")
+            .getString("content");
+    }
+    
+    /**
+     * Build product context from product info and the manual passages
+     * most relevant to the current question
+     */
+    private String buildProductContext(Product product, int productId, String userMessage,
+                                       List<com.care.model.Message> conversationHistory) {
         StringBuilder context = new StringBuilder();
         
         if (product != null) {
@@ -131,11 +364,12 @@ public class AIService {
             context.append("- Model/Version: ").append(product.getModelVersion()).append("\n");
             context.append("- Category: ").append(product.getCategory()).append("\n\n");
             
-            // Get knowledge base content if available
-            KnowledgeBase kb = knowledgeBaseDAO.getByProductId(productId);
-            if (kb != null && kb.getContent() != null) {
-                context.append("PRODUCT MANUAL/DOCUMENTATION:\n");
-                context.append(kb.getContent()).append("\n\n");
+            // Only the relevant manual excerpts, within the configured token budget
+            KnowledgeRetrievalService.RetrievedContext manual =
+                retrievalService.retrieve(productId, userMessage, conversationHistory);
+            if (!manual.isEmpty()) {
+                context.append("PRODUCT MANUAL/DOCUMENTATION (relevant excerpts):\n");
+                context.append(manual.getText()).append("\n\n");
             }
             
             context.append("Use this information to help answer the user's questions about this product.");
@@ -154,26 +388,22 @@ public class AIService {
             return "⚠ AI service not configured. Please contact administrator.";
         }
         
-        if (openAiService == null) {
-            return "⚠ AI service initialization failed.";
-        }
-        
         try {
-            List<ChatMessage> messages = new ArrayList<>();
-            messages.add(new ChatMessage(ChatMessageRole.SYSTEM.value(), 
+            JSONArray messages = new JSONArray();
+            messages.put(chatMessage("system", 
                 "You are a helpful customer support assistant. Be professional and concise."));
-            messages.add(new ChatMessage(ChatMessageRole.USER.value(), userMessage));
+            messages.put(chatMessage("user", userMessage));
             
-            ChatCompletionRequest completionRequest = ChatCompletionRequest.builder()
-                    .model(config.getOpenAIModel())
-                    .messages(messages)
-                    .maxTokens(config.getMaxTokens())
-                    .temperature(config.getTemperature())
-                    .build();
-            
-            ChatCompletionResult result = openAiService.createChatCompletion(completionRequest);
-            return result.getChoices().get(0).getMessage().getContent();
+            HttpResponse<String> response = AITransport.await(transport.postJson("chat", buildRequest(messages, false)));
+            if (response.statusCode() != 200) {
+                System.err.println("OpenAI API error: " + response.statusCode());
+                return "⚠ Sorry, I encountered an error. Please try again.";
+            }
+            return extractContent(new JSONObject(response.body()));
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "⚠ Response cancelled.";
         } catch (Exception e) {
             System.err.println("Error generating AI response");
             e.printStackTrace();
@@ -199,7 +429,7 @@ public class AIService {
         try {
             // Get product context
             Product product = productDAO.getById(productId);
-            String productContext = buildProductContext(product, productId);
+            String productContext = buildProductContext(product, productId, userMessage, conversationHistory);
             
             // Build JSON request for Vision API
             JSONObject requestBody = new JSONObject();
@@ -213,31 +443,18 @@ public class AIService {
             JSONArray messages = new JSONArray();
             
             // System message with product context
-            JSONObject systemMessage = new JSONObject();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", 
+            messages.put(chatMessage("system", 
                 "You are a helpful technical support assistant with vision capabilities for CARE (Customer Assistance and Resource Engine). " +
                 "You can analyze images of products, error messages, setup configurations, and hardware issues. " +
                 "Provide detailed, step-by-step solutions based on what you see in the image. " +
                 "Be professional, thorough, and helpful. " +
                 "If the issue requires physical inspection or parts replacement, recommend escalating to a human agent.\n\n" +
-                productContext);
-            messages.put(systemMessage);
+                productContext));
             
             // Add conversation history (text only)
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (com.care.model.Message msg : conversationHistory) {
-                    JSONObject historyMsg = new JSONObject();
-                    historyMsg.put("role", msg.getSenderType().equals("USER") ? "user" : "assistant");
-                    historyMsg.put("content", msg.getContent());
-                    messages.put(historyMsg);
-                }
-            }
+            addHistory(messages, userMessage, conversationHistory);
             
             // User message with image
-            JSONObject userMsg = new JSONObject();
-            userMsg.put("role", "user");
-            
             // Content is an array with text and image parts
             JSONArray content = new JSONArray();
             
@@ -258,30 +475,16 @@ public class AIService {
             imagePart.put("image_url", imageUrl);
             content.put(imagePart);
             
-            userMsg.put("content", content);
-            messages.put(userMsg);
+            messages.put(chatMessage("user", content));
             
             requestBody.put("messages", messages);
             
-            // Make HTTP request to OpenAI API
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("https://api.openai.com/v1/chat/completions"))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + config.getOpenAIApiKey())
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
-                .timeout(Duration.ofSeconds(60))
-                .build();
-            
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // Send through the shared transport (pooled connection, retries)
+            HttpResponse<String> response = AITransport.await(transport.postJson("vision", requestBody));
             
             if (response.statusCode() == 200) {
                 // Parse response
-                JSONObject responseJson = new JSONObject(response.body());
-                String aiResponse = responseJson.getJSONArray("choices")
-                    .getJSONObject(0)
-                    .getJSONObject("message")
-                    .getString("content");
+                String aiResponse = extractContent(new JSONObject(response.body()));
                 
                 System.out.println("✓ AI vision response generated successfully");
                 return aiResponse;
@@ -293,6 +496,11 @@ public class AIService {
                        "Please try again or describe the issue in text.";
             }
             
+        } catch (InterruptedException e) {
+            // Cancelled by the caller (chat view closed)
+            Thread.currentThread().interrupt();
+            System.out.println("⚠ AI vision response cancelled");
+            return "⚠ Response cancelled.";
         } catch (Exception e) {
             System.err.println("Error generating AI vision response");
             e.printStackTrace();
@@ -314,7 +522,53 @@ public class AIService {
      * Check if AI service is ready
      */
     public boolean isReady() {
-        return config.isOpenAIConfigured() && openAiService != null;
+        return config.isOpenAIConfigured() && transport != null;
+    }
+    
+    /**
+     * Get streaming metrics (time to first token and total stream time)
+     */
+    public static StreamStats getStreamStats() {
+        long count = streams.get();
+        return new StreamStats(
+            count,
+            failedStreams.get(),
+            count > 0 ? totalFirstTokenNanos.get() / 1_000_000.0 / count : 0.0,
+            maxFirstTokenNanos.get() / 1_000_000.0,
+            count > 0 ? totalStreamNanos.get() / 1_000_000.0 / count : 0.0
+        );
+    }
+    
+    /**
+     * Snapshot of streaming metrics
+     */
+    public static class StreamStats {
+        private final long streams;
+        private final long failedStreams;
+        private final double avgFirstTokenMillis;
+        private final double maxFirstTokenMillis;
+        private final double avgStreamMillis;
+        
+        public StreamStats(long streams, long failedStreams, double avgFirstTokenMillis,
+                           double maxFirstTokenMillis, double avgStreamMillis) {
+            this.streams = streams;
+            this.failedStreams = failedStreams;
+            this.avgFirstTokenMillis = avgFirstTokenMillis;
+            this.maxFirstTokenMillis = maxFirstTokenMillis;
+            this.avgStreamMillis = avgStreamMillis;
+        }
+        
+        public long getStreams() { return streams; }
+        public long getFailedStreams() { return failedStreams; }
+        public double getAvgFirstTokenMillis() { return avgFirstTokenMillis; }
+        public double getMaxFirstTokenMillis() { return maxFirstTokenMillis; }
+        public double getAvgStreamMillis() { return avgStreamMillis; }
+        
+        @Override
+        public String toString() {
+            return String.format("streams=%d, failed=%d, avgFirstToken=%.0fms, maxFirstToken=%.0fms, avgStream=%.0fms",
+                streams, failedStreams, avgFirstTokenMillis, maxFirstTokenMillis, avgStreamMillis);
+        }
     }
 }
 
@@ -0,0 +1,565 @@
+package com.care.service;
+
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared HTTP transport for all OpenAI calls
+ * One HTTP/2 client (one connection pool, one TLS session) is reused by every
+ * request. A semaphore bounds how many requests are in flight (a streamed
+ * response keeps its slot until its body ends), and the API's rate-limit
+ * headers pause new requests until the limit resets.
+ * 
+ * Only attempts the API cannot have acted on are retried, with jittered
+ * exponential backoff: connection failures, 429 and 503. A POST that timed
+ * out or failed after it was sent may already have been answered (and
+ * billed), so it is reported instead of sent again. Cancelling the returned
+ * future aborts the attempt in flight.
+ * 
+ * Latency is recorded per logical endpoint (chat, chat.stream, vision).
+ */
+public class AITransport {
+    
+    private static AITransport instance;
+    
+    // Matches the parts of durations like "1s", "6m0s", "20ms", "1h2m3.5s"
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+    
+    private final Config config;
+    private final HttpClient client;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxRetries;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final Duration timeout;
+    private final AtomicLong pausedUntilMillis = new AtomicLong();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    
+    // Metrics
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimitPauses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    
+    private AITransport() {
+        this.config = Config.getInstance();
+        this.maxConcurrent = Math.max(1, config.getAiHttpMaxConcurrent());
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxRetries = Math.max(0, config.getAiHttpMaxRetries());
+        this.backoffBaseMillis = config.getAiHttpBackoffBaseMillis();
+        this.backoffMaxMillis = config.getAiHttpBackoffMaxMillis();
+        this.timeout = Duration.ofSeconds(config.getAiHttpTimeoutSeconds());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        
+        System.out.println("✓ AI transport ready (max " + maxConcurrent + " concurrent requests, " +
+                         maxRetries + " retries)");
+    }
+    
+    public static synchronized AITransport getInstance() {
+        if (instance == null) {
+            instance = new AITransport();
+        }
+        return instance;
+    }
+    
+    /**
+     * POST a JSON body to /chat/completions and read the whole response as a string
+     * 
+     * @param endpoint Name the latency is recorded under
+     * @param body Request body
+     * @return Future completing with the final response (after retries)
+     */
+    public CompletableFuture<HttpResponse<String>> postJson(String endpoint, JSONObject body) {
+        return post(endpoint, body, HttpResponse.BodyHandlers.ofString());
+    }
+    
+    /**
+     * POST a streaming request to /chat/completions and read the response line by line
+     * The future completes once the response headers arrive; the request
+     * keeps its concurrency slot until the body ends or is closed.
+     * 
+     * @param endpoint Name the latency is recorded under
+     * @param body Request body (with "stream": true)
+     * @return Future completing with the final response (after retries); close its body when done
+     */
+    public CompletableFuture<HttpResponse<LineReader>> postLines(String endpoint, JSONObject body) {
+        CompletableFuture<HttpResponse<LineReader>> result = send(endpoint, body, info ->
+            HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofPublisher(), LineReader::new));
+        result.whenComplete((response, error) -> {
+            if (response != null) {
+                response.body().onFinish(permits::release);
+            } else if (!(error instanceof PermitUnavailableException)) {
+                permits.release();
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * POST a JSON body to /chat/completions
+     * The concurrency slot is released when the future completes, so the
+     * handler should read the whole body (use postLines for streams).
+     * 
+     * @param endpoint Name the latency is recorded under
+     * @param body Request body
+     * @param handler How the response body is read
+     * @return Future completing with the final response (after retries)
+     */
+    public <T> CompletableFuture<HttpResponse<T>> post(String endpoint, JSONObject body, HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<HttpResponse<T>> result = send(endpoint, body, handler);
+        result.whenComplete((response, error) -> {
+            if (!(error instanceof PermitUnavailableException)) {
+                permits.release();
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Wait for a response, aborting the request if the waiting thread is interrupted
+     * 
+     * @throws InterruptedException if interrupted (the request is cancelled first)
+     * @throws ExecutionException if the request failed
+     */
+    public static <T> HttpResponse<T> await(CompletableFuture<HttpResponse<T>> future)
+            throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            if (!future.cancel(true)) {
+                // The response arrived meanwhile; nobody is going to read it
+                future.thenAccept(AITransport::discard);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Take a concurrency slot and send the request, retrying as needed
+     * The caller releases the slot unless the future fails with PermitUnavailableException.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(String endpoint, JSONObject body, HttpResponse.BodyHandler<T> handler) {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(config.getOpenAIBaseUrl() + "/chat/completions"))
+            .header("Content-Type", "application/json")
+            .header("Accept", body.optBoolean("stream") ? "text/event-stream" : "application/json")
+            .header("Authorization", "Bearer " + config.getOpenAIApiKey())
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .timeout(timeout)
+            .build();
+        
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                failures.incrementAndGet();
+                return CompletableFuture.failedFuture(new PermitUnavailableException("Timed out waiting for a free AI request slot"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new PermitUnavailableException("Interrupted waiting for a free AI request slot"));
+        }
+        
+        requests.incrementAndGet();
+        Exchange<T> exchange = new Exchange<>(endpoint, request, handler);
+        exchange.attempt(0);
+        return exchange.result;
+    }
+    
+    /**
+     * One logical request and its attempts
+     * Cancelling the result aborts the attempt in flight; a response that
+     * arrives after that is closed instead of returned.
+     */
+    private final class Exchange<T> {
+        
+        private final String endpoint;
+        private final HttpRequest request;
+        private final HttpResponse.BodyHandler<T> handler;
+        private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        private final AtomicReference<CompletableFuture<HttpResponse<T>>> inFlight = new AtomicReference<>();
+        
+        Exchange(String endpoint, HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.handler = handler;
+            result.whenComplete((response, error) -> {
+                CompletableFuture<HttpResponse<T>> current = inFlight.get();
+                if (result.isCancelled() && current != null) {
+                    current.cancel(true);
+                }
+            });
+        }
+        
+        /**
+         * Send one attempt, waiting first if the API asked us to slow down
+         */
+        void attempt(int attempt) {
+            long wait = pausedUntilMillis.get() - System.currentTimeMillis();
+            if (wait > 0) {
+                CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS).execute(() -> send(attempt));
+            } else {
+                send(attempt);
+            }
+        }
+        
+        private void send(int attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> sent = client.sendAsync(request, handler);
+            inFlight.set(sent);
+            if (result.isCancelled()) {
+                // Cancelled between the check above and publishing the attempt
+                sent.cancel(true);
+                return;
+            }
+            sent.whenComplete((response, error) -> afterAttempt(attempt, System.nanoTime() - start, response, error));
+        }
+        
+        /**
+         * Record the attempt and either complete the result or schedule a retry
+         */
+        private void afterAttempt(int attempt, long nanos, HttpResponse<T> response, Throwable error) {
+            getLatency(endpoint).record(nanos);
+            
+            if (result.isDone()) {
+                // Cancelled while the attempt was running
+                discard(response);
+                return;
+            }
+            
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (response != null) {
+                applyRateLimitHeaders(response.headers(), response.statusCode());
+            }
+            
+            boolean retryable = cause != null ? isConnectFailure(cause) : isRetryableStatus(response.statusCode());
+            if (!retryable || attempt >= maxRetries) {
+                if (cause != null) {
+                    failures.incrementAndGet();
+                    result.completeExceptionally(cause);
+                } else if (!result.complete(response)) {
+                    discard(response);
+                }
+                return;
+            }
+            
+            long delay = backoffMillis(attempt, response);
+            String reason = cause != null ? cause.getClass().getSimpleName() : "HTTP " + response.statusCode();
+            discard(response);
+            retries.incrementAndGet();
+            System.out.println("⚠ AI request (" + endpoint + ") failed with " + reason + ", retrying in " + delay +
+                             "ms (attempt " + (attempt + 2) + " of " + (maxRetries + 1) + ")");
+            
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> attempt(attempt + 1));
+        }
+    }
+    
+    /**
+     * The request never got a concurrency slot, so there is none to release
+     */
+    private static final class PermitUnavailableException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        PermitUnavailableException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Check if an attempt failed before the request was sent
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isRetryableStatus(int status) {
+        // Rate limited or overloaded: the API turned the request away without running it
+        return status == 429 || status == 503;
+    }
+    
+    /**
+     * Exponential backoff with jitter (half fixed, half random), never shorter than Retry-After
+     */
+    private long backoffMillis(int attempt, HttpResponse<?> response) {
+        long ceiling = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempt, 20));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        
+        if (response != null) {
+            Optional<Long> retryAfter = retryAfterMillis(response.headers());
+            if (retryAfter.isPresent()) {
+                delay = Math.max(delay, retryAfter.get());
+            }
+        }
+        return delay;
+    }
+    
+    /**
+     * Pause new requests when a limit is exhausted or the API returned 429
+     */
+    private void applyRateLimitHeaders(HttpHeaders headers, int status) {
+        long pauseMillis = 0;
+        
+        if (headers.firstValue("x-ratelimit-remaining-requests").map("0"::equals).orElse(false)) {
+            pauseMillis = Math.max(pauseMillis, headers.firstValue("x-ratelimit-reset-requests")
+                .map(AITransport::parseDurationMillis).orElse(0L));
+        }
+        if (headers.firstValue("x-ratelimit-remaining-tokens").map("0"::equals).orElse(false)) {
+            pauseMillis = Math.max(pauseMillis, headers.firstValue("x-ratelimit-reset-tokens")
+                .map(AITransport::parseDurationMillis).orElse(0L));
+        }
+        if (status == 429) {
+            pauseMillis = Math.max(pauseMillis, retryAfterMillis(headers).orElse(0L));
+        }
+        
+        if (pauseMillis > 0) {
+            long until = System.currentTimeMillis() + pauseMillis;
+            pausedUntilMillis.accumulateAndGet(until, Math::max);
+            rateLimitPauses.incrementAndGet();
+            System.out.println("⚠ OpenAI rate limit reached, pausing requests for " + pauseMillis + "ms");
+        }
+    }
+    
+    private static Optional<Long> retryAfterMillis(HttpHeaders headers) {
+        try {
+            Optional<String> millis = headers.firstValue("retry-after-ms");
+            if (millis.isPresent()) {
+                return Optional.of((long) Double.parseDouble(millis.get().trim()));
+            }
+            // Only the delta-seconds form is used by the API; HTTP dates are ignored
+            return headers.firstValue("retry-after").map(value -> (long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Parse the reset durations used in OpenAI rate-limit headers
+     */
+    static long parseDurationMillis(String value) {
+        Matcher matcher = DURATION_PART.matcher(value);
+        double millis = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h": millis += amount * 3_600_000; break;
+                case "m": millis += amount * 60_000; break;
+                case "s": millis += amount * 1000; break;
+                default: millis += amount; break;
+            }
+        }
+        return (long) Math.ceil(millis);
+    }
+    
+    /**
+     * Release the connection of a response we are not going to read
+     */
+    private static void discard(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) response.body()).close();
+            } catch (Exception e) {
+                // Nothing useful to do; the connection is dropped either way
+            }
+        }
+    }
+    
+    /**
+     * Response body of a streaming request, read one line at a time
+     * Lines are queued as they arrive, so a reader waiting for the next one
+     * can be interrupted; the blocking streams of the HTTP client ignore
+     * interrupts and would hold the thread until the server sends more.
+     * Closing the reader cancels the body, which aborts the request.
+     */
+    public static final class LineReader implements AutoCloseable {
+        
+        // Marks the end of the body in the queue
+        private static final Object END = new Object();
+        
+        private final BlockingQueue<Object> lines = new LinkedBlockingQueue<>();
+        private Flow.Subscription subscription;
+        private boolean closed;
+        private boolean finished;
+        private Runnable onFinish;
+        
+        LineReader(Flow.Publisher<List<ByteBuffer>> body) {
+            body.subscribe(HttpResponse.BodySubscribers.fromLineSubscriber(new Flow.Subscriber<String>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    if (setSubscription(s)) {
+                        // Responses are small; the queue takes whatever arrives
+                        s.request(Long.MAX_VALUE);
+                    }
+                }
+                
+                @Override
+                public void onNext(String line) {
+                    lines.add(line);
+                }
+                
+                @Override
+                public void onError(Throwable error) {
+                    lines.add(error);
+                    finish();
+                }
+                
+                @Override
+                public void onComplete() {
+                    lines.add(END);
+                    finish();
+                }
+            }));
+        }
+        
+        private synchronized boolean setSubscription(Flow.Subscription s) {
+            if (closed) {
+                s.cancel();
+                return false;
+            }
+            subscription = s;
+            return true;
+        }
+        
+        /**
+         * Run an action once the body has ended, failed or been closed (at once if it already has)
+         */
+        void onFinish(Runnable action) {
+            synchronized (this) {
+                if (!finished) {
+                    onFinish = action;
+                    return;
+                }
+            }
+            action.run();
+        }
+        
+        private void finish() {
+            Runnable action;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                action = onFinish;
+                onFinish = null;
+            }
+            if (action != null) {
+                action.run();
+            }
+        }
+        
+        /**
+         * Wait for the next line of the body
+         * 
+         * @return The line, or null at the end of the body
+         * @throws InterruptedException if the calling thread is interrupted while waiting
+         * @throws IOException if the body could not be read to the end
+         */
+        public String readLine() throws InterruptedException, IOException {
+            Object next = lines.take();
+            if (next instanceof String) {
+                return (String) next;
+            }
+            // Keep answering the same way if called again
+            lines.add(next);
+            if (next == END) {
+                return null;
+            }
+            throw new IOException("AI response stream failed", (Throwable) next);
+        }
+        
+        /**
+         * Stop reading; a body that has not ended yet is cancelled and its connection dropped
+         */
+        @Override
+        public void close() {
+            Flow.Subscription s;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                s = subscription;
+            }
+            if (s != null) {
+                s.cancel();
+            }
+            lines.add(END);
+            finish();
+        }
+    }
+    
+    private LatencyHistogram getLatency(String endpoint) {
+        return latencies.computeIfAbsent(endpoint, k -> new LatencyHistogram());
+    }
+    
+    /**
+     * Get latency histograms by endpoint
+     */
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        return new TreeMap<>(latencies);
+    }
+    
+    /**
+     * Number of requests holding a concurrency slot
+     */
+    int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+    
+    /**
+     * Get transport statistics as a string
+     */
+    public String getStats() {
+        StringBuilder stats = new StringBuilder();
+        stats.append("requests=").append(requests.get())
+             .append(", retries=").append(retries.get())
+             .append(", rateLimitPauses=").append(rateLimitPauses.get())
+             .append(", failures=").append(failures.get())
+             .append(", inFlight=").append(getInFlight());
+        for (Map.Entry<String, LatencyHistogram> entry : getLatencyHistograms().entrySet()) {
+            stats.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return stats.toString();
+    }
+}
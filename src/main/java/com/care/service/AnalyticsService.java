@@ -1,17 +1,22 @@
 package com.care.service;
 
+import com.care.dao.AnalyticsDAO;
+import com.care.dao.AnalyticsRollupDAO;
 import com.care.dao.ChatSessionDAO;
 import com.care.dao.MessageDAO;
 import com.care.dao.ProductDAO;
 import com.care.dao.TicketDAO;
 import com.care.dao.UserDAO;
 import com.care.model.ChatSession;
+import com.care.model.DashboardSnapshot;
 import com.care.model.Message;
 import com.care.model.Product;
 import com.care.model.Ticket;
 import com.care.model.User;
+import com.care.util.Config;
+import com.care.util.KeywordMatcher;
 
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -19,50 +24,83 @@ import java.util.stream.Collectors;
 
 /**
  * Service for Analytics and Reporting
+ * Counts and distributions are read from the incrementally maintained
+ * analytics rollups through {@link AnalyticsDAO};
+ * callers that need several headline figures should use {@link #getDashboardSnapshot()}.
  */
 public class AnalyticsService {
     
+    private AnalyticsDAO analyticsDAO;
+    private AnalyticsRollupDAO rollupDAO;
     private ChatSessionDAO chatSessionDAO;
     private TicketDAO ticketDAO;
     private MessageDAO messageDAO;
     private ProductDAO productDAO;
     private UserDAO userDAO;
+    private KeywordMatcher issueMatcher;
     
     public AnalyticsService() {
+        this.analyticsDAO = new AnalyticsDAO();
+        this.rollupDAO = new AnalyticsRollupDAO();
         this.chatSessionDAO = new ChatSessionDAO();
         this.ticketDAO = new TicketDAO();
         this.messageDAO = new MessageDAO();
         this.productDAO = new ProductDAO();
         this.userDAO = new UserDAO();
+        this.issueMatcher = new KeywordMatcher(Config.getInstance().getAnalyticsIssueKeywords());
+    }
+    
+    /**
+     * Backfill the analytics rollups if this database has never had them
+     * Can take seconds on a large history, so call it off the FX thread
+     * before the first query that reads the rollups.
+     */
+    public void ensureRollups() {
+        rollupDAO.ensureBuilt();
+    }
+    
+    /**
+     * Recompute the analytics rollups from the raw session and ticket tables
+     */
+    public boolean rebuildRollups() {
+        return rollupDAO.rebuild();
+    }
+    
+    /**
+     * Compare the analytics rollups with the raw tables
+     *
+     * @return Description of every counter that has drifted (empty if consistent), or null if the check failed
+     */
+    public List<String> checkRollups() {
+        return rollupDAO.verify();
+    }
+    
+    /**
+     * Get all headline dashboard counts from a single query
+     */
+    public DashboardSnapshot getDashboardSnapshot() {
+        return analyticsDAO.getDashboardSnapshot();
     }
     
     /**
      * Get total number of chat sessions
      */
     public int getTotalChatSessions() {
-        return chatSessionDAO.getAllSessions().size();
+        return getDashboardSnapshot().getTotalSessions();
     }
     
     /**
      * Get escalation rate (percentage of sessions that were escalated)
      */
     public double getEscalationRate() {
-        List<ChatSession> allSessions = chatSessionDAO.getAllSessions();
-        if (allSessions.isEmpty()) return 0.0;
-        
-        long escalatedCount = allSessions.stream()
-                .filter(s -> "ESCALATED".equals(s.getStatus()))
-                .count();
-        
-        return (escalatedCount * 100.0) / allSessions.size();
+        return getDashboardSnapshot().getEscalationRate();
     }
     
     /**
      * Get number of resolved tickets
      */
     public int getResolvedTicketsCount() {
-        return ticketDAO.getByStatus("RESOLVED").size() + 
-               ticketDAO.getByStatus("CLOSED").size();
+        return getDashboardSnapshot().getResolvedTicketCount();
     }
     
     /**
@@ -80,22 +118,7 @@ public class AnalyticsService {
      * Returns map of Product -> Escalation Count
      */
     public Map<String, Integer> getEscalationsByProduct() {
-        List<ChatSession> escalatedSessions = chatSessionDAO.getAllSessions().stream()
-                .filter(s -> "ESCALATED".equals(s.getStatus()))
-                .collect(Collectors.toList());
-        
-        Map<String, Integer> productEscalations = new HashMap<>();
-        
-        for (ChatSession session : escalatedSessions) {
-            Product product = productDAO.findById(session.getProductId());
-            if (product != null) {
-                String productName = product.getName();
-                productEscalations.put(productName, 
-                    productEscalations.getOrDefault(productName, 0) + 1);
-            }
-        }
-        
-        return productEscalations;
+        return analyticsDAO.getEscalationsByProduct();
     }
     
     /**
@@ -103,18 +126,13 @@ public class AnalyticsService {
      * Returns map of Status -> Count
      */
     public Map<String, Integer> getTicketStatusDistribution() {
-        List<Ticket> allTickets = ticketDAO.getAllTickets();
-        
         Map<String, Integer> distribution = new HashMap<>();
         distribution.put("OPEN", 0);
         distribution.put("IN_PROGRESS", 0);
         distribution.put("RESOLVED", 0);
         distribution.put("CLOSED", 0);
         
-        for (Ticket ticket : allTickets) {
-            String status = ticket.getStatus();
-            distribution.put(status, distribution.getOrDefault(status, 0) + 1);
-        }
+        distribution.putAll(analyticsDAO.getTicketCountsByStatus());
         
         return distribution;
     }
@@ -124,7 +142,6 @@ public class AnalyticsService {
      * Returns map of Date -> Session Count
      */
     public Map<String, Integer> getSessionsByDate() {
-        List<ChatSession> allSessions = chatSessionDAO.getAllSessions();
         Map<String, Integer> sessionsByDate = new LinkedHashMap<>();
         
         LocalDateTime now = LocalDateTime.now();
@@ -138,15 +155,10 @@ public class AnalyticsService {
         }
         
         // Count sessions for each day
-        for (ChatSession session : allSessions) {
-            if (session.getCreatedAt() != null) {
-                LocalDateTime createdAt = session.getCreatedAt();
-                if (createdAt.isAfter(now.minusDays(7))) {
-                    String dateStr = createdAt.format(formatter);
-                    sessionsByDate.put(dateStr, 
-                        sessionsByDate.getOrDefault(dateStr, 0) + 1);
-                }
-            }
+        String since = now.minusDays(6).toLocalDate().toString();
+        for (Map.Entry<String, Integer> day : analyticsDAO.getSessionCountsByDay(since).entrySet()) {
+            String dateStr = LocalDate.parse(day.getKey()).format(formatter);
+            sessionsByDate.put(dateStr, sessionsByDate.getOrDefault(dateStr, 0) + day.getValue());
         }
         
         return sessionsByDate;
@@ -157,58 +169,56 @@ public class AnalyticsService {
      * Returns list of IssueData objects
      */
     public List<IssueData> getTopIssues() {
-        List<IssueData> issues = new ArrayList<>();
-        
-        // Common issue keywords to track
-        String[] keywords = {"error", "broken", "not working", "problem", "issue", 
-                            "failed", "reset", "configure", "slow", "crash"};
+        int keywordCount = issueMatcher.size();
+        if (keywordCount == 0) {
+            return new ArrayList<>();
+        }
         
-        List<ChatSession> allSessions = chatSessionDAO.getAllSessions();
-        Map<String, Map<String, Integer>> keywordProductCount = new HashMap<>();
-        Map<String, Map<String, Integer>> keywordProductEscalations = new HashMap<>();
+        // Counts are indexed by productOrdinal * keywordCount + keywordOrdinal
+        Map<Integer, Integer> productOrdinals = new HashMap<>();
+        List<String> productNames = new ArrayList<>();
+        int[][] counts = { new int[keywordCount * 8], new int[keywordCount * 8] };
+        boolean[] found = new boolean[keywordCount];
         
-        for (ChatSession session : allSessions) {
-            List<Message> messages = messageDAO.getBySessionId(session.getSessionId());
-            Product product = productDAO.findById(session.getProductId());
-            if (product == null) continue;
+        analyticsDAO.scanUserMessages((productId, productName, escalated, content) -> {
+            if (content == null || issueMatcher.match(content, found) == 0) {
+                return;
+            }
             
-            String productName = product.getName();
-            boolean isEscalated = "ESCALATED".equals(session.getStatus());
+            Integer product = productOrdinals.get(productId);
+            if (product == null) {
+                product = productNames.size();
+                productOrdinals.put(productId, product);
+                productNames.add(productName);
+                if ((product + 1) * keywordCount > counts[0].length) {
+                    counts[0] = Arrays.copyOf(counts[0], counts[0].length * 2);
+                    counts[1] = Arrays.copyOf(counts[1], counts[1].length * 2);
+                }
+            }
             
-            for (Message message : messages) {
-                if ("USER".equals(message.getSenderType())) {
-                    String content = message.getContent().toLowerCase();
-                    
-                    for (String keyword : keywords) {
-                        if (content.contains(keyword)) {
-                            // Count occurrences
-                            keywordProductCount.putIfAbsent(keyword, new HashMap<>());
-                            Map<String, Integer> productCounts = keywordProductCount.get(keyword);
-                            productCounts.put(productName, productCounts.getOrDefault(productName, 0) + 1);
-                            
-                            // Count escalations
-                            if (isEscalated) {
-                                keywordProductEscalations.putIfAbsent(keyword, new HashMap<>());
-                                Map<String, Integer> productEscalations = keywordProductEscalations.get(keyword);
-                                productEscalations.put(productName, productEscalations.getOrDefault(productName, 0) + 1);
-                            }
-                        }
+            int base = product * keywordCount;
+            for (int keyword = 0; keyword < keywordCount; keyword++) {
+                if (found[keyword]) {
+                    found[keyword] = false;
+                    counts[0][base + keyword]++;
+                    if (escalated) {
+                        counts[1][base + keyword]++;
                     }
                 }
             }
-        }
+        });
         
         // Create IssueData objects
-        for (String keyword : keywordProductCount.keySet()) {
-            Map<String, Integer> productCounts = keywordProductCount.get(keyword);
-            Map<String, Integer> productEscalations = keywordProductEscalations.getOrDefault(keyword, new HashMap<>());
-            
-            for (String productName : productCounts.keySet()) {
-                int occurrences = productCounts.get(productName);
-                int escalations = productEscalations.getOrDefault(productName, 0);
-                double issueRate = (escalations * 100.0) / occurrences;
+        List<IssueData> issues = new ArrayList<>();
+        for (int product = 0; product < productNames.size(); product++) {
+            for (int keyword = 0; keyword < keywordCount; keyword++) {
+                int occurrences = counts[0][product * keywordCount + keyword];
+                if (occurrences == 0) continue;
                 
-                issues.add(new IssueData(keyword, productName, occurrences, escalations, issueRate));
+                int escalations = counts[1][product * keywordCount + keyword];
+                double issueRate = (escalations * 100.0) / occurrences;
+                issues.add(new IssueData(issueMatcher.getKeyword(keyword), productNames.get(product),
+                                         occurrences, escalations, issueRate));
             }
         }
         
@@ -226,48 +236,17 @@ public class AnalyticsService {
     public List<AgentPerformance> getAgentPerformance() {
         List<AgentPerformance> performances = new ArrayList<>();
         
-        List<User> agents = userDAO.findAll().stream()
-                .filter(u -> "AGENT".equalsIgnoreCase(u.getRole()))
-                .collect(Collectors.toList());
-        
-        for (User agent : agents) {
-            int agentId = agent.getUserId();
-            
-            List<Ticket> assignedTickets = ticketDAO.getByAgentId(agentId);
-            int assignedCount = assignedTickets.size();
-            
-            List<Ticket> resolvedTickets = assignedTickets.stream()
-                    .filter(t -> "RESOLVED".equals(t.getStatus()) || "CLOSED".equals(t.getStatus()))
-                    .collect(Collectors.toList());
-            int resolvedCount = resolvedTickets.size();
-            
+        for (AnalyticsDAO.AgentTicketCounts agent : analyticsDAO.getAgentTicketCounts()) {
+            int assignedCount = agent.getAssignedTickets();
+            int resolvedCount = agent.getResolvedTickets();
             double resolutionRate = assignedCount > 0 ? (resolvedCount * 100.0) / assignedCount : 0.0;
             
-            // Calculate average resolution time (in hours)
-            double avgResolutionTime = 0.0;
-            if (!resolvedTickets.isEmpty()) {
-                long totalMinutes = 0;
-                int validCount = 0;
-                
-                for (Ticket ticket : resolvedTickets) {
-                    if (ticket.getCreatedAt() != null && ticket.getResolvedAt() != null) {
-                        Duration duration = Duration.between(ticket.getCreatedAt(), ticket.getResolvedAt());
-                        totalMinutes += duration.toMinutes();
-                        validCount++;
-                    }
-                }
-                
-                if (validCount > 0) {
-                    avgResolutionTime = (totalMinutes / 60.0) / validCount; // Convert to hours
-                }
-            }
-            
             performances.add(new AgentPerformance(
-                agent.getName(),
+                agent.getAgentName(),
                 assignedCount,
                 resolvedCount,
                 resolutionRate,
-                avgResolutionTime
+                agent.getAvgResolutionHours()
             ));
         }
         
@@ -279,28 +258,17 @@ public class AnalyticsService {
      * Returns map with "AI Resolved" and "Human Resolved" percentages
      */
     public Map<String, Double> getResolutionTypeDistribution() {
-        List<ChatSession> allSessions = chatSessionDAO.getAllSessions();
+        return getResolutionTypeDistribution(getDashboardSnapshot());
+    }
+    
+    /**
+     * Get AI vs Human resolution rate from an already loaded snapshot
+     */
+    public Map<String, Double> getResolutionTypeDistribution(DashboardSnapshot snapshot) {
         Map<String, Double> distribution = new HashMap<>();
         
-        if (allSessions.isEmpty()) {
-            distribution.put("AI Resolved", 0.0);
-            distribution.put("Escalated to Human", 0.0);
-            return distribution;
-        }
-        
-        long escalatedCount = allSessions.stream()
-                .filter(s -> "ESCALATED".equals(s.getStatus()))
-                .count();
-        
-        long aiResolvedCount = allSessions.stream()
-                .filter(s -> "CLOSED".equals(s.getStatus()))
-                .count();
-        
-        double aiResolvedPercent = (aiResolvedCount * 100.0) / allSessions.size();
-        double escalatedPercent = (escalatedCount * 100.0) / allSessions.size();
-        
-        distribution.put("AI Resolved", aiResolvedPercent);
-        distribution.put("Escalated to Human", escalatedPercent);
+        distribution.put("AI Resolved", snapshot.getAiResolvedRate());
+        distribution.put("Escalated to Human", snapshot.getEscalationRate());
         
         return distribution;
     }
@@ -310,8 +278,15 @@ public class AnalyticsService {
      * In production, this would come from user feedback/ratings
      */
     public double getUserSatisfactionScore() {
+        return getUserSatisfactionScore(getDashboardSnapshot());
+    }
+    
+    /**
+     * Get user satisfaction score from an already loaded snapshot
+     */
+    public double getUserSatisfactionScore(DashboardSnapshot snapshot) {
         // Dummy calculation based on escalation rate
-        double escalationRate = getEscalationRate();
+        double escalationRate = snapshot.getEscalationRate();
         // Lower escalation rate = higher satisfaction
         // If 0% escalation = 5.0 score, 100% escalation = 2.0 score
         double score = 5.0 - (escalationRate / 100.0 * 3.0);
@@ -324,23 +299,11 @@ public class AnalyticsService {
      */
     public Map<String, Integer> getEscalationsByHour() {
         Map<String, Integer> hourlyEscalations = new LinkedHashMap<>();
+        int[] ticketsByHour = analyticsDAO.getTicketCountsByHour();
         
-        // Initialize all 24 hours with 0
         for (int i = 0; i < 24; i++) {
             String hour = String.format("%02d:00", i);
-            hourlyEscalations.put(hour, 0);
-        }
-        
-        // Count escalations by hour (using dummy distribution for now)
-        // In production, this would analyze actual ticket creation times
-        List<Ticket> allTickets = ticketDAO.getAllTickets();
-        
-        for (Ticket ticket : allTickets) {
-            if (ticket.getCreatedAt() != null) {
-                int hour = ticket.getCreatedAt().getHour();
-                String hourStr = String.format("%02d:00", hour);
-                hourlyEscalations.put(hourStr, hourlyEscalations.getOrDefault(hourStr, 0) + 1);
-            }
+            hourlyEscalations.put(hour, ticketsByHour[i]);
         }
         
         return hourlyEscalations;
@@ -0,0 +1,222 @@
+package com.care.service;
+
+import com.care.dao.UserDAO;
+import com.care.model.User;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+import com.care.util.PasswordUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Password checks for logins, off the UI thread
+ * BCrypt work runs on a small dedicated pool with a bounded queue, so a
+ * burst of logins waits its turn (or is turned away) instead of starving
+ * the rest of the application of CPU. Passwords stored as plain text or
+ * hashed with a different cost than the configured one are rehashed in
+ * the background after a successful login, touching only password_hash.
+ * Plain-text passwords left over from old data are also migrated in one
+ * background batch at startup.
+ */
+public class AuthenticationService {
+    
+    private static AuthenticationService instance;
+    
+    private final UserDAO userDAO;
+    private final ThreadPoolExecutor hashExecutor;
+    
+    // Metrics
+    private final AtomicLong logins = new AtomicLong();
+    private final AtomicLong failedLogins = new AtomicLong();
+    private final AtomicLong rejectedLogins = new AtomicLong();
+    private final AtomicLong rehashes = new AtomicLong();
+    private final AtomicLong migratedPasswords = new AtomicLong();
+    private final LatencyHistogram loginLatency = new LatencyHistogram();
+    
+    private AuthenticationService() {
+        Config config = Config.getInstance();
+        this.userDAO = new UserDAO();
+        int threads = Math.max(1, config.getAuthHashThreads());
+        int queueCapacity = Math.max(1, config.getAuthHashQueueCapacity());
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "care-auth-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.hashExecutor.allowCoreThreadTimeOut(true);
+    }
+    
+    public static synchronized AuthenticationService getInstance() {
+        if (instance == null) {
+            instance = new AuthenticationService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Authenticate a user on the hashing pool
+     *
+     * @param email User email
+     * @param password User password (plain text)
+     * @return Future of the user, or of null if the credentials are wrong;
+     *         fails with RejectedExecutionException if too many logins are queued
+     */
+    public CompletableFuture<User> authenticateAsync(String email, String password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> authenticate(email, password), hashExecutor);
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.incrementAndGet();
+            System.err.println("⚠ Login rejected, too many logins in progress");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Authenticate a user with email and password on the calling thread
+     *
+     * @param email User email
+     * @param password User password (plain text)
+     * @return User object if authentication successful, null otherwise
+     */
+    public User authenticate(String email, String password) {
+        if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
+            return null;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            // Get user by email first
+            User user = userDAO.findByEmail(email);
+            
+            if (user == null) {
+                System.out.println("Authentication failed: User not found for: " + email);
+                failedLogins.incrementAndGet();
+                return null;
+            }
+            
+            // Check if password is BCrypt hash or plain text (for backward compatibility)
+            String storedPassword = user.getPasswordHash();
+            boolean isAuthenticated;
+            
+            if (PasswordUtil.isBCryptHash(storedPassword)) {
+                // Verify against BCrypt hash
+                isAuthenticated = PasswordUtil.verifyPassword(password, storedPassword);
+            } else {
+                // Backward compatibility: plain text comparison, in constant time
+                isAuthenticated = storedPassword != null && MessageDigest.isEqual(
+                    password.getBytes(StandardCharsets.UTF_8), storedPassword.getBytes(StandardCharsets.UTF_8));
+            }
+            
+            if (!isAuthenticated) {
+                System.out.println("✗ Authentication failed: Invalid password for: " + email);
+                failedLogins.incrementAndGet();
+                return null;
+            }
+            
+            // Plain text, or hashed with an old cost: upgrade without delaying the login
+            if (PasswordUtil.needsRehash(storedPassword)) {
+                scheduleRehash(user.getUserId(), storedPassword, password);
+            }
+            
+            logins.incrementAndGet();
+            System.out.println("✓ Authentication successful for: " + email);
+            return user;
+        } finally {
+            loginLatency.record(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Hash a verified password again with the configured cost
+     * Skipped if the pool is busy; the next login will try again.
+     */
+    private void scheduleRehash(int userId, String storedPassword, String password) {
+        try {
+            hashExecutor.execute(() -> {
+                String newHash = PasswordUtil.hashPassword(password);
+                if (userDAO.updatePasswordHash(userId, storedPassword, newHash)) {
+                    rehashes.incrementAndGet();
+                    System.out.println("✓ Rehashed password for user ID: " + userId +
+                                     " (cost " + PasswordUtil.getWorkload() + ")");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.out.println("⚠ Password rehash for user ID " + userId + " deferred, hashing pool busy");
+        }
+    }
+    
+    /**
+     * Hash every plain-text password left in the users table, in the background
+     * All rows are written in a single transaction once hashing is done. The
+     * hashing runs on its own low-priority thread so logins keep the pool.
+     */
+    public void migrateLegacyPasswordsAsync() {
+        if (!Config.getInstance().isAuthMigrateLegacyPasswords()) {
+            return;
+        }
+        
+        Thread thread = new Thread(this::migrateLegacyPasswords, "care-auth-migrate");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    /**
+     * Hash every plain-text password left in the users table
+     *
+     * @return Number of users migrated
+     */
+    public int migrateLegacyPasswords() {
+        Map<Integer, String> legacy = userDAO.findLegacyPasswords();
+        Map<Integer, String> hashes = new LinkedHashMap<>();
+        
+        for (Map.Entry<Integer, String> entry : legacy.entrySet()) {
+            String stored = entry.getValue();
+            // Empty values cannot be logged in with, and hashPassword rejects them
+            if (stored == null || stored.isEmpty() || PasswordUtil.isBCryptHash(stored)) {
+                continue;
+            }
+            hashes.put(entry.getKey(), PasswordUtil.hashPassword(stored));
+        }
+        
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        
+        int updated = userDAO.updatePasswordHashes(legacy, hashes);
+        if (updated > 0) {
+            migratedPasswords.addAndGet(updated);
+            System.out.println("✓ Migrated " + updated + " plain-text passwords to BCrypt");
+        }
+        return Math.max(updated, 0);
+    }
+    
+    /**
+     * Get the time logins take on the hashing pool
+     */
+    public LatencyHistogram getLoginLatency() {
+        return loginLatency;
+    }
+    
+    /**
+     * Get authentication statistics as a string
+     */
+    public String getStats() {
+        return String.format("logins=%d, failed=%d, rejected=%d, rehashes=%d, migrated=%d, queued=%d\n  login: %s",
+            logins.get(), failedLogins.get(), rejectedLogins.get(), rehashes.get(), migratedPasswords.get(),
+            hashExecutor.getQueue().size(), loginLatency);
+    }
+}
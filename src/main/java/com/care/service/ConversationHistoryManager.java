@@ -0,0 +1,432 @@
+package com.care.service;
+
+import com.care.dao.ChatSessionDAO;
+import com.care.dao.MessageDAO;
+import com.care.model.ConversationSummary;
+import com.care.model.Message;
+import com.care.util.Config;
+import com.care.util.IntLruCache;
+import com.care.util.TokenCounter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the conversation history sent to the AI within a token budget
+ * The newest messages are sent as they are. Once they no longer fit, the
+ * oldest ones are folded into a running summary that is stored per chat
+ * session and sent in their place. Each fold only adds the newly evicted
+ * messages to the previous summary, so a summary is never rebuilt from the
+ * whole conversation.
+ * 
+ * Trimming goes down to a lower water mark rather than just under the
+ * budget, so summaries are updated every few turns instead of every turn.
+ * 
+ * A continued session only loads the messages after the summary. The summary
+ * counts folded messages over the whole session, so the position of a history
+ * list's first message is looked up once and remembered.
+ */
+public class ConversationHistoryManager {
+    
+    private static ConversationHistoryManager instance;
+    
+    // Longest excerpt of a single message passed to the summarizer
+    private static final int MAX_SUMMARIZED_CHARS = 2000;
+    
+    private final ChatSessionDAO chatSessionDAO;
+    private final MessageDAO messageDAO;
+    private final TokenCounter tokenCounter;
+    private final Config config;
+    private final int tokenBudget;
+    private final int trimTarget;
+    private final int summaryTokens;
+    
+    // Stored sessions, least recently used dropped first (guarded by itself)
+    private final IntLruCache<SessionState> sessions;
+    
+    // Conversations without a session id, keyed by their first message;
+    // chat windows copy the history list but keep the same Message objects
+    private final Map<Message, SessionState> unsavedSessions = new WeakHashMap<>();
+    
+    // Metrics
+    private final AtomicLong windows = new AtomicLong();
+    private final AtomicLong sentTokens = new AtomicLong();
+    private final AtomicLong summaryUpdates = new AtomicLong();
+    private final AtomicLong summarizedMessages = new AtomicLong();
+    private final AtomicLong fallbackSummaries = new AtomicLong();
+    private final AtomicLong summarizeNanos = new AtomicLong();
+    
+    private ConversationHistoryManager() {
+        this.config = Config.getInstance();
+        this.chatSessionDAO = new ChatSessionDAO();
+        this.messageDAO = new MessageDAO();
+        this.tokenCounter = TokenCounter.getInstance();
+        this.tokenBudget = config.getAiHistoryTokenBudget();
+        this.trimTarget = tokenBudget * Math.max(10, Math.min(100, config.getAiHistoryTrimPercent())) / 100;
+        this.summaryTokens = config.getAiHistorySummaryTokens();
+        this.sessions = new IntLruCache<>(config.getAiHistoryCachedSessions());
+    }
+    
+    public static synchronized ConversationHistoryManager getInstance() {
+        if (instance == null) {
+            instance = new ConversationHistoryManager();
+        }
+        return instance;
+    }
+    
+    /**
+     * Load the AI context of a continued session
+     * Messages already folded into the summary are not read.
+     * 
+     * @return Non-system messages after the summarized ones, oldest first
+     */
+    public List<Message> loadHistory(int sessionId) {
+        SessionState state = getSessionState(sessionId);
+        synchronized (state) {
+            int skip = state.summary.getSummarizedCount();
+            List<Message> history = messageDAO.getHistoryFrom(sessionId, skip);
+            state.anchorId = history.isEmpty() ? 0 : history.get(0).getMessageId();
+            state.anchorPosition = skip;
+            System.out.println("✓ Loaded " + history.size() + " messages of AI context for session " +
+                             sessionId + " (" + skip + " summarized)");
+            return history;
+        }
+    }
+    
+    /**
+     * Select the part of the history to send with the next request
+     * 
+     * @param userMessage The message being answered (left out if the history already ends with it)
+     * @param conversationHistory Non-system messages of the session, oldest first (all of them,
+     *                            or those from loadHistory plus any added since)
+     * @return Summary of the older messages plus the newest messages that fit the budget
+     */
+    public HistoryWindow buildWindow(String userMessage, List<Message> conversationHistory) {
+        if (conversationHistory == null || conversationHistory.isEmpty()) {
+            return new HistoryWindow("", Collections.emptyList(), 0);
+        }
+        
+        int end = conversationHistory.size();
+        Message last = conversationHistory.get(end - 1);
+        if ("USER".equals(last.getSenderType()) && last.getContent().equals(userMessage)) {
+            end--;
+        }
+        
+        int sessionId = findSessionId(conversationHistory);
+        SessionState state = sessionId > 0
+            ? getSessionState(sessionId)
+            : getUnsavedState(conversationHistory.get(0));
+        
+        // Requests of one session are answered one at a time; the lock only
+        // guards against two chat windows open on the same session
+        synchronized (state) {
+            ConversationSummary summary = state.summary;
+            int offset = sessionId > 0 ? historyPosition(state, sessionId, conversationHistory.get(0)) : 0;
+            int start = Math.min(Math.max(0, summary.getSummarizedCount() - offset), end);
+            
+            int[] tokens = new int[end - start];
+            int total = 0;
+            for (int i = start; i < end; i++) {
+                tokens[i - start] = tokenCounter.countMessage(conversationHistory.get(i).getContent());
+                total += tokens[i - start];
+            }
+            
+            if (total > tokenBudget) {
+                int keepFrom = start;
+                while (keepFrom < end && total > trimTarget) {
+                    total -= tokens[keepFrom - start];
+                    keepFrom++;
+                }
+                
+                fold(summary, conversationHistory.subList(start, keepFrom));
+                summary.setSummarizedCount(offset + keepFrom);
+                if (sessionId > 0) {
+                    chatSessionDAO.saveSummary(summary);
+                }
+                start = keepFrom;
+            }
+            
+            int summaryCost = summary.isEmpty() ? 0 : tokenCounter.countMessage(summary.getSummary());
+            windows.incrementAndGet();
+            sentTokens.addAndGet(total + summaryCost);
+            
+            return new HistoryWindow(summary.getSummary(),
+                new ArrayList<>(conversationHistory.subList(start, end)), total + summaryCost);
+        }
+    }
+    
+    /**
+     * Get the cached state of a stored session, loading its summary on first use
+     */
+    private SessionState getSessionState(int sessionId) {
+        synchronized (sessions) {
+            SessionState cached = sessions.get(sessionId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        SessionState loaded = new SessionState(chatSessionDAO.getSummary(sessionId));
+        synchronized (sessions) {
+            // Another window on the same session may have loaded it meanwhile
+            SessionState cached = sessions.get(sessionId);
+            if (cached != null) {
+                return cached;
+            }
+            sessions.put(sessionId, loaded);
+            return loaded;
+        }
+    }
+    
+    /**
+     * Get the state of a conversation that has no session id
+     */
+    private SessionState getUnsavedState(Message firstMessage) {
+        synchronized (unsavedSessions) {
+            return unsavedSessions.computeIfAbsent(firstMessage, key -> new SessionState(new ConversationSummary()));
+        }
+    }
+    
+    /**
+     * Position of a history list's first message among all non-system messages of the session
+     */
+    private int historyPosition(SessionState state, int sessionId, Message first) {
+        if (first.getMessageId() == state.anchorId) {
+            return state.anchorPosition;
+        }
+        if (first.getMessageId() <= 0) {
+            // Not stored yet, so the conversation started in this window
+            return 0;
+        }
+        
+        state.anchorId = first.getMessageId();
+        state.anchorPosition = messageDAO.getHistoryPosition(sessionId, first.getMessageId());
+        return state.anchorPosition;
+    }
+    
+    /**
+     * Add newly evicted messages to the running summary
+     */
+    private void fold(ConversationSummary summary, List<Message> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        String updated = config.isOpenAIConfigured() ? summarizeWithModel(summary.getSummary(), evicted) : null;
+        if (updated == null) {
+            fallbackSummaries.incrementAndGet();
+            updated = summarizeExtractive(summary.getSummary(), evicted);
+        }
+        
+        summary.setSummary(updated);
+        summary.setTokenCount(tokenCounter.count(updated));
+        summaryUpdates.incrementAndGet();
+        summarizedMessages.addAndGet(evicted.size());
+        summarizeNanos.addAndGet(System.nanoTime() - start);
+        
+        System.out.println("✓ Folded " + evicted.size() + " messages into conversation summary (" +
+                         summary.getTokenCount() + " tokens)");
+    }
+    
+    /**
+     * Ask the model to extend the summary with the evicted messages
+     * 
+     * @return The new summary, or null if the request failed
+     */
+    private String summarizeWithModel(String previousSummary, List<Message> evicted) {
+        StringBuilder transcript = new StringBuilder();
+        for (Message msg : evicted) {
+            transcript.append("USER".equals(msg.getSenderType()) ? "Customer: " : "Assistant: ")
+                      .append(truncate(msg.getContent(), MAX_SUMMARIZED_CHARS))
+                      .append("\n");
+        }
+        
+        JSONArray messages = new JSONArray();
+        messages.put(new JSONObject()
+            .put("role", "system")
+            .put("content", "You maintain a running summary of a customer support conversation. " +
+                 "Update the summary with the new messages. Keep the product details, the problem, " +
+                 "steps already tried and their results, and any open questions. " +
+                 "Reply with the updated summary only, in at most " + summaryTokens + " tokens."));
+        messages.put(new JSONObject()
+            .put("role", "user")
+            .put("content", "Current summary:\n" + (previousSummary.isEmpty() ? "(none)" : previousSummary) +
+                 "\n\nNew messages:\n" + transcript));
+        
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("model", config.getOpenAIModel());
+        requestBody.put("max_tokens", summaryTokens);
+        requestBody.put("temperature", 0.2);
+        requestBody.put("messages", messages);
+        
+        try {
+            HttpResponse<String> response = AITransport.await(AITransport.getInstance().postJson("summary", requestBody));
+            if (response.statusCode() != 200) {
+                System.err.println("⚠ Conversation summary request failed: " + response.statusCode());
+                return null;
+            }
+            
+            String content = new JSONObject(response.body())
+                .getJSONArray("choices")
+                .getJSONObject(0)
+                .getJSONObject("message")
+                .getString("content")
+                .trim();
+            return content.isEmpty() ? null : content;
+        } catch (InterruptedException e) {
+            // The reply was cancelled; the request has been aborted with it
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            System.err.println("⚠ Conversation summary request failed: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Offline summary: one line per evicted message with its first sentence,
+     * dropping the oldest lines once the summary is over its budget
+     */
+    private String summarizeExtractive(String previousSummary, List<Message> evicted) {
+        List<String> lines = new ArrayList<>();
+        if (!previousSummary.isEmpty()) {
+            Collections.addAll(lines, previousSummary.split("\n"));
+        }
+        
+        for (Message msg : evicted) {
+            String text = msg.getContent().replaceAll("\\s+", " ").trim();
+            int sentenceEnd = text.indexOf(". ");
+            if (sentenceEnd > 0) {
+                text = text.substring(0, sentenceEnd + 1);
+            }
+            lines.add(("USER".equals(msg.getSenderType()) ? "- Customer: " : "- Assistant: ") + truncate(text, 200));
+        }
+        
+        String summary = String.join("\n", lines);
+        while (lines.size() > 1 && tokenCounter.count(summary) > summaryTokens) {
+            lines.remove(0);
+            summary = String.join("\n", lines);
+        }
+        return summary;
+    }
+    
+    /**
+     * Forget the cached summary of a session (the stored copy is kept)
+     * Called when a session is closed or escalated and no more answers are generated for it.
+     */
+    public void evict(int sessionId) {
+        synchronized (sessions) {
+            sessions.remove(sessionId);
+        }
+    }
+    
+    private static int findSessionId(List<Message> conversationHistory) {
+        for (Message msg : conversationHistory) {
+            if (msg.getSessionId() > 0) {
+                return msg.getSessionId();
+            }
+        }
+        return 0;
+    }
+    
+    private static String truncate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "...";
+    }
+    
+    /**
+     * Get a snapshot of windowing and summary metrics
+     */
+    public HistoryStats getStats() {
+        long count = windows.get();
+        long updates = summaryUpdates.get();
+        return new HistoryStats(
+            count,
+            count > 0 ? (double) sentTokens.get() / count : 0.0,
+            updates,
+            summarizedMessages.get(),
+            fallbackSummaries.get(),
+            updates > 0 ? summarizeNanos.get() / 1_000_000.0 / updates : 0.0
+        );
+    }
+    
+    /**
+     * History to send with one request
+     */
+    public static class HistoryWindow {
+        private final String summary;
+        private final List<Message> messages;
+        private final int tokenCount;
+        
+        public HistoryWindow(String summary, List<Message> messages, int tokenCount) {
+            this.summary = summary;
+            this.messages = messages;
+            this.tokenCount = tokenCount;
+        }
+        
+        public String getSummary() { return summary; }
+        public List<Message> getMessages() { return messages; }
+        public int getTokenCount() { return tokenCount; }
+        
+        public boolean hasSummary() {
+            return summary != null && !summary.isEmpty();
+        }
+    }
+    
+    /**
+     * Snapshot of history metrics
+     */
+    public static class HistoryStats {
+        private final long windows;
+        private final double avgSentTokens;
+        private final long summaryUpdates;
+        private final long summarizedMessages;
+        private final long fallbackSummaries;
+        private final double avgSummarizeMillis;
+        
+        public HistoryStats(long windows, double avgSentTokens, long summaryUpdates, long summarizedMessages,
+                            long fallbackSummaries, double avgSummarizeMillis) {
+            this.windows = windows;
+            this.avgSentTokens = avgSentTokens;
+            this.summaryUpdates = summaryUpdates;
+            this.summarizedMessages = summarizedMessages;
+            this.fallbackSummaries = fallbackSummaries;
+            this.avgSummarizeMillis = avgSummarizeMillis;
+        }
+        
+        public long getWindows() { return windows; }
+        public double getAvgSentTokens() { return avgSentTokens; }
+        public long getSummaryUpdates() { return summaryUpdates; }
+        public long getSummarizedMessages() { return summarizedMessages; }
+        public long getFallbackSummaries() { return fallbackSummaries; }
+        public double getAvgSummarizeMillis() { return avgSummarizeMillis; }
+        
+        @Override
+        public String toString() {
+            return String.format("windows=%d, avgHistoryTokens=%.0f, summaryUpdates=%d, summarizedMessages=%d, fallbacks=%d, avgSummarize=%.1fms",
+                windows, avgSentTokens, summaryUpdates, summarizedMessages, fallbackSummaries, avgSummarizeMillis);
+        }
+    }
+    
+    /**
+     * Cached summary of one conversation and where its history list starts
+     */
+    private static final class SessionState {
+        private final ConversationSummary summary;
+        
+        // First message of the last history list seen (0 = an unstored message, -1 = none yet)
+        private int anchorId = -1;
+        private int anchorPosition;
+        
+        SessionState(ConversationSummary summary) {
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package com.care.service;
+
+import com.care.dao.KnowledgeBaseDAO;
+import com.care.dao.KnowledgeChunkDAO;
+import com.care.model.KnowledgeBase;
+import com.care.model.KnowledgeChunk;
+import com.care.model.Message;
+import com.care.util.Bm25Index;
+import com.care.util.Config;
+import com.care.util.EmbeddingProvider;
+import com.care.util.HnswIndex;
+import com.care.util.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retrieval service for product manuals
+ * Keeps a BM25 keyword index and the chunk embeddings of each product's
+ * manual and picks the passages most relevant to the current question, so
+ * the prompt carries a few hundred tokens of manual instead of the whole
+ * document. Embeddings of large manuals are searched through an HNSW graph,
+ * those of smaller ones with an exact scan.
+ * 
+ * Chunk embeddings are stored in memory-mapped files under kb.vector.dir and
+ * reused across restarts. Indexes are rebuilt lazily when the product's
+ * chunks change.
+ */
+public class KnowledgeRetrievalService {
+    
+    /**
+     * How passages are ranked
+     */
+    public enum RetrievalMode {
+        BM25,
+        VECTOR,
+        HYBRID
+    }
+    
+    private static KnowledgeRetrievalService instance;
+    
+    // Reciprocal rank fusion constant (60 is the value from the original paper)
+    private static final int RRF_K = 60;
+    
+    private final KnowledgeChunkDAO chunkDAO;
+    private final KnowledgeBaseDAO knowledgeBaseDAO;
+    private final EmbeddingProvider embedder;
+    private final RetrievalMode mode;
+    private final Path vectorDir;
+    private final int topK;
+    private final int tokenBudget;
+    private final int historyTurns;
+    private final double minSimilarity;
+    private final int hnswM;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int hnswMinChunks;
+    private final Map<Integer, ProductIndex> indexes = new ConcurrentHashMap<>();
+    // One builder per product at a time; others wait and take its index
+    private final Map<Integer, Object> buildLocks = new ConcurrentHashMap<>();
+    
+    // Metrics
+    private final AtomicLong retrievals = new AtomicLong();
+    private final AtomicLong fullTokens = new AtomicLong();
+    private final AtomicLong usedTokens = new AtomicLong();
+    private final AtomicLong indexBuilds = new AtomicLong();
+    private final AtomicLong vectorSearches = new AtomicLong();
+    private final AtomicLong vectorSearchNanos = new AtomicLong();
+    
+    private KnowledgeRetrievalService() {
+        Config config = Config.getInstance();
+        this.chunkDAO = new KnowledgeChunkDAO();
+        this.knowledgeBaseDAO = new KnowledgeBaseDAO();
+        this.embedder = EmbeddingProvider.fromConfig(config);
+        this.mode = parseMode(config.getAiRetrievalMode());
+        this.vectorDir = Paths.get(config.getKbVectorDir());
+        this.topK = config.getAiContextTopK();
+        this.tokenBudget = config.getAiContextTokenBudget();
+        this.historyTurns = config.getAiContextHistoryTurns();
+        this.minSimilarity = config.getAiRetrievalMinSimilarity();
+        this.hnswM = config.getKbHnswM();
+        this.efConstruction = config.getKbHnswEfConstruction();
+        this.efSearch = config.getKbHnswEfSearch();
+        this.hnswMinChunks = config.getKbHnswMinChunks();
+    }
+    
+    private static RetrievalMode parseMode(String value) {
+        try {
+            return RetrievalMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("⚠ Invalid ai.retrieval.mode '" + value + "', using HYBRID");
+            return RetrievalMode.HYBRID;
+        }
+    }
+    
+    public static synchronized KnowledgeRetrievalService getInstance() {
+        if (instance == null) {
+            instance = new KnowledgeRetrievalService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Select the manual passages to send with a question
+     * 
+     * @param productId Product being discussed
+     * @param userMessage The user's current message
+     * @param conversationHistory Earlier messages (may be null)
+     * @return Selected passages in document order (empty if the product has no manual)
+     */
+    public RetrievedContext retrieve(int productId, String userMessage, List<Message> conversationHistory) {
+        ProductIndex index = getIndex(productId);
+        if (index == null || index.chunks.isEmpty()) {
+            return new RetrievedContext(new ArrayList<>(), 0, 0, 0);
+        }
+        
+        List<Integer> ranked = rank(index, buildQuery(userMessage, conversationHistory));
+        List<KnowledgeChunk> selected = new ArrayList<>();
+        int tokens = 0;
+        
+        if (!ranked.isEmpty()) {
+            for (int position : ranked) {
+                if (selected.size() >= topK) {
+                    break;
+                }
+                KnowledgeChunk chunk = index.chunks.get(position);
+                // Skip chunks that don't fit; a smaller, lower-ranked one still might
+                if (tokens + chunk.getTokenCount() <= tokenBudget) {
+                    selected.add(chunk);
+                    tokens += chunk.getTokenCount();
+                }
+            }
+        } else {
+            // Nothing matched (greetings, vague questions): use the start of the manual
+            for (KnowledgeChunk chunk : index.chunks) {
+                if (selected.size() >= topK || tokens + chunk.getTokenCount() > tokenBudget) {
+                    break;
+                }
+                selected.add(chunk);
+                tokens += chunk.getTokenCount();
+            }
+        }
+        
+        // Keep the manual's own order so neighbouring passages read naturally
+        selected.sort(Comparator.comparingInt(KnowledgeChunk::getKbId)
+                                .thenComparingInt(KnowledgeChunk::getChunkIndex));
+        
+        retrievals.incrementAndGet();
+        fullTokens.addAndGet(index.fullTokens);
+        usedTokens.addAndGet(tokens);
+        
+        RetrievedContext context = new RetrievedContext(selected, tokens, index.fullTokens, index.chunks.size());
+        System.out.println("✓ Manual context for product " + productId + ": " + context);
+        return context;
+    }
+    
+    /**
+     * Rank chunk positions with the configured mode
+     * Hybrid mode merges the keyword and semantic rankings with reciprocal
+     * rank fusion, so a chunk ranked well by either one makes the cut.
+     */
+    private List<Integer> rank(ProductIndex index, String query) {
+        int candidates = topK * 2;
+        
+        List<Integer> keyword = new ArrayList<>();
+        if (mode != RetrievalMode.VECTOR || index.vectors == null) {
+            for (Bm25Index.Result result : index.bm25.search(query, candidates)) {
+                keyword.add(result.getDocument());
+            }
+        }
+        
+        List<Integer> semantic = new ArrayList<>();
+        if (mode != RetrievalMode.BM25 && index.vectors != null) {
+            long start = System.nanoTime();
+            for (HnswIndex.Result result : searchVectors(index, embedder.embed(query), candidates)) {
+                if (result.getSimilarity() >= minSimilarity) {
+                    semantic.add(result.getPosition());
+                }
+            }
+            vectorSearches.incrementAndGet();
+            vectorSearchNanos.addAndGet(System.nanoTime() - start);
+        }
+        
+        if (keyword.isEmpty()) {
+            return semantic;
+        }
+        if (semantic.isEmpty()) {
+            return keyword;
+        }
+        
+        Map<Integer, Double> fused = new HashMap<>();
+        for (int i = 0; i < keyword.size(); i++) {
+            fused.merge(keyword.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+        }
+        for (int i = 0; i < semantic.size(); i++) {
+            fused.merge(semantic.get(i), 1.0 / (RRF_K + i + 1), Double::sum);
+        }
+        
+        List<Integer> ranked = new ArrayList<>(fused.keySet());
+        ranked.sort((a, b) -> Double.compare(fused.get(b), fused.get(a)));
+        return ranked;
+    }
+    
+    /**
+     * Nearest chunks by embedding: an exact scan for small manuals, the HNSW graph for large ones
+     */
+    private List<HnswIndex.Result> searchVectors(ProductIndex index, float[] query, int k) {
+        if (index.hnsw == null) {
+            return HnswIndex.scan(index.vectors, query, k);
+        }
+        return index.hnsw.search(query, k, HnswIndex.scaledEf(efSearch, index.hnsw.size()));
+    }
+    
+    /**
+     * Drop the cached index of a product (it is rebuilt on next use)
+     */
+    public void invalidate(int productId) {
+        indexes.remove(productId);
+    }
+    
+    /**
+     * Latest user message (counted twice so it outweighs history) plus recent user turns
+     */
+    private String buildQuery(String userMessage, List<Message> conversationHistory) {
+        StringBuilder query = new StringBuilder();
+        if (userMessage != null) {
+            query.append(userMessage).append(' ').append(userMessage);
+        }
+        
+        if (conversationHistory != null) {
+            int added = 0;
+            for (int i = conversationHistory.size() - 1; i >= 0 && added < historyTurns; i--) {
+                Message message = conversationHistory.get(i);
+                if ("USER".equals(message.getSenderType()) && message.getContent() != null) {
+                    query.append(' ').append(message.getContent());
+                    added++;
+                }
+            }
+        }
+        
+        return query.toString();
+    }
+    
+    /**
+     * Get the product's index, rebuilding it if its chunks changed
+     */
+    private ProductIndex getIndex(int productId) {
+        String version = chunkDAO.getVersion(productId);
+        if (version == null) {
+            return null;
+        }
+        
+        ProductIndex cached = indexes.get(productId);
+        if (cached != null && cached.version.equals(version)) {
+            return cached;
+        }
+        
+        synchronized (buildLocks.computeIfAbsent(productId, id -> new Object())) {
+            // Built by another request while this one waited
+            cached = indexes.get(productId);
+            if (cached != null && cached.version.equals(version)) {
+                return cached;
+            }
+            return buildIndex(productId, version);
+        }
+    }
+    
+    /**
+     * Build and cache the product's index (caller holds the product's build lock)
+     */
+    private ProductIndex buildIndex(int productId, String version) {
+        List<KnowledgeChunk> chunks = chunkDAO.getByProductId(productId);
+        
+        // Entries written before chunking existed are split on first use
+        if (chunks.isEmpty()) {
+            for (KnowledgeBase entry : knowledgeBaseDAO.getAllByProductId(productId)) {
+                knowledgeBaseDAO.rebuildChunks(entry);
+            }
+            version = chunkDAO.getVersion(productId);
+            chunks = chunkDAO.getByProductId(productId);
+        }
+        
+        // What the prompt used to carry: the full text of the manual (overlaps between chunks counted twice)
+        int manualTokens = 0;
+        List<String> texts = new ArrayList<>(chunks.size());
+        for (KnowledgeChunk chunk : chunks) {
+            manualTokens += chunk.getTokenCount();
+            texts.add(chunk.getContent());
+        }
+        
+        VectorStore vectors = null;
+        HnswIndex hnsw = null;
+        boolean degraded = false;
+        try {
+            vectors = loadVectors(productId, chunks);
+            if (vectors != null && vectors.size() >= hnswMinChunks) {
+                hnsw = new HnswIndex(vectors, hnswM, efConstruction);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠ Vector index unavailable for product " + productId +
+                             ", using keyword search only: " + e.getMessage());
+            degraded = true;
+        }
+        
+        ProductIndex index = new ProductIndex(version, chunks, new Bm25Index(texts), vectors, hnsw, manualTokens);
+        // A keyword-only fallback serves this request; the next one tries the vectors again
+        if (!degraded) {
+            indexes.put(productId, index);
+        }
+        indexBuilds.incrementAndGet();
+        System.out.println("✓ Manual index built for product " + productId + " (" + chunks.size() +
+                         " chunks, " + index.bm25.getTermCount() + " terms" +
+                         (index.hnsw != null ? ", vector graph" : index.vectors != null ? ", vectors" : "") + ")");
+        return index;
+    }
+    
+    /**
+     * Load the product's chunk vectors, embedding and writing them first if
+     * the stored file is missing or out of date
+     * 
+     * @return The vectors, or null if semantic search is off
+     * @throws IOException if the vector file cannot be read or written
+     */
+    private VectorStore loadVectors(int productId, List<KnowledgeChunk> chunks) throws IOException {
+        if (mode == RetrievalMode.BM25 || chunks.isEmpty()) {
+            return null;
+        }
+        
+        int[] ids = new int[chunks.size()];
+        int maxId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = chunks.get(i).getChunkId();
+            maxId = Math.max(maxId, ids[i]);
+        }
+        int fingerprint = (embedder.getName() + ":" + embedder.getDimension()).hashCode();
+        
+        // A new name per chunk generation, so a file still mapped by an old index is never overwritten
+        Path file = vectorDir.resolve("product_" + productId + "_" + maxId + ".vec");
+        
+        VectorStore store = VectorStore.load(file, embedder.getDimension(), fingerprint, ids);
+        if (store == null) {
+            long start = System.currentTimeMillis();
+            List<float[]> vectors = new ArrayList<>(chunks.size());
+            for (KnowledgeChunk chunk : chunks) {
+                vectors.add(embedder.embed(chunk.getContent()));
+            }
+            store = VectorStore.write(file, embedder.getDimension(), fingerprint, ids, vectors);
+            System.out.println("✓ Embedded " + chunks.size() + " chunks for product " + productId +
+                             " (" + (System.currentTimeMillis() - start) + "ms)");
+        }
+        
+        deleteStaleVectorFiles(productId, file);
+        return store;
+    }
+    
+    /**
+     * Remove vector files of older chunk generations (best effort; a file may
+     * still be mapped on platforms that don't allow deleting it)
+     */
+    private void deleteStaleVectorFiles(int productId, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(vectorDir, "product_" + productId + "_*.vec")) {
+            for (Path file : files) {
+                if (!file.getFileName().equals(current.getFileName())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not remove old vector files for product " + productId + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get cumulative retrieval metrics
+     */
+    public RetrievalStats getStats() {
+        long searches = vectorSearches.get();
+        return new RetrievalStats(retrievals.get(), fullTokens.get(), usedTokens.get(), indexBuilds.get(),
+            searches > 0 ? vectorSearchNanos.get() / 1_000_000.0 / searches : 0.0);
+    }
+    
+    /**
+     * Cached index for one product
+     */
+    private static class ProductIndex {
+        private final String version;
+        private final List<KnowledgeChunk> chunks;
+        private final Bm25Index bm25;
+        private final VectorStore vectors;
+        // Only for manuals of at least kb.hnsw.min.chunks chunks
+        private final HnswIndex hnsw;
+        private final int fullTokens;
+        
+        ProductIndex(String version, List<KnowledgeChunk> chunks, Bm25Index bm25, VectorStore vectors, HnswIndex hnsw,
+                     int fullTokens) {
+            this.version = version;
+            this.chunks = chunks;
+            this.bm25 = bm25;
+            this.vectors = vectors;
+            this.hnsw = hnsw;
+            this.fullTokens = fullTokens;
+        }
+    }
+    
+    /**
+     * Passages selected for one prompt
+     */
+    public static class RetrievedContext {
+        private final List<KnowledgeChunk> chunks;
+        private final int usedTokens;
+        private final int fullTokens;
+        private final int totalChunks;
+        
+        public RetrievedContext(List<KnowledgeChunk> chunks, int usedTokens, int fullTokens, int totalChunks) {
+            this.chunks = chunks;
+            this.usedTokens = usedTokens;
+            this.fullTokens = fullTokens;
+            this.totalChunks = totalChunks;
+        }
+        
+        public List<KnowledgeChunk> getChunks() { return chunks; }
+        public int getUsedTokens() { return usedTokens; }
+        public int getFullTokens() { return fullTokens; }
+        public int getTotalChunks() { return totalChunks; }
+        public int getSavedTokens() { return Math.max(0, fullTokens - usedTokens); }
+        
+        public boolean isEmpty() {
+            return chunks.isEmpty();
+        }
+        
+        /**
+         * Selected passages joined for the prompt
+         */
+        public String getText() {
+            StringBuilder text = new StringBuilder();
+            for (KnowledgeChunk chunk : chunks) {
+                if (text.length() > 0) {
+                    text.append("\n---\n");
+                }
+                text.append(chunk.getContent());
+            }
+            return text.toString();
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%d/%d chunks, %d of %d tokens (saved %d)",
+                chunks.size(), totalChunks, usedTokens, fullTokens, getSavedTokens());
+        }
+    }
+    
+    /**
+     * Cumulative retrieval metrics
+     */
+    public static class RetrievalStats {
+        private final long retrievals;
+        private final long fullTokens;
+        private final long usedTokens;
+        private final long indexBuilds;
+        private final double avgVectorSearchMillis;
+        
+        public RetrievalStats(long retrievals, long fullTokens, long usedTokens, long indexBuilds,
+                              double avgVectorSearchMillis) {
+            this.retrievals = retrievals;
+            this.fullTokens = fullTokens;
+            this.usedTokens = usedTokens;
+            this.indexBuilds = indexBuilds;
+            this.avgVectorSearchMillis = avgVectorSearchMillis;
+        }
+        
+        public long getRetrievals() { return retrievals; }
+        public long getFullTokens() { return fullTokens; }
+        public long getUsedTokens() { return usedTokens; }
+        public long getSavedTokens() { return Math.max(0, fullTokens - usedTokens); }
+        public long getIndexBuilds() { return indexBuilds; }
+        public double getAvgVectorSearchMillis() { return avgVectorSearchMillis; }
+        
+        public double getAvgSavedTokens() {
+            return retrievals > 0 ? (double) getSavedTokens() / retrievals : 0.0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("retrievals=%d, contextTokens=%d, fullManualTokens=%d, saved=%d (avg %.0f/request), indexBuilds=%d, avgVectorSearch=%.3fms",
+                retrievals, usedTokens, fullTokens, getSavedTokens(), getAvgSavedTokens(), indexBuilds, avgVectorSearchMillis);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.care.service;
+
+import com.care.dao.KnowledgeSearchDAO;
+import com.care.model.KnowledgeSearchHit;
+import com.care.util.Bm25Index;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Full-text search over product manuals
+ * Turns what the user typed into a safe FTS5 query: text in double quotes
+ * is matched as a phrase, other words must all appear on the page, and stop
+ * words are dropped unless nothing else is left. Hits are manual pages ranked
+ * by bm25, optionally limited to one product or category, one page at a time.
+ */
+public class KnowledgeSearchService {
+    
+    // Phrases and words after this are ignored; each one is another posting list to merge
+    private static final int MAX_QUERY_TERMS = 16;
+    
+    private static final LatencyHistogram searchLatency = new LatencyHistogram();
+    
+    private KnowledgeSearchDAO searchDAO;
+    
+    public KnowledgeSearchService() {
+        this.searchDAO = new KnowledgeSearchDAO();
+    }
+    
+    /**
+     * Check if manuals can be searched
+     */
+    public boolean isAvailable() {
+        return searchDAO.isIndexAvailable();
+    }
+    
+    /**
+     * Get one page of manual pages matching the search text
+     *
+     * @param text What the user typed
+     * @param productId Only this product's manual (null for all)
+     * @param category Only manuals of products in this category (null for all)
+     * @param after Last hit of the previous page (null for the first page)
+     * @return Hits, best first; empty if the text has no searchable words
+     */
+    public List<KnowledgeSearchHit> search(String text, Integer productId, String category, KnowledgeSearchHit after) {
+        String matchQuery = toMatchQuery(text);
+        if (matchQuery == null || !isAvailable()) {
+            return new ArrayList<>();
+        }
+        
+        long start = System.nanoTime();
+        List<KnowledgeSearchHit> hits = searchDAO.search(matchQuery, productId, category, after, getPageSize());
+        long nanos = System.nanoTime() - start;
+        searchLatency.record(nanos);
+        
+        if (nanos > Config.getInstance().getSearchSlowQueryMillis() * 1_000_000L) {
+            System.out.println("⚠ Slow manual search (" + nanos / 1_000_000 + " ms, product=" + productId +
+                             ", category=" + category + "): " + matchQuery);
+        }
+        return hits;
+    }
+    
+    /**
+     * Get the full text of the page a hit points at
+     */
+    public String getPageContent(KnowledgeSearchHit hit) {
+        return searchDAO.getPageContent(hit.getPageId());
+    }
+    
+    /**
+     * Get the product categories that have a manual
+     */
+    public List<String> getCategories() {
+        return searchDAO.getCategories();
+    }
+    
+    public int getPageSize() {
+        return Math.max(1, Config.getInstance().getSearchPageSize());
+    }
+    
+    /**
+     * Build an FTS5 query from free text
+     * Text between double quotes becomes one phrase (an unclosed quote runs to
+     * the end); every other word is quoted on its own so operators and
+     * punctuation are never parsed as query syntax. All phrases and words must
+     * match. There is no prefix matching: the porter stemmer already matches
+     * other forms of a word, and a short prefix would rank most of the corpus.
+     *
+     * @param text What the user typed
+     * @return FTS5 query, or null if the text has no letters or digits
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        
+        List<String> terms = new ArrayList<>();
+        List<String> stopWords = new ArrayList<>();
+        StringBuilder phrase = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i <= text.length(); ) {
+            int c = i < text.length() ? text.codePointAt(i) : -1;
+            if (c != -1 && Character.isLetterOrDigit(c)) {
+                word.appendCodePoint(c);
+            } else {
+                if (word.length() > 0) {
+                    if (quoted) {
+                        // Stop words stay in phrases; the index keeps them
+                        phrase.append(phrase.length() > 0 ? " " : "").append(word);
+                    } else if (Bm25Index.isStopWord(word.toString().toLowerCase(Locale.ROOT))) {
+                        stopWords.add(word.toString());
+                    } else {
+                        terms.add(word.toString());
+                    }
+                    word.setLength(0);
+                }
+                if (c == '"') {
+                    if (quoted && phrase.length() > 0) {
+                        terms.add(phrase.toString());
+                        phrase.setLength(0);
+                    }
+                    quoted = !quoted;
+                }
+            }
+            i += c == -1 ? 1 : Character.charCount(c);
+        }
+        if (phrase.length() > 0) {
+            terms.add(phrase.toString());
+        }
+        if (terms.isEmpty()) {
+            terms.addAll(stopWords);
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        
+        StringBuilder query = new StringBuilder();
+        for (String term : terms.subList(0, Math.min(terms.size(), MAX_QUERY_TERMS))) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('"').append(term).append('"');
+        }
+        return query.toString();
+    }
+    
+    /**
+     * Get the time searches take
+     */
+    public static LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+}
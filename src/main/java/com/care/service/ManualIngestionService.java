@@ -0,0 +1,250 @@
+package com.care.service;
+
+import com.care.dao.IngestionJobDAO;
+import com.care.dao.KnowledgeBaseDAO;
+import com.care.model.IngestionJob;
+import com.care.model.KnowledgeBase;
+import com.care.util.Config;
+import com.care.util.PdfPageExtractor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background ingestion of product manuals
+ * Uploads are queued as jobs in kb_ingest_jobs and processed one at a time
+ * off the UI thread. Pages are extracted in parallel, staged in the
+ * database as they come in and published as the product's manual once the
+ * whole document has been read. Jobs report progress to listeners and can
+ * be cancelled at any point before they are published.
+ */
+public class ManualIngestionService {
+    
+    /**
+     * Receives job updates (called from background threads)
+     */
+    public interface IngestionListener {
+        void onJobUpdated(IngestionJob job);
+    }
+    
+    private static ManualIngestionService instance;
+    
+    private final IngestionJobDAO jobDAO;
+    private final KnowledgeBaseDAO knowledgeBaseDAO;
+    private final PdfPageExtractor extractor;
+    private final ExecutorService jobExecutor;
+    private final Map<Integer, IngestionJob> activeJobs = new ConcurrentHashMap<>();
+    private final List<IngestionListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Metrics
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong cancelledJobs = new AtomicLong();
+    private final AtomicLong pagesExtracted = new AtomicLong();
+    private final AtomicLong extractNanos = new AtomicLong();
+    
+    private ManualIngestionService() {
+        Config config = Config.getInstance();
+        this.jobDAO = new IngestionJobDAO();
+        this.knowledgeBaseDAO = new KnowledgeBaseDAO();
+        
+        int parallelism = config.getKbIngestParallelism();
+        this.extractor = new PdfPageExtractor(new ForkJoinPool(parallelism),
+            config.getKbIngestPagesPerTask(), config.getKbIngestBatchPages());
+        
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "care-manual-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        int interrupted = jobDAO.failInterruptedJobs();
+        if (interrupted > 0) {
+            System.out.println("⚠ Marked " + interrupted + " interrupted manual ingestion jobs as failed");
+        }
+        System.out.println("✓ Manual ingestion service started (" + parallelism + " extraction threads)");
+    }
+    
+    public static synchronized ManualIngestionService getInstance() {
+        if (instance == null) {
+            instance = new ManualIngestionService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Queue a manual for ingestion
+     * Creates the product's manual, or replaces it once the job completes
+     * 
+     * @param productId Product the manual belongs to
+     * @param title Title used if the product has no manual yet
+     * @param pdfFile Uploaded PDF
+     * @return The queued job, or null if it could not be created
+     */
+    public IngestionJob submit(int productId, String title, File pdfFile) {
+        IngestionJob job = new IngestionJob(productId, title, pdfFile.getAbsolutePath());
+        if (jobDAO.create(job) < 0) {
+            return null;
+        }
+        
+        activeJobs.put(job.getJobId(), job);
+        notifyListeners(job);
+        jobExecutor.submit(() -> run(job));
+        
+        System.out.println("✓ Queued manual ingestion job " + job.getJobId() + " for product ID: " + productId);
+        return job;
+    }
+    
+    /**
+     * Queue the stored manual of a product for ingestion again
+     * 
+     * @return The queued job, or null if the product has no stored manual file
+     */
+    public IngestionJob reingest(int productId) {
+        KnowledgeBase kb = knowledgeBaseDAO.getByProductId(productId);
+        if (kb == null || kb.getFilePath() == null || !new File(kb.getFilePath()).isFile()) {
+            System.err.println("⚠ No stored manual file to re-ingest for product ID: " + productId);
+            return null;
+        }
+        return submit(productId, kb.getTitle(), new File(kb.getFilePath()));
+    }
+    
+    /**
+     * Cancel a queued or running job
+     * 
+     * @return true if the job was still active
+     */
+    public boolean cancel(int jobId) {
+        IngestionJob job = activeJobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.requestCancel();
+        System.out.println("Cancelling manual ingestion job " + jobId);
+        return true;
+    }
+    
+    /**
+     * Get the queued or running job for a product, if any
+     */
+    public IngestionJob getActiveJob(int productId) {
+        for (IngestionJob job : activeJobs.values()) {
+            if (job.getProductId() == productId) {
+                return job;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get the most recent jobs from the job table
+     */
+    public List<IngestionJob> getRecentJobs(int limit) {
+        return jobDAO.getRecent(limit);
+    }
+    
+    public void addListener(IngestionListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(IngestionListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Process one job on the job thread
+     */
+    private void run(IngestionJob job) {
+        File pdfFile = new File(job.getSourcePath());
+        long start = System.nanoTime();
+        
+        try {
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            
+            int pageCount = PdfPageExtractor.countPages(pdfFile);
+            job.setPagesTotal(pageCount);
+            job.setStatus(IngestionJob.RUNNING);
+            jobDAO.markRunning(job.getJobId(), pageCount);
+            notifyListeners(job);
+            
+            extractor.extract(pdfFile, pageCount, job::isCancelRequested, pages -> {
+                if (!jobDAO.insertPages(job.getJobId(), pages)) {
+                    throw new IOException("Could not stage extracted pages");
+                }
+                long chars = 0;
+                for (PdfPageExtractor.Page page : pages) {
+                    chars += page.getText().length();
+                }
+                job.addProgress(pages.size(), chars);
+                notifyListeners(job);
+            });
+            
+            // Last point at which a cancel still takes effect
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            
+            extractNanos.addAndGet(System.nanoTime() - start);
+            pagesExtracted.addAndGet(pageCount);
+            
+            if (!knowledgeBaseDAO.publishIngestedManual(job, pdfFile)) {
+                throw new IllegalStateException("Could not store the extracted manual");
+            }
+            
+            finish(job, IngestionJob.COMPLETED, null);
+            completedJobs.incrementAndGet();
+            System.out.println("✓ Manual ingestion job " + job.getJobId() + " completed: " + pageCount + " pages, " +
+                             job.getCharCount() + " characters in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        
+        } catch (CancellationException e) {
+            finish(job, IngestionJob.CANCELLED, null);
+            cancelledJobs.incrementAndGet();
+            System.out.println("Manual ingestion job " + job.getJobId() + " cancelled");
+        } catch (Exception e) {
+            finish(job, IngestionJob.FAILED, e.getMessage());
+            failedJobs.incrementAndGet();
+            System.err.println("❌ Manual ingestion job " + job.getJobId() + " failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private void finish(IngestionJob job, String status, String errorMessage) {
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage);
+        jobDAO.finish(job.getJobId(), status, errorMessage);
+        activeJobs.remove(job.getJobId());
+        notifyListeners(job);
+    }
+    
+    private void notifyListeners(IngestionJob job) {
+        for (IngestionListener listener : listeners) {
+            try {
+                listener.onJobUpdated(job);
+            } catch (Exception e) {
+                System.err.println("Error in ingestion listener: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Get ingestion statistics as a string
+     */
+    public String getStats() {
+        long pages = pagesExtracted.get();
+        double seconds = extractNanos.get() / 1_000_000_000.0;
+        return String.format("active=%d, completed=%d, failed=%d, cancelled=%d, pages=%d, pagesPerSecond=%.1f",
+            activeJobs.size(), completedJobs.get(), failedJobs.get(), cancelledJobs.get(), pages,
+            seconds > 0 ? pages / seconds : 0.0);
+    }
+}
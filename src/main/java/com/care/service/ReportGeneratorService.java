@@ -1,10 +1,17 @@
 package com.care.service;
 
+import com.care.model.DashboardSnapshot;
+import com.care.model.SessionEvent;
+import com.care.model.TicketEvent;
+import com.care.util.Config;
+import com.care.util.EventBus;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
@@ -14,25 +21,126 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for generating PDF reports with analytics data from SQL database
+ * All analytics queries of a report run once, up front, and their results
+ * are shared by every page (and reused by reports of the same kind generated
+ * shortly after, until a ticket or session changes).
+ * Charts are rendered in parallel while the text pages are written, and
+ * embedded straight from their pixels instead of through a PNG round-trip.
+ * Pages are buffered in a temp file rather than on the heap, and the report
+ * only appears under its final name once it has been written completely.
  */
 public class ReportGeneratorService {
     
+    /**
+     * Receives report progress (called from the report thread)
+     */
+    public interface ProgressListener {
+        /**
+         * @param fraction Share of the report done, 0 to 1
+         * @param step What is being done
+         */
+        void onProgress(double fraction, String step);
+    }
+    
+    // Pages held in memory before they spill to a temp file
+    private static final long MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+    
+    private static ExecutorService reportExecutor;
+    private static ExecutorService chartExecutor;
+    // Analytics kept for the next report, by report kind; guarded by the class
+    private static final Map<String, ReportData> cachedData = new HashMap<>();
+    // Bumped on every invalidation, so data read across a change is not kept
+    private static long cacheGeneration;
+    private static boolean watchingChanges;
+    
+    // Cache key of the analytics report (the only kind there is so far)
+    private static final String ANALYTICS_REPORT = "analytics";
+    
     private AnalyticsService analyticsService;
     
     public ReportGeneratorService() {
         this.analyticsService = new AnalyticsService();
+        watchChanges();
+    }
+    
+    /**
+     * Drop the cached analytics whenever a ticket or session changes
+     * Listens synchronously, so the cache is gone before the write that changed
+     * the data returns, in the UI and in headless runs alike.
+     */
+    private static synchronized void watchChanges() {
+        if (!watchingChanges) {
+            EventBus.getInstance().subscribeSync(TicketEvent.class, event -> invalidateCache());
+            EventBus.getInstance().subscribeSync(SessionEvent.class, event -> invalidateCache());
+            watchingChanges = true;
+        }
+    }
+    
+    /**
+     * Everything a report shows, read from the database once per report
+     */
+    private static final class ReportData {
+        private final long loadedAt = System.currentTimeMillis();
+        private DashboardSnapshot snapshot;
+        private double avgResponseTime;
+        private double satisfaction;
+        private Map<String, Integer> escalationsByProduct;
+        private Map<String, Double> resolutionTypes;
+        private List<AnalyticsService.EscalationDetail> escalationDetails;
+    }
+    
+    private static synchronized ExecutorService getReportExecutor() {
+        if (reportExecutor == null) {
+            reportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "care-report");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return reportExecutor;
+    }
+    
+    private static synchronized ExecutorService getChartExecutor() {
+        if (chartExecutor == null) {
+            int threads = Math.max(1, Config.getInstance().getReportChartThreads());
+            AtomicInteger threadCount = new AtomicInteger();
+            chartExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "care-report-chart-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return chartExecutor;
+    }
+    
+    /**
+     * Generate the report in the background
+     * Reports are generated one at a time, in the order they were requested.
+     * 
+     * @param outputPath Path where the PDF should be saved
+     * @param listener Receives progress (may be null)
+     * @return Future completing with true if the report was saved
+     */
+    public CompletableFuture<Boolean> generateAnalyticsReportAsync(String outputPath, ProgressListener listener) {
+        return CompletableFuture.supplyAsync(() -> generateAnalyticsReport(outputPath, listener), getReportExecutor());
     }
     
     /**
@@ -42,43 +150,130 @@ public class ReportGeneratorService {
      * @return true if successful, false otherwise
      */
     public boolean generateAnalyticsReport(String outputPath) {
-        PDDocument document = new PDDocument();
+        return generateAnalyticsReport(outputPath, null);
+    }
+    
+    /**
+     * Generate a comprehensive PDF report with all analytics
+     * 
+     * @param outputPath Path where the PDF should be saved
+     * @param listener Receives progress (may be null)
+     * @return true if successful, false otherwise
+     */
+    public boolean generateAnalyticsReport(String outputPath, ProgressListener listener) {
+        long start = System.nanoTime();
+        File outputFile = new File(outputPath);
+        File partFile = new File(outputPath + ".part");
         
         try {
-            // Create title page
-            PDPage titlePage = new PDPage(PDRectangle.A4);
-            document.addPage(titlePage);
-            createTitlePage(document, titlePage);
-            
-            // Create metrics page with charts
-            PDPage metricsPage = new PDPage(PDRectangle.A4);
-            document.addPage(metricsPage);
-            createMetricsPageWithCharts(document, metricsPage);
+            progress(listener, 0.0, "Loading analytics");
+            boolean cached = isCacheFresh(ANALYTICS_REPORT);
+            ReportData data = getReportData(ANALYTICS_REPORT);
+            long dataNanos = System.nanoTime() - start;
             
-            // Create escalations page
-            PDPage escalationsPage = new PDPage(PDRectangle.A4);
-            document.addPage(escalationsPage);
-            createEscalationsPage(document, escalationsPage);
+            // Render the charts while the text pages are written
+            progress(listener, 0.2, "Rendering charts");
+            long chartStart = System.nanoTime();
+            CompletableFuture<BufferedImage> productChart = CompletableFuture.supplyAsync(
+                () -> createProductEscalationChart(data.escalationsByProduct), getChartExecutor());
+            CompletableFuture<BufferedImage> resolutionChart = CompletableFuture.supplyAsync(
+                () -> createResolutionTypeChart(data.resolutionTypes), getChartExecutor());
             
-            // Save the document
-            document.save(outputPath);
-            document.close();
+            long writeNanos;
+            try (PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES))) {
+                PDPage titlePage = new PDPage(PDRectangle.A4);
+                PDPage metricsPage = new PDPage(PDRectangle.A4);
+                PDPage escalationsPage = new PDPage(PDRectangle.A4);
+                document.addPage(titlePage);
+                document.addPage(metricsPage);
+                document.addPage(escalationsPage);
+                
+                // Create title and escalations pages first; they need no charts
+                createTitlePage(document, titlePage);
+                createEscalationsPage(document, escalationsPage, data);
+                progress(listener, 0.4, "Writing pages");
+                
+                // Create metrics page with charts
+                createMetricsPageWithCharts(document, metricsPage, data, productChart, resolutionChart);
+                long chartNanos = System.nanoTime() - chartStart;
+                
+                // Save to a temp name so a failed save never leaves half a report behind
+                progress(listener, 0.8, "Saving report");
+                long saveStart = System.nanoTime();
+                document.save(partFile);
+                writeNanos = System.nanoTime() - saveStart;
+                
+                System.out.println(String.format("  - data %.1f ms%s, charts and pages %.1f ms, save %.1f ms",
+                    dataNanos / 1e6, cached ? " (cached)" : "", chartNanos / 1e6, writeNanos / 1e6));
+            }
+            Files.move(partFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             
-            System.out.println("✓ PDF report generated: " + outputPath);
+            progress(listener, 1.0, "Done");
+            System.out.println(String.format("✓ PDF report generated: %s (%.1f ms, %d sessions, %d escalations, %d KB)",
+                outputPath, (System.nanoTime() - start) / 1e6, data.snapshot.getTotalSessions(),
+                data.escalationDetails.size(), outputFile.length() / 1024));
             return true;
-            
+        
         } catch (Exception e) {
             System.err.println("Error generating PDF report");
             e.printStackTrace();
-            try {
-                document.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
+            partFile.delete();
             return false;
         }
     }
     
+    /**
+     * Drop the analytics kept for the next report
+     */
+    public static synchronized void invalidateCache() {
+        cachedData.clear();
+        cacheGeneration++;
+    }
+    
+    private static synchronized boolean isCacheFresh(String reportKey) {
+        ReportData data = cachedData.get(reportKey);
+        long ttlMillis = Config.getInstance().getReportDataCacheMillis();
+        return data != null && System.currentTimeMillis() - data.loadedAt < ttlMillis;
+    }
+    
+    /**
+     * Get the report's analytics, reusing those of a recent report of the same kind
+     * 
+     * @param reportKey Report kind and parameters the analytics were read for
+     */
+    private ReportData getReportData(String reportKey) {
+        long generation;
+        synchronized (ReportGeneratorService.class) {
+            if (isCacheFresh(reportKey)) {
+                return cachedData.get(reportKey);
+            }
+            generation = cacheGeneration;
+        }
+        
+        analyticsService.ensureRollups();
+        ReportData data = new ReportData();
+        data.snapshot = analyticsService.getDashboardSnapshot();
+        data.avgResponseTime = analyticsService.getAverageResponseTime();
+        data.satisfaction = analyticsService.getUserSatisfactionScore(data.snapshot);
+        data.resolutionTypes = analyticsService.getResolutionTypeDistribution(data.snapshot);
+        data.escalationsByProduct = analyticsService.getEscalationsByProduct();
+        data.escalationDetails = analyticsService.getEscalationDetails();
+        
+        synchronized (ReportGeneratorService.class) {
+            // A ticket or session changed while reading: use the data once, don't keep it
+            if (generation == cacheGeneration) {
+                cachedData.put(reportKey, data);
+            }
+        }
+        return data;
+    }
+    
+    private static void progress(ProgressListener listener, double fraction, String step) {
+        if (listener != null) {
+            listener.onProgress(fraction, step);
+        }
+    }
+    
     /**
      * Create a bar chart for product escalations
      */
@@ -153,12 +348,12 @@ public class ReportGeneratorService {
     }
     
     /**
-     * Convert BufferedImage to PDImageXObject for embedding in PDF
+     * Embed a rendered chart in the PDF
+     * LosslessFactory compresses the pixels directly, without encoding and
+     * decoding a PNG in between.
      */
     private PDImageXObject convertToPDImage(PDDocument document, BufferedImage image) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", baos);
-        return PDImageXObject.createFromByteArray(document, baos.toByteArray(), "chart");
+        return LosslessFactory.createFromImage(document, image);
     }
     
     private void createTitlePage(PDDocument document, PDPage page) throws IOException {
@@ -203,7 +398,9 @@ public class ReportGeneratorService {
         content.close();
     }
     
-    private void createMetricsPageWithCharts(PDDocument document, PDPage page) throws IOException {
+    private void createMetricsPageWithCharts(PDDocument document, PDPage page, ReportData data,
+                                             CompletableFuture<BufferedImage> productChart,
+                                             CompletableFuture<BufferedImage> resolutionChart) throws IOException {
         PDPageContentStream content = new PDPageContentStream(document, page);
         
         float margin = 50;
@@ -218,12 +415,13 @@ public class ReportGeneratorService {
         content.endText();
         yPosition -= 35;
         
-        // Get analytics data from database
-        int totalChats = analyticsService.getTotalChatSessions();
-        double escalationRate = analyticsService.getEscalationRate();
-        int resolvedTickets = analyticsService.getResolvedTicketsCount();
-        double avgResponseTime = analyticsService.getAverageResponseTime();
-        double satisfaction = analyticsService.getUserSatisfactionScore();
+        // Analytics loaded once for the whole report
+        DashboardSnapshot snapshot = data.snapshot;
+        int totalChats = snapshot.getTotalSessions();
+        double escalationRate = snapshot.getEscalationRate();
+        int resolvedTickets = snapshot.getResolvedTicketCount();
+        double avgResponseTime = data.avgResponseTime;
+        double satisfaction = data.satisfaction;
         
         // Display metrics in a compact format
         content.setFont(PDType1Font.HELVETICA, 11);
@@ -246,8 +444,7 @@ public class ReportGeneratorService {
         
         // Add Product Escalation Chart
         try {
-            Map<String, Integer> productData = analyticsService.getEscalationsByProduct();
-            BufferedImage chartImage = createProductEscalationChart(productData);
+            BufferedImage chartImage = productChart.join();
             PDImageXObject pdImage = convertToPDImage(document, chartImage);
             
             float chartWidth = 480;
@@ -266,8 +463,7 @@ public class ReportGeneratorService {
         
         // Add Resolution Type Chart
         try {
-            Map<String, Double> resolutionData = analyticsService.getResolutionTypeDistribution();
-            BufferedImage chartImage = createResolutionTypeChart(resolutionData);
+            BufferedImage chartImage = resolutionChart.join();
             PDImageXObject pdImage = convertToPDImage(document, chartImage);
             
             float chartWidth = 400;
@@ -294,135 +490,7 @@ public class ReportGeneratorService {
         content.close();
     }
     
-    @Deprecated
-    private void createMetricsPage(PDDocument document, PDPage page) throws IOException {
-        PDPageContentStream content = new PDPageContentStream(document, page);
-        
-        float margin = 50;
-        float yPosition = page.getMediaBox().getHeight() - margin;
-        float lineHeight = 20;
-        
-        // Page title
-        content.setFont(PDType1Font.HELVETICA_BOLD, 20);
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText("Key Performance Metrics");
-        content.endText();
-        yPosition -= 40;
-        
-        // Get real analytics data from database
-        int totalChats = analyticsService.getTotalChatSessions();
-        double escalationRate = analyticsService.getEscalationRate();
-        int resolvedTickets = analyticsService.getResolvedTicketsCount();
-        double avgResponseTime = analyticsService.getAverageResponseTime();
-        double satisfaction = analyticsService.getUserSatisfactionScore();
-        
-        content.setFont(PDType1Font.HELVETICA_BOLD, 14);
-        
-        // Total Chats
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText("Total Chat Sessions: " + totalChats);
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        // Escalation Rate
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText(String.format("Escalation Rate: %.1f%%", escalationRate));
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        // Resolved Tickets
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText("Resolved Tickets: " + resolvedTickets);
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        // Average Response Time
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText(String.format("Avg Response Time: %.1f minutes", avgResponseTime));
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        // User Satisfaction
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText(String.format("User Satisfaction: %.1f / 5.0", satisfaction));
-        content.endText();
-        yPosition -= lineHeight + 30;
-        
-        // Section: Product Escalations
-        content.setFont(PDType1Font.HELVETICA_BOLD, 16);
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText("Escalations by Product");
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        content.setFont(PDType1Font.HELVETICA, 12);
-        
-        Map<String, Integer> productEscalations = analyticsService.getEscalationsByProduct();
-        
-        if (productEscalations.isEmpty()) {
-            content.beginText();
-            content.newLineAtOffset(margin + 20, yPosition);
-            content.showText("• No escalations recorded yet");
-            content.endText();
-            yPosition -= lineHeight;
-        } else {
-            for (Map.Entry<String, Integer> entry : productEscalations.entrySet()) {
-                content.beginText();
-                content.newLineAtOffset(margin + 20, yPosition);
-                content.showText("• " + entry.getKey() + ": " + entry.getValue() + " escalations");
-                content.endText();
-                yPosition -= lineHeight;
-            }
-        }
-        
-        yPosition -= 20;
-        
-        // Resolution Type Distribution
-        content.setFont(PDType1Font.HELVETICA_BOLD, 16);
-        content.beginText();
-        content.newLineAtOffset(margin, yPosition);
-        content.showText("Resolution Type Distribution");
-        content.endText();
-        yPosition -= lineHeight + 10;
-        
-        content.setFont(PDType1Font.HELVETICA, 12);
-        
-        Map<String, Double> resolutionTypes = analyticsService.getResolutionTypeDistribution();
-        
-        if (resolutionTypes.isEmpty() || resolutionTypes.values().stream().allMatch(v -> v == 0.0)) {
-            content.beginText();
-            content.newLineAtOffset(margin + 20, yPosition);
-            content.showText("• No resolution data available yet");
-            content.endText();
-            yPosition -= lineHeight;
-        } else {
-            for (Map.Entry<String, Double> entry : resolutionTypes.entrySet()) {
-                content.beginText();
-                content.newLineAtOffset(margin + 20, yPosition);
-                content.showText(String.format("• %s: %.1f%%", entry.getKey(), entry.getValue()));
-                content.endText();
-                yPosition -= lineHeight;
-            }
-        }
-        
-        // Footer
-        content.setFont(PDType1Font.HELVETICA, 10);
-        content.beginText();
-        content.newLineAtOffset(margin, 50);
-        content.showText("Page 1 of 3 - CARE Analytics Report");
-        content.endText();
-        
-        content.close();
-    }
-    
-    private void createEscalationsPage(PDDocument document, PDPage page) throws IOException {
+    private void createEscalationsPage(PDDocument document, PDPage page, ReportData data) throws IOException {
         PDPageContentStream content = new PDPageContentStream(document, page);
         
         float margin = 50;
@@ -437,8 +505,8 @@ public class ReportGeneratorService {
         content.endText();
         yPosition -= 40;
         
-        // Get real escalation data from database
-        List<AnalyticsService.EscalationDetail> escalationDetails = analyticsService.getEscalationDetails();
+        // Escalation data loaded once for the whole report
+        List<AnalyticsService.EscalationDetail> escalationDetails = data.escalationDetails;
         
         if (escalationDetails.isEmpty()) {
             content.setFont(PDType1Font.HELVETICA, 12);
@@ -526,7 +594,7 @@ public class ReportGeneratorService {
             }
             
             // Top products with escalations
-            Map<String, Integer> productEscalations = analyticsService.getEscalationsByProduct();
+            Map<String, Integer> productEscalations = data.escalationsByProduct;
             if (!productEscalations.isEmpty()) {
                 String topProduct = productEscalations.entrySet().stream()
                     .max(Map.Entry.comparingByValue())
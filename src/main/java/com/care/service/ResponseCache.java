@@ -0,0 +1,390 @@
+package com.care.service;
+
+import com.care.dao.KnowledgeBaseDAO;
+import com.care.util.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache of AI answers to standalone product questions
+ * Entries are keyed on product, the product's manual generation and the
+ * normalised question. Lookups try an exact match first and then a
+ * near-duplicate match: questions are compared by the Jaccard similarity of
+ * their character shingles, estimated from MinHash signatures, so "How do I
+ * reset the router?" and "how can i reset my router" share an answer.
+ * Only entries that share a band of their signature with the question (LSH
+ * buckets) are compared, so a lookup costs a few comparisons, not one per entry.
+ * 
+ * Entries expire after a TTL, the least recently used entries are evicted
+ * when the cache is full, and a product's entries are dropped as soon as
+ * its manual is uploaded, replaced or deleted.
+ */
+public class ResponseCache {
+    
+    private static ResponseCache instance;
+    
+    private static final int SHINGLE_SIZE = 3;
+    private static final int SIGNATURE_SIZE = 64;
+    
+    // 16 bands of 4 rows: questions at 0.8 similarity share a band 99.9% of the time, at 0.3 only 12%
+    private static final int BANDS = 16;
+    private static final int ROWS = SIGNATURE_SIZE / BANDS;
+    
+    private static final Set<String> FILLER_WORDS = new HashSet<>(Arrays.asList(
+        "a", "an", "the", "my", "please", "can", "could", "would", "you", "i", "me", "do", "does", "is", "to"
+    ));
+    
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final double similarityThreshold;
+    private final int[] hashSeeds;
+    
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Band key -> entries with that band; guarded by this, like entries
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    
+    // Bumped when a product's manual changes; part of the scope, so older answers never match
+    private final Map<Integer, Integer> manualGenerations = new ConcurrentHashMap<>();
+    
+    // Metrics
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private ResponseCache() {
+        Config config = Config.getInstance();
+        this.enabled = config.isAiCacheEnabled();
+        this.maxEntries = Math.max(1, config.getAiCacheMaxEntries());
+        this.ttlMillis = config.getAiCacheTtlMillis();
+        this.similarityThreshold = config.getAiCacheSimilarity();
+        
+        // Fixed seeds keep signatures comparable for the lifetime of the cache
+        this.hashSeeds = new int[SIGNATURE_SIZE];
+        java.util.Random random = new java.util.Random(0x5EED);
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            hashSeeds[i] = random.nextInt() | 1;
+        }
+        
+        KnowledgeBaseDAO.addManualChangeListener(this::invalidateProduct);
+    }
+    
+    public static synchronized ResponseCache getInstance() {
+        if (instance == null) {
+            instance = new ResponseCache();
+        }
+        return instance;
+    }
+    
+    /**
+     * Look up a cached answer
+     * 
+     * @param productId Product being discussed
+     * @param question The user's question
+     * @return The cached answer, or null on a miss (or if caching is disabled)
+     */
+    public String get(int productId, String question) {
+        if (!enabled) {
+            bypassed.incrementAndGet();
+            return null;
+        }
+        
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        String scope = scope(productId);
+        long now = System.currentTimeMillis();
+        int[] signature = signature(normalized);
+        long[] bandKeys = bandKeys(scope, signature);
+        
+        synchronized (this) {
+            Entry exact = entries.get(scope + normalized);
+            if (exact != null && !isExpired(exact, now)) {
+                exactHits.incrementAndGet();
+                return exact.answer;
+            }
+            
+            Entry best = null;
+            double bestSimilarity = similarityThreshold;
+            for (long bandKey : bandKeys) {
+                List<Entry> bucket = buckets.get(bandKey);
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry entry : bucket) {
+                    if (entry == best || !entry.scope.equals(scope) || isExpired(entry, now)) {
+                        continue;
+                    }
+                    double similarity = estimateSimilarity(signature, entry.signature);
+                    if (similarity >= bestSimilarity) {
+                        best = entry;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+            
+            if (best != null) {
+                // Touch the entry so it counts as recently used
+                entries.get(best.scope + best.question);
+                nearHits.incrementAndGet();
+                return best.answer;
+            }
+        }
+        
+        misses.incrementAndGet();
+        return null;
+    }
+    
+    /**
+     * Store an answer
+     * 
+     * @param productId Product being discussed
+     * @param question The user's question
+     * @param answer The AI answer (error messages should not be passed in)
+     */
+    public void put(int productId, String question, String answer) {
+        if (!enabled || answer == null || answer.isBlank()) {
+            return;
+        }
+        
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        
+        String scope = scope(productId);
+        int[] signature = signature(normalized);
+        Entry entry = new Entry(productId, scope, normalized, signature, bandKeys(scope, signature),
+                                answer, System.currentTimeMillis());
+        
+        synchronized (this) {
+            Entry replaced = entries.put(scope + normalized, entry);
+            if (replaced != null) {
+                removeFromBuckets(replaced);
+            }
+            addToBuckets(entry);
+            purgeExpired(entry.createdMillis);
+            
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                removeFromBuckets(eldest.next());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Drop every cached answer for a product
+     */
+    public synchronized void invalidateProduct(int productId) {
+        manualGenerations.merge(productId, 1, Integer::sum);
+        int removed = removeIf(entry -> entry.productId == productId);
+        invalidations.incrementAndGet();
+        if (removed > 0) {
+            System.out.println("✓ Response cache: dropped " + removed + " answers for product " + productId);
+        }
+    }
+    
+    /**
+     * Drop everything
+     */
+    public synchronized void clear() {
+        entries.clear();
+        buckets.clear();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Manual generation is part of the scope, so answers based on an older manual never match
+     * Kept in memory (bumped by the manual change listener) so a hit never queries the database.
+     */
+    private String scope(int productId) {
+        return productId + "@" + manualGenerations.getOrDefault(productId, 0) + "|";
+    }
+    
+    private boolean isExpired(Entry entry, long now) {
+        return ttlMillis > 0 && now - entry.createdMillis > ttlMillis;
+    }
+    
+    private void purgeExpired(long now) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        expirations.addAndGet(removeIf(entry -> isExpired(entry, now)));
+    }
+    
+    /**
+     * Remove matching entries from the map and their buckets (caller holds the lock)
+     * 
+     * @return Number of entries removed
+     */
+    private int removeIf(Predicate<Entry> filter) {
+        int removed = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (filter.test(entry)) {
+                removeFromBuckets(entry);
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    private void addToBuckets(Entry entry) {
+        for (long bandKey : entry.bandKeys) {
+            buckets.computeIfAbsent(bandKey, key -> new ArrayList<>(2)).add(entry);
+        }
+    }
+    
+    private void removeFromBuckets(Entry entry) {
+        for (long bandKey : entry.bandKeys) {
+            List<Entry> bucket = buckets.get(bandKey);
+            if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                buckets.remove(bandKey);
+            }
+        }
+    }
+    
+    /**
+     * Lower-case, strip punctuation and filler words, collapse whitespace
+     */
+    static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        
+        StringBuilder normalized = new StringBuilder();
+        for (String word : question.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty() || FILLER_WORDS.contains(word)) {
+                continue;
+            }
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(word);
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * MinHash signature over the character shingles of a normalised question
+     */
+    private int[] signature(String normalized) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        
+        String padded = " " + normalized + " ";
+        for (int i = 0; i + SHINGLE_SIZE <= padded.length(); i++) {
+            int shingle = padded.substring(i, i + SHINGLE_SIZE).hashCode();
+            for (int h = 0; h < SIGNATURE_SIZE; h++) {
+                int value = mix(shingle * hashSeeds[h]);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+    
+    /**
+     * Bucket key of each band of a signature, within one scope
+     */
+    private static long[] bandKeys(String scope, int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            int hash = scope.hashCode();
+            for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+                hash = 31 * hash + signature[row];
+            }
+            keys[band] = ((long) band << 32) | (hash & 0xFFFFFFFFL);
+        }
+        return keys;
+    }
+    
+    /**
+     * Share of matching signature slots, an unbiased estimate of Jaccard similarity
+     */
+    private static double estimateSimilarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / a.length;
+    }
+    
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    /**
+     * Get cache statistics as a string
+     */
+    public String getStats() {
+        long hits = exactHits.get() + nearHits.get();
+        long lookups = hits + misses.get();
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return String.format("entries=%d/%d, exactHits=%d, nearHits=%d, misses=%d, hitRate=%.1f%%, bypassed=%d, evictions=%d, expirations=%d, invalidations=%d",
+            size, maxEntries, exactHits.get(), nearHits.get(), misses.get(),
+            lookups > 0 ? 100.0 * hits / lookups : 0.0, bypassed.get(),
+            evictions.get(), expirations.get(), invalidations.get());
+    }
+    
+    /**
+     * A cached answer
+     */
+    private static class Entry {
+        private final int productId;
+        private final String scope;
+        private final String question;
+        private final int[] signature;
+        private final long[] bandKeys;
+        private final String answer;
+        private final long createdMillis;
+        
+        Entry(int productId, String scope, String question, int[] signature, long[] bandKeys,
+              String answer, long createdMillis) {
+            this.productId = productId;
+            this.scope = scope;
+            this.question = question;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.answer = answer;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
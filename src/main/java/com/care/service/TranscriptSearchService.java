@@ -0,0 +1,117 @@
+package com.care.service;
+
+import com.care.dao.MessageSearchDAO;
+import com.care.model.MessageSearchHit;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over chat transcripts
+ * Turns what the user typed into a safe FTS5 query (every word quoted, the
+ * last one matched as a prefix so results update while typing) and returns
+ * ranked hits with highlighted snippets, one page at a time.
+ */
+public class TranscriptSearchService {
+    
+    // Words after this are ignored; each one is another posting list to merge
+    private static final int MAX_QUERY_TERMS = 16;
+    
+    private static final LatencyHistogram searchLatency = new LatencyHistogram();
+    
+    private MessageSearchDAO searchDAO;
+    
+    public TranscriptSearchService() {
+        this.searchDAO = new MessageSearchDAO();
+    }
+    
+    /**
+     * Check if transcripts can be searched
+     */
+    public boolean isAvailable() {
+        return searchDAO.isIndexAvailable();
+    }
+    
+    /**
+     * Get one page of messages matching the search text
+     *
+     * @param text What the user typed
+     * @param userId Only this customer's sessions (null for all, e.g. for agents)
+     * @param order Order of the hits
+     * @param after Last hit of the previous page (null for the first page)
+     * @return Hits; empty if the text has no searchable words
+     */
+    public List<MessageSearchHit> search(String text, Integer userId, MessageSearchDAO.Order order, MessageSearchHit after) {
+        String matchQuery = toMatchQuery(text);
+        if (matchQuery == null || !isAvailable()) {
+            return new ArrayList<>();
+        }
+        
+        long start = System.nanoTime();
+        List<MessageSearchHit> hits = searchDAO.search(matchQuery, userId, order, after, getPageSize());
+        long nanos = System.nanoTime() - start;
+        searchLatency.record(nanos);
+        
+        if (nanos > Config.getInstance().getSearchSlowQueryMillis() * 1_000_000L) {
+            System.out.println("⚠ Slow transcript search (" + nanos / 1_000_000 + " ms, " + order + "): " + matchQuery);
+        }
+        return hits;
+    }
+    
+    public int getPageSize() {
+        return Math.max(1, Config.getInstance().getSearchPageSize());
+    }
+    
+    /**
+     * Build an FTS5 query from free text
+     * Words are quoted so operators and punctuation in the text are never
+     * parsed as query syntax; all words must match. The last word is matched
+     * as a prefix unless the text ends with a space.
+     *
+     * @param text What the user typed
+     * @return FTS5 query, or null if the text has no letters or digits
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        int i = 0;
+        for (; i <= text.length() && terms.size() < MAX_QUERY_TERMS; i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.codePointAt(i))) {
+                term.appendCodePoint(text.codePointAt(i));
+                i += Character.charCount(text.codePointAt(i)) - 1;
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        
+        StringBuilder query = new StringBuilder();
+        for (String word : terms) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('"').append(word).append('"');
+        }
+        boolean typingLastWord = i > text.length() && Character.isLetterOrDigit(text.codePointBefore(text.length()));
+        if (typingLastWord) {
+            query.append('*');
+        }
+        return query.toString();
+    }
+    
+    /**
+     * Get the time searches take
+     */
+    public static LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+}
@@ -0,0 +1,621 @@
+package com.care.service;
+
+import com.care.dao.UserDAO;
+import com.care.model.User;
+import com.care.util.Config;
+import com.care.util.Csv;
+import com.care.util.PasswordUtil;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import and export of user accounts
+ * Imports stream a CSV (with a header row) or JSONL file: rows are checked,
+ * emails are deduplicated against an in-memory set of every known email
+ * instead of a query per row, passwords are hashed in parallel, and users
+ * are written a batch per transaction. While one batch is written the next
+ * one is already being hashed. Rejected rows are written next to the input
+ * as "<file>.rejected.csv" with their line number and reason.
+ *
+ * Exports stream the users table to CSV or JSONL in the same columns, so an
+ * export can be imported again.
+ */
+public class UserImportService {
+    
+    /**
+     * Receives import and export progress (called from the worker thread)
+     */
+    public interface ProgressListener {
+        /**
+         * @param processed Rows read so far
+         * @param imported Users written so far
+         * @param rejected Rows rejected so far
+         */
+        void onProgress(int processed, int imported, int rejected);
+    }
+    
+    /**
+     * Outcome of an import
+     */
+    public static class ImportResult {
+        private final int processed;
+        private final int imported;
+        private final int rejected;
+        private final Path rejectsFile;
+        private final long elapsedMillis;
+        
+        ImportResult(int processed, int imported, int rejected, Path rejectsFile, long elapsedMillis) {
+            this.processed = processed;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.rejectsFile = rejectsFile;
+            this.elapsedMillis = elapsedMillis;
+        }
+        
+        public int getProcessed() {
+            return processed;
+        }
+        
+        public int getImported() {
+            return imported;
+        }
+        
+        public int getRejected() {
+            return rejected;
+        }
+        
+        /**
+         * Get the file listing the rejected rows, or null if none were rejected
+         */
+        public Path getRejectsFile() {
+            return rejectsFile;
+        }
+        
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+    
+    // Columns of an export, and the ones an import understands
+    private static final String[] COLUMNS = {
+        "email", "name", "role", "password", "password_hash", "license_key",
+        "is_2fa_enabled", "preferred_language", "created_at"
+    };
+    
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+    private static final Set<String> ROLES = Set.of("USER", "ADMIN", "AGENT");
+    
+    private static UserImportService instance;
+    
+    private final UserDAO userDAO;
+    private final ExecutorService jobExecutor;
+    
+    private UserImportService() {
+        this.userDAO = new UserDAO();
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "care-user-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public static synchronized UserImportService getInstance() {
+        if (instance == null) {
+            instance = new UserImportService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Import users in the background
+     * Imports and exports run one at a time, in the order they were requested.
+     *
+     * @param input CSV or JSONL file (.jsonl / .ndjson)
+     * @param listener Receives progress (may be null)
+     * @return Future of the result; fails if the file cannot be read
+     */
+    public CompletableFuture<ImportResult> importUsersAsync(Path input, ProgressListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return importUsers(input, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, jobExecutor);
+    }
+    
+    /**
+     * Export all users in the background
+     *
+     * @param output CSV or JSONL file (.jsonl / .ndjson)
+     * @param includePasswordHashes Write the BCrypt hashes, so users keep their passwords on import
+     * @param listener Receives progress (may be null)
+     * @return Future of the number of users written; fails if the file cannot be written
+     */
+    public CompletableFuture<Integer> exportUsersAsync(Path output, boolean includePasswordHashes, ProgressListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return exportUsers(output, includePasswordHashes, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, jobExecutor);
+    }
+    
+    /**
+     * Import users on the calling thread
+     * Rows need an email and a name, and either a plain "password" or a BCrypt
+     * "password_hash". Role defaults to USER and a license key is generated
+     * when none is given.
+     *
+     * @param input CSV or JSONL file (.jsonl / .ndjson)
+     * @param listener Receives progress (may be null)
+     * @return Counts of imported and rejected rows
+     * @throws IOException if the input cannot be read or a CSV record is malformed
+     */
+    public ImportResult importUsers(Path input, ProgressListener listener) throws IOException {
+        Config config = Config.getInstance();
+        int batchSize = Math.max(1, config.getUserImportBatchSize());
+        int hashThreads = Math.max(1, config.getUserImportHashThreads());
+        long start = System.nanoTime();
+        
+        Set<String> knownEmails = userDAO.findAllEmails();
+        System.out.println("Importing users from " + input.getFileName() + " (" + knownEmails.size() +
+                         " existing, batches of " + batchSize + ", " + hashThreads + " hashing threads)");
+        
+        // Hashing at low priority leaves room for logins and the UI
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService hashExecutor = Executors.newFixedThreadPool(hashThreads, runnable -> {
+            Thread thread = new Thread(runnable, "care-user-import-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        
+        Path rejectsFile = input.resolveSibling(input.getFileName() + ".rejected.csv");
+        Files.deleteIfExists(rejectsFile);
+        ImportRun run = new ImportRun(rejectsFile, listener);
+        
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            RowSource source = isJsonLines(input) ? new JsonLinesSource(reader) : new CsvSource(reader);
+            
+            List<PendingUser> batch = new ArrayList<>(batchSize);
+            List<PendingUser> hashing = null;
+            Row row;
+            while ((row = source.next()) != null) {
+                run.processed++;
+                
+                if (row.error != null) {
+                    run.reject(row.line, row.error, row.raw);
+                    continue;
+                }
+                
+                User user;
+                try {
+                    user = toUser(row.values);
+                } catch (IllegalArgumentException e) {
+                    run.reject(row.line, e.getMessage(), row.raw);
+                    continue;
+                }
+                
+                // Catches users already stored as well as repeats within the file
+                if (!knownEmails.add(user.getEmail().toLowerCase(Locale.ROOT))) {
+                    run.reject(row.line, "Duplicate email", row.raw);
+                    continue;
+                }
+                
+                batch.add(new PendingUser(row, user, hashExecutor));
+                if (batch.size() >= batchSize) {
+                    // Start hashing this batch, then write the previous one
+                    if (hashing != null) {
+                        run.write(hashing);
+                    }
+                    hashing = batch;
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            
+            if (hashing != null) {
+                run.write(hashing);
+            }
+            if (!batch.isEmpty()) {
+                run.write(batch);
+            }
+        } finally {
+            hashExecutor.shutdownNow();
+            run.closeRejects();
+        }
+        
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(String.format("✓ Imported %d of %d users in %d ms (%.0f rows/s), %d rejected",
+            run.imported, run.processed, elapsedMillis,
+            elapsedMillis > 0 ? run.processed * 1000.0 / elapsedMillis : 0.0, run.rejected));
+        if (run.rejected > 0) {
+            System.out.println("⚠ Rejected rows written to " + rejectsFile);
+        }
+        
+        return new ImportResult(run.processed, run.imported, run.rejected,
+            run.rejected > 0 ? rejectsFile : null, elapsedMillis);
+    }
+    
+    /**
+     * Export all users on the calling thread
+     * The file is written under a temporary name and moved into place when
+     * complete, so a failed export never leaves a partial file behind.
+     *
+     * @param output CSV or JSONL file (.jsonl / .ndjson)
+     * @param includePasswordHashes Write the BCrypt hashes, so users keep their passwords on import
+     * @param listener Receives progress (may be null)
+     * @return Number of users written
+     * @throws IOException if the file cannot be written
+     */
+    public int exportUsers(Path output, boolean includePasswordHashes, ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        boolean jsonLines = isJsonLines(output);
+        Path partFile = output.resolveSibling(output.getFileName() + ".part");
+        
+        int count;
+        try (BufferedWriter writer = Files.newBufferedWriter(partFile, StandardCharsets.UTF_8)) {
+            if (!jsonLines) {
+                Csv.writeRecord(writer, COLUMNS);
+            }
+            
+            AtomicInteger written = new AtomicInteger();
+            try {
+                count = userDAO.streamAll(user -> {
+                    try {
+                        writeUser(writer, user, jsonLines, includePasswordHashes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    int n = written.incrementAndGet();
+                    if (listener != null && n % 1000 == 0) {
+                        listener.onProgress(n, n, 0);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (count < 0) {
+                throw new IOException("Could not read users from the database");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        
+        Files.move(partFile, output, StandardCopyOption.REPLACE_EXISTING);
+        if (listener != null) {
+            listener.onProgress(count, count, 0);
+        }
+        System.out.println("✓ Exported " + count + " users to " + output.getFileName() +
+                         " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return count;
+    }
+    
+    private void writeUser(Writer writer, User user, boolean jsonLines, boolean includePasswordHash) throws IOException {
+        String passwordHash = includePasswordHash && PasswordUtil.isBCryptHash(user.getPasswordHash())
+            ? user.getPasswordHash() : null;
+        String createdAt = user.getCreatedAt() != null ? user.getCreatedAt().toString() : null;
+        
+        if (jsonLines) {
+            JSONObject json = new JSONObject();
+            json.put("email", user.getEmail());
+            json.put("name", user.getName());
+            json.put("role", user.getRole());
+            if (passwordHash != null) {
+                json.put("password_hash", passwordHash);
+            }
+            json.put("license_key", user.getLicenseKey());
+            json.put("is_2fa_enabled", user.is2faEnabled());
+            json.put("preferred_language", user.getPreferredLanguage());
+            json.put("created_at", createdAt);
+            writer.write(json.toString());
+            writer.write('\n');
+        } else {
+            Csv.writeRecord(writer, user.getEmail(), user.getName(), user.getRole(), null, passwordHash,
+                user.getLicenseKey(), String.valueOf(user.is2faEnabled()), user.getPreferredLanguage(), createdAt);
+        }
+    }
+    
+    /**
+     * Check a row and turn it into a user whose password still has to be hashed
+     *
+     * @throws IllegalArgumentException with the reason if the row is invalid
+     */
+    private User toUser(Map<String, String> values) {
+        String email = value(values, "email");
+        if (email == null) {
+            throw new IllegalArgumentException("Missing email");
+        }
+        if (!EMAIL.matcher(email).matches()) {
+            throw new IllegalArgumentException("Invalid email");
+        }
+        
+        String name = value(values, "name");
+        if (name == null) {
+            throw new IllegalArgumentException("Missing name");
+        }
+        
+        String role = value(values, "role");
+        role = role == null ? "USER" : role.toUpperCase(Locale.ROOT);
+        if (!ROLES.contains(role)) {
+            throw new IllegalArgumentException("Invalid role: " + role);
+        }
+        
+        String password = value(values, "password");
+        String passwordHash = value(values, "password_hash");
+        if (password == null) {
+            if (passwordHash == null) {
+                throw new IllegalArgumentException("Missing password");
+            }
+            if (!PasswordUtil.isBCryptHash(passwordHash)) {
+                throw new IllegalArgumentException("Invalid password_hash (BCrypt expected)");
+            }
+        }
+        
+        User user = new User();
+        user.setEmail(email);
+        user.setName(name);
+        user.setRole(role);
+        // Plain passwords are replaced by their hash before the user is written
+        user.setPasswordHash(password != null ? password : passwordHash);
+        
+        String licenseKey = value(values, "license_key");
+        user.setLicenseKey(licenseKey != null ? licenseKey : generateLicenseKey());
+        String twoFactor = value(values, "is_2fa_enabled");
+        user.setIs2faEnabled("true".equalsIgnoreCase(twoFactor) || "1".equals(twoFactor));
+        String language = value(values, "preferred_language");
+        user.setPreferredLanguage(language != null ? language : "English");
+        return user;
+    }
+    
+    private static String value(Map<String, String> values, String column) {
+        String value = values.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static String generateLicenseKey() {
+        // Same format as users added by hand: XXXX-XXXX-XXXX
+        String uuid = UUID.randomUUID().toString().toUpperCase().replace("-", "");
+        return uuid.substring(0, 4) + "-" + uuid.substring(4, 8) + "-" + uuid.substring(8, 12);
+    }
+    
+    private static boolean isJsonLines(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson");
+    }
+    
+    /**
+     * One input row: its values by column, where it started and the original text
+     */
+    private static final class Row {
+        private final int line;
+        private final Map<String, String> values;
+        private final String raw;
+        private final String error;
+        
+        Row(int line, Map<String, String> values, String raw, String error) {
+            this.line = line;
+            this.values = values;
+            this.raw = raw;
+            this.error = error;
+        }
+    }
+    
+    private interface RowSource {
+        /**
+         * @return The next non-blank row, or null at the end of the input
+         */
+        Row next() throws IOException;
+    }
+    
+    /**
+     * CSV rows, keyed by the (lower-cased) names in the header row
+     */
+    private static final class CsvSource implements RowSource {
+        private final Csv.RecordReader reader;
+        private List<String> header;
+        
+        CsvSource(BufferedReader reader) {
+            this.reader = new Csv.RecordReader(reader);
+        }
+        
+        @Override
+        public Row next() throws IOException {
+            if (header == null) {
+                header = new ArrayList<>();
+                List<String> names = reader.readRecord();
+                if (names == null) {
+                    return null;
+                }
+                for (String name : names) {
+                    // Strip a UTF-8 byte order mark left by spreadsheet exports
+                    header.add(name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            
+            List<String> fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < fields.size() && i < header.size(); i++) {
+                    values.put(header.get(i), fields.get(i));
+                }
+                return new Row(reader.getRecordLine(), values, toCsvLine(fields), null);
+            }
+            return null;
+        }
+        
+        private static String toCsvLine(List<String> fields) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(Csv.escape(fields.get(i)));
+            }
+            return line.toString();
+        }
+    }
+    
+    /**
+     * One JSON object per line; unparseable lines come back with an error
+     */
+    private static final class JsonLinesSource implements RowSource {
+        private final BufferedReader reader;
+        private int lineNumber;
+        
+        JsonLinesSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public Row next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                
+                Map<String, String> values = new HashMap<>();
+                try {
+                    JSONObject json = new JSONObject(line);
+                    for (String key : json.keySet()) {
+                        if (!json.isNull(key)) {
+                            values.put(key.toLowerCase(Locale.ROOT), String.valueOf(json.get(key)));
+                        }
+                    }
+                } catch (JSONException e) {
+                    return new Row(lineNumber, values, line, "Invalid JSON: " + e.getMessage());
+                }
+                return new Row(lineNumber, values, line, null);
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * A checked user whose password is being hashed
+     */
+    private static final class PendingUser {
+        private final Row row;
+        private final User user;
+        private final Future<String> passwordHash;
+        
+        PendingUser(Row row, User user, ExecutorService hashExecutor) {
+            this.row = row;
+            this.user = user;
+            String stored = user.getPasswordHash();
+            this.passwordHash = PasswordUtil.isBCryptHash(stored)
+                ? CompletableFuture.completedFuture(stored)
+                : hashExecutor.submit(() -> PasswordUtil.hashPassword(stored));
+        }
+    }
+    
+    /**
+     * Counters and the rejects file of one import
+     */
+    private final class ImportRun {
+        private final Path rejectsFile;
+        private final ProgressListener listener;
+        private BufferedWriter rejectsWriter;
+        private int processed;
+        private int imported;
+        private int rejected;
+        
+        ImportRun(Path rejectsFile, ProgressListener listener) {
+            this.rejectsFile = rejectsFile;
+            this.listener = listener;
+        }
+        
+        void reject(int line, String reason, String raw) throws IOException {
+            if (rejectsWriter == null) {
+                rejectsWriter = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8);
+                Csv.writeRecord(rejectsWriter, "line", "reason", "row");
+            }
+            Csv.writeRecord(rejectsWriter, String.valueOf(line), reason, raw);
+            rejected++;
+        }
+        
+        /**
+         * Wait for a batch's hashes and write it in one transaction
+         */
+        void write(List<PendingUser> batch) throws IOException {
+            List<PendingUser> ready = new ArrayList<>(batch.size());
+            List<User> users = new ArrayList<>(batch.size());
+            for (PendingUser pending : batch) {
+                try {
+                    pending.user.setPasswordHash(pending.passwordHash.get());
+                    ready.add(pending);
+                    users.add(pending.user);
+                } catch (ExecutionException e) {
+                    reject(pending.row.line, "Password could not be hashed: " + e.getCause().getMessage(), pending.row.raw);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Import interrupted", e);
+                }
+            }
+            
+            if (!users.isEmpty()) {
+                try {
+                    boolean[] inserted = userDAO.insertBatch(users);
+                    for (int i = 0; i < ready.size(); i++) {
+                        if (inserted[i]) {
+                            imported++;
+                        } else {
+                            reject(ready.get(i).row.line, "Email already exists", ready.get(i).row.raw);
+                        }
+                    }
+                } catch (SQLException e) {
+                    System.err.println("❌ User import batch failed: " + e.getMessage());
+                    for (PendingUser pending : ready) {
+                        reject(pending.row.line, "Database error: " + e.getMessage(), pending.row.raw);
+                    }
+                }
+            }
+            
+            if (listener != null) {
+                listener.onProgress(processed, imported, rejected);
+            }
+        }
+        
+        void closeRejects() throws IOException {
+            if (rejectsWriter != null) {
+                rejectsWriter.close();
+            }
+        }
+    }
+}
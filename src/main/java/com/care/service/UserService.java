@@ -26,45 +26,8 @@ public class UserService {
      * @return User object if authentication successful, null otherwise
      */
     public User authenticate(String email, String password) {
-        if (email == null || email.isEmpty() || password == null || password.isEmpty()) {
-            return null;
-        }
-        
-        // Get user by email first
-        User user = userDAO.findByEmail(email);
-        
-        if (user == null) {
-            System.out.println("Authentication failed: User not found for: " + email);
-            return null;
-        }
-        
-        // Check if password is BCrypt hash or plain text (for backward compatibility)
-        String storedPassword = user.getPasswordHash();
-        boolean isAuthenticated = false;
-        
-        if (PasswordUtil.isBCryptHash(storedPassword)) {
-            // Verify against BCrypt hash
-            isAuthenticated = PasswordUtil.verifyPassword(password, storedPassword);
-        } else {
-            // Backward compatibility: plain text comparison
-            // This allows existing users with plain text passwords to still login
-            isAuthenticated = password.equals(storedPassword);
-            
-            // Optionally: upgrade to hashed password on successful login
-            if (isAuthenticated) {
-                System.out.println("Upgrading plain text password to BCrypt hash for: " + email);
-                user.setPasswordHash(PasswordUtil.hashPassword(password));
-                userDAO.update(user);
-            }
-        }
-        
-        if (isAuthenticated) {
-            System.out.println("✓ Authentication successful for: " + email);
-            return user;
-        } else {
-            System.out.println("✗ Authentication failed: Invalid password for: " + email);
-            return null;
-        }
+        // Runs on the calling thread; UI code should use AuthenticationService.authenticateAsync
+        return AuthenticationService.getInstance().authenticate(email, password);
     }
     
     /**
@@ -0,0 +1,172 @@
+package com.care.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In-memory inverted index with Okapi BM25 ranking
+ * Documents are identified by their position in the list passed to the
+ * constructor. The index is immutable once built, so it can be searched
+ * from several threads at the same time.
+ */
+public class Bm25Index {
+    
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does",
+        "for", "from", "has", "have", "how", "i", "if", "in", "into", "is", "it", "its",
+        "me", "my", "no", "not", "of", "on", "or", "so", "that", "the", "their", "then",
+        "there", "these", "this", "to", "was", "we", "what", "when", "where", "which",
+        "why", "will", "with", "you", "your"
+    ));
+    
+    // term -> (document, term frequency) pairs
+    private final Map<String, int[][]> postings;
+    private final int[] documentLengths;
+    private final double averageLength;
+    
+    /**
+     * Build the index
+     *
+     * @param documents Document texts; result indexes refer to this list
+     */
+    public Bm25Index(List<String> documents) {
+        Map<String, List<int[]>> building = new HashMap<>();
+        documentLengths = new int[documents.size()];
+        long totalLength = 0;
+        
+        for (int doc = 0; doc < documents.size(); doc++) {
+            List<String> terms = tokenize(documents.get(doc));
+            documentLengths[doc] = terms.size();
+            totalLength += terms.size();
+            
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                building.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                        .add(new int[] { doc, entry.getValue() });
+            }
+        }
+        
+        postings = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, List<int[]>> entry : building.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray(new int[0][]));
+        }
+        averageLength = documents.isEmpty() ? 0 : (double) totalLength / documents.size();
+    }
+    
+    /**
+     * Rank documents against a free-text query
+     *
+     * @param query Query text
+     * @param limit Maximum number of results
+     * @return Matching documents, best first (documents sharing no term with the query are omitted)
+     */
+    public List<Result> search(String query, int limit) {
+        List<Result> results = new ArrayList<>();
+        if (limit <= 0 || documentLengths.length == 0) {
+            return results;
+        }
+        
+        // Repeated query terms weigh more, which lets callers boost the latest message
+        Map<String, Integer> queryTerms = new LinkedHashMap<>();
+        for (String term : tokenize(query)) {
+            queryTerms.merge(term, 1, Integer::sum);
+        }
+        
+        double[] scores = new double[documentLengths.length];
+        boolean[] matched = new boolean[documentLengths.length];
+        int n = documentLengths.length;
+        
+        for (Map.Entry<String, Integer> entry : queryTerms.entrySet()) {
+            int[][] list = postings.get(entry.getKey());
+            if (list == null) {
+                continue;
+            }
+            
+            double idf = Math.log(1 + (n - list.length + 0.5) / (list.length + 0.5));
+            for (int[] posting : list) {
+                int doc = posting[0];
+                int tf = posting[1];
+                double norm = K1 * (1 - B + B * documentLengths[doc] / averageLength);
+                scores[doc] += entry.getValue() * idf * (tf * (K1 + 1)) / (tf + norm);
+                matched[doc] = true;
+            }
+        }
+        
+        PriorityQueue<Result> best = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+        for (int doc = 0; doc < n; doc++) {
+            if (!matched[doc]) {
+                continue;
+            }
+            best.offer(new Result(doc, scores[doc]));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        
+        while (!best.isEmpty()) {
+            results.add(0, best.poll());
+        }
+        return results;
+    }
+    
+    public int getDocumentCount() {
+        return documentLengths.length;
+    }
+    
+    public int getTermCount() {
+        return postings.size();
+    }
+    
+    /**
+     * Check if a lower-case term is too common to be worth matching
+     */
+    public static boolean isStopWord(String term) {
+        return STOP_WORDS.contains(term);
+    }
+    
+    /**
+     * Lower-case, split on non-alphanumerics and drop stop words
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+    
+    /**
+     * A ranked document
+     */
+    public static class Result {
+        private final int document;
+        private final double score;
+        
+        public Result(int document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+        
+        public int getDocument() { return document; }
+        public double getScore() { return score; }
+    }
+}
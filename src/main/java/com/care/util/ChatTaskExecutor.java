@@ -0,0 +1,336 @@
+package com.care.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs chat work (AI calls, escalations) in the background
+ * Each task gets its own virtual thread when the runtime supports them
+ * (Java 21+), or a thread of a fixed pool otherwise. Tasks wait in a queue
+ * until both a per-user and a global slot are free, and only then are
+ * handed to a thread, so a user who keeps sending cannot crowd out everyone
+ * else and no thread is parked waiting. Tasks are tagged with the view
+ * that started them and the user, and can be cancelled by either; a task
+ * submitted with the key of one that is still active gets the active one.
+ */
+public class ChatTaskExecutor {
+    
+    private static ChatTaskExecutor instance;
+    
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final int maxConcurrent;
+    private final int maxPerUser;
+    private final Map<String, ChatTask> tasksByKey = new ConcurrentHashMap<>();
+    private final Set<ChatTask> activeTasks = ConcurrentHashMap.newKeySet();
+    
+    // Slot bookkeeping, guarded by itself; users with nothing running have no entry
+    private final Deque<ChatTask> pending = new ArrayDeque<>();
+    private final Map<Integer, Integer> runningByUser = new HashMap<>();
+    private int running;
+    
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final LatencyHistogram waitLatency = new LatencyHistogram();
+    private final LatencyHistogram runLatency = new LatencyHistogram();
+    
+    private ChatTaskExecutor() {
+        Config config = Config.getInstance();
+        this.maxConcurrent = Math.max(1, config.getChatTasksMaxConcurrent());
+        this.maxPerUser = Math.max(1, config.getChatTasksMaxPerUser());
+        
+        ExecutorService virtual = config.isChatTasksVirtualThreads() ? createVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.executor = virtual;
+            this.virtualThreads = true;
+        } else {
+            // Never more than maxConcurrent tasks are handed over at once
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+                Thread thread = new Thread(runnable, "care-chat-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.virtualThreads = false;
+        }
+        
+        System.out.println("✓ Chat task executor started (" + (virtualThreads ? "virtual" : "platform") +
+                         " threads, " + maxConcurrent + " concurrent, " + maxPerUser + " per user)");
+    }
+    
+    public static synchronized ChatTaskExecutor getInstance() {
+        if (instance == null) {
+            instance = new ChatTaskExecutor();
+        }
+        return instance;
+    }
+    
+    /**
+     * Create a thread-per-task executor on virtual threads
+     * Looked up reflectively because the project still compiles for Java 17.
+     *
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "care-chat-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Older runtime, or virtual threads still a disabled preview
+            return null;
+        }
+    }
+    
+    /**
+     * Run a task in the background
+     *
+     * @param key Identifies duplicate requests (null to never deduplicate)
+     * @param userId User the task counts against
+     * @param owner View that started the task, used to cancel it (may be null)
+     * @param work The task; cancelling interrupts it
+     * @return Future of the task, or of the active task with the same key
+     */
+    public Future<?> submit(String key, int userId, Object owner, Runnable work) {
+        ChatTask task = new ChatTask(key, userId, owner, work);
+        
+        if (key != null) {
+            ChatTask existing = tasksByKey.putIfAbsent(key, task);
+            if (existing != null) {
+                deduplicated.incrementAndGet();
+                System.out.println("⚠ Ignoring duplicate chat task: " + key);
+                return existing;
+            }
+        }
+        
+        submitted.incrementAndGet();
+        activeTasks.add(task);
+        synchronized (pending) {
+            pending.add(task);
+        }
+        dispatch();
+        return task;
+    }
+    
+    /**
+     * Hand queued tasks to threads while their user and the executor have free slots
+     * Tasks are taken oldest first; a task of a user at the limit is passed over
+     * until one of that user's tasks finishes.
+     */
+    private void dispatch() {
+        List<ChatTask> ready = new ArrayList<>();
+        synchronized (pending) {
+            Iterator<ChatTask> iterator = pending.iterator();
+            while (running < maxConcurrent && iterator.hasNext()) {
+                ChatTask task = iterator.next();
+                int userRunning = runningByUser.getOrDefault(task.userId, 0);
+                if (userRunning >= maxPerUser) {
+                    continue;
+                }
+                iterator.remove();
+                runningByUser.put(task.userId, userRunning + 1);
+                running++;
+                ready.add(task);
+            }
+        }
+        
+        for (ChatTask task : ready) {
+            try {
+                executor.execute(() -> runAndRelease(task));
+            } catch (RuntimeException e) {
+                System.err.println("❌ Chat task could not be started: " + e.getMessage());
+                task.cancel(false);
+                release(task.userId);
+            }
+        }
+    }
+    
+    private void runAndRelease(ChatTask task) {
+        try {
+            task.run();
+        } finally {
+            release(task.userId);
+            dispatch();
+        }
+    }
+    
+    private void release(int userId) {
+        synchronized (pending) {
+            running--;
+            runningByUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+    
+    /**
+     * Cancel the queued and running tasks started by a view
+     *
+     * @return Number of tasks cancelled
+     */
+    public int cancelOwner(Object owner) {
+        int count = 0;
+        for (ChatTask task : activeTasks) {
+            if (task.owner == owner && task.cancel(true)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            System.out.println("⚠ Cancelled " + count + " chat tasks of a closed view");
+        }
+        return count;
+    }
+    
+    /**
+     * Cancel the queued and running tasks of a user (on logout)
+     *
+     * @return Number of tasks cancelled
+     */
+    public int cancelUser(int userId) {
+        int count = 0;
+        for (ChatTask task : activeTasks) {
+            if (task.userId == userId && task.cancel(true)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            System.out.println("⚠ Cancelled " + count + " chat tasks of user ID: " + userId);
+        }
+        return count;
+    }
+    
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * Get number of tasks waiting for a slot
+     */
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+    
+    /**
+     * Get number of tasks holding a slot
+     */
+    public int getRunningCount() {
+        synchronized (pending) {
+            return running;
+        }
+    }
+    
+    /**
+     * Get the time tasks wait for a slot
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+    
+    /**
+     * Get the time tasks run once they have a slot
+     */
+    public LatencyHistogram getRunLatency() {
+        return runLatency;
+    }
+    
+    /**
+     * Get executor statistics as a string
+     */
+    public String getStats() {
+        return String.format("queued=%d, running=%d, submitted=%d, deduplicated=%d, completed=%d, failed=%d, cancelled=%d" +
+                             "\n  wait: %s\n  run: %s",
+            getQueueDepth(), getRunningCount(), submitted.get(), deduplicated.get(), completed.get(),
+            failed.get(), cancelled.get(), waitLatency, runLatency);
+    }
+    
+    /**
+     * Task that records its timings and unregisters when done
+     */
+    private final class ChatTask extends FutureTask<Void> {
+        
+        private final String key;
+        private final int userId;
+        private final Object owner;
+        
+        ChatTask(String key, int userId, Object owner, Runnable work) {
+            super(new MeasuredRunner(work), null);
+            this.key = key;
+            this.userId = userId;
+            this.owner = owner;
+        }
+        
+        @Override
+        protected void done() {
+            activeTasks.remove(this);
+            if (key != null) {
+                tasksByKey.remove(key, this);
+            }
+            if (isCancelled()) {
+                // Still queued, or already running and interrupted (it releases its slot when it returns)
+                synchronized (pending) {
+                    pending.remove(this);
+                }
+                cancelled.incrementAndGet();
+                return;
+            }
+            try {
+                get();
+                completed.incrementAndGet();
+            } catch (ExecutionException | InterruptedException e) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Runs the work and records how long it waited and ran
+     */
+    private final class MeasuredRunner implements Runnable {
+        
+        private final Runnable work;
+        private final long submittedAt = System.nanoTime();
+        
+        MeasuredRunner(Runnable work) {
+            this.work = work;
+        }
+        
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            waitLatency.record(start - submittedAt);
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Chat task failed: " + e.getMessage());
+                e.printStackTrace();
+                throw e;
+            } finally {
+                runLatency.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
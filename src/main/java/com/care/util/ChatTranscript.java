@@ -0,0 +1,294 @@
+package com.care.util;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Chat transcript shown in a ListView
+ * The ListView only creates cells for the bubbles on screen and reuses them
+ * while scrolling, so the number of nodes stays the same however long the
+ * conversation is. Older messages are loaded a page at a time when the user
+ * scrolls up to the first loaded bubble.
+ *
+ * Must be used from the JavaFX Application Thread.
+ */
+public class ChatTranscript {
+    
+    // Fetch the previous page once the scroll bar is this close to the top
+    private static final double PREFETCH_THRESHOLD = 0.05;
+    
+    // Horizontal room left next to a bubble (matches the old 50px row padding)
+    private static final double BUBBLE_MARGIN = 90;
+    
+    private final ListView<Entry> listView;
+    private final int pageSize;
+    private final PageLoader loader;
+    private ScrollBar verticalBar;
+    private int oldestLoadedId;
+    private boolean hasOlder;
+    private boolean loading;
+    
+    /**
+     * Loads the page of messages before a given message
+     */
+    public interface PageLoader {
+        /**
+         * @param beforeMessageId Oldest loaded message ID (0 for the newest page)
+         * @param limit Maximum number of entries
+         * @return Entries oldest first; fewer than limit when the start is reached
+         */
+        List<Entry> load(int beforeMessageId, int limit);
+    }
+    
+    /**
+     * One bubble of the transcript
+     * The text is a property so streamed responses update their bubble in place.
+     */
+    public static class Entry {
+        private final int messageId;
+        private final String senderType;
+        private final StringProperty text;
+        private final File imageFile;
+        
+        public Entry(int messageId, String senderType, String text, File imageFile) {
+            this.messageId = messageId;
+            this.senderType = senderType;
+            this.text = new SimpleStringProperty(text);
+            this.imageFile = imageFile;
+        }
+        
+        public Entry(String senderType, String text) {
+            this(0, senderType, text, null);
+        }
+        
+        public int getMessageId() {
+            return messageId;
+        }
+        
+        public String getSenderType() {
+            return senderType;
+        }
+        
+        public String getText() {
+            return text.get();
+        }
+        
+        public void setText(String text) {
+            this.text.set(text);
+        }
+        
+        public StringProperty textProperty() {
+            return text;
+        }
+        
+        public File getImageFile() {
+            return imageFile;
+        }
+    }
+    
+    public ChatTranscript(ListView<Entry> listView, int pageSize, PageLoader loader) {
+        this.listView = listView;
+        this.pageSize = Math.max(1, pageSize);
+        this.loader = loader;
+        
+        listView.setCellFactory(view -> new BubbleCell());
+        listView.setFocusTraversable(false);
+        
+        // The scroll bar only exists once the list has been skinned
+        listView.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::attachScrollBar));
+        if (listView.getSkin() != null) {
+            attachScrollBar();
+        }
+    }
+    
+    private void attachScrollBar() {
+        if (verticalBar != null) {
+            return;
+        }
+        
+        for (Node node : listView.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() <= verticalBar.getMin() + verticalBar.getMax() * PREFETCH_THRESHOLD) {
+                        loadOlderPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drop all bubbles and load the newest page of a stored conversation
+     *
+     * @return Number of entries loaded
+     */
+    public int loadLatest() {
+        listView.getItems().clear();
+        oldestLoadedId = 0;
+        hasOlder = true;
+        loading = false;
+        
+        int loaded = prependPage();
+        scrollToEnd();
+        return loaded;
+    }
+    
+    /**
+     * Drop all bubbles for a conversation that has nothing stored yet
+     */
+    public void clear() {
+        listView.getItems().clear();
+        oldestLoadedId = 0;
+        hasOlder = false;
+    }
+    
+    /**
+     * Insert the previous page above the loaded bubbles if there is one
+     * The bubble that was at the top stays at the top.
+     */
+    public void loadOlderPage() {
+        if (loading || !hasOlder) {
+            return;
+        }
+        
+        int loaded = prependPage();
+        if (loaded > 0) {
+            listView.scrollTo(loaded);
+        }
+    }
+    
+    private int prependPage() {
+        loading = true;
+        try {
+            List<Entry> page = loader.load(oldestLoadedId, pageSize);
+            hasOlder = page.size() >= pageSize;
+            if (!page.isEmpty()) {
+                oldestLoadedId = page.get(0).getMessageId();
+                listView.getItems().addAll(0, page);
+            }
+            return page.size();
+        } finally {
+            loading = false;
+        }
+    }
+    
+    /**
+     * Add a bubble below the others and scroll to it
+     */
+    public Entry append(Entry entry) {
+        listView.getItems().add(entry);
+        scrollToEnd();
+        return entry;
+    }
+    
+    /**
+     * Remove a bubble (e.g. a typing indicator)
+     */
+    public void remove(Entry entry) {
+        listView.getItems().remove(entry);
+    }
+    
+    public void scrollToEnd() {
+        if (!listView.getItems().isEmpty()) {
+            listView.scrollTo(listView.getItems().size() - 1);
+        }
+    }
+    
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+    
+    public int getLoadedCount() {
+        return listView.getItems().size();
+    }
+    
+    /**
+     * Reusable bubble: a label, an optional image, aligned by sender
+     */
+    private class BubbleCell extends ListCell<Entry> {
+        
+        private final Label textLabel = new Label();
+        private final ImageView imageView = new ImageView();
+        private final VBox messageBox = new VBox(8);
+        private final HBox rowContainer = new HBox(messageBox);
+        
+        BubbleCell() {
+            textLabel.setWrapText(true);
+            textLabel.maxWidthProperty().bind(listView.widthProperty().subtract(BUBBLE_MARGIN));
+            
+            imageView.setPreserveRatio(true);
+            imageView.setFitWidth(300);
+            imageView.setStyle("-fx-border-color: #e0e0e0; -fx-border-width: 1px; -fx-border-radius: 8px;");
+            
+            rowContainer.setFillHeight(true);
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        }
+        
+        @Override
+        protected void updateItem(Entry entry, boolean empty) {
+            super.updateItem(entry, empty);
+            textLabel.textProperty().unbind();
+            
+            if (empty || entry == null) {
+                setGraphic(null);
+                imageView.setImage(null);
+                return;
+            }
+            
+            String senderType = entry.getSenderType();
+            textLabel.textProperty().bind(entry.textProperty());
+            textLabel.getStyleClass().setAll("label", "message-bubble");
+            textLabel.setStyle(null);
+            if ("USER".equals(senderType)) {
+                textLabel.getStyleClass().add("message-user");
+            } else if ("BOT".equals(senderType)) {
+                textLabel.getStyleClass().add("message-bot");
+            } else if ("SYSTEM".equals(senderType)) {
+                textLabel.setStyle("-fx-background-color: #ffeeba; -fx-text-fill: #856404; -fx-background-radius: 10;");
+            } else {
+                textLabel.getStyleClass().add("message-agent");
+            }
+            
+            messageBox.getChildren().clear();
+            if (entry.getText() != null && !entry.getText().isEmpty()) {
+                messageBox.getChildren().add(textLabel);
+            }
+            if (entry.getImageFile() != null) {
+                // Decoded at display size in the background, and only while on screen
+                imageView.setImage(new Image(entry.getImageFile().toURI().toString(), 300, 0, true, true, true));
+                messageBox.getChildren().add(imageView);
+            } else {
+                imageView.setImage(null);
+            }
+            
+            if ("USER".equals(senderType)) {
+                // User floats right, bot/agent/system float left
+                rowContainer.setAlignment(Pos.CENTER_RIGHT);
+                rowContainer.setPadding(new Insets(5, 5, 5, 50));
+            } else {
+                rowContainer.setAlignment(Pos.CENTER_LEFT);
+                rowContainer.setPadding(new Insets(5, 50, 5, 5));
+            }
+            
+            setGraphic(rowContainer);
+        }
+    }
+}
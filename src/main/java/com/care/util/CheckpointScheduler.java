@@ -0,0 +1,231 @@
+package com.care.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background WAL checkpoint scheduler
+ * In WAL mode SQLite appends every commit to the -wal file and only copies
+ * pages back into the main database on a checkpoint. This scheduler runs
+ * PASSIVE checkpoints while the application is idle and a TRUNCATE checkpoint
+ * whenever the WAL grows past the configured size, so the file never grows
+ * without bound and readers don't have to scan a long log.
+ */
+public class CheckpointScheduler {
+    
+    private final ConnectionPool pool;
+    private final Path walFile;
+    private final long intervalMillis;
+    private final long idleMillis;
+    private final long truncateBytes;
+    private ScheduledExecutorService executor;
+    
+    // Metrics
+    private final AtomicLong passiveCheckpoints = new AtomicLong();
+    private final AtomicLong truncateCheckpoints = new AtomicLong();
+    private final AtomicLong failedCheckpoints = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+    private final AtomicLong lastCheckpointMillis = new AtomicLong();
+    
+    /**
+     * @param pool Pool whose writer runs the checkpoints
+     * @param databaseFile Path of the main database file (the WAL is databaseFile + "-wal")
+     */
+    public CheckpointScheduler(ConnectionPool pool, Path databaseFile) {
+        StorageProfile profile = pool.getProfile();
+        this.pool = pool;
+        this.walFile = databaseFile.resolveSibling(databaseFile.getFileName() + "-wal");
+        this.intervalMillis = profile.getCheckpointIntervalMillis();
+        this.idleMillis = profile.getCheckpointIdleMillis();
+        this.truncateBytes = profile.getWalTruncateBytes();
+    }
+    
+    /**
+     * Start the background checkpoint thread
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "care-wal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        
+        System.out.println("✓ WAL checkpoint scheduler started (every " + intervalMillis +
+                         "ms, truncate above " + truncateBytes / 1024 + " KB)");
+    }
+    
+    /**
+     * Stop the scheduler and fold the WAL back into the database
+     * Should be called before the pool is closed
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        
+        checkpoint("TRUNCATE");
+        System.out.println("WAL checkpoint scheduler stopped (" + getStats() + ")");
+    }
+    
+    /**
+     * One scheduler pass: truncate if the WAL is too large,
+     * otherwise run a passive checkpoint once writes have gone quiet
+     */
+    private void tick() {
+        try {
+            long walBytes = getWalSizeBytes();
+            if (walBytes <= 0) {
+                return;
+            }
+            
+            long lastWrite = pool.getLastWriteMillis();
+            boolean idle = System.currentTimeMillis() - lastWrite >= idleMillis;
+            boolean writtenSinceCheckpoint = lastWrite > lastCheckpointMillis.get();
+            
+            if (walBytes >= truncateBytes) {
+                checkpoint("TRUNCATE");
+            } else if (idle && writtenSinceCheckpoint) {
+                checkpoint("PASSIVE");
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the scheduled task
+            System.err.println("Error in WAL checkpoint scheduler: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Run a checkpoint now
+     *
+     * @param mode PASSIVE, FULL, RESTART or TRUNCATE
+     * @return true if the checkpoint completed without being blocked by readers
+     */
+    public boolean checkpoint(String mode) {
+        if (!"PASSIVE".equals(mode) && !"FULL".equals(mode) && !"RESTART".equals(mode) && !"TRUNCATE".equals(mode)) {
+            throw new IllegalArgumentException("Invalid checkpoint mode: " + mode);
+        }
+        
+        long start = System.nanoTime();
+        boolean busy;
+        
+        try (Connection connection = pool.leaseWriter();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            
+            // Result columns: busy, frames in WAL, frames checkpointed
+            busy = rs.next() && rs.getInt(1) != 0;
+        } catch (SQLException e) {
+            failedCheckpoints.incrementAndGet();
+            System.err.println("Error running WAL checkpoint (" + mode + "): " + e.getMessage());
+            return false;
+        }
+        
+        // Only now that the writer lease is back: releasing it counts as a write,
+        // and the checkpoint must not look like something the next tick has to checkpoint
+        lastCheckpointMillis.set(System.currentTimeMillis());
+        long latency = System.nanoTime() - start;
+        lastLatencyNanos.set(latency);
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        if ("TRUNCATE".equals(mode)) {
+            truncateCheckpoints.incrementAndGet();
+        } else {
+            passiveCheckpoints.incrementAndGet();
+        }
+        
+        if (busy) {
+            System.out.println("⚠ WAL checkpoint (" + mode + ") could not finish, readers still active");
+        }
+        return !busy;
+    }
+    
+    /**
+     * Get current size of the -wal file in bytes (0 if it doesn't exist)
+     */
+    public long getWalSizeBytes() {
+        try {
+            return Files.exists(walFile) ? Files.size(walFile) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Get a snapshot of WAL and checkpoint metrics
+     */
+    public CheckpointStats getStats() {
+        long count = passiveCheckpoints.get() + truncateCheckpoints.get();
+        return new CheckpointStats(
+            getWalSizeBytes(),
+            passiveCheckpoints.get(),
+            truncateCheckpoints.get(),
+            failedCheckpoints.get(),
+            lastLatencyNanos.get() / 1_000_000.0,
+            count > 0 ? totalLatencyNanos.get() / 1_000_000.0 / count : 0.0,
+            maxLatencyNanos.get() / 1_000_000.0
+        );
+    }
+    
+    /**
+     * Snapshot of WAL and checkpoint metrics
+     */
+    public static class CheckpointStats {
+        private final long walSizeBytes;
+        private final long passiveCheckpoints;
+        private final long truncateCheckpoints;
+        private final long failedCheckpoints;
+        private final double lastLatencyMillis;
+        private final double avgLatencyMillis;
+        private final double maxLatencyMillis;
+        
+        public CheckpointStats(long walSizeBytes, long passiveCheckpoints, long truncateCheckpoints,
+                               long failedCheckpoints, double lastLatencyMillis,
+                               double avgLatencyMillis, double maxLatencyMillis) {
+            this.walSizeBytes = walSizeBytes;
+            this.passiveCheckpoints = passiveCheckpoints;
+            this.truncateCheckpoints = truncateCheckpoints;
+            this.failedCheckpoints = failedCheckpoints;
+            this.lastLatencyMillis = lastLatencyMillis;
+            this.avgLatencyMillis = avgLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+        
+        public long getWalSizeBytes() { return walSizeBytes; }
+        public long getPassiveCheckpoints() { return passiveCheckpoints; }
+        public long getTruncateCheckpoints() { return truncateCheckpoints; }
+        public long getFailedCheckpoints() { return failedCheckpoints; }
+        public double getLastLatencyMillis() { return lastLatencyMillis; }
+        public double getAvgLatencyMillis() { return avgLatencyMillis; }
+        public double getMaxLatencyMillis() { return maxLatencyMillis; }
+        
+        @Override
+        public String toString() {
+            return String.format("wal=%d KB, passive=%d, truncate=%d, failed=%d, lastLatency=%.2fms, avgLatency=%.2fms, maxLatency=%.2fms",
+                walSizeBytes / 1024, passiveCheckpoints, truncateCheckpoints, failedCheckpoints,
+                lastLatencyMillis, avgLatencyMillis, maxLatencyMillis);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.care.util;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.function.Consumer;
+
+/**
+ * Pushes streamed text to a JavaFX control at most once per frame
+ * Background threads call append() as often as they like; the accumulated
+ * text is handed to the target on the FX thread on the next animation pulse,
+ * so a fast token stream never floods the event queue with Platform.runLater calls.
+ * 
+ * start(), stop() and finish() must be called on the FX thread.
+ */
+public class CoalescingTextUpdater extends AnimationTimer {
+    
+    private final Consumer<String> target;
+    private final StringBuilder text = new StringBuilder();
+    private boolean dirty;
+    private long frameUpdates;
+    private long appends;
+    
+    /**
+     * @param target Receives the full text so far, always on the FX thread
+     */
+    public CoalescingTextUpdater(Consumer<String> target) {
+        this.target = target;
+    }
+    
+    /**
+     * Add streamed text (safe to call from any thread)
+     */
+    public synchronized void append(String chunk) {
+        text.append(chunk);
+        dirty = true;
+        appends++;
+    }
+    
+    @Override
+    public void handle(long now) {
+        String snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            snapshot = text.toString();
+        }
+        target.accept(snapshot);
+        frameUpdates++;
+    }
+    
+    /**
+     * Stop updating and show the final text
+     */
+    public void finish(String finalText) {
+        stop();
+        target.accept(finalText);
+        System.out.println("Streamed text rendered: " + getAppends() + " chunks in " + frameUpdates + " frame updates");
+    }
+    
+    public synchronized long getAppends() {
+        return appends;
+    }
+    
+    public long getFrameUpdates() {
+        return frameUpdates;
+    }
+}
@@ -2,6 +2,8 @@ package com.care.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -82,6 +84,481 @@ public class Config {
         return Double.parseDouble(properties.getProperty("openai.temperature", "0.7"));
     }
     
+    /**
+     * Get base URL of the OpenAI-compatible API (no trailing slash)
+     * A system property of the same name wins, so tests can point it at a local server.
+     */
+    public String getOpenAIBaseUrl() {
+        String url = System.getProperty("openai.base.url",
+            properties.getProperty("openai.base.url", "https://api.openai.com/v1")).trim();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+    
+    /**
+     * Get number of read-only connections in the database pool
+     * Defaults to the number of available processors (at least 2)
+     */
+    public int getDbPoolReaders() {
+        int defaultReaders = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return Integer.parseInt(properties.getProperty("db.pool.readers", String.valueOf(defaultReaders)));
+    }
+    
+    /**
+     * Get how long SQLite waits on a locked database before failing (milliseconds)
+     */
+    public int getDbBusyTimeoutMillis() {
+        return Integer.parseInt(properties.getProperty("db.busy.timeout.ms", "5000"));
+    }
+    
+    /**
+     * Get how long a DAO waits for a free pooled connection (milliseconds)
+     */
+    public long getDbLeaseTimeoutMillis() {
+        return Long.parseLong(properties.getProperty("db.pool.lease.timeout.ms", "30000"));
+    }
+    
+    /**
+     * Get SQLite journal mode (WAL lets readers run while a write is in progress)
+     */
+    public String getDbJournalMode() {
+        return properties.getProperty("db.journal.mode", "WAL");
+    }
+    
+    /**
+     * Get SQLite synchronous level (NORMAL is durable across app crashes in WAL mode)
+     */
+    public String getDbSynchronous() {
+        return properties.getProperty("db.synchronous", "NORMAL");
+    }
+    
+    /**
+     * Get SQLite page cache size per connection
+     * Negative values are in KiB, positive values are pages
+     */
+    public int getDbCacheSize() {
+        return Integer.parseInt(properties.getProperty("db.cache.size", "-16000"));
+    }
+    
+    /**
+     * Get SQLite memory-mapped I/O size in bytes (0 disables mmap)
+     */
+    public long getDbMmapSize() {
+        return Long.parseLong(properties.getProperty("db.mmap.size", "268435456"));
+    }
+    
+    /**
+     * Get where SQLite keeps temporary tables and indices (DEFAULT, FILE, MEMORY)
+     */
+    public String getDbTempStore() {
+        return properties.getProperty("db.temp.store", "MEMORY");
+    }
+    
+    /**
+     * Get how often the WAL checkpoint scheduler runs (milliseconds)
+     */
+    public long getDbCheckpointIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.checkpoint.interval.ms", "10000"));
+    }
+    
+    /**
+     * Get how long the database must be free of writes before a passive checkpoint (milliseconds)
+     */
+    public long getDbCheckpointIdleMillis() {
+        return Long.parseLong(properties.getProperty("db.checkpoint.idle.ms", "5000"));
+    }
+    
+    /**
+     * Get WAL size that triggers a truncating checkpoint (bytes)
+     */
+    public long getDbWalTruncateBytes() {
+        return Long.parseLong(properties.getProperty("db.wal.truncate.bytes", "67108864"));
+    }
+    
+    /**
+     * Get message durability mode (SYNC, GROUP_COMMIT, ASYNC)
+     */
+    public String getMessageDurability() {
+        return properties.getProperty("messages.durability", "GROUP_COMMIT");
+    }
+    
+    /**
+     * Get how long the message journal waits to collect a batch (milliseconds)
+     */
+    public long getMessageGroupCommitDelayMillis() {
+        return Long.parseLong(properties.getProperty("messages.group.commit.delay.ms", "5"));
+    }
+    
+    /**
+     * Get maximum number of messages committed in one transaction
+     */
+    public int getMessageBatchSize() {
+        return Integer.parseInt(properties.getProperty("messages.batch.size", "256"));
+    }
+    
+    /**
+     * Get capacity of the message write queue (callers block when it is full)
+     */
+    public int getMessageQueueCapacity() {
+        return Integer.parseInt(properties.getProperty("messages.queue.capacity", "10000"));
+    }
+    
+    /**
+     * Get maximum number of OpenAI requests in flight at once
+     */
+    public int getAiHttpMaxConcurrent() {
+        return Integer.parseInt(properties.getProperty("ai.http.max.concurrent", "4"));
+    }
+    
+    /**
+     * Get how often a failed OpenAI request (429, 5xx, network error) is retried
+     */
+    public int getAiHttpMaxRetries() {
+        return Integer.parseInt(properties.getProperty("ai.http.max.retries", "3"));
+    }
+    
+    /**
+     * Get first retry backoff (milliseconds, doubled on each retry)
+     */
+    public long getAiHttpBackoffBaseMillis() {
+        return Long.parseLong(properties.getProperty("ai.http.backoff.base.ms", "500"));
+    }
+    
+    /**
+     * Get maximum retry backoff (milliseconds)
+     */
+    public long getAiHttpBackoffMaxMillis() {
+        return Long.parseLong(properties.getProperty("ai.http.backoff.max.ms", "8000"));
+    }
+    
+    /**
+     * Get how long to wait for OpenAI response headers (seconds)
+     */
+    public int getAiHttpTimeoutSeconds() {
+        return Integer.parseInt(properties.getProperty("ai.http.timeout.seconds", "60"));
+    }
+    
+    /**
+     * Get target size of a manual chunk (estimated tokens)
+     */
+    public int getKbChunkTokens() {
+        return Integer.parseInt(properties.getProperty("kb.chunk.tokens", "200"));
+    }
+    
+    /**
+     * Get how much text consecutive manual chunks share (estimated tokens)
+     */
+    public int getKbChunkOverlapTokens() {
+        return Integer.parseInt(properties.getProperty("kb.chunk.overlap.tokens", "30"));
+    }
+    
+    /**
+     * Get maximum number of manual chunks placed in a prompt
+     */
+    public int getAiContextTopK() {
+        return Integer.parseInt(properties.getProperty("ai.context.top.k", "6"));
+    }
+    
+    /**
+     * Get token budget for manual excerpts in a prompt
+     */
+    public int getAiContextTokenBudget() {
+        return Integer.parseInt(properties.getProperty("ai.context.token.budget", "1200"));
+    }
+    
+    /**
+     * Get how many earlier user messages are added to the retrieval query
+     */
+    public int getAiContextHistoryTurns() {
+        return Integer.parseInt(properties.getProperty("ai.context.history.turns", "2"));
+    }
+    
+    /**
+     * Get how manual passages are ranked (BM25, VECTOR or HYBRID)
+     */
+    public String getAiRetrievalMode() {
+        return properties.getProperty("ai.retrieval.mode", "HYBRID");
+    }
+    
+    /**
+     * Get minimum cosine similarity for a semantic match to count
+     */
+    public double getAiRetrievalMinSimilarity() {
+        return Double.parseDouble(properties.getProperty("ai.retrieval.min.similarity", "0.1"));
+    }
+    
+    /**
+     * Get embedding provider used for semantic search
+     */
+    public String getKbEmbeddingProvider() {
+        return properties.getProperty("kb.embedding.provider", "hashing");
+    }
+    
+    /**
+     * Get length of embedding vectors
+     */
+    public int getKbEmbeddingDimension() {
+        return Integer.parseInt(properties.getProperty("kb.embedding.dimension", "256"));
+    }
+    
+    /**
+     * Get directory holding the memory-mapped vector files
+     */
+    public String getKbVectorDir() {
+        return properties.getProperty("kb.vector.dir", "manuals/vectors");
+    }
+    
+    /**
+     * Get number of links per node in the HNSW graph
+     */
+    public int getKbHnswM() {
+        return Integer.parseInt(properties.getProperty("kb.hnsw.m", "16"));
+    }
+    
+    /**
+     * Get candidate list size used while building the HNSW graph
+     */
+    public int getKbHnswEfConstruction() {
+        return Integer.parseInt(properties.getProperty("kb.hnsw.ef.construction", "100"));
+    }
+    
+    /**
+     * Get candidate list size used when searching an HNSW graph of 10,000 chunks
+     * Larger graphs are searched with a larger list (HnswIndex.scaledEf).
+     */
+    public int getKbHnswEfSearch() {
+        return Integer.parseInt(properties.getProperty("kb.hnsw.ef.search", "128"));
+    }
+    
+    /**
+     * Get number of chunks from which a manual is searched through an HNSW graph
+     * Smaller manuals are scanned exactly, which is fast and needs no graph build.
+     */
+    public int getKbHnswMinChunks() {
+        return Integer.parseInt(properties.getProperty("kb.hnsw.min.chunks", "20000"));
+    }
+    
+    /**
+     * Get number of threads extracting manual pages in parallel
+     */
+    public int getKbIngestParallelism() {
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return Integer.parseInt(properties.getProperty("kb.ingest.parallelism", String.valueOf(defaultThreads)));
+    }
+    
+    /**
+     * Get smallest page range an extraction task works on
+     */
+    public int getKbIngestPagesPerTask() {
+        return Integer.parseInt(properties.getProperty("kb.ingest.pages.per.task", "4"));
+    }
+    
+    /**
+     * Get number of extracted pages written to the database at a time
+     */
+    public int getKbIngestBatchPages() {
+        return Integer.parseInt(properties.getProperty("kb.ingest.batch.pages", "8"));
+    }
+    
+    /**
+     * Get token budget for conversation history sent with each request
+     */
+    public int getAiHistoryTokenBudget() {
+        return Integer.parseInt(properties.getProperty("ai.history.token.budget", "1500"));
+    }
+    
+    /**
+     * Get how far history is trimmed once it exceeds the budget (percent of the budget)
+     */
+    public int getAiHistoryTrimPercent() {
+        return Integer.parseInt(properties.getProperty("ai.history.trim.percent", "60"));
+    }
+    
+    /**
+     * Get maximum length of the running conversation summary in tokens
+     */
+    public int getAiHistorySummaryTokens() {
+        return Integer.parseInt(properties.getProperty("ai.history.summary.tokens", "250"));
+    }
+    
+    /**
+     * Get how many sessions keep their conversation summary in memory
+     */
+    public int getAiHistoryCachedSessions() {
+        return Integer.parseInt(properties.getProperty("ai.history.cached.sessions", "500"));
+    }
+    
+    /**
+     * Get keywords counted as issues in user messages (lowercase, comma separated in config)
+     */
+    public List<String> getAnalyticsIssueKeywords() {
+        String value = properties.getProperty("analytics.issue.keywords",
+            "error,broken,not working,problem,issue,failed,reset,configure,slow,crash");
+        
+        List<String> keywords = new ArrayList<>();
+        for (String keyword : value.split(",")) {
+            String trimmed = keyword.trim().toLowerCase();
+            if (!trimmed.isEmpty() && !keywords.contains(trimmed)) {
+                keywords.add(trimmed);
+            }
+        }
+        return keywords;
+    }
+    
+    /**
+     * Check if products and users are cached by ID (turn off to debug stale reads)
+     */
+    public boolean isEntityCacheEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("entity.cache.enabled", "true"));
+    }
+    
+    /**
+     * Get maximum number of cached rows per entity type
+     */
+    public int getEntityCacheMaxEntries() {
+        return Integer.parseInt(properties.getProperty("entity.cache.max.entries", "1000"));
+    }
+    
+    /**
+     * Get number of threads loading dashboard widgets in parallel
+     */
+    public int getDashboardLoadThreads() {
+        return Integer.parseInt(properties.getProperty("dashboard.load.threads", "3"));
+    }
+    
+    /**
+     * Get number of messages loaded per page of a chat transcript
+     */
+    public int getChatHistoryPageSize() {
+        return Integer.parseInt(properties.getProperty("chat.history.page.size", "50"));
+    }
+    
+    /**
+     * Check if chat tasks run on virtual threads when the runtime has them
+     */
+    public boolean isChatTasksVirtualThreads() {
+        return Boolean.parseBoolean(properties.getProperty("chat.tasks.virtual.threads", "true"));
+    }
+    
+    /**
+     * Get maximum number of chat tasks running at once across all users
+     */
+    public int getChatTasksMaxConcurrent() {
+        return Integer.parseInt(properties.getProperty("chat.tasks.max.concurrent", "16"));
+    }
+    
+    /**
+     * Get maximum number of chat tasks running at once for one user
+     */
+    public int getChatTasksMaxPerUser() {
+        return Integer.parseInt(properties.getProperty("chat.tasks.max.per.user", "2"));
+    }
+    
+    /**
+     * Get number of threads rendering report charts in parallel
+     */
+    public int getReportChartThreads() {
+        return Integer.parseInt(properties.getProperty("report.chart.threads", "2"));
+    }
+    
+    /**
+     * Get how long the analytics of a report are reused by the next report (0 = never)
+     */
+    public long getReportDataCacheMillis() {
+        return Long.parseLong(properties.getProperty("report.data.cache.seconds", "60")) * 1000L;
+    }
+    
+    /**
+     * Get the BCrypt cost new password hashes are created with
+     */
+    public int getBcryptCost() {
+        return Integer.parseInt(properties.getProperty("auth.bcrypt.cost", "10"));
+    }
+    
+    /**
+     * Get number of threads checking and hashing passwords
+     */
+    public int getAuthHashThreads() {
+        return Integer.parseInt(properties.getProperty("auth.hash.threads", "2"));
+    }
+    
+    /**
+     * Get maximum number of logins waiting for a hashing thread
+     */
+    public int getAuthHashQueueCapacity() {
+        return Integer.parseInt(properties.getProperty("auth.hash.queue", "32"));
+    }
+    
+    /**
+     * Check if plain-text passwords are hashed in a background batch at startup
+     */
+    public boolean isAuthMigrateLegacyPasswords() {
+        return Boolean.parseBoolean(properties.getProperty("auth.migrate.legacy", "true"));
+    }
+    
+    /**
+     * Get number of users written per transaction by a bulk import
+     */
+    public int getUserImportBatchSize() {
+        return Integer.parseInt(properties.getProperty("user.import.batch.size", "500"));
+    }
+    
+    /**
+     * Get number of threads hashing passwords during a bulk import
+     */
+    public int getUserImportHashThreads() {
+        int defaultThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return Integer.parseInt(properties.getProperty("user.import.hash.threads", String.valueOf(defaultThreads)));
+    }
+    
+    /**
+     * Get number of hits per page of a transcript or manual search
+     */
+    public int getSearchPageSize() {
+        return Integer.parseInt(properties.getProperty("search.page.size", "25"));
+    }
+    
+    /**
+     * Get delay after the last keystroke before a transcript or manual search runs
+     */
+    public int getSearchDebounceMillis() {
+        return Integer.parseInt(properties.getProperty("search.debounce.ms", "250"));
+    }
+    
+    /**
+     * Get the time after which a transcript or manual search is logged as slow
+     */
+    public int getSearchSlowQueryMillis() {
+        return Integer.parseInt(properties.getProperty("search.slow.query.ms", "200"));
+    }
+    
+    /**
+     * Check if answers to standalone questions are cached
+     */
+    public boolean isAiCacheEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("ai.cache.enabled", "true"));
+    }
+    
+    /**
+     * Get maximum number of cached answers
+     */
+    public int getAiCacheMaxEntries() {
+        return Integer.parseInt(properties.getProperty("ai.cache.max.entries", "500"));
+    }
+    
+    /**
+     * Get how long a cached answer stays valid (0 = until evicted)
+     */
+    public long getAiCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("ai.cache.ttl.minutes", "60")) * 60_000L;
+    }
+    
+    /**
+     * Get minimum estimated similarity for a near-duplicate question to reuse an answer
+     */
+    public double getAiCacheSimilarity() {
+        return Double.parseDouble(properties.getProperty("ai.cache.similarity", "0.8"));
+    }
+    
     /**
      * Check if OpenAI is configured
      */
@@ -0,0 +1,381 @@
+package com.care.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection pool for the SQLite database
+ * SQLite allows only one writer at a time, so the pool keeps a single writer
+ * connection guarded by a fair lock plus a fixed set of read-only connections
+ * that can be leased concurrently.
+ *
+ * Leased connections are handed out as wrappers: calling close() returns the
+ * connection to the pool instead of closing it, so callers should always use
+ * them in try-with-resources blocks.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final StorageProfile profile;
+    private final long leaseTimeoutMillis;
+    private final BlockingQueue<Connection> idleReaders;
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private Connection writer;
+    private volatile boolean closed;
+
+    // Metrics
+    private final AtomicLong totalLeases = new AtomicLong();
+    private final AtomicInteger activeLeases = new AtomicInteger();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong lastWriteMillis = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Create a pool and open all of its connections
+     *
+     * @param url JDBC URL of the database
+     * @param readerCount Number of read-only connections
+     * @param leaseTimeoutMillis How long a caller waits for a free connection
+     * @param profile PRAGMA settings applied to every connection
+     * @throws SQLException if a connection cannot be opened
+     */
+    public ConnectionPool(String url, int readerCount, long leaseTimeoutMillis, StorageProfile profile) throws SQLException {
+        this.url = url;
+        this.profile = profile;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+
+        // The writer is opened first so it can switch the journal mode
+        // before any reader holds the database open
+        this.writer = openConnection(false);
+        for (int i = 0; i < Math.max(1, readerCount); i++) {
+            Connection reader = openConnection(true);
+            allReaders.add(reader);
+            idleReaders.add(reader);
+        }
+
+        System.out.println("✓ Connection pool opened: 1 writer, " + allReaders.size() + " readers");
+    }
+
+    /**
+     * Lease the writer connection
+     * The lease is reentrant: a thread that already holds the writer gets the
+     * same connection back, so DAOs can call each other inside a transaction.
+     *
+     * @return Writer connection; close() releases the lease
+     * @throws SQLException if the pool is closed or no lease could be obtained in time
+     */
+    public Connection leaseWriter() throws SQLException {
+        ensureOpen();
+
+        long start = System.nanoTime();
+        try {
+            if (!writerLock.tryLock(leaseTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out waiting for the database writer connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database writer connection", e);
+        }
+        recordLease(System.nanoTime() - start);
+
+        try {
+            // Replace the writer if it died since the last lease (outermost lease only)
+            if (writerLock.getHoldCount() == 1 && !isUsable(writer)) {
+                closeQuietly(writer);
+                writer = openConnection(false);
+                System.out.println("Database writer connection reopened");
+            }
+        } catch (SQLException e) {
+            activeLeases.decrementAndGet();
+            writerLock.unlock();
+            throw e;
+        }
+
+        return wrap(writer, this::releaseWriter);
+    }
+
+    /**
+     * Lease a read-only connection
+     * If the calling thread already holds the writer, the writer is returned
+     * instead so reads inside a transaction see its uncommitted changes.
+     *
+     * @return Reader connection; close() returns it to the pool
+     * @throws SQLException if the pool is closed or no reader became free in time
+     */
+    public Connection leaseReader() throws SQLException {
+        ensureOpen();
+
+        if (writerLock.isHeldByCurrentThread()) {
+            return leaseWriter();
+        }
+
+        long start = System.nanoTime();
+        Connection reader;
+        try {
+            reader = idleReaders.poll(leaseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database reader connection", e);
+        }
+
+        if (reader == null) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out waiting for a database reader connection");
+        }
+        recordLease(System.nanoTime() - start);
+
+        if (!isUsable(reader)) {
+            Connection replacement;
+            try {
+                replacement = openConnection(true);
+            } catch (SQLException e) {
+                idleReaders.offer(reader);
+                activeLeases.decrementAndGet();
+                throw e;
+            }
+            synchronized (allReaders) {
+                allReaders.remove(reader);
+                allReaders.add(replacement);
+            }
+            closeQuietly(reader);
+            reader = replacement;
+            System.out.println("Database reader connection reopened");
+        }
+
+        final Connection leased = reader;
+        return wrap(leased, () -> releaseReader(leased));
+    }
+
+    /**
+     * Close every connection in the pool
+     */
+    public void close() {
+        closed = true;
+
+        writerLock.lock();
+        try {
+            closeQuietly(writer);
+        } finally {
+            writerLock.unlock();
+        }
+
+        synchronized (allReaders) {
+            for (Connection reader : allReaders) {
+                closeQuietly(reader);
+            }
+        }
+
+        System.out.println("Connection pool closed (" + getStats() + ")");
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Check if the calling thread holds the writer lease
+     */
+    public boolean isWriterHeldByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Get the time the writer was last released (epoch milliseconds)
+     * Used by the checkpoint scheduler to detect idle periods
+     */
+    public long getLastWriteMillis() {
+        return lastWriteMillis.get();
+    }
+
+    public StorageProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Get a snapshot of the pool metrics
+     */
+    public PoolStats getStats() {
+        long leases = totalLeases.get();
+        return new PoolStats(
+            allReaders.size(),
+            idleReaders.size(),
+            activeLeases.get(),
+            leases,
+            leases > 0 ? totalWaitNanos.get() / 1_000_000.0 / leases : 0.0,
+            maxWaitNanos.get() / 1_000_000.0,
+            timeouts.get()
+        );
+    }
+
+    private void releaseWriter() {
+        try {
+            // Leave the writer in auto-commit mode for the next caller
+            if (writerLock.getHoldCount() == 1 && !writer.isClosed() && !writer.getAutoCommit()) {
+                System.err.println("⚠ Writer returned with an open transaction, rolling back");
+                writer.rollback();
+                writer.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resetting writer connection");
+            e.printStackTrace();
+        } finally {
+            lastWriteMillis.set(System.currentTimeMillis());
+            activeLeases.decrementAndGet();
+            writerLock.unlock();
+        }
+    }
+
+    private void releaseReader(Connection reader) {
+        activeLeases.decrementAndGet();
+        if (closed) {
+            closeQuietly(reader);
+        } else {
+            idleReaders.offer(reader);
+        }
+    }
+
+    private void recordLease(long waitNanos) {
+        totalLeases.incrementAndGet();
+        activeLeases.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    /**
+     * Open and configure a physical connection
+     */
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        connection.setAutoCommit(true);
+
+        try {
+            profile.applyTo(connection, !readOnly);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+
+        return connection;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection != null && !connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Wrap a physical connection so close() releases the lease exactly once
+     */
+    private Connection wrap(Connection target, Runnable release) {
+        AtomicBoolean released = new AtomicBoolean(false);
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        release.run();
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || target.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + target + "]";
+                default:
+                    if (released.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    return invoke(target, method, args);
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Snapshot of pool metrics
+     */
+    public static class PoolStats {
+        private final int readerCount;
+        private final int idleReaders;
+        private final int activeLeases;
+        private final long totalLeases;
+        private final double avgWaitMillis;
+        private final double maxWaitMillis;
+        private final long timeouts;
+
+        public PoolStats(int readerCount, int idleReaders, int activeLeases, long totalLeases,
+                         double avgWaitMillis, double maxWaitMillis, long timeouts) {
+            this.readerCount = readerCount;
+            this.idleReaders = idleReaders;
+            this.activeLeases = activeLeases;
+            this.totalLeases = totalLeases;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.timeouts = timeouts;
+        }
+
+        public int getReaderCount() { return readerCount; }
+        public int getIdleReaders() { return idleReaders; }
+        public int getActiveLeases() { return activeLeases; }
+        public long getTotalLeases() { return totalLeases; }
+        public double getAvgWaitMillis() { return avgWaitMillis; }
+        public double getMaxWaitMillis() { return maxWaitMillis; }
+        public long getTimeouts() { return timeouts; }
+
+        @Override
+        public String toString() {
+            return String.format("leases=%d, active=%d, idleReaders=%d/%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d",
+                totalLeases, activeLeases, idleReaders, readerCount, avgWaitMillis, maxWaitMillis, timeouts);
+        }
+    }
+}
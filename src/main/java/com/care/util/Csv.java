@@ -0,0 +1,135 @@
+package com.care.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV reading and writing
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public final class Csv {
+    
+    private Csv() {
+    }
+    
+    /**
+     * Reads one record at a time from a character stream
+     */
+    public static class RecordReader {
+        
+        private final Reader reader;
+        private int lineNumber = 1;
+        private int recordLine;
+        private int pushback = -2;
+        
+        public RecordReader(Reader reader) {
+            this.reader = reader;
+        }
+        
+        /**
+         * Read the next record
+         *
+         * @return The fields, or null at the end of the input
+         */
+        public List<String> readRecord() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            
+            recordLine = lineNumber;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pushback = next;
+                        }
+                    }
+                    if (c != -1) {
+                        lineNumber++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+        
+        /**
+         * Get the line the last record started on (1-based)
+         */
+        public int getRecordLine() {
+            return recordLine;
+        }
+        
+        private int read() throws IOException {
+            if (pushback != -2) {
+                int c = pushback;
+                pushback = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+    
+    /**
+     * Write one record, quoting fields where needed, followed by a line break
+     * Null fields are written empty.
+     */
+    public static void writeRecord(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(fields[i]));
+        }
+        writer.write("\r\n");
+    }
+    
+    /**
+     * Quote a field if it contains a comma, quote or line break
+     */
+    public static String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
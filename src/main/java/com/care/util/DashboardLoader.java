@@ -0,0 +1,245 @@
+package com.care.util;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads the widgets of a dashboard view in parallel
+ * Each widget's query runs on a small shared thread pool, and the widget is
+ * rendered on the FX thread as soon as its own data arrives, so the view
+ * stays responsive and fills in progressively instead of freezing until the
+ * slowest query is done.
+ * 
+ * One loader covers one load of one view. Cancel it before loading again
+ * (refresh) and when the view is closed; queries that have not started are
+ * skipped, running ones are interrupted (long scans check for it between
+ * rows) and results that arrive later are not rendered.
+ */
+public class DashboardLoader {
+    
+    private static ExecutorService executor;
+    
+    private final String viewName;
+    private final long startNanos = System.nanoTime();
+    private final List<CompletableFuture<?>> loads = new ArrayList<>();
+    private final List<Future<?>> queries = new ArrayList<>(); // guarded by loads
+    private volatile CompletableFuture<?> prerequisite = CompletableFuture.completedFuture(null);
+    private final Map<String, String> timings = new LinkedHashMap<>();
+    private volatile boolean cancelled;
+    
+    /**
+     * @param viewName Name used in timing logs
+     */
+    public DashboardLoader(String viewName) {
+        this.viewName = viewName;
+    }
+    
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            // Bounded: more threads than pooled reader connections would only queue on the pool
+            int threads = Math.max(1, Config.getInstance().getDashboardLoadThreads());
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "care-dashboard-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+    
+    /**
+     * Load one widget
+     * 
+     * @param widget Widget name used in timing logs
+     * @param query Loads the data; runs on a background thread
+     * @param render Shows the data; runs on the FX thread
+     * @return Future of the loaded data
+     */
+    public <T> CompletableFuture<T> load(String widget, Supplier<T> query, Consumer<T> render) {
+        return load(widget, query, render, null);
+    }
+    
+    /**
+     * Load one widget
+     * 
+     * @param widget Widget name used in timing logs
+     * @param query Loads the data; runs on a background thread
+     * @param render Shows the data; runs on the FX thread
+     * @param fallback Shows an empty state if the query or render fails (may be null); runs on the FX thread
+     * @return Future of the loaded data
+     */
+    public <T> CompletableFuture<T> load(String widget, Supplier<T> query, Consumer<T> render, Runnable fallback) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        synchronized (loads) {
+            loads.add(future);
+        }
+        
+        future.exceptionally(e -> {
+            if (!cancelled) {
+                System.err.println("❌ " + viewName + ": failed to load " + widget + ": " + e.getMessage());
+                Platform.runLater(() -> {
+                    recordTiming(widget, "query failed");
+                    if (fallback != null && !cancelled) {
+                        fallback.run();
+                    }
+                });
+            }
+            return null;
+        });
+        
+        // Queries start once the preparation steps are done, whether or not they succeeded
+        prerequisite.whenComplete((ignored, error) -> submit(future, () -> runQuery(widget, query, render, fallback, future)));
+        return future;
+    }
+    
+    /**
+     * Run a step that the queries of widgets loaded after it depend on
+     * The step runs on the loader's threads like a query (e.g. a one-off
+     * backfill of the tables the widgets read) and is listed with the widgets.
+     * 
+     * @param step Name used in timing logs
+     * @param work The step; runs on a background thread
+     */
+    public void prepare(String step, Runnable work) {
+        prerequisite = load(step, () -> {
+            work.run();
+            return Boolean.TRUE;
+        }, ignored -> { });
+    }
+    
+    private void submit(CompletableFuture<?> future, Runnable query) {
+        synchronized (loads) {
+            if (!cancelled && !future.isDone()) {
+                queries.add(getExecutor().submit(query));
+            }
+        }
+    }
+    
+    private <T> void runQuery(String widget, Supplier<T> query, Consumer<T> render, Runnable fallback,
+                              CompletableFuture<T> future) {
+        if (cancelled) {
+            return;
+        }
+        
+        long queryStart = System.nanoTime();
+        T data;
+        try {
+            data = query.get();
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        long queryNanos = System.nanoTime() - queryStart;
+        
+        Platform.runLater(() -> {
+            if (cancelled) {
+                return;
+            }
+            
+            long renderStart = System.nanoTime();
+            try {
+                render.accept(data);
+                recordTiming(widget, String.format("query %.1f ms, render %.1f ms",
+                    queryNanos / 1e6, (System.nanoTime() - renderStart) / 1e6));
+            } catch (Exception e) {
+                System.err.println("❌ " + viewName + ": failed to render " + widget + ": " + e.getMessage());
+                e.printStackTrace();
+                recordTiming(widget, "render failed");
+                if (fallback != null) {
+                    fallback.run();
+                }
+            }
+        });
+        future.complete(data);
+    }
+    
+    /**
+     * Log the total load time once every widget registered so far is done
+     */
+    public void logWhenDone() {
+        CompletableFuture<?>[] pending;
+        synchronized (loads) {
+            pending = loads.toArray(new CompletableFuture<?>[0]);
+        }
+        
+        // Renders are queued on the FX thread after their query completes, so
+        // log from the FX thread too to include them
+        CompletableFuture.allOf(pending).whenComplete((ignored, e) -> Platform.runLater(() -> {
+            if (!cancelled) {
+                System.out.println(String.format("✓ %s loaded in %.1f ms (%d widgets)",
+                    viewName, (System.nanoTime() - startNanos) / 1e6, pending.length));
+                getTimings().forEach((widget, timing) -> System.out.println("  - " + widget + ": " + timing));
+            }
+        }));
+    }
+    
+    /**
+     * Cancel the load once the given node of the view is taken off the screen
+     */
+    public void cancelWhenRemoved(Node viewNode) {
+        // The view is not attached yet while its controller initializes
+        viewNode.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (oldScene != null && newScene == null) {
+                cancel();
+            }
+        });
+    }
+    
+    /**
+     * Skip queries that have not started, interrupt running ones and drop results that arrive later
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        
+        int skipped = 0;
+        synchronized (loads) {
+            for (CompletableFuture<?> future : loads) {
+                if (future.cancel(false)) {
+                    skipped++;
+                }
+            }
+            for (Future<?> query : queries) {
+                query.cancel(true);
+            }
+        }
+        
+        if (skipped > 0) {
+            System.out.println("⚠ " + viewName + " load cancelled (" + skipped + " widgets not loaded)");
+        }
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Get query and render time per finished widget, in completion order
+     */
+    public Map<String, String> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+    
+    private void recordTiming(String widget, String timing) {
+        synchronized (timings) {
+            timings.put(widget, timing);
+        }
+    }
+}
@@ -1,23 +1,26 @@
 package com.care.util;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.stream.Collectors;
+import java.util.List;
 
 /**
- * Singleton class to manage SQLite database connection
+ * Singleton class to manage the SQLite database connections
  * Implements thread-safe lazy initialization
+ * 
+ * Connections come from a {@link ConnectionPool}: one writer and several
+ * read-only connections. DAOs lease a connection per operation and return it
+ * by closing it, so no caller ever holds on to a stale handle.
  */
 public class DatabaseDriver {
     private static DatabaseDriver instance;
-    private Connection connection;
-    private static final String DB_URL = "jdbc:sqlite:care.db";
+    private ConnectionPool pool;
+    private CheckpointScheduler checkpointScheduler;
+    // Tests and benchmarks point this at a scratch file with -Dcare.db.file
+    private static final String DB_FILE = System.getProperty("care.db.file", "care.db");
+    private static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
     
     /**
      * Private constructor to prevent instantiation
@@ -26,17 +29,26 @@ public class DatabaseDriver {
         try {
             // Load SQLite JDBC driver
             Class.forName("org.sqlite.JDBC");
-            // Establish connection
-            connection = DriverManager.getConnection(DB_URL);
             
-            // CRITICAL: Ensure auto-commit is ON for SQLite
-            connection.setAutoCommit(true);
+            // Open the connection pool with the configured storage profile
+            Config config = Config.getInstance();
+            StorageProfile profile = StorageProfile.fromConfig(config);
+            pool = new ConnectionPool(DB_URL,
+                                      config.getDbPoolReaders(),
+                                      config.getDbLeaseTimeoutMillis(),
+                                      profile);
             
-            System.out.println("Database connection established: " + DB_URL);
-            System.out.println("Auto-commit enabled: " + connection.getAutoCommit());
+            System.out.println("Database connection pool established: " + DB_URL);
+            System.out.println("✓ Storage profile: " + profile);
             
             // Initialize database schema
             initializeDatabase();
+            
+            // Keep the WAL file in check in the background
+            if (profile.isWalEnabled()) {
+                checkpointScheduler = new CheckpointScheduler(pool, Paths.get(DB_FILE));
+                checkpointScheduler.start();
+            }
         } catch (ClassNotFoundException e) {
             System.err.println("SQLite JDBC driver not found!");
             e.printStackTrace();
@@ -60,96 +72,95 @@ public class DatabaseDriver {
     }
     
     /**
-     * Get the active database connection
+     * Lease the writer connection
+     * Use for INSERT/UPDATE/DELETE and transactions. The lease is held until
+     * the returned connection is closed, so always use try-with-resources.
      * 
-     * @return Connection object
+     * @return Leased writer connection
+     * @throws SQLException if no connection could be leased
      */
-    public Connection getConnection() {
-        try {
-            // Check if connection is closed and reconnect if necessary
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DB_URL);
-                connection.setAutoCommit(true); // Ensure auto-commit is ON
-                System.out.println("Database reconnected (auto-commit: " + connection.getAutoCommit() + ")");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error checking connection status!");
-            e.printStackTrace();
+    public Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database is not available");
+        }
+        return pool.leaseWriter();
+    }
+    
+    /**
+     * Lease a read-only connection
+     * Use for SELECT queries. Several readers can be leased at the same time.
+     * 
+     * @return Leased reader connection
+     * @throws SQLException if no connection could be leased
+     */
+    public Connection getReadConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database is not available");
         }
-        return connection;
+        return pool.leaseReader();
+    }
+    
+    /**
+     * Check if the calling thread holds the writer connection (e.g. inside a transaction)
+     * Work handed to another thread that needs the writer must not be waited
+     * for from such a thread.
+     */
+    public boolean holdsWriter() {
+        return pool != null && pool.isWriterHeldByCurrentThread();
+    }
+    
+    /**
+     * Get connection pool metrics (lease counts, wait times)
+     */
+    public ConnectionPool.PoolStats getPoolStats() {
+        return pool != null ? pool.getStats() : null;
+    }
+    
+    /**
+     * Get WAL size and checkpoint latency metrics (null if WAL is disabled)
+     */
+    public CheckpointScheduler.CheckpointStats getCheckpointStats() {
+        return checkpointScheduler != null ? checkpointScheduler.getStats() : null;
     }
     
     /**
      * Initialize database by executing schema.sql
-     * Creates all tables, enables foreign keys, and loads mock data
+     * Creates all tables, enables foreign keys, and loads mock data,
+     * then applies the pending schema migrations
      */
     private void initializeDatabase() {
-        try {
-            Statement statement = connection.createStatement();
-            
-            // CRITICAL: Enable foreign key constraints in SQLite
-            statement.execute("PRAGMA foreign_keys = ON;");
-            
+        // Foreign key constraints are enabled on every pooled connection
+        try (Connection connection = pool.leaseWriter()) {
             // Load schema.sql from resources
-            InputStream schemaStream = getClass().getResourceAsStream("/com/care/sql/schema.sql");
+            List<String> statements = SqlScript.load("/com/care/sql/schema.sql");
             
-            if (schemaStream == null) {
+            if (statements == null) {
                 System.err.println("schema.sql not found in resources!");
                 return;
             }
             
-            // Read and parse SQL script
-            BufferedReader reader = new BufferedReader(new InputStreamReader(schemaStream, StandardCharsets.UTF_8));
-            StringBuilder currentStatement = new StringBuilder();
-            String line;
             int executedCount = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                // Skip empty lines and pure comment lines
-                String trimmedLine = line.trim();
-                if (trimmedLine.isEmpty() || trimmedLine.startsWith("--")) {
-                    continue;
-                }
-                
-                // Remove inline comments
-                int commentIndex = trimmedLine.indexOf("--");
-                if (commentIndex > 0) {
-                    trimmedLine = trimmedLine.substring(0, commentIndex).trim();
-                }
-                
-                // Append line to current statement
-                currentStatement.append(trimmedLine).append(" ");
-                
-                // If line ends with semicolon, execute the statement
-                if (trimmedLine.endsWith(";")) {
-                    String sql = currentStatement.toString().trim();
-                    // Remove the trailing semicolon
-                    sql = sql.substring(0, sql.length() - 1).trim();
-                    
-                    if (!sql.isEmpty()) {
-                        try {
-                            statement.execute(sql);
-                            executedCount++;
-                        } catch (SQLException e) {
-                            // Silently skip UNIQUE constraint errors (expected for re-runs)
-                            if (!e.getMessage().contains("UNIQUE constraint failed")) {
-                                System.err.println("SQL Warning: " + e.getMessage());
-                            }
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    try {
+                        statement.execute(sql);
+                        executedCount++;
+                    } catch (SQLException e) {
+                        // Silently skip UNIQUE constraint errors (expected for re-runs)
+                        if (!e.getMessage().contains("UNIQUE constraint failed")) {
+                            System.err.println("SQL Warning: " + e.getMessage());
                         }
                     }
-                    
-                    // Reset for next statement
-                    currentStatement = new StringBuilder();
                 }
             }
             
-            reader.close();
-            
-            statement.close();
             System.out.println("✓ Database initialized successfully (" + executedCount + " SQL statements executed)");
             System.out.println("✓ Foreign key constraints enabled");
             System.out.println("✓ Mock data loaded (4 users, 3 products, 2 chat sessions)");
             
+            // Bring older databases up to the current schema version
+            new SchemaMigrator(connection).migrate();
+        
         } catch (Exception e) {
             System.err.println("Error initializing database schema!");
             e.printStackTrace();
@@ -157,32 +168,34 @@ public class DatabaseDriver {
     }
     
     /**
-     * Close the database connection
+     * Close all pooled database connections
      * Should be called when application shuts down
      */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection!");
-            e.printStackTrace();
+        if (checkpointScheduler != null) {
+            checkpointScheduler.stop();
+        }
+        
+        if (pool != null && pool.isOpen()) {
+            pool.close();
+            System.out.println("Database connection closed");
         }
     }
     
     /**
      * Test the database connection
      * 
-     * @return true if connection is active, false otherwise
+     * @return true if a connection can be leased, false otherwise
      */
     public boolean testConnection() {
-        try {
-            return connection != null && !connection.isClosed();
+        if (pool == null || !pool.isOpen()) {
+            return false;
+        }
+        
+        try (Connection connection = pool.leaseReader()) {
+            return !connection.isClosed();
         } catch (SQLException e) {
             return false;
         }
     }
 }
-
@@ -0,0 +1,36 @@
+package com.care.util;
+
+/**
+ * Source of text embeddings for semantic search
+ * Implementations must be deterministic for a given name and dimension,
+ * because stored vectors are reused as long as both stay the same.
+ */
+public interface EmbeddingProvider {
+    
+    /**
+     * Short identifier stored with the vectors (e.g. "hashing")
+     */
+    String getName();
+    
+    /**
+     * Length of every vector returned by embed()
+     */
+    int getDimension();
+    
+    /**
+     * Embed a piece of text as an L2-normalised vector
+     * so the dot product of two vectors is their cosine similarity
+     */
+    float[] embed(String text);
+    
+    /**
+     * Create the provider selected in config.properties
+     */
+    static EmbeddingProvider fromConfig(Config config) {
+        String name = config.getKbEmbeddingProvider();
+        if (!"hashing".equalsIgnoreCase(name)) {
+            System.err.println("⚠ Unknown embedding provider '" + name + "', using hashing");
+        }
+        return new HashingEmbedder(config.getKbEmbeddingDimension());
+    }
+}
@@ -0,0 +1,248 @@
+package com.care.util;
+
+import com.care.model.DataEvent;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe bus for data changes
+ * DAOs publish an event after each committed write, from whatever thread did
+ * the write. Events wait in a pending map until the FX thread picks them up in
+ * a single Platform.runLater, so a burst of writes reaches a view as one batch
+ * per event type. Events for the same row are coalesced while they wait: an
+ * update after a create stays a create, a delete after a create cancels both,
+ * and repeated updates collapse into one.
+ *
+ * Listeners that don't touch the UI (caches, counters) subscribe with
+ * subscribeSync instead and get every event right away, on the publishing
+ * thread, whether or not the FX toolkit is running.
+ *
+ * Only changes made by this process are seen; other instances sharing the
+ * database are not. Events with no batch subscriber of their type never wait
+ * for the FX thread, so writes outside the UI (CLI tools, benchmarks) never
+ * touch the FX toolkit.
+ */
+public class EventBus {
+    
+    private static EventBus instance;
+    
+    private final Map<Class<?>, List<Consumer<List<? extends DataEvent>>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Consumer<? super DataEvent>>> syncListeners = new ConcurrentHashMap<>();
+    private final Map<EventKey, DataEvent> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    
+    /**
+     * Handle returned by subscribe()
+     */
+    public interface Subscription {
+        /**
+         * Stop receiving events (events already queued for this batch are not delivered)
+         */
+        void unsubscribe();
+    }
+    
+    private EventBus() {
+    }
+    
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+    
+    /**
+     * Receive events of a type in batches on the FX thread
+     *
+     * @param type Event class to receive (exact class, not subclasses)
+     * @param subscriber Gets the coalesced events of one batch, oldest change first
+     * @return Handle to unsubscribe with, e.g. when the view is closed
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends DataEvent> Subscription subscribe(Class<E> type, Consumer<List<E>> subscriber) {
+        Consumer<List<? extends DataEvent>> consumer = events -> subscriber.accept((List<E>) events);
+        List<Consumer<List<? extends DataEvent>>> list =
+            subscribers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>());
+        list.add(consumer);
+        return () -> list.remove(consumer);
+    }
+    
+    /**
+     * Receive each event of a type as soon as it is published
+     * The listener runs on the thread that made the change, right after its
+     * commit and before publish() returns, so it must be quick and must not
+     * touch the UI. Events are neither batched nor coalesced.
+     *
+     * @param type Event class to receive (exact class, not subclasses)
+     * @param listener Gets every event of the type
+     * @return Handle to unsubscribe with
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends DataEvent> Subscription subscribeSync(Class<E> type, Consumer<E> listener) {
+        Consumer<? super DataEvent> consumer = event -> listener.accept((E) event);
+        List<Consumer<? super DataEvent>> list = syncListeners.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>());
+        list.add(consumer);
+        return () -> list.remove(consumer);
+    }
+    
+    /**
+     * Hand an event to the sync listeners and queue it for the next batch
+     * (safe to call from any thread)
+     */
+    public void publish(DataEvent event) {
+        List<Consumer<? super DataEvent>> listeners = syncListeners.get(event.getClass());
+        if (listeners != null) {
+            for (Consumer<? super DataEvent> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("⚠ Event listener failed on " + event.getClass().getSimpleName());
+                    e.printStackTrace();
+                }
+            }
+        }
+        
+        List<Consumer<List<? extends DataEvent>>> list = subscribers.get(event.getClass());
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        published.incrementAndGet();
+        
+        boolean schedule;
+        synchronized (pending) {
+            EventKey key = new EventKey(event.getClass(), event.getId());
+            DataEvent merged = merge(pending.get(key), event);
+            if (merged == null) {
+                pending.remove(key);
+            } else {
+                pending.put(key, merged);
+            }
+            
+            schedule = !flushScheduled && !pending.isEmpty();
+            if (schedule) {
+                flushScheduled = true;
+            }
+        }
+        
+        if (schedule) {
+            try {
+                Platform.runLater(this::flush);
+            } catch (IllegalStateException e) {
+                // FX toolkit not running (or already shut down): nobody can be shown the change;
+                // sync listeners have already had it
+                synchronized (pending) {
+                    pending.clear();
+                    flushScheduled = false;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Combine a queued event with a newer one for the same row
+     *
+     * @return Event to keep, or null if the two cancel out
+     */
+    private static DataEvent merge(DataEvent queued, DataEvent next) {
+        if (queued == null) {
+            return next;
+        }
+        if (queued.getKind() == DataEvent.Kind.CREATED) {
+            switch (next.getKind()) {
+                case DELETED:
+                    return null;
+                case UPDATED:
+                    // Subscribers read the row anyway; to them it is still new
+                    return queued;
+                default:
+                    return next;
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Hand the pending events to their subscribers, grouped by type
+     */
+    private void flush() {
+        Map<Class<?>, List<DataEvent>> byType = new LinkedHashMap<>();
+        synchronized (pending) {
+            for (DataEvent event : pending.values()) {
+                byType.computeIfAbsent(event.getClass(), key -> new ArrayList<>()).add(event);
+            }
+            pending.clear();
+            flushScheduled = false;
+        }
+        
+        for (Map.Entry<Class<?>, List<DataEvent>> entry : byType.entrySet()) {
+            List<? extends DataEvent> events = Collections.unmodifiableList(entry.getValue());
+            List<Consumer<List<? extends DataEvent>>> list = subscribers.get(entry.getKey());
+            if (list == null) {
+                continue;
+            }
+            
+            for (Consumer<List<? extends DataEvent>> subscriber : list) {
+                try {
+                    subscriber.accept(events);
+                } catch (RuntimeException e) {
+                    System.err.println("⚠ Event subscriber failed on " + events.size() + " " +
+                                     entry.getKey().getSimpleName() + "(s)");
+                    e.printStackTrace();
+                }
+            }
+            delivered.addAndGet(events.size());
+            batches.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Get a one-line summary of how much coalescing and batching saved
+     */
+    public String getStats() {
+        long batchCount = batches.get();
+        return String.format("published=%d, delivered=%d, batches=%d, avgBatch=%.1f",
+            published.get(), delivered.get(), batchCount,
+            batchCount > 0 ? (double) delivered.get() / batchCount : 0.0);
+    }
+    
+    /**
+     * Pending map key: one slot per event type and row
+     */
+    private static final class EventKey {
+        private final Class<?> type;
+        private final int id;
+        
+        EventKey(Class<?> type, int id) {
+            this.type = type;
+            this.id = id;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof EventKey)) {
+                return false;
+            }
+            EventKey key = (EventKey) other;
+            return type == key.type && id == key.id;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.care.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local embedding provider based on feature hashing
+ * Words, adjacent word pairs and character trigrams are hashed into a fixed
+ * number of signed buckets. Trigrams make related word forms ("reset",
+ * "resetting") land close together. No model or network access is needed
+ * and the output only depends on the input text.
+ */
+public class HashingEmbedder implements EmbeddingProvider {
+    
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float PAIR_WEIGHT = 0.7f;
+    private static final float TRIGRAM_WEIGHT = 0.4f;
+    
+    private final int dimension;
+    
+    public HashingEmbedder(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Embedding dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+    }
+    
+    @Override
+    public String getName() {
+        return "hashing";
+    }
+    
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+    
+    @Override
+    public float[] embed(String text) {
+        List<String> terms = Bm25Index.tokenize(text);
+        Map<String, Float> features = new HashMap<>();
+        
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            features.merge("w:" + term, WORD_WEIGHT, Float::sum);
+            
+            if (i + 1 < terms.size()) {
+                features.merge("p:" + term + " " + terms.get(i + 1), PAIR_WEIGHT, Float::sum);
+            }
+            
+            String padded = "<" + term + ">";
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                features.merge("c:" + padded.substring(j, j + 3), TRIGRAM_WEIGHT, Float::sum);
+            }
+        }
+        
+        float[] vector = new float[dimension];
+        for (Map.Entry<String, Float> feature : features.entrySet()) {
+            int hash = mix(feature.getKey().hashCode());
+            int bucket = Math.floorMod(hash, dimension);
+            // Sublinear weighting so repeated words don't dominate
+            float weight = (float) (1 + Math.log(feature.getValue()));
+            vector[bucket] += (hash & 0x80000000) == 0 ? weight : -weight;
+        }
+        
+        normalize(vector);
+        return vector;
+    }
+    
+    /**
+     * Murmur3 finaliser, spreads String.hashCode() over all bits
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.care.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour search
+ * Built over the vectors of a {@link VectorStore}; similarity is the dot
+ * product, which equals cosine similarity for normalised vectors. Only the
+ * graph links live on the heap, the vectors stay memory-mapped.
+ * 
+ * The graph is built once in the constructor and is read-only afterwards,
+ * so searches can run concurrently.
+ */
+public class HnswIndex {
+    
+    private static final Comparator<Candidate> CLOSEST_FIRST =
+        (a, b) -> Float.compare(b.similarity, a.similarity);
+    private static final Comparator<Candidate> FURTHEST_FIRST =
+        (a, b) -> Float.compare(a.similarity, b.similarity);
+    
+    // Graph size the configured search ef is meant for, and how fast ef grows beyond it
+    private static final int EF_BASE_SIZE = 10_000;
+    private static final double EF_GROWTH = 0.95;
+    
+    private final VectorStore store;
+    private final int maxLinks;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    
+    // links[node][level][0] is the neighbour count, followed by the neighbours
+    private final int[][][] links;
+    
+    // Visited sets handed out to searches, reused so a search never allocates or clears a store-sized set
+    private final Queue<VisitedMarks> visitedPool = new ConcurrentLinkedQueue<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    
+    /**
+     * Build the graph
+     * 
+     * @param store Vectors to index
+     * @param m Links per node on the upper levels (twice as many on level 0)
+     * @param efConstruction Candidate list size while inserting (higher = better recall, slower build)
+     */
+    public HnswIndex(VectorStore store, int m, int efConstruction) {
+        this.store = store;
+        this.maxLinks = Math.max(2, m);
+        this.maxLinksLevel0 = this.maxLinks * 2;
+        this.efConstruction = Math.max(efConstruction, this.maxLinks);
+        this.levelMultiplier = 1 / Math.log(this.maxLinks);
+        this.links = new int[store.size()][][];
+        
+        // Fixed seed so the same vectors always produce the same graph
+        Random random = new Random(42);
+        for (int node = 0; node < store.size(); node++) {
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            insert(node, level);
+        }
+    }
+    
+    /**
+     * Find the stored vectors most similar to a query
+     * 
+     * @param query Normalised query vector
+     * @param k Number of results
+     * @param ef Candidate list size (at least k; higher = better recall, slower)
+     * @return Up to k results, most similar first
+     */
+    public List<Result> search(float[] query, int k, int ef) {
+        List<Result> results = new ArrayList<>();
+        if (entryPoint < 0 || k <= 0) {
+            return results;
+        }
+        
+        Candidate nearest = new Candidate(entryPoint, store.dot(entryPoint, query));
+        for (int level = topLevel; level > 0; level--) {
+            nearest = searchLayer(query, Collections.singletonList(nearest), 1, level).get(0);
+        }
+        
+        List<Candidate> found = searchLayer(query, Collections.singletonList(nearest), Math.max(ef, k), 0);
+        for (int i = 0; i < Math.min(k, found.size()); i++) {
+            results.add(new Result(found.get(i).node, found.get(i).similarity));
+        }
+        return results;
+    }
+    
+    public int size() {
+        return store.size();
+    }
+    
+    /**
+     * Find the most similar stored vectors by comparing the query with every one
+     * Exact; for a few thousand vectors it is faster than building a graph to search.
+     *
+     * @return Up to k results, most similar first
+     */
+    public static List<Result> scan(VectorStore store, float[] query, int k) {
+        List<Result> results = new ArrayList<>();
+        if (k <= 0) {
+            return results;
+        }
+        
+        PriorityQueue<Candidate> best = new PriorityQueue<>(FURTHEST_FIRST);
+        for (int position = 0; position < store.size(); position++) {
+            float similarity = store.dot(position, query);
+            if (best.size() < k) {
+                best.add(new Candidate(position, similarity));
+            } else if (similarity > best.peek().similarity) {
+                best.poll();
+                best.add(new Candidate(position, similarity));
+            }
+        }
+        
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(CLOSEST_FIRST);
+        for (Candidate candidate : sorted) {
+            results.add(new Result(candidate.node, candidate.similarity));
+        }
+        return results;
+    }
+    
+    /**
+     * Search candidate list size for a graph of a given size
+     * At a fixed ef, recall falls as the graph grows; growing ef with
+     * size^EF_GROWTH kept top-5 recall near its 10,000-vector level in
+     * VectorSearchBenchmark.
+     *
+     * @param baseEf Candidate list size for a graph of 10,000 vectors
+     * @param size Number of vectors in the graph
+     */
+    public static int scaledEf(int baseEf, int size) {
+        if (size <= EF_BASE_SIZE) {
+            return baseEf;
+        }
+        return (int) Math.ceil(baseEf * Math.pow((double) size / EF_BASE_SIZE, EF_GROWTH));
+    }
+    
+    private void insert(int node, int level) {
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxLinksLevel0 : maxLinks) + 1];
+        }
+        
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return;
+        }
+        
+        float[] vector = store.getVector(node);
+        Candidate nearest = new Candidate(entryPoint, store.dot(entryPoint, vector));
+        
+        // Greedy descent through the levels above the new node
+        for (int l = topLevel; l > level; l--) {
+            nearest = searchLayer(vector, Collections.singletonList(nearest), 1, l).get(0);
+        }
+        
+        List<Candidate> entries = Collections.singletonList(nearest);
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> found = searchLayer(vector, entries, efConstruction, l);
+            for (Candidate neighbour : selectNeighbours(found, maxLinks)) {
+                addLink(node, neighbour.node, l);
+                addLink(neighbour.node, node, l);
+            }
+            entries = found;
+        }
+        
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+    }
+    
+    /**
+     * Best-first search of one level
+     * 
+     * @return Up to ef nodes, most similar first
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entries, int ef, int level) {
+        VisitedMarks visited = visitedPool.poll();
+        if (visited == null) {
+            visited = new VisitedMarks(store.size());
+        }
+        visited.clear();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(CLOSEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FURTHEST_FIRST);
+        
+        for (Candidate entry : entries) {
+            visited.set(entry.node);
+            candidates.add(entry);
+            results.add(entry);
+            if (results.size() > ef) {
+                results.poll();
+            }
+        }
+        
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.similarity < results.peek().similarity) {
+                break;
+            }
+            
+            int[] neighbours = links[current.node][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                
+                float similarity = store.dot(neighbour, query);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        
+        visitedPool.offer(visited);
+        
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(CLOSEST_FIRST);
+        return sorted;
+    }
+    
+    /**
+     * Neighbour selection heuristic: skip candidates that are closer to an
+     * already selected neighbour than to the node itself, which keeps links
+     * spread out in different directions (the skipped ones stay reachable
+     * through the neighbour that shadowed them)
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> sortedCandidates, int count) {
+        List<Candidate> selected = new ArrayList<>(count);
+        
+        for (Candidate candidate : sortedCandidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (store.dot(candidate.node, chosen.node) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * Add a directed link
+     * A full list is pruned with the same heuristic that picked the links in
+     * the first place; just dropping the least similar neighbour would let the
+     * links of well-connected nodes collapse into one direction as the graph grows.
+     */
+    private void addLink(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        
+        if (count < neighbours.length - 1) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+        
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        candidates.add(new Candidate(to, store.dot(from, to)));
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Candidate(neighbours[i], store.dot(from, neighbours[i])));
+        }
+        candidates.sort(CLOSEST_FIRST);
+        
+        List<Candidate> kept = selectNeighbours(candidates, count);
+        for (int i = 0; i < kept.size(); i++) {
+            neighbours[i + 1] = kept.get(i).node;
+        }
+        neighbours[0] = kept.size();
+    }
+    
+    /**
+     * Visited set of one search; a new generation number clears it
+     */
+    private static class VisitedMarks {
+        private final int[] marks;
+        private int generation;
+        
+        VisitedMarks(int size) {
+            this.marks = new int[size];
+        }
+        
+        void clear() {
+            if (++generation == 0) {
+                // Wrapped around after 2^32 searches; old marks could match again
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+        
+        boolean get(int node) {
+            return marks[node] == generation;
+        }
+        
+        void set(int node) {
+            marks[node] = generation;
+        }
+    }
+    
+    /**
+     * Node with its similarity to the current query
+     */
+    private static class Candidate {
+        private final int node;
+        private final float similarity;
+        
+        Candidate(int node, float similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+    }
+    
+    /**
+     * A search hit: position in the vector store and its similarity
+     */
+    public static class Result {
+        private final int position;
+        private final float similarity;
+        
+        public Result(int position, float similarity) {
+            this.position = position;
+            this.similarity = similarity;
+        }
+        
+        public int getPosition() { return position; }
+        public float getSimilarity() { return similarity; }
+    }
+}
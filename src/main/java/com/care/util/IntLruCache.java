@@ -0,0 +1,219 @@
+package com.care.util;
+
+import java.util.Arrays;
+
+/**
+ * Bounded least-recently-used map with primitive int keys
+ * Entries live in fixed slots: an open-addressing table maps keys to slots
+ * and a doubly linked list over the slots keeps the recency order, so
+ * lookups neither box keys nor allocate. When the map is full, put()
+ * replaces the least recently used entry.
+ * 
+ * Not thread-safe; callers synchronize.
+ */
+public class IntLruCache<V> {
+    
+    private static final int NIL = -1;
+    
+    private final int capacity;
+    private final int[] keys;
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+    
+    // Slot + 1 per bucket, 0 = empty bucket
+    private final int[] table;
+    private final int mask;
+    
+    private int head = NIL; // most recently used
+    private int tail = NIL; // least recently used
+    private int freeHead;
+    private int size;
+    
+    public IntLruCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.keys = new int[this.capacity];
+        this.values = new Object[this.capacity];
+        this.prev = new int[this.capacity];
+        this.next = new int[this.capacity];
+        
+        // Keep the table at most half full so probe chains stay short
+        int buckets = Integer.highestOneBit(this.capacity * 2 - 1) << 1;
+        this.table = new int[buckets];
+        this.mask = buckets - 1;
+        
+        resetFreeList();
+    }
+    
+    private void resetFreeList() {
+        // Free slots are chained through next[]
+        for (int slot = 0; slot < capacity; slot++) {
+            next[slot] = slot + 1 < capacity ? slot + 1 : NIL;
+        }
+        freeHead = 0;
+    }
+    
+    /**
+     * Get a value and mark it most recently used
+     * 
+     * @return The value, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        if (slot == NIL) {
+            return null;
+        }
+        moveToFront(slot);
+        return (V) values[slot];
+    }
+    
+    /**
+     * Insert or replace a value
+     * 
+     * @return true if the least recently used entry was evicted to make room
+     */
+    public boolean put(int key, V value) {
+        int slot = findSlot(key);
+        if (slot != NIL) {
+            values[slot] = value;
+            moveToFront(slot);
+            return false;
+        }
+        
+        boolean evicted = false;
+        if (size == capacity) {
+            slot = tail;
+            removeFromTable(keys[slot]);
+            unlink(slot);
+            size--;
+            evicted = true;
+        } else {
+            slot = freeHead;
+            freeHead = next[slot];
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        addToTable(key, slot);
+        linkFirst(slot);
+        size++;
+        return evicted;
+    }
+    
+    /**
+     * Remove a key
+     * 
+     * @return true if the key was present
+     */
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (slot == NIL) {
+            return false;
+        }
+        
+        removeFromTable(key);
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+        return true;
+    }
+    
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, null);
+        head = NIL;
+        tail = NIL;
+        size = 0;
+        resetFreeList();
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private int findSlot(int key) {
+        for (int bucket = hash(key) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int slot = table[bucket] - 1;
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return NIL;
+    }
+    
+    private void addToTable(int key, int slot) {
+        int bucket = hash(key) & mask;
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        table[bucket] = slot + 1;
+    }
+    
+    private void removeFromTable(int key) {
+        int bucket = hash(key) & mask;
+        while (keys[table[bucket] - 1] != key) {
+            bucket = (bucket + 1) & mask;
+        }
+        
+        // Backward-shift deletion: pull later entries of the probe chain into
+        // the hole so lookups never stop early at it
+        int hole = bucket;
+        for (int probe = (hole + 1) & mask; table[probe] != 0; probe = (probe + 1) & mask) {
+            int home = hash(keys[table[probe] - 1]) & mask;
+            boolean movable = hole <= probe
+                ? (home <= hole || home > probe)
+                : (home <= hole && home > probe);
+            if (movable) {
+                table[hole] = table[probe];
+                hole = probe;
+            }
+        }
+        table[hole] = 0;
+    }
+    
+    private void moveToFront(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkFirst(slot);
+        }
+    }
+    
+    private void linkFirst(int slot) {
+        prev[slot] = NIL;
+        next[slot] = head;
+        if (head != NIL) {
+            prev[head] = slot;
+        }
+        head = slot;
+        if (tail == NIL) {
+            tail = slot;
+        }
+    }
+    
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != NIL) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NIL) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+}
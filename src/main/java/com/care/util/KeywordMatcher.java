@@ -0,0 +1,154 @@
+package com.care.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive multi-keyword matcher (Aho-Corasick)
+ * All keywords are compiled into one automaton, so a text is scanned once
+ * no matter how many keywords are tracked. Keywords match anywhere in the
+ * text, the same as String.contains on lower-cased input.
+ */
+public class KeywordMatcher {
+    
+    private final List<String> keywords;
+    private final Map<Character, Integer> charClasses = new HashMap<>();
+    private final int[] asciiClasses = new int[128];
+    private final int[][] transitions;
+    private final int[][] outputs;
+    
+    /**
+     * Build the automaton
+     *
+     * @param keywords Keywords to match; the list index is the keyword ordinal
+     */
+    public KeywordMatcher(List<String> keywords) {
+        this.keywords = new ArrayList<>(keywords);
+        
+        // Class 0 stands for every character that appears in no keyword
+        for (String keyword : this.keywords) {
+            for (char c : keyword.toLowerCase().toCharArray()) {
+                if (!charClasses.containsKey(c)) {
+                    charClasses.put(c, charClasses.size() + 1);
+                }
+            }
+        }
+        for (Map.Entry<Character, Integer> entry : charClasses.entrySet()) {
+            if (entry.getKey() < 128) {
+                asciiClasses[entry.getKey()] = entry.getValue();
+            }
+        }
+        int alphabet = charClasses.size() + 1;
+        
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> matches = new ArrayList<>();
+        gotos.add(newState(alphabet));
+        matches.add(new ArrayList<>());
+        
+        for (int ordinal = 0; ordinal < this.keywords.size(); ordinal++) {
+            String keyword = this.keywords.get(ordinal).toLowerCase();
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            
+            int state = 0;
+            for (char c : keyword.toCharArray()) {
+                int cls = charClasses.get(c);
+                if (gotos.get(state)[cls] < 0) {
+                    gotos.get(state)[cls] = gotos.size();
+                    gotos.add(newState(alphabet));
+                    matches.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[cls];
+            }
+            matches.get(state).add(ordinal);
+        }
+        
+        // Failure links, folded into a full transition table (breadth first)
+        int[] fail = new int[gotos.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = gotos.get(0);
+        for (int cls = 0; cls < alphabet; cls++) {
+            if (root[cls] < 0) {
+                root[cls] = 0;
+            } else {
+                fail[root[cls]] = 0;
+                queue.add(root[cls]);
+            }
+        }
+        
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = gotos.get(state);
+            
+            for (int cls = 0; cls < alphabet; cls++) {
+                int next = row[cls];
+                if (next < 0) {
+                    row[cls] = gotos.get(fail[state])[cls];
+                } else {
+                    fail[next] = gotos.get(fail[state])[cls];
+                    matches.get(next).addAll(matches.get(fail[next]));
+                    queue.add(next);
+                }
+            }
+        }
+        
+        this.transitions = gotos.toArray(new int[0][]);
+        this.outputs = new int[matches.size()][];
+        for (int state = 0; state < matches.size(); state++) {
+            outputs[state] = matches.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+    
+    private static int[] newState(int alphabet) {
+        int[] row = new int[alphabet];
+        Arrays.fill(row, -1);
+        return row;
+    }
+    
+    /**
+     * Find which keywords occur in a text
+     *
+     * @param text Text to scan
+     * @param found Set to true at the ordinal of every keyword found; must hold size() entries
+     * @return Number of distinct keywords found
+     */
+    public int match(CharSequence text, boolean[] found) {
+        int distinct = 0;
+        int state = 0;
+        
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state][classOf(text.charAt(i))];
+            for (int ordinal : outputs[state]) {
+                if (!found[ordinal]) {
+                    found[ordinal] = true;
+                    distinct++;
+                }
+            }
+        }
+        
+        return distinct;
+    }
+    
+    private int classOf(char c) {
+        char lower = Character.toLowerCase(c);
+        if (lower < 128) {
+            return asciiClasses[lower];
+        }
+        return charClasses.getOrDefault(lower, 0);
+    }
+    
+    public String getKeyword(int ordinal) {
+        return keywords.get(ordinal);
+    }
+    
+    public int size() {
+        return keywords.size();
+    }
+}
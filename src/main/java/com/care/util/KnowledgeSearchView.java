@@ -0,0 +1,265 @@
+package com.care.util;
+
+import com.care.model.KnowledgeSearchHit;
+import com.care.service.KnowledgeSearchService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.TextFlow;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Search box and result list for product manuals
+ * Works like {@link TranscriptSearchView}: searches run in the background a
+ * moment after the user stops typing, older results are dropped, and the next
+ * page loads when the list is scrolled near its end. Hits show the manual and
+ * page with the matched words in bold; double-click or Enter shows the page.
+ *
+ * Must be used from the JavaFX Application Thread.
+ */
+public class KnowledgeSearchView {
+    
+    // Fetch the next page once the scroll bar is past this share of its range
+    private static final double PREFETCH_THRESHOLD = 0.9;
+    
+    private static ExecutorService searchExecutor;
+    
+    private final TextField searchField;
+    private final ListView<KnowledgeSearchHit> resultsList;
+    private final KnowledgeSearchService searchService = new KnowledgeSearchService();
+    private final PauseTransition debounce;
+    private final Label placeholder = new Label();
+    private ScrollBar verticalBar;
+    private Integer productId;
+    private String category;
+    private String currentText = "";
+    private volatile int generation;
+    // Last hit of the last loaded page; the list itself may be reordered or filtered
+    private KnowledgeSearchHit cursor;
+    private boolean hasMore;
+    private boolean loading;
+    
+    /**
+     * @param searchField Where the user types
+     * @param resultsList Shows the hits; hidden while the search field is empty
+     * @param productId Only this product's manual (null for all)
+     */
+    public KnowledgeSearchView(TextField searchField, ListView<KnowledgeSearchHit> resultsList, Integer productId) {
+        this.searchField = searchField;
+        this.resultsList = resultsList;
+        this.productId = productId;
+        
+        resultsList.setCellFactory(view -> new HitCell());
+        resultsList.setPlaceholder(placeholder);
+        resultsList.managedProperty().bind(resultsList.visibleProperty());
+        resultsList.setVisible(false);
+        
+        debounce = new PauseTransition(Duration.millis(Math.max(0, Config.getInstance().getSearchDebounceMillis())));
+        debounce.setOnFinished(e -> startSearch(searchField.getText()));
+        searchField.textProperty().addListener((obs, oldText, newText) -> debounce.playFromStart());
+        searchField.setOnAction(e -> {
+            debounce.stop();
+            startSearch(searchField.getText());
+        });
+        
+        resultsList.setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                openSelected();
+            }
+        });
+        resultsList.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                openSelected();
+            }
+        });
+        
+        // The scroll bar only exists once the list has been skinned
+        resultsList.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::attachScrollBar));
+        if (resultsList.getSkin() != null) {
+            attachScrollBar();
+        }
+    }
+    
+    private static synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "care-kb-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
+    
+    private void attachScrollBar() {
+        if (verticalBar != null) {
+            return;
+        }
+        
+        for (Node node : resultsList.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= verticalBar.getMax() * PREFETCH_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Limit the search to a product and/or category and search again
+     *
+     * @param productId Only this product's manual (null for all)
+     * @param category Only manuals of products in this category (null for all)
+     */
+    public void setFilters(Integer productId, String category) {
+        this.productId = productId;
+        this.category = category;
+        refresh();
+    }
+    
+    /**
+     * Drop the results and search again for the current text
+     */
+    public void refresh() {
+        startSearch(searchField.getText());
+    }
+    
+    private void startSearch(String text) {
+        currentText = text == null ? "" : text;
+        generation++;
+        resultsList.getItems().clear();
+        cursor = null;
+        hasMore = false;
+        loading = false;
+        
+        if (KnowledgeSearchService.toMatchQuery(currentText) == null) {
+            resultsList.setVisible(false);
+            return;
+        }
+        
+        resultsList.setVisible(true);
+        placeholder.setText("Searching...");
+        hasMore = true;
+        loadNextPage();
+    }
+    
+    private void loadNextPage() {
+        if (loading || !hasMore) {
+            return;
+        }
+        
+        loading = true;
+        int searchGeneration = generation;
+        String text = currentText;
+        Integer product = productId;
+        String productCategory = category;
+        KnowledgeSearchHit after = cursor;
+        
+        getSearchExecutor().execute(() -> {
+            // A newer search was started while this one waited
+            if (searchGeneration != generation) {
+                return;
+            }
+            boolean available = searchService.isAvailable();
+            List<KnowledgeSearchHit> page = searchService.search(text, product, productCategory, after);
+            
+            Platform.runLater(() -> {
+                if (searchGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                hasMore = page.size() >= searchService.getPageSize();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1);
+                }
+                resultsList.getItems().addAll(page);
+                placeholder.setText(available ? "No manual pages match \"" + text.trim() + "\"" : "Search is not available");
+            });
+        });
+    }
+    
+    private void openSelected() {
+        KnowledgeSearchHit hit = resultsList.getSelectionModel().getSelectedItem();
+        if (hit != null) {
+            showPage(hit);
+        }
+    }
+    
+    /**
+     * Show the full text of the page a hit points at
+     */
+    private void showPage(KnowledgeSearchHit hit) {
+        String content = searchService.getPageContent(hit);
+        
+        TextArea pageText = new TextArea(content != null ? content : "This page is no longer in the knowledge base.");
+        pageText.setEditable(false);
+        pageText.setWrapText(true);
+        pageText.setPrefSize(640, 420);
+        
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Manual Page");
+        alert.setHeaderText(hit.getProductName() != null ? hit.getLocation() + " · " + hit.getProductName() : hit.getLocation());
+        alert.getDialogPane().setContent(pageText);
+        alert.setResizable(true);
+        if (resultsList.getScene() != null) {
+            alert.initOwner(resultsList.getScene().getWindow());
+        }
+        alert.show();
+    }
+    
+    /**
+     * Hit cell: manual, page and product on one line, the snippet with matches in bold below
+     */
+    private class HitCell extends ListCell<KnowledgeSearchHit> {
+        
+        private final Label locationLabel = new Label();
+        private final TextFlow snippetFlow = new TextFlow();
+        private final VBox box = new VBox(4, locationLabel, snippetFlow);
+        
+        HitCell() {
+            locationLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d;");
+            snippetFlow.maxWidthProperty().bind(resultsList.widthProperty().subtract(40));
+            box.setStyle("-fx-padding: 6 4 6 4;");
+        }
+        
+        @Override
+        protected void updateItem(KnowledgeSearchHit hit, boolean empty) {
+            super.updateItem(hit, empty);
+            if (empty || hit == null) {
+                setGraphic(null);
+                return;
+            }
+            
+            StringBuilder location = new StringBuilder(hit.getLocation());
+            if (productId == null && hit.getProductName() != null) {
+                location.append(" · ").append(hit.getProductName());
+                if (hit.getCategory() != null) {
+                    location.append(" · ").append(hit.getCategory());
+                }
+            }
+            locationLabel.setText(location.toString());
+            
+            snippetFlow.getChildren().setAll(TranscriptSearchView.toTextNodes(hit.getSnippet()));
+            setGraphic(box);
+        }
+    }
+}
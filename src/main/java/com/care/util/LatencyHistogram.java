@@ -0,0 +1,101 @@
+package com.care.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed, roughly logarithmic buckets
+ * Percentiles are reported as the upper bound of the bucket they fall in,
+ * which is precise enough for dashboards and logs at a constant memory cost.
+ */
+public class LatencyHistogram {
+    
+    private static final long[] BOUNDS_MILLIS = {
+        5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000
+    };
+    
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    /**
+     * Record one observation
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = BOUNDS_MILLIS.length;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            if (millis < BOUNDS_MILLIS[i]) {
+                bucket = i;
+                break;
+            }
+        }
+        
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    public long getCount() {
+        return count.get();
+    }
+    
+    public double getMeanMillis() {
+        long n = count.get();
+        return n > 0 ? totalNanos.get() / 1_000_000.0 / n : 0.0;
+    }
+    
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * Get the bucket upper bound below which the given share of observations fall
+     * 
+     * @param percentile Between 0 and 100
+     * @return Upper bound in milliseconds (the maximum for the overflow bucket)
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0.0;
+        }
+        
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MILLIS[i], getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+    
+    /**
+     * Get the observation count of each bucket (the last one is the overflow bucket)
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+    
+    /**
+     * Get the exclusive upper bound of each bucket in milliseconds
+     */
+    public static long[] getBucketBoundsMillis() {
+        return BOUNDS_MILLIS.clone();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("n=%d, mean=%.0fms, p50<=%.0fms, p90<=%.0fms, p99<=%.0fms, max=%.0fms",
+            getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+            getPercentileMillis(99), getMaxMillis());
+    }
+}
@@ -0,0 +1,130 @@
+package com.care.util;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+
+/**
+ * Loads a TableView one page at a time
+ * The first page is loaded on reset(); the next page is appended when the
+ * user scrolls (or moves the focus) close to the last loaded row. TableView
+ * only creates cells for the visible rows, so a long queue costs one page
+ * query per scroll step instead of one big load up front.
+ *
+ * Pages continue from the last row the loader returned, not from the last
+ * row shown: a user sort reorders the table but not the keyset. Appended
+ * rows are sorted into the loaded rows when a sort is active.
+ *
+ * Must be used from the JavaFX Application Thread.
+ */
+public class LazyTablePager<T> {
+    
+    // Fetch the next page once the scroll bar is past this share of its range
+    private static final double PREFETCH_THRESHOLD = 0.9;
+    
+    private final TableView<T> table;
+    private final int pageSize;
+    private final PageLoader<T> loader;
+    private ScrollBar verticalBar;
+    private T cursor;
+    private boolean hasMore;
+    private boolean loading;
+    
+    /**
+     * Loads the page that follows a given row
+     */
+    public interface PageLoader<T> {
+        /**
+         * @param after Last row of the previous page (null for the first page)
+         * @param limit Maximum number of rows
+         * @return Rows following after; fewer than limit when the end is reached
+         */
+        List<T> load(T after, int limit);
+    }
+    
+    public LazyTablePager(TableView<T> table, int pageSize, PageLoader<T> loader) {
+        this.table = table;
+        this.pageSize = Math.max(1, pageSize);
+        this.loader = loader;
+        
+        // The scroll bar only exists once the table has been skinned
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::attachScrollBar));
+        if (table.getSkin() != null) {
+            attachScrollBar();
+        }
+        
+        // Keyboard navigation to the last row also loads more
+        table.getFocusModel().focusedIndexProperty().addListener((obs, oldIndex, newIndex) -> {
+            if (newIndex.intValue() >= table.getItems().size() - 1) {
+                loadNextPage();
+            }
+        });
+    }
+    
+    private void attachScrollBar() {
+        if (verticalBar != null) {
+            return;
+        }
+        
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= verticalBar.getMax() * PREFETCH_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drop all loaded rows and load the first page again
+     * Call after the filters or the underlying data changed
+     */
+    public void reset() {
+        table.getItems().clear();
+        cursor = null;
+        hasMore = true;
+        loadNextPage();
+        table.scrollTo(0);
+    }
+    
+    /**
+     * Append the next page if there is one
+     */
+    public void loadNextPage() {
+        if (loading || !hasMore) {
+            return;
+        }
+        
+        loading = true;
+        try {
+            List<T> page = loader.load(cursor, pageSize);
+            
+            hasMore = page.size() >= pageSize;
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1);
+            }
+            table.getItems().addAll(page);
+            if (!table.getSortOrder().isEmpty()) {
+                table.sort();
+            }
+        } finally {
+            loading = false;
+        }
+    }
+    
+    public boolean hasMore() {
+        return hasMore;
+    }
+    
+    public int getLoadedCount() {
+        return table.getItems().size();
+    }
+}
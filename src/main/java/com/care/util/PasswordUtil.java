@@ -2,13 +2,29 @@ package com.care.util;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.regex.Pattern;
+
 /**
  * Utility class for password hashing and verification using BCrypt
  */
 public class PasswordUtil {
     
-    // BCrypt workload factor (10 = 2^10 rounds, good balance of security and performance)
-    private static final int WORKLOAD = 10;
+    // BCrypt hashes start with $2a$, $2b$, or $2y$, then a two-digit cost, and are 60 characters long
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]\\$\\d{2}\\$.{53}$");
+    
+    // Range jBCrypt 0.4 accepts for the workload factor: gensalt() takes up to 31,
+    // but hashing with the salt fails with "Bad number of rounds" above 30
+    private static final int MIN_WORKLOAD = 4;
+    private static final int MAX_WORKLOAD = 30;
+    
+    /**
+     * Get the BCrypt workload factor new hashes are created with
+     * 2^cost rounds; each step up doubles the time of every login.
+     */
+    public static int getWorkload() {
+        int cost = Config.getInstance().getBcryptCost();
+        return Math.max(MIN_WORKLOAD, Math.min(MAX_WORKLOAD, cost));
+    }
     
     /**
      * Hash a password using BCrypt
@@ -20,7 +36,7 @@ public class PasswordUtil {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
         
-        String salt = BCrypt.gensalt(WORKLOAD);
+        String salt = BCrypt.gensalt(getWorkload());
         return BCrypt.hashpw(plainTextPassword, salt);
     }
     
@@ -50,12 +66,31 @@ public class PasswordUtil {
      * @return true if it's a valid BCrypt hash, false otherwise
      */
     public static boolean isBCryptHash(String hash) {
-        if (hash == null || hash.isEmpty()) {
+        if (hash == null || hash.length() != 60) {
             return false;
         }
         
-        // BCrypt hashes start with $2a$, $2b$, or $2y$ and are 60 characters long
-        return hash.matches("^\\$2[aby]\\$\\d{2}\\$.{53}$");
+        return BCRYPT_HASH.matcher(hash).matches();
+    }
+    
+    /**
+     * Get the workload factor a BCrypt hash was created with
+     * @param hash A valid BCrypt hash
+     * @return The cost, or -1 if the string is not a BCrypt hash
+     */
+    public static int getCost(String hash) {
+        if (!isBCryptHash(hash)) {
+            return -1;
+        }
+        return (hash.charAt(4) - '0') * 10 + (hash.charAt(5) - '0');
+    }
+    
+    /**
+     * Check if a stored password should be hashed again after a successful login
+     * @param hash The stored password
+     * @return true for plain text and for hashes made with a different cost
+     */
+    public static boolean needsRehash(String hash) {
+        return getCost(hash) != getWorkload();
     }
 }
-
@@ -0,0 +1,159 @@
+package com.care.util;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Extracts the text of a PDF page by page on a fork-join pool
+ * The page range is split into contiguous sub-ranges. Each leaf task opens
+ * its own PDDocument (PDFBox documents are not thread-safe), strips its
+ * pages one at a time and hands them to the sink in small batches, so no
+ * thread ever holds more than a batch of text.
+ */
+public class PdfPageExtractor {
+    
+    /**
+     * Receives batches of extracted pages; called concurrently from pool threads
+     */
+    public interface PageSink {
+        void accept(List<Page> pages) throws IOException;
+    }
+    
+    private final ForkJoinPool pool;
+    private final int minPagesPerTask;
+    private final int batchSize;
+    
+    /**
+     * @param pool Pool running the extraction tasks
+     * @param minPagesPerTask Smallest page range worth opening the document for
+     * @param batchSize Pages handed to the sink at a time
+     */
+    public PdfPageExtractor(ForkJoinPool pool, int minPagesPerTask, int batchSize) {
+        this.pool = pool;
+        this.minPagesPerTask = Math.max(1, minPagesPerTask);
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    /**
+     * Count the pages of a PDF
+     */
+    public static int countPages(File pdfFile) throws IOException {
+        try (PDDocument document = PDDocument.load(pdfFile, MemoryUsageSetting.setupTempFileOnly())) {
+            return document.getNumberOfPages();
+        }
+    }
+    
+    /**
+     * Extract every page of a PDF, blocking until all pages were delivered
+     * 
+     * @param pdfFile Document to read
+     * @param pageCount Number of pages (from {@link #countPages})
+     * @param cancelled Checked before every page
+     * @param sink Receives the pages; batches arrive in no particular order
+     * @throws IOException if the document cannot be read or the sink fails
+     * @throws CancellationException if cancelled returned true
+     */
+    public void extract(File pdfFile, int pageCount, BooleanSupplier cancelled, PageSink sink) throws IOException {
+        if (pageCount <= 0) {
+            return;
+        }
+        
+        // A few ranges per worker keeps threads busy when pages differ in cost
+        int leafSize = Math.max(minPagesPerTask,
+            (int) Math.ceil((double) pageCount / (pool.getParallelism() * 4)));
+        
+        try {
+            pool.invoke(new RangeTask(pdfFile, 1, pageCount, leafSize, batchSize, cancelled, sink));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Extracts pages [from, to] (1-based, inclusive), splitting large ranges
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final File pdfFile;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final int batchSize;
+        private final BooleanSupplier cancelled;
+        private final PageSink sink;
+        
+        RangeTask(File pdfFile, int from, int to, int leafSize, int batchSize, BooleanSupplier cancelled, PageSink sink) {
+            this.pdfFile = pdfFile;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.batchSize = batchSize;
+            this.cancelled = cancelled;
+            this.sink = sink;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from + 1 > leafSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeTask(pdfFile, from, mid, leafSize, batchSize, cancelled, sink),
+                          new RangeTask(pdfFile, mid + 1, to, leafSize, batchSize, cancelled, sink));
+                return;
+            }
+            
+            try (PDDocument document = PDDocument.load(pdfFile, MemoryUsageSetting.setupTempFileOnly())) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                List<Page> batch = new ArrayList<>(batchSize);
+                
+                for (int pageNumber = from; pageNumber <= to; pageNumber++) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Extraction cancelled");
+                    }
+                    
+                    stripper.setStartPage(pageNumber);
+                    stripper.setEndPage(pageNumber);
+                    batch.add(new Page(pageNumber, stripper.getText(document)));
+                    
+                    if (batch.size() >= batchSize) {
+                        sink.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                
+                if (!batch.isEmpty()) {
+                    sink.accept(batch);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * Text of one page
+     */
+    public static class Page {
+        private final int pageNumber;
+        private final String text;
+        
+        public Page(int pageNumber, String text) {
+            this.pageNumber = pageNumber;
+            this.text = text;
+        }
+        
+        public int getPageNumber() { return pageNumber; }
+        public String getText() { return text; }
+    }
+}
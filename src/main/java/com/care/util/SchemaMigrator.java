@@ -0,0 +1,148 @@
+package com.care.util;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Applies versioned schema migrations
+ * schema.sql is the baseline and runs on every start. Changes to existing
+ * databases (new indexes, dropped indexes, data fixes) go into numbered
+ * scripts under /com/care/sql/migrations/ instead. Each script runs once,
+ * in order, inside its own transaction, and is recorded in schema_version.
+ * 
+ * To add a migration, create the next NNN_name.sql script and append its
+ * name to MIGRATIONS. Never edit or reorder a migration that has shipped.
+ */
+public class SchemaMigrator {
+    
+    private static final String MIGRATIONS_PATH = "/com/care/sql/migrations/";
+    
+    // Ordered migration scripts; version N is MIGRATIONS[N - 1]
+    private static final String[] MIGRATIONS = {
+        "001_hot_path_indexes",
+        "002_message_keyset_index",
+        "003_message_fts",
+        "004_kb_page_search",
+        "005_ticket_priority_status_index"
+    };
+    
+    private final Connection connection;
+    
+    /**
+     * @param connection Writer connection; schema.sql must already have run on it
+     */
+    public SchemaMigrator(Connection connection) {
+        this.connection = connection;
+    }
+    
+    /**
+     * Latest schema version this build knows about
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.length;
+    }
+    
+    /**
+     * Get the version the database is at
+     * 
+     * @return Highest applied migration, 0 if none
+     * @throws SQLException if schema_version cannot be read
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * Apply all pending migrations in order
+     * Stops at the first migration that fails; it is rolled back and retried
+     * on the next start.
+     * 
+     * @return Number of migrations applied
+     */
+    public int migrate() {
+        int applied = 0;
+        
+        try {
+            int current = getCurrentVersion();
+            
+            if (current > MIGRATIONS.length) {
+                System.err.println("⚠ Database schema version " + current +
+                                   " is newer than this build (" + MIGRATIONS.length + ")");
+                return 0;
+            }
+            
+            for (int version = current + 1; version <= MIGRATIONS.length; version++) {
+                if (!apply(version, MIGRATIONS[version - 1])) {
+                    break;
+                }
+                applied++;
+            }
+            
+            System.out.println("✓ Database schema at version " + (current + applied) +
+                               (applied > 0 ? " (" + applied + " migrations applied)" : ""));
+        } catch (SQLException e) {
+            System.err.println("❌ Error reading schema version");
+            e.printStackTrace();
+        }
+        
+        return applied;
+    }
+    
+    /**
+     * Run one migration script and record it, all in one transaction
+     */
+    private boolean apply(int version, String name) throws SQLException {
+        List<String> statements;
+        try {
+            statements = SqlScript.load(MIGRATIONS_PATH + name + ".sql");
+        } catch (IOException e) {
+            System.err.println("❌ Error reading migration " + name);
+            e.printStackTrace();
+            return false;
+        }
+        
+        if (statements == null) {
+            System.err.println("❌ Migration script not found: " + name);
+            return false;
+        }
+        
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(
+                 "INSERT INTO schema_version (version, name) VALUES (?, ?)")) {
+            long start = System.nanoTime();
+            
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+            
+            record.setInt(1, version);
+            record.setString(2, name);
+            record.executeUpdate();
+            
+            connection.commit();
+            System.out.println("✓ Applied migration " + name + " in " +
+                               (System.nanoTime() - start) / 1_000_000 + " ms");
+            return true;
+        
+        } catch (SQLException e) {
+            connection.rollback();
+            System.err.println("❌ Migration " + name + " failed: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -71,6 +71,10 @@ public class SessionManager {
      * Log out the current user
      */
     public void logout() {
+        // Stop chat work still running for the user
+        if (currentUser != null) {
+            ChatTaskExecutor.getInstance().cancelUser(currentUser.getUserId());
+        }
         this.currentUser = null;
         this.selectedProduct = null;
         this.currentChatSession = null;
@@ -0,0 +1,82 @@
+package com.care.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a bundled .sql resource into single statements
+ * Statements end with a semicolon at the end of a line; blank lines and
+ * "--" comments are dropped. A CREATE TRIGGER statement runs until a line
+ * that is just "END;", so its body may hold several statements. Other
+ * statements that contain a semicolon at the end of a line (string
+ * literals ending a line) are not supported.
+ */
+public final class SqlScript {
+    
+    private static final Pattern TRIGGER_START =
+        Pattern.compile("CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b", Pattern.CASE_INSENSITIVE);
+    
+    private SqlScript() {
+    }
+    
+    /**
+     * Read the statements of a classpath resource
+     * 
+     * @param resource Absolute resource path, e.g. "/com/care/sql/schema.sql"
+     * @return Statements without the trailing semicolon, or null if the resource does not exist
+     * @throws IOException if the resource cannot be read
+     */
+    public static List<String> load(String resource) throws IOException {
+        InputStream stream = SqlScript.class.getResourceAsStream(resource);
+        if (stream == null) {
+            return null;
+        }
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            List<String> statements = new ArrayList<>();
+            StringBuilder currentStatement = new StringBuilder();
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                // Skip empty lines and pure comment lines
+                String trimmedLine = line.trim();
+                if (trimmedLine.isEmpty() || trimmedLine.startsWith("--")) {
+                    continue;
+                }
+                
+                // Remove inline comments
+                int commentIndex = trimmedLine.indexOf("--");
+                if (commentIndex > 0) {
+                    trimmedLine = trimmedLine.substring(0, commentIndex).trim();
+                }
+                
+                // Append line to current statement
+                currentStatement.append(trimmedLine).append(" ");
+                
+                // A line ending with a semicolon closes the statement,
+                // except inside a trigger body, which closes with END;
+                boolean inTrigger = TRIGGER_START.matcher(currentStatement).lookingAt();
+                boolean closes = inTrigger ? trimmedLine.equalsIgnoreCase("END;") : trimmedLine.endsWith(";");
+                if (closes) {
+                    String sql = currentStatement.toString().trim();
+                    sql = sql.substring(0, sql.length() - 1).trim();
+                    
+                    if (!sql.isEmpty()) {
+                        statements.add(sql);
+                    }
+                    
+                    // Reset for next statement
+                    currentStatement = new StringBuilder();
+                }
+            }
+            
+            return statements;
+        }
+    }
+}
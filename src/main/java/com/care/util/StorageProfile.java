@@ -0,0 +1,135 @@
+package com.care.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * SQLite storage tuning profile
+ * Holds the PRAGMA settings applied to every pooled connection
+ * (journal mode, synchronous, page cache, memory-mapped I/O, temp storage)
+ * and the thresholds used by the {@link CheckpointScheduler}.
+ */
+public class StorageProfile {
+    
+    private static final List<String> JOURNAL_MODES =
+        List.of("DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF");
+    private static final List<String> SYNCHRONOUS_MODES =
+        List.of("OFF", "NORMAL", "FULL", "EXTRA");
+    private static final List<String> TEMP_STORES =
+        List.of("DEFAULT", "FILE", "MEMORY");
+    
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeoutMillis;
+    private final long checkpointIntervalMillis;
+    private final long checkpointIdleMillis;
+    private final long walTruncateBytes;
+    
+    public StorageProfile(String journalMode, String synchronous, int cacheSize, long mmapSize,
+                          String tempStore, int busyTimeoutMillis, long checkpointIntervalMillis,
+                          long checkpointIdleMillis, long walTruncateBytes) {
+        this.journalMode = requireOneOf("journal_mode", journalMode, JOURNAL_MODES);
+        this.synchronous = requireOneOf("synchronous", synchronous, SYNCHRONOUS_MODES);
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = requireOneOf("temp_store", tempStore, TEMP_STORES);
+        this.busyTimeoutMillis = busyTimeoutMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.checkpointIdleMillis = checkpointIdleMillis;
+        this.walTruncateBytes = walTruncateBytes;
+    }
+    
+    /**
+     * Build the profile from config.properties
+     */
+    public static StorageProfile fromConfig(Config config) {
+        return new StorageProfile(
+            config.getDbJournalMode(),
+            config.getDbSynchronous(),
+            config.getDbCacheSize(),
+            config.getDbMmapSize(),
+            config.getDbTempStore(),
+            config.getDbBusyTimeoutMillis(),
+            config.getDbCheckpointIntervalMillis(),
+            config.getDbCheckpointIdleMillis(),
+            config.getDbWalTruncateBytes()
+        );
+    }
+    
+    /**
+     * Apply the per-connection PRAGMAs
+     * The journal mode is persistent for the whole database file, so it is
+     * only set through the writer connection.
+     *
+     * @param connection Physical connection to configure
+     * @param writer true for the writer connection, false for readers
+     * @throws SQLException if a PRAGMA fails
+     */
+    public void applyTo(Connection connection, boolean writer) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // Foreign keys and busy timeout are per-connection settings in SQLite
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            
+            if (writer) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = " + journalMode)) {
+                    if (rs.next() && !journalMode.equalsIgnoreCase(rs.getString(1))) {
+                        System.err.println("⚠ Requested journal_mode " + journalMode +
+                                         " but database is using " + rs.getString(1));
+                    }
+                }
+            }
+            
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+            
+            if (!writer) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+    }
+    
+    /**
+     * Validate a PRAGMA keyword since it is concatenated into SQL
+     */
+    private static String requireOneOf(String pragma, String value, List<String> allowed) {
+        String normalized = value == null ? "" : value.trim().toUpperCase();
+        if (!allowed.contains(normalized)) {
+            throw new IllegalArgumentException("Invalid " + pragma + " setting: " + value);
+        }
+        return normalized;
+    }
+    
+    public boolean isWalEnabled() {
+        return "WAL".equals(journalMode);
+    }
+    
+    public String getJournalMode() { return journalMode; }
+    public String getSynchronous() { return synchronous; }
+    public int getCacheSize() { return cacheSize; }
+    public long getMmapSize() { return mmapSize; }
+    public String getTempStore() { return tempStore; }
+    public int getBusyTimeoutMillis() { return busyTimeoutMillis; }
+    public long getCheckpointIntervalMillis() { return checkpointIntervalMillis; }
+    public long getCheckpointIdleMillis() { return checkpointIdleMillis; }
+    public long getWalTruncateBytes() { return walTruncateBytes; }
+    
+    @Override
+    public String toString() {
+        return "StorageProfile{" +
+                "journalMode=" + journalMode +
+                ", synchronous=" + synchronous +
+                ", cacheSize=" + cacheSize +
+                ", mmapSize=" + mmapSize +
+                ", tempStore=" + tempStore +
+                '}';
+    }
+}
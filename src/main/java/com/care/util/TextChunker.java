@@ -0,0 +1,166 @@
+package com.care.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits manual text into overlapping passages for retrieval
+ * Paragraphs are packed together until a chunk reaches the token limit;
+ * paragraphs that are too long on their own are split on sentence and then
+ * word boundaries. The last few units of each chunk are repeated at the
+ * start of the next one so an answer that spans a boundary is not lost.
+ */
+public class TextChunker {
+    
+    private final int maxTokens;
+    private final int overlapTokens;
+    private final TokenCounter tokenCounter;
+    
+    /**
+     * @param maxTokens Target size of each chunk
+     * @param overlapTokens How much of the previous chunk is repeated at the start of the next
+     */
+    public TextChunker(int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + maxTokens);
+        }
+        this.maxTokens = maxTokens;
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, maxTokens / 2));
+        this.tokenCounter = TokenCounter.getInstance();
+    }
+    
+    /**
+     * Build a chunker from config.properties
+     */
+    public static TextChunker fromConfig(Config config) {
+        return new TextChunker(config.getKbChunkTokens(), config.getKbChunkOverlapTokens());
+    }
+    
+    /**
+     * Split text into chunks
+     *
+     * @param text Full manual text
+     * @return Chunks in document order (empty if the text is blank)
+     */
+    public List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        
+        List<String> units = splitUnits(text);
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        
+        for (String unit : units) {
+            int unitTokens = tokenCounter.count(unit);
+            
+            if (!current.isEmpty() && currentTokens + unitTokens > maxTokens) {
+                chunks.add(String.join("\n", current));
+                
+                // Carry the tail of this chunk into the next one
+                List<String> overlap = new ArrayList<>();
+                int overlapSize = 0;
+                for (int i = current.size() - 1; i > 0; i--) {
+                    int size = tokenCounter.count(current.get(i));
+                    if (overlapSize + size > overlapTokens || overlapSize + size + unitTokens > maxTokens) {
+                        break;
+                    }
+                    overlap.add(0, current.get(i));
+                    overlapSize += size;
+                }
+                current = overlap;
+                currentTokens = overlapSize;
+            }
+            
+            current.add(unit);
+            currentTokens += unitTokens;
+        }
+        
+        if (!current.isEmpty()) {
+            chunks.add(String.join("\n", current));
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Break text into paragraphs, and oversized paragraphs into sentences or word runs
+     */
+    private List<String> splitUnits(String text) {
+        List<String> units = new ArrayList<>();
+        
+        for (String paragraph : text.split("\\n\\s*\\n")) {
+            String trimmed = paragraph.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            
+            if (tokenCounter.count(trimmed) <= maxTokens) {
+                units.add(trimmed);
+                continue;
+            }
+            
+            for (String sentence : trimmed.split("(?<=[.!?])\\s+")) {
+                if (tokenCounter.count(sentence) <= maxTokens) {
+                    units.add(sentence);
+                } else {
+                    splitWords(sentence, units);
+                }
+            }
+        }
+        
+        return units;
+    }
+    
+    /**
+     * Last resort for text without sentence breaks (tables, extracted PDF columns)
+     */
+    private void splitWords(String sentence, List<String> units) {
+        StringBuilder run = new StringBuilder();
+        int runTokens = 0;
+        
+        for (String word : sentence.split("\\s+")) {
+            // Counted with its leading space, the way it is encoded inside the run
+            int wordTokens = tokenCounter.count(" " + word);
+            if (run.length() > 0 && runTokens + wordTokens > maxTokens) {
+                units.add(run.toString());
+                run.setLength(0);
+                runTokens = 0;
+            }
+            // A single "word" longer than a chunk (e.g. a base64 blob) is cut hard
+            while (wordTokens > maxTokens) {
+                int cut = cutPoint(word);
+                units.add(word.substring(0, cut));
+                word = word.substring(cut);
+                wordTokens = tokenCounter.count(" " + word);
+            }
+            if (run.length() > 0) {
+                run.append(' ');
+            }
+            run.append(word);
+            runTokens += wordTokens;
+        }
+        
+        if (run.length() > 0) {
+            units.add(run.toString());
+        }
+    }
+    
+    /**
+     * Longest prefix of a word that fits in one chunk
+     */
+    private int cutPoint(String word) {
+        int low = 1;
+        int high = word.length() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (tokenCounter.count(word.substring(0, mid)) <= maxTokens) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,63 @@
+package com.care.util;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+
+/**
+ * Counts tokens the way the OpenAI chat models do
+ * Uses the byte-pair encoding of the configured model (cl100k_base when the
+ * model is unknown) plus the fixed per-message overhead of the chat format.
+ */
+public class TokenCounter {
+    
+    private static TokenCounter instance;
+    
+    // Every chat message is wrapped in <|start|>{role}\n{content}<|end|>\n
+    private static final int TOKENS_PER_MESSAGE = 3;
+    
+    // Every reply is primed with <|start|>assistant<|message|>
+    private static final int TOKENS_PER_REPLY = 3;
+    
+    private final Encoding encoding;
+    
+    private TokenCounter(String model) {
+        EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
+        this.encoding = registry.getEncodingForModel(model)
+            .orElseGet(() -> registry.getEncoding(EncodingType.CL100K_BASE));
+        System.out.println("✓ Token counter using " + encoding.getName() + " encoding");
+    }
+    
+    public static synchronized TokenCounter getInstance() {
+        if (instance == null) {
+            instance = new TokenCounter(Config.getInstance().getOpenAIModel());
+        }
+        return instance;
+    }
+    
+    /**
+     * Count the tokens in a piece of text
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding.countTokensOrdinary(text);
+    }
+    
+    /**
+     * Count the tokens a chat message takes up in a request, including its framing
+     */
+    public int countMessage(String content) {
+        // One extra token for the role name
+        return TOKENS_PER_MESSAGE + 1 + count(content);
+    }
+    
+    /**
+     * Tokens added once per request for the reply primer
+     */
+    public int getReplyOverhead() {
+        return TOKENS_PER_REPLY;
+    }
+}
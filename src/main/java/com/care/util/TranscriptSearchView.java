@@ -0,0 +1,283 @@
+package com.care.util;
+
+import com.care.dao.MessageSearchDAO;
+import com.care.model.MessageSearchHit;
+import com.care.service.TranscriptSearchService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Search box and result list for chat transcripts
+ * Searches run in the background a moment after the user stops typing; a
+ * newer search makes the results of an older one be dropped. Hits show the
+ * matched words in bold, and the next page is loaded when the list is
+ * scrolled near its end. Double-click or Enter opens a hit.
+ *
+ * Must be used from the JavaFX Application Thread.
+ */
+public class TranscriptSearchView {
+    
+    // Fetch the next page once the scroll bar is past this share of its range
+    private static final double PREFETCH_THRESHOLD = 0.9;
+    
+    private static ExecutorService searchExecutor;
+    
+    private final TextField searchField;
+    private final ListView<MessageSearchHit> resultsList;
+    private final Integer userId;
+    private final MessageSearchDAO.Order order;
+    private final Consumer<MessageSearchHit> onOpen;
+    private final TranscriptSearchService searchService = new TranscriptSearchService();
+    private final PauseTransition debounce;
+    private final Label placeholder = new Label();
+    private ScrollBar verticalBar;
+    private String currentText = "";
+    private volatile int generation;
+    // Last hit of the last loaded page; the list itself may be reordered or filtered
+    private MessageSearchHit cursor;
+    private boolean hasMore;
+    private boolean loading;
+    
+    /**
+     * @param searchField Where the user types
+     * @param resultsList Shows the hits; hidden while the search field is empty
+     * @param userId Only this customer's sessions (null for all)
+     * @param order Order of the hits
+     * @param onOpen Called with the hit the user opens
+     */
+    public TranscriptSearchView(TextField searchField, ListView<MessageSearchHit> resultsList, Integer userId,
+                                MessageSearchDAO.Order order, Consumer<MessageSearchHit> onOpen) {
+        this.searchField = searchField;
+        this.resultsList = resultsList;
+        this.userId = userId;
+        this.order = order;
+        this.onOpen = onOpen;
+        
+        resultsList.setCellFactory(view -> new HitCell());
+        resultsList.setPlaceholder(placeholder);
+        resultsList.managedProperty().bind(resultsList.visibleProperty());
+        resultsList.setVisible(false);
+        
+        debounce = new PauseTransition(Duration.millis(Math.max(0, Config.getInstance().getSearchDebounceMillis())));
+        debounce.setOnFinished(e -> startSearch(searchField.getText()));
+        searchField.textProperty().addListener((obs, oldText, newText) -> debounce.playFromStart());
+        searchField.setOnAction(e -> {
+            debounce.stop();
+            startSearch(searchField.getText());
+        });
+        
+        resultsList.setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                openSelected();
+            }
+        });
+        resultsList.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                openSelected();
+            }
+        });
+        
+        // The scroll bar only exists once the list has been skinned
+        resultsList.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::attachScrollBar));
+        if (resultsList.getSkin() != null) {
+            attachScrollBar();
+        }
+    }
+    
+    private static synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "care-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
+    
+    private void attachScrollBar() {
+        if (verticalBar != null) {
+            return;
+        }
+        
+        for (Node node : resultsList.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= verticalBar.getMax() * PREFETCH_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Drop the results and search again for the current text
+     */
+    public void refresh() {
+        startSearch(searchField.getText());
+    }
+    
+    private void startSearch(String text) {
+        currentText = text == null ? "" : text;
+        generation++;
+        resultsList.getItems().clear();
+        cursor = null;
+        hasMore = false;
+        loading = false;
+        
+        if (TranscriptSearchService.toMatchQuery(currentText) == null) {
+            resultsList.setVisible(false);
+            return;
+        }
+        
+        resultsList.setVisible(true);
+        placeholder.setText("Searching...");
+        hasMore = true;
+        loadNextPage();
+    }
+    
+    private void loadNextPage() {
+        if (loading || !hasMore) {
+            return;
+        }
+        
+        loading = true;
+        int searchGeneration = generation;
+        String text = currentText;
+        MessageSearchHit after = cursor;
+        
+        getSearchExecutor().execute(() -> {
+            // A newer search was started while this one waited
+            if (searchGeneration != generation) {
+                return;
+            }
+            boolean available = searchService.isAvailable();
+            List<MessageSearchHit> page = searchService.search(text, userId, order, after);
+            
+            Platform.runLater(() -> {
+                if (searchGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                hasMore = page.size() >= searchService.getPageSize();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1);
+                }
+                resultsList.getItems().addAll(page);
+                placeholder.setText(available ? "No messages match \"" + text.trim() + "\"" : "Search is not available");
+            });
+        });
+    }
+    
+    private void openSelected() {
+        MessageSearchHit hit = resultsList.getSelectionModel().getSelectedItem();
+        if (hit != null && onOpen != null) {
+            onOpen.accept(hit);
+        }
+    }
+    
+    /**
+     * Hit cell: session details on one line, the snippet with matches in bold below
+     */
+    private class HitCell extends ListCell<MessageSearchHit> {
+        
+        private final Label detailsLabel = new Label();
+        private final TextFlow snippetFlow = new TextFlow();
+        private final VBox box = new VBox(4, detailsLabel, snippetFlow);
+        
+        HitCell() {
+            detailsLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #6c757d;");
+            snippetFlow.maxWidthProperty().bind(resultsList.widthProperty().subtract(40));
+            box.setStyle("-fx-padding: 6 4 6 4;");
+        }
+        
+        @Override
+        protected void updateItem(MessageSearchHit hit, boolean empty) {
+            super.updateItem(hit, empty);
+            if (empty || hit == null) {
+                setGraphic(null);
+                return;
+            }
+            
+            StringBuilder details = new StringBuilder("Session #" + hit.getSessionId());
+            if (userId == null && hit.getUserName() != null) {
+                details.append(" · ").append(hit.getUserName());
+            }
+            if (hit.getProductName() != null) {
+                details.append(" · ").append(hit.getProductName());
+            }
+            details.append(" · ").append(senderLabel(hit.getSenderType()));
+            if (hit.getTimestamp() != null) {
+                details.append(" · ").append(hit.getTimestamp());
+            }
+            detailsLabel.setText(details.toString());
+            
+            snippetFlow.getChildren().setAll(toTextNodes(hit.getSnippet()));
+            setGraphic(box);
+        }
+    }
+    
+    private static String senderLabel(String senderType) {
+        if ("USER".equals(senderType)) {
+            return "Customer";
+        }
+        if ("BOT".equals(senderType)) {
+            return "AI Assistant";
+        }
+        if ("AGENT".equals(senderType)) {
+            return "Agent";
+        }
+        return "System";
+    }
+    
+    /**
+     * Split a snippet into plain and bold runs at the highlight markers
+     * Also used for manual search hits, which use the same markers
+     */
+    static List<Text> toTextNodes(String snippet) {
+        List<Text> nodes = new ArrayList<>();
+        if (snippet == null) {
+            return nodes;
+        }
+        
+        StringBuilder run = new StringBuilder();
+        boolean highlighted = false;
+        for (int i = 0; i <= snippet.length(); i++) {
+            char c = i < snippet.length() ? snippet.charAt(i) : MessageSearchHit.HIGHLIGHT_START;
+            if (c == MessageSearchHit.HIGHLIGHT_START || c == MessageSearchHit.HIGHLIGHT_END) {
+                if (run.length() > 0) {
+                    Text text = new Text(run.toString().replace('\n', ' '));
+                    text.setStyle(highlighted ? "-fx-font-weight: bold; -fx-fill: #0d6efd;" : "-fx-fill: #212529;");
+                    nodes.add(text);
+                    run.setLength(0);
+                }
+                highlighted = c == MessageSearchHit.HIGHLIGHT_START;
+            } else {
+                run.append(c);
+            }
+        }
+        return nodes;
+    }
+}
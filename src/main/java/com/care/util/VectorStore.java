@@ -0,0 +1,209 @@
+package com.care.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size float vectors kept in a memory-mapped file
+ * The vectors live outside the Java heap; the OS pages them in on demand
+ * and shares them between runs through the page cache.
+ * 
+ * File layout (little-endian):
+ * magic, format version, dimension, count, provider fingerprint,
+ * then count ids, then count * dimension floats.
+ */
+public class VectorStore {
+    
+    private static final int MAGIC = 0x43415245; // "CARE"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    
+    private final int dimension;
+    private final int[] ids;
+    private final FloatBuffer vectors;
+    
+    private VectorStore(int dimension, int[] ids, FloatBuffer vectors) {
+        this.dimension = dimension;
+        this.ids = ids;
+        this.vectors = vectors;
+    }
+    
+    /**
+     * Map an existing vector file
+     * 
+     * @param file Vector file
+     * @param dimension Expected vector length
+     * @param fingerprint Expected embedding provider fingerprint
+     * @param expectedIds Ids the file must contain, in order
+     * @return The store, or null if the file is missing or was written for different data
+     * @throws IOException if the file cannot be read
+     */
+    public static VectorStore load(Path file, int dimension, int fingerprint, int[] expectedIds) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long expectedSize = HEADER_BYTES + (long) expectedIds.length * Integer.BYTES +
+                                (long) expectedIds.length * dimension * Float.BYTES;
+            if (channel.size() != expectedSize) {
+                return null;
+            }
+            
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION ||
+                buffer.getInt() != dimension || buffer.getInt() != expectedIds.length ||
+                buffer.getInt() != fingerprint) {
+                return null;
+            }
+            
+            int[] ids = new int[expectedIds.length];
+            buffer.asIntBuffer().get(ids);
+            if (!Arrays.equals(ids, expectedIds)) {
+                return null;
+            }
+            
+            buffer.position(HEADER_BYTES + ids.length * Integer.BYTES);
+            FloatBuffer vectors = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new VectorStore(dimension, ids, vectors);
+        }
+    }
+    
+    /**
+     * Write vectors to a new file and map it
+     * The file is written under a temporary name of its own (so concurrent
+     * writers never share one) and moved into place.
+     * 
+     * @param file Target file
+     * @param dimension Vector length
+     * @param fingerprint Embedding provider fingerprint
+     * @param ids Id of each vector
+     * @param data Vectors, same order as ids
+     * @return The mapped store
+     * @throws IOException if the file cannot be written
+     */
+    public static VectorStore write(Path file, int dimension, int fingerprint, int[] ids, List<float[]> data) throws IOException {
+        if (ids.length != data.size()) {
+            throw new IllegalArgumentException("Got " + ids.length + " ids for " + data.size() + " vectors");
+        }
+        
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+        
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dimension).putInt(ids.length).putInt(fingerprint);
+            for (int id : ids) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    drain(channel, buffer);
+                }
+                buffer.putInt(id);
+            }
+            for (float[] vector : data) {
+                if (vector.length != dimension) {
+                    throw new IllegalArgumentException("Vector length " + vector.length + " != " + dimension);
+                }
+                for (float value : vector) {
+                    if (buffer.remaining() < Float.BYTES) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putFloat(value);
+                }
+            }
+            drain(channel, buffer);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return load(file, dimension, fingerprint, ids);
+    }
+    
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Dot product of a stored vector with a query vector
+     * Four independent accumulators keep the multiply-adds from waiting on each other
+     */
+    public float dot(int position, float[] query) {
+        int base = position * dimension;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += vectors.get(base + i) * query[i];
+            s1 += vectors.get(base + i + 1) * query[i + 1];
+            s2 += vectors.get(base + i + 2) * query[i + 2];
+            s3 += vectors.get(base + i + 3) * query[i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += vectors.get(base + i) * query[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+    
+    /**
+     * Dot product of two stored vectors
+     */
+    public float dot(int a, int b) {
+        int baseA = a * dimension;
+        int baseB = b * dimension;
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += vectors.get(baseA + i) * vectors.get(baseB + i);
+            s1 += vectors.get(baseA + i + 1) * vectors.get(baseB + i + 1);
+            s2 += vectors.get(baseA + i + 2) * vectors.get(baseB + i + 2);
+            s3 += vectors.get(baseA + i + 3) * vectors.get(baseB + i + 3);
+        }
+        for (; i < dimension; i++) {
+            s0 += vectors.get(baseA + i) * vectors.get(baseB + i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+    
+    /**
+     * Copy a stored vector onto the heap
+     */
+    public float[] getVector(int position) {
+        float[] vector = new float[dimension];
+        vectors.get(position * dimension, vector);
+        return vector;
+    }
+    
+    /**
+     * Get the id stored for a position
+     */
+    public int getId(int position) {
+        return ids[position];
+    }
+    
+    public int size() {
+        return ids.length;
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+}
@@ -0,0 +1,26 @@
+-- ==========================================
+-- 001: Indexes for the hot lookup paths
+-- ==========================================
+
+-- MESSAGES: conversation history (session_id = ? ORDER BY timestamp), per-session
+-- counts and deletes, and the ON DELETE CASCADE from chat_sessions
+CREATE INDEX IF NOT EXISTS idx_messages_session_time ON messages(session_id, timestamp);
+
+-- CHAT SESSIONS: customer history and agent queues, newest first
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_user_created ON chat_sessions(user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_agent_created ON chat_sessions(assigned_agent_id, created_at);
+
+-- Active session list, newest first (status alone would still need a sort)
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_status_created ON chat_sessions(status, created_at);
+
+-- TICKETS: priority filter, newest first
+CREATE INDEX IF NOT EXISTS idx_tickets_priority_created ON tickets(priority, created_at);
+
+-- Superseded by idx_tickets_status_created
+DROP INDEX IF EXISTS idx_tickets_status;
+
+-- KNOWLEDGE BASE: manuals per product
+CREATE INDEX IF NOT EXISTS idx_knowledge_base_product ON knowledge_base(product_id, kb_id);
+
+-- KB CHUNKS: re-chunking one manual and the ON DELETE CASCADE from knowledge_base
+CREATE INDEX IF NOT EXISTS idx_kb_chunks_kb ON kb_chunks(kb_id);
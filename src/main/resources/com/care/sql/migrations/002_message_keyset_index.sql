@@ -0,0 +1,7 @@
+-- ==========================================
+-- 002: Keyset paging of chat transcripts
+-- ==========================================
+
+-- MESSAGES: pages of a transcript walked backwards by message ID
+-- (session_id = ? AND message_id < ? ORDER BY message_id DESC LIMIT ?)
+CREATE INDEX IF NOT EXISTS idx_messages_session_id ON messages(session_id, message_id);
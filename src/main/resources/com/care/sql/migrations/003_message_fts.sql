@@ -0,0 +1,32 @@
+-- ==========================================
+-- 003: Full-text search over chat transcripts
+-- ==========================================
+
+-- MESSAGES_FTS: FTS5 index over messages.content. External content table,
+-- so the text itself is stored only once, in messages; rowid = message_id.
+-- prefix='2 3' keeps search-as-you-type prefix queries off a full term scan.
+CREATE VIRTUAL TABLE IF NOT EXISTS messages_fts USING fts5(
+    content,
+    content = 'messages',
+    content_rowid = 'message_id',
+    tokenize = 'porter unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+-- Kept in sync by triggers, so every writer (MessageDAO, the message journal,
+-- deletes cascading from chat_sessions) updates the index in the same transaction
+CREATE TRIGGER IF NOT EXISTS messages_fts_insert AFTER INSERT ON messages BEGIN
+    INSERT INTO messages_fts (rowid, content) VALUES (new.message_id, new.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS messages_fts_delete AFTER DELETE ON messages BEGIN
+    INSERT INTO messages_fts (messages_fts, rowid, content) VALUES ('delete', old.message_id, old.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS messages_fts_update AFTER UPDATE OF content ON messages BEGIN
+    INSERT INTO messages_fts (messages_fts, rowid, content) VALUES ('delete', old.message_id, old.content);
+    INSERT INTO messages_fts (rowid, content) VALUES (new.message_id, new.content);
+END;
+
+-- Index the messages already stored
+INSERT INTO messages_fts (messages_fts) VALUES ('rebuild');
@@ -0,0 +1,56 @@
+-- ==========================================
+-- 004: Page-level full-text search over manuals
+-- ==========================================
+
+-- KB_PAGES: Manual text split by PDF page, so search hits can name the page.
+-- page_number is NULL for entries that were not ingested page by page
+-- (seeded FAQ rows, manuals published before this migration until re-ingested).
+CREATE TABLE IF NOT EXISTS kb_pages (
+    page_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    kb_id INTEGER NOT NULL,
+    product_id INTEGER NOT NULL,
+    page_number INTEGER,
+    content TEXT NOT NULL,
+    FOREIGN KEY (kb_id) REFERENCES knowledge_base(kb_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_kb_pages_kb ON kb_pages(kb_id, page_number);
+CREATE INDEX IF NOT EXISTS idx_kb_pages_product ON kb_pages(product_id);
+
+-- KB_PAGES_FTS: FTS5 index over kb_pages (external content, rowid = page_id).
+-- product_id is indexed as a token so a product filter is part of the MATCH
+-- and only that product's pages are ranked, instead of every matching page.
+CREATE VIRTUAL TABLE IF NOT EXISTS kb_pages_fts USING fts5(
+    content,
+    product_id,
+    content = 'kb_pages',
+    content_rowid = 'page_id',
+    tokenize = 'porter unicode61 remove_diacritics 2'
+);
+
+-- Default rank: bm25 on the page text only
+INSERT INTO kb_pages_fts (kb_pages_fts, rank) VALUES ('rank', 'bm25(1.0, 0.0)');
+
+CREATE TRIGGER IF NOT EXISTS kb_pages_fts_insert AFTER INSERT ON kb_pages BEGIN
+    INSERT INTO kb_pages_fts (rowid, content, product_id) VALUES (new.page_id, new.content, new.product_id);
+END;
+
+CREATE TRIGGER IF NOT EXISTS kb_pages_fts_delete AFTER DELETE ON kb_pages BEGIN
+    INSERT INTO kb_pages_fts (kb_pages_fts, rowid, content, product_id) VALUES ('delete', old.page_id, old.content, old.product_id);
+END;
+
+CREATE TRIGGER IF NOT EXISTS kb_pages_fts_update AFTER UPDATE OF content, product_id ON kb_pages BEGIN
+    INSERT INTO kb_pages_fts (kb_pages_fts, rowid, content, product_id) VALUES ('delete', old.page_id, old.content, old.product_id);
+    INSERT INTO kb_pages_fts (rowid, content, product_id) VALUES (new.page_id, new.content, new.product_id);
+END;
+
+-- Entries written with their text (the seeded FAQ rows in schema.sql) become a
+-- single page; ingested manuals are inserted empty and get their pages on publish
+CREATE TRIGGER IF NOT EXISTS kb_pages_from_entry AFTER INSERT ON knowledge_base
+WHEN new.product_id IS NOT NULL AND new.content <> '' BEGIN
+    INSERT INTO kb_pages (kb_id, product_id, page_number, content) VALUES (new.kb_id, new.product_id, NULL, new.content);
+END;
+
+-- Index the entries already stored
+INSERT INTO kb_pages (kb_id, product_id, page_number, content)
+SELECT kb_id, product_id, NULL, content FROM knowledge_base WHERE product_id IS NOT NULL AND content <> '';
@@ -0,0 +1,7 @@
+-- ==========================================
+-- 005: Ticket counts under a priority filter
+-- ==========================================
+
+-- TICKETS: per-status counts of one priority (admin ticket table statistics)
+-- are read from this index alone instead of being grouped in a temporary b-tree
+CREATE INDEX IF NOT EXISTS idx_tickets_priority_status ON tickets(priority, status);
@@ -43,6 +43,44 @@ CREATE TABLE IF NOT EXISTS knowledge_base (
     FOREIGN KEY (product_id) REFERENCES products(product_id)
 );
 
+-- KB CHUNKS: Manual text split into passages for retrieval
+CREATE TABLE IF NOT EXISTS kb_chunks (
+    chunk_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    kb_id INTEGER NOT NULL,
+    product_id INTEGER NOT NULL,
+    chunk_index INTEGER NOT NULL, -- Position of the chunk within the manual
+    content TEXT NOT NULL,
+    token_count INTEGER NOT NULL, -- Estimated prompt tokens
+    FOREIGN KEY (kb_id) REFERENCES knowledge_base(kb_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_kb_chunks_product ON kb_chunks(product_id, kb_id, chunk_index);
+
+-- KB INGEST JOBS: Background extraction of uploaded manuals
+CREATE TABLE IF NOT EXISTS kb_ingest_jobs (
+    job_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    product_id INTEGER NOT NULL,
+    title TEXT NOT NULL,
+    source_path TEXT NOT NULL,
+    status TEXT CHECK(status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED', 'CANCELLED')) DEFAULT 'QUEUED',
+    pages_total INTEGER DEFAULT 0,
+    pages_done INTEGER DEFAULT 0,
+    char_count INTEGER DEFAULT 0,
+    error_message TEXT,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    finished_at DATETIME,
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE
+);
+
+-- KB INGEST PAGES: Extracted page text staged until the job is published
+CREATE TABLE IF NOT EXISTS kb_ingest_pages (
+    job_id INTEGER NOT NULL,
+    page_number INTEGER NOT NULL,
+    content TEXT NOT NULL,
+    PRIMARY KEY (job_id, page_number),
+    FOREIGN KEY (job_id) REFERENCES kb_ingest_jobs(job_id) ON DELETE CASCADE
+);
+
 -- CHAT SESSIONS: Grouping messages together
 CREATE TABLE IF NOT EXISTS chat_sessions (
     session_id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -58,6 +96,10 @@ CREATE TABLE IF NOT EXISTS chat_sessions (
     FOREIGN KEY (assigned_agent_id) REFERENCES users(user_id)
 );
 
+-- Analytics aggregates group sessions by status/product and by creation day
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_status_product ON chat_sessions(status, product_id);
+CREATE INDEX IF NOT EXISTS idx_chat_sessions_created ON chat_sessions(created_at);
+
 -- MESSAGES: Individual chat bubbles
 CREATE TABLE IF NOT EXISTS messages (
     message_id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -68,6 +110,16 @@ CREATE TABLE IF NOT EXISTS messages (
     FOREIGN KEY (session_id) REFERENCES chat_sessions(session_id) ON DELETE CASCADE
 );
 
+-- CHAT SESSION SUMMARIES: Running summary of the older part of a long conversation
+CREATE TABLE IF NOT EXISTS chat_session_summaries (
+    session_id INTEGER PRIMARY KEY,
+    summary TEXT NOT NULL,
+    summarized_count INTEGER NOT NULL DEFAULT 0, -- Leading non-system messages folded into the summary
+    token_count INTEGER NOT NULL DEFAULT 0,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (session_id) REFERENCES chat_sessions(session_id) ON DELETE CASCADE
+);
+
 -- TICKETS: For Human Agent Support
 CREATE TABLE IF NOT EXISTS tickets (
     ticket_id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -82,6 +134,30 @@ CREATE TABLE IF NOT EXISTS tickets (
     FOREIGN KEY (assigned_agent_id) REFERENCES users(user_id)
 );
 
+-- Analytics aggregates group tickets by status, agent and creation hour;
+-- the ticket tables page through them newest first with the same filters
+CREATE INDEX IF NOT EXISTS idx_tickets_status_created ON tickets(status, created_at);
+CREATE INDEX IF NOT EXISTS idx_tickets_agent_status ON tickets(assigned_agent_id, status);
+CREATE INDEX IF NOT EXISTS idx_tickets_agent_created ON tickets(assigned_agent_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_tickets_created ON tickets(created_at);
+
+-- ANALYTICS ROLLUPS: Counters kept up to date by the session and ticket DAOs
+-- dimension TOTAL (bucket ''), DAY ('YYYY-MM-DD'), HOUR ('00'-'23'), PRODUCT (product_id), AGENT (user_id)
+CREATE TABLE IF NOT EXISTS analytics_rollups (
+    dimension TEXT CHECK(dimension IN ('TOTAL', 'DAY', 'HOUR', 'PRODUCT', 'AGENT')) NOT NULL,
+    bucket TEXT NOT NULL,
+    metric TEXT NOT NULL,
+    value INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, metric, bucket)
+) WITHOUT ROWID;
+
+-- SCHEMA VERSION: Migrations applied on top of this file (see SchemaMigrator)
+CREATE TABLE IF NOT EXISTS schema_version (
+    version INTEGER PRIMARY KEY,
+    name TEXT NOT NULL,
+    applied_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
 -- ==========================================
 -- 3. INSERT MOCK DATA (Only if tables are empty)
 -- ==========================================
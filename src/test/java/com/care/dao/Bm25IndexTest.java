@@ -0,0 +1,75 @@
+package com.care.dao;
+
+import com.care.util.Bm25Index;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ranking of manual chunks by the BM25 index the knowledge retrieval uses
+ */
+class Bm25IndexTest {
+    
+    private static final List<String> CHUNKS = Arrays.asList(
+        "To reset the router to factory settings, hold the reset button for 10 seconds.",
+        "The router firmware can be updated from the admin page under System > Update.",
+        "If the laptop battery does not charge, check the power adapter and the charging light.",
+        "Wi-Fi drops are often caused by channel interference; change the wireless channel.",
+        "The warranty covers hardware faults for two years from the date of purchase."
+    );
+    
+    private final Bm25Index index = new Bm25Index(CHUNKS);
+    
+    @Test
+    void bestMatchingChunkComesFirst() {
+        assertEquals(0, top(index.search("How do I factory reset my router?", 3)));
+        assertEquals(1, top(index.search("update firmware", 3)));
+        assertEquals(2, top(index.search("battery not charging", 3)));
+        assertEquals(3, top(index.search("wifi keeps dropping, wireless channel", 3)));
+    }
+    
+    @Test
+    void resultsAreOrderedByScoreAndLimited() {
+        List<Bm25Index.Result> results = index.search("router reset", 5);
+        
+        // Only the two router chunks share a term with the query
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).getDocument());
+        assertEquals(1, results.get(1).getDocument());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+        
+        assertEquals(1, index.search("router reset", 1).size());
+    }
+    
+    @Test
+    void rareTermsOutweighCommonOnes() {
+        // "router" is in two chunks, "warranty" in one
+        assertEquals(4, top(index.search("router warranty", 2)));
+    }
+    
+    @Test
+    void repeatedQueryTermsWeighMore() {
+        List<Bm25Index.Result> once = index.search("router battery", 2);
+        List<Bm25Index.Result> boosted = index.search("router battery battery battery", 2);
+        
+        assertEquals(2, top(boosted));
+        assertTrue(boosted.get(0).getScore() > once.get(0).getScore());
+    }
+    
+    @Test
+    void stopWordsAndUnknownTermsMatchNothing() {
+        assertTrue(index.search("how do I do it", 5).isEmpty());
+        assertTrue(index.search("printer toner", 5).isEmpty());
+        assertTrue(index.search("router", 0).isEmpty());
+        assertTrue(new Bm25Index(List.of()).search("router", 5).isEmpty());
+    }
+    
+    private static int top(List<Bm25Index.Result> results) {
+        assertTrue(!results.isEmpty(), "no results");
+        return results.get(0).getDocument();
+    }
+}
@@ -0,0 +1,104 @@
+package com.care.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Read-through, copy and invalidation behaviour of the entity cache
+ * Rows are StringBuilders: mutable, and copied with their copy constructor.
+ */
+class EntityCacheTest {
+    
+    private final AtomicInteger loads = new AtomicInteger();
+    
+    private final IntFunction<StringBuilder> loader = id -> {
+        loads.incrementAndGet();
+        return new StringBuilder("row " + id);
+    };
+    
+    private static EntityCache<StringBuilder> newCache() {
+        return new EntityCache<>("test", StringBuilder::new);
+    }
+    
+    @Test
+    void secondLookupIsServedWithoutLoading() {
+        EntityCache<StringBuilder> cache = newCache();
+        
+        assertEquals("row 1", cache.get(1, loader).toString());
+        assertEquals("row 1", cache.get(1, loader).toString());
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    void callersGetCopiesTheyCanChange() {
+        EntityCache<StringBuilder> cache = newCache();
+        
+        StringBuilder first = cache.get(1, loader);
+        first.append(" changed by the caller");
+        StringBuilder second = cache.get(1, loader);
+        
+        assertNotSame(first, second);
+        assertEquals("row 1", second.toString());
+    }
+    
+    @Test
+    void invalidateMakesTheNextLookupLoadAgain() {
+        EntityCache<StringBuilder> cache = newCache();
+        cache.get(1, loader);
+        cache.get(2, loader);
+        
+        cache.invalidate(1);
+        cache.get(1, loader);
+        cache.get(2, loader);
+        
+        assertEquals(3, loads.get());
+    }
+    
+    @Test
+    void invalidateAllDropsEveryRow() {
+        EntityCache<StringBuilder> cache = newCache();
+        cache.get(1, loader);
+        cache.get(2, loader);
+        
+        cache.invalidateAll();
+        cache.get(1, loader);
+        cache.get(2, loader);
+        
+        assertEquals(4, loads.get());
+    }
+    
+    @Test
+    void loadThatRacedAWriteIsNotCached() {
+        EntityCache<StringBuilder> cache = newCache();
+        // The row is updated (and invalidated) while it is being read
+        IntFunction<StringBuilder> racingLoader = id -> {
+            StringBuilder row = loader.apply(id);
+            cache.invalidate(id);
+            return row;
+        };
+        
+        cache.get(1, racingLoader);
+        cache.get(1, loader);
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    void missingRowsAreNotCached() {
+        EntityCache<StringBuilder> cache = newCache();
+        IntFunction<StringBuilder> missing = id -> {
+            loads.incrementAndGet();
+            return null;
+        };
+        
+        assertNull(cache.get(1, missing));
+        assertNull(cache.get(1, missing));
+        assertEquals(2, loads.get());
+    }
+}
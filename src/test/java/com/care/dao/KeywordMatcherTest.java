@@ -0,0 +1,132 @@
+package com.care.dao;
+
+import com.care.util.KeywordMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyword matching and issue ranking with the automaton the analytics use
+ */
+class KeywordMatcherTest {
+    
+    private static final List<String> ISSUES = Arrays.asList(
+        "battery", "screen", "wifi", "overheat", "charging", "slow", "crash"
+    );
+    
+    private final KeywordMatcher matcher = new KeywordMatcher(ISSUES);
+    
+    @Test
+    void findsEveryKeywordInTheTextIgnoringCase() {
+        boolean[] found = new boolean[matcher.size()];
+        
+        int distinct = matcher.match("My BATTERY drains and the Screen flickers, the battery again", found);
+        
+        assertEquals(2, distinct);
+        assertTrue(found[ISSUES.indexOf("battery")]);
+        assertTrue(found[ISSUES.indexOf("screen")]);
+        assertFalse(found[ISSUES.indexOf("wifi")]);
+    }
+    
+    @Test
+    void matchesInsideWordsLikeContains() {
+        boolean[] found = new boolean[matcher.size()];
+        
+        matcher.match("Laptop overheating, apps crashed, WiFi is slower", found);
+        
+        for (String keyword : List.of("overheat", "crash", "wifi", "slow")) {
+            assertTrue(found[ISSUES.indexOf(keyword)], keyword);
+        }
+    }
+    
+    @Test
+    void overlappingKeywordsAreAllFound() {
+        KeywordMatcher nested = new KeywordMatcher(Arrays.asList("charge", "charger", "larger", "arg"));
+        boolean[] found = new boolean[nested.size()];
+        
+        assertEquals(4, nested.match("a larger charger", found));
+    }
+    
+    @Test
+    void nonAsciiTextAndKeywordsMatch() {
+        KeywordMatcher accented = new KeywordMatcher(Arrays.asList("écran", "batterie"));
+        boolean[] found = new boolean[accented.size()];
+        
+        assertEquals(1, accented.match("L'ÉCRAN reste noir — 画面", found));
+        assertArrayEquals(new boolean[] { true, false }, found);
+    }
+    
+    @Test
+    void topIssuesAreCountedOncePerMessage() {
+        List<String> messages = Arrays.asList(
+            "battery battery battery won't hold a charge",
+            "Battery dies after an hour",
+            "The screen is cracked",
+            "wifi keeps dropping",
+            "WiFi is slow and the battery is hot",
+            "Thanks, that fixed it!"
+        );
+        
+        int[] counts = new int[matcher.size()];
+        boolean[] found = new boolean[matcher.size()];
+        for (String message : messages) {
+            Arrays.fill(found, false);
+            matcher.match(message, found);
+            for (int keyword = 0; keyword < found.length; keyword++) {
+                if (found[keyword]) {
+                    counts[keyword]++;
+                }
+            }
+        }
+        
+        assertEquals(3, counts[ISSUES.indexOf("battery")]);
+        assertEquals(2, counts[ISSUES.indexOf("wifi")]);
+        assertEquals(1, counts[ISSUES.indexOf("screen")]);
+        assertEquals(1, counts[ISSUES.indexOf("slow")]);
+        assertEquals(0, counts[ISSUES.indexOf("crash")]);
+    }
+    
+    @Test
+    void agreesWithContainsOnRandomText() {
+        String alphabet = "abcehinorstwy ";
+        Random random = new Random(7);
+        
+        for (int round = 0; round < 2_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            // Plant a keyword now and then so matches are not all misses
+            if (random.nextBoolean()) {
+                text.insert(random.nextInt(text.length() + 1), ISSUES.get(random.nextInt(ISSUES.size())));
+            }
+            
+            boolean[] found = new boolean[matcher.size()];
+            int distinct = matcher.match(text, found);
+            
+            List<String> expected = new ArrayList<>();
+            for (String keyword : ISSUES) {
+                if (text.toString().contains(keyword)) {
+                    expected.add(keyword);
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (int keyword = 0; keyword < found.length; keyword++) {
+                if (found[keyword]) {
+                    actual.add(matcher.getKeyword(keyword));
+                }
+            }
+            assertEquals(expected, actual, text.toString());
+            assertEquals(expected.size(), distinct);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.care.dao;
+
+import com.care.model.Message;
+import com.care.util.DatabaseDriver;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Batched message inserts against the scratch database surefire points
+ * care.db.file at (target/test.db)
+ */
+class MessageDAOTest {
+    
+    private final MessageDAO messageDAO = new MessageDAO();
+    
+    @Test
+    void everyMessageOfABatchGetsItsOwnId() throws Exception {
+        int sessionId = createSession();
+        // More than one multi-row statement's worth
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            messages.add(new Message(0, sessionId, i % 2 == 0 ? "USER" : "BOT", "Message " + i));
+        }
+        
+        messageDAO.insertBatch(messages);
+        
+        int previousId = 0;
+        for (Message message : messages) {
+            assertTrue(message.getMessageId() > previousId, "IDs out of order at " + message.getContent());
+            previousId = message.getMessageId();
+            
+            Message stored = messageDAO.getById(message.getMessageId());
+            assertEquals(message.getContent(), stored.getContent());
+            assertEquals(message.getSenderType(), stored.getSenderType());
+        }
+        assertEquals(600, messageDAO.getMessageCount(sessionId));
+    }
+    
+    @Test
+    void failedBatchStoresNothing() throws Exception {
+        int sessionId = createSession();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            messages.add(new Message(0, sessionId, "USER", "Message " + i));
+        }
+        // Rejected by the sender_type check, in the second statement
+        messages.add(new Message(0, sessionId, "NOBODY", "Bad row"));
+        
+        assertThrows(SQLException.class, () -> messageDAO.insertBatch(messages));
+        
+        assertEquals(0, messageDAO.getMessageCount(sessionId));
+    }
+    
+    private static int createSession() throws Exception {
+        try (Connection connection = DatabaseDriver.getInstance().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                 "INSERT INTO chat_sessions (user_id, product_id, status) VALUES (2, 1, 'ACTIVE') RETURNING session_id");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
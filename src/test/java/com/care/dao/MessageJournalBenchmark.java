@@ -0,0 +1,100 @@
+package com.care.dao;
+
+import com.care.model.Message;
+import com.care.util.DatabaseDriver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Sustained message ingest with and without the journal
+ * Many threads store chat messages at once, first each in its own
+ * transaction (how MessageDAO.create wrote before the journal), then through
+ * the journal in the configured messages.durability mode. Uses the scratch
+ * database surefire points care.db.file at (target/test.db).
+ *
+ * mvn test -Pbenchmark -Dtest=MessageJournalBenchmark -Dbenchmark.messages=20000 -Dbenchmark.threads=16
+ */
+@Tag("benchmark")
+class MessageJournalBenchmark {
+    
+    @Test
+    void ingestThroughput() throws Exception {
+        int messageCount = Integer.getInteger("benchmark.messages", 20_000);
+        int threads = Integer.getInteger("benchmark.threads", 16);
+        int sessionId = createSession();
+        MessageDAO messageDAO = new MessageDAO();
+        MessageJournal journal = MessageJournal.getInstance();
+        
+        double directRate = run(threads, messageCount, sessionId, message -> {
+            try {
+                messageDAO.insertBatch(List.of(message));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        double journalRate = run(threads, messageCount, sessionId, message -> {
+            if (journal.append(message) < 0) {
+                throw new IllegalStateException("Journal failed to store a message");
+            }
+        });
+        // ASYNC returns before the commit; count the time until everything is stored
+        long start = System.nanoTime();
+        journal.flush();
+        double flushSeconds = (System.nanoTime() - start) / 1e9;
+        journalRate = messageCount / (messageCount / journalRate + flushSeconds);
+        
+        System.out.println(String.format("Message journal benchmark:%n" +
+            "  %,d messages from %d threads%n" +
+            "  one transaction per message: %,8.0f messages/s%n" +
+            "  journal in %s mode: %,8.0f messages/s (%.1fx)%n" +
+            "  %s", messageCount, threads, directRate, journal.getMode(), journalRate,
+            journalRate / directRate, journal.getStats()));
+    }
+    
+    private static int createSession() throws Exception {
+        try (Connection connection = DatabaseDriver.getInstance().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                 "INSERT INTO chat_sessions (user_id, product_id, status) VALUES (2, 1, 'ACTIVE') RETURNING session_id");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+    
+    private static double run(int threads, int messageCount, int sessionId, Consumer<Message> store) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                writers.add(() -> {
+                    for (int i = first; i < messageCount; i += threads) {
+                        store.accept(new Message(0, sessionId, i % 2 == 0 ? "USER" : "BOT",
+                            "Benchmark message " + i + ": the printer shows error 0x61 after the firmware update"));
+                    }
+                    return null;
+                });
+            }
+            
+            long start = System.nanoTime();
+            for (Future<Void> writer : executor.invokeAll(writers)) {
+                writer.get();
+            }
+            return messageCount / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
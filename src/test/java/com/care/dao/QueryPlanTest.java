@@ -0,0 +1,155 @@
+package com.care.dao;
+
+import com.care.model.TicketView;
+import com.care.util.ScratchDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query plan regression test for the hot DAO queries
+ * Runs EXPLAIN QUERY PLAN on the queries the DAOs actually send, against a
+ * database built from schema.sql and the migrations, and fails on any plan
+ * step that scans a whole table or index or sorts in a temporary b-tree.
+ * A failure usually means an index was dropped or a query was changed so
+ * that it no longer matches one.
+ */
+class QueryPlanTest {
+    
+    @TempDir
+    static Path tempDir;
+    
+    private static Connection connection;
+    
+    @BeforeAll
+    static void createDatabase() throws Exception {
+        connection = ScratchDatabase.create(tempDir.resolve("plans.db"));
+    }
+    
+    @AfterAll
+    static void closeDatabase() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+    
+    @TestFactory
+    Stream<DynamicTest> hotQueriesUseAnIndex() {
+        return hotQueries().entrySet().stream()
+            .map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertIndexed(query.getValue(), false)));
+    }
+    
+    /**
+     * Unfiltered first pages have no WHERE clause to search with; walking an
+     * index in ORDER BY order is fine there because the LIMIT stops it early.
+     * A scan without an index or a sort still fails.
+     */
+    @TestFactory
+    Stream<DynamicTest> orderedWalksUseAnIndex() {
+        return orderedWalks().entrySet().stream()
+            .map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertIndexed(query.getValue(), true)));
+    }
+    
+    private static Map<String, String> hotQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("MessageDAO.SELECT_BY_SESSION", MessageDAO.SELECT_BY_SESSION);
+        queries.put("MessageDAO.SELECT_PAGE_BEFORE", MessageDAO.SELECT_PAGE_BEFORE);
+        queries.put("MessageDAO.DELETE_BY_SESSION", MessageDAO.DELETE_BY_SESSION);
+        queries.put("MessageDAO.COUNT_BY_SESSION", MessageDAO.COUNT_BY_SESSION);
+        queries.put("MessageDAO.SELECT_HISTORY_FROM", MessageDAO.SELECT_HISTORY_FROM);
+        queries.put("MessageDAO.COUNT_HISTORY_BEFORE", MessageDAO.COUNT_HISTORY_BEFORE);
+        
+        queries.put("ChatSessionDAO.SELECT_BY_USER", ChatSessionDAO.SELECT_BY_USER);
+        queries.put("ChatSessionDAO.SELECT_ACTIVE", ChatSessionDAO.SELECT_ACTIVE);
+        queries.put("ChatSessionDAO.SELECT_BY_AGENT", ChatSessionDAO.SELECT_BY_AGENT);
+        
+        queries.put("TicketDAO.SELECT_BY_SESSION", TicketDAO.SELECT_BY_SESSION);
+        queries.put("TicketDAO.SELECT_BY_STATUS", TicketDAO.SELECT_BY_STATUS);
+        queries.put("TicketDAO.SELECT_BY_PRIORITY", TicketDAO.SELECT_BY_PRIORITY);
+        queries.put("TicketDAO.SELECT_BY_AGENT", TicketDAO.SELECT_BY_AGENT);
+        queries.put("TicketDAO.SELECT_UNASSIGNED", TicketDAO.SELECT_UNASSIGNED);
+        
+        // Ticket tables: the admin view filters by status and priority, the agent view by status and agent
+        TicketView after = new TicketView(1, 1, "LOW", "OPEN", "2024-01-01 00:00:00", null, null, true, null, null, null);
+        Object[][] filters = {
+            // label, status, priority, agent
+            {"no filter", null, null, null},
+            {"status", "OPEN", null, null},
+            {"priority", null, "HIGH", null},
+            {"status and priority", "OPEN", "HIGH", null},
+            {"agent", null, null, 2},
+            {"status and agent", "OPEN", null, 2}
+        };
+        for (Object[] filter : filters) {
+            String status = (String) filter[1];
+            String priority = (String) filter[2];
+            Integer agentId = (Integer) filter[3];
+            if (status != null || priority != null || agentId != null) {
+                queries.put("TicketViewDAO first page, " + filter[0],
+                    TicketViewDAO.buildPageQuery(status, priority, agentId, null, new ArrayList<>()));
+            }
+            queries.put("TicketViewDAO next page, " + filter[0],
+                TicketViewDAO.buildPageQuery(status, priority, agentId, after, new ArrayList<>()));
+            if (status != null || priority != null || agentId != null) {
+                queries.put("TicketViewDAO counts, " + filter[0],
+                    TicketViewDAO.buildCountQuery(status, priority, agentId, new ArrayList<>()));
+            }
+        }
+        
+        queries.put("KnowledgeBaseDAO.SELECT_BY_PRODUCT", KnowledgeBaseDAO.SELECT_BY_PRODUCT);
+        queries.put("KnowledgeBaseDAO.SELECT_ALL_BY_PRODUCT", KnowledgeBaseDAO.SELECT_ALL_BY_PRODUCT);
+        queries.put("KnowledgeBaseDAO.COUNT_BY_PRODUCT", KnowledgeBaseDAO.COUNT_BY_PRODUCT);
+        
+        queries.put("KnowledgeChunkDAO.DELETE_BY_KB", KnowledgeChunkDAO.DELETE_BY_KB);
+        queries.put("KnowledgeChunkDAO.SELECT_BY_PRODUCT", KnowledgeChunkDAO.SELECT_BY_PRODUCT);
+        queries.put("KnowledgeChunkDAO.SELECT_VERSION", KnowledgeChunkDAO.SELECT_VERSION);
+        queries.put("KnowledgeChunkDAO.DELETE_BY_PRODUCT", KnowledgeChunkDAO.DELETE_BY_PRODUCT);
+        
+        queries.put("UserDAO.SELECT_BY_CREDENTIALS", UserDAO.SELECT_BY_CREDENTIALS);
+        queries.put("UserDAO.SELECT_BY_EMAIL", UserDAO.SELECT_BY_EMAIL);
+        return queries;
+    }
+    
+    private static Map<String, String> orderedWalks() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("TicketViewDAO first page, no filter",
+            TicketViewDAO.buildPageQuery(null, null, null, null, new ArrayList<>()));
+        return queries;
+    }
+    
+    private static void assertIndexed(String query, boolean orderedWalk) throws SQLException {
+        List<String> findings = new ArrayList<>();
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + query)) {
+            while (rs.next()) {
+                String detail = rs.getString("detail");
+                if (isFullScan(detail) && !(orderedWalk && detail.matches("SCAN \\w+ USING (COVERING )?INDEX .*"))) {
+                    findings.add(detail);
+                }
+            }
+        }
+        
+        assertTrue(findings.isEmpty(), () -> query + "\n  -> " + String.join("\n  -> ", findings));
+    }
+    
+    private static boolean isFullScan(String detail) {
+        return (detail.startsWith("SCAN ") && !detail.startsWith("SCAN CONSTANT ROW"))
+            || detail.startsWith("USE TEMP B-TREE");
+    }
+}
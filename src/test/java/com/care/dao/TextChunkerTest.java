@@ -0,0 +1,112 @@
+package com.care.dao;
+
+import com.care.util.TextChunker;
+import com.care.util.TokenCounter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chunk sizes, boundaries and overlap of the manual splitter
+ */
+class TextChunkerTest {
+    
+    private final TokenCounter tokenCounter = TokenCounter.getInstance();
+    
+    @Test
+    void shortTextIsOneChunk() {
+        String text = "Hold the reset button for 10 seconds.\n\nThe light blinks while it resets.";
+        
+        List<String> chunks = new TextChunker(100, 10).split(text);
+        
+        assertEquals(List.of("Hold the reset button for 10 seconds.\nThe light blinks while it resets."), chunks);
+    }
+    
+    @Test
+    void blankTextHasNoChunks() {
+        assertTrue(new TextChunker(100, 10).split(null).isEmpty());
+        assertTrue(new TextChunker(100, 10).split(" \n\n ").isEmpty());
+    }
+    
+    @Test
+    void paragraphsArePackedUpToTheLimitAndKeptWhole() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            text.append("Step ").append(i).append(": check the cable and restart the device.\n\n");
+        }
+        
+        List<String> chunks = new TextChunker(60, 0).split(text.toString());
+        
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(tokenCounter.count(chunk) <= 60, "chunk over the limit: " + chunk);
+            for (String paragraph : chunk.split("\n")) {
+                assertTrue(paragraph.matches("Step \\d+: check the cable and restart the device\\."),
+                    "paragraph was cut: " + paragraph);
+            }
+        }
+        assertTrue(chunks.get(0).startsWith("Step 1:"));
+        assertTrue(chunks.get(chunks.size() - 1).endsWith("Step 30: check the cable and restart the device."));
+    }
+    
+    @Test
+    void tailOfEachChunkStartsTheNext() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            text.append("Step ").append(i).append(": check the cable and restart the device.\n\n");
+        }
+        
+        List<String> chunks = new TextChunker(60, 20).split(text.toString());
+        
+        assertTrue(chunks.size() > 1);
+        for (int i = 1; i < chunks.size(); i++) {
+            String[] previous = chunks.get(i - 1).split("\n");
+            String lastParagraph = previous[previous.length - 1];
+            assertTrue(chunks.get(i).startsWith(lastParagraph), "chunk " + i + " does not overlap");
+        }
+    }
+    
+    @Test
+    void longParagraphIsSplitOnSentencesThenWords() {
+        String sentence = "The router restarts when the power light turns green again. ";
+        String words = "word ".repeat(200).strip();
+        String text = sentence.repeat(20) + "\n\n" + words;
+        
+        List<String> chunks = new TextChunker(40, 0).split(text);
+        
+        for (String chunk : chunks) {
+            assertTrue(tokenCounter.count(chunk) <= 40, "chunk over the limit: " + chunk);
+        }
+        assertTrue(chunks.get(0).startsWith("The router restarts"));
+        assertTrue(chunks.stream().anyMatch(chunk -> chunk.startsWith("word word")));
+        // Nothing is dropped
+        assertEquals(200, chunks.stream()
+            .flatMap(chunk -> List.of(chunk.split("\\s+")).stream())
+            .filter("word"::equals)
+            .count());
+    }
+    
+    @Test
+    void wordLongerThanAChunkIsCutHard() {
+        String blob = "QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVo".repeat(20);
+        
+        List<String> chunks = new TextChunker(16, 0).split(blob);
+        
+        assertTrue(chunks.size() > 1);
+        assertEquals(blob, String.join("", chunks));
+        for (String chunk : chunks) {
+            assertFalse(chunk.isEmpty());
+            assertTrue(tokenCounter.count(chunk) <= 16);
+        }
+    }
+    
+    @Test
+    void chunkSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(0, 0));
+    }
+}
@@ -0,0 +1,162 @@
+package com.care.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streaming replies read from a local server that speaks the chat
+ * completions event stream, including one that fails mid-stream and one
+ * that stalls until the reader is cancelled
+ */
+class AIServiceStreamTest {
+    
+    private static final String ERROR_REPLY =
+        "⚠ Sorry, I encountered an error processing your request. Please try again or contact support.";
+    
+    private static HttpServer server;
+    private static ExecutorService handlers;
+    private static CountDownLatch releaseStalled;
+    
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // The stalled stream holds its handler thread
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        releaseStalled = new CountDownLatch(1);
+        
+        server.createContext("/complete/chat/completions", exchange -> {
+            sendEvents(exchange, 0,
+                ": keep-alive comment",
+                "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"Hold the \"}}]}",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"reset button\"}}]}",
+                "data: {\"choices\":[{\"delta\":{\"content\":null},\"finish_reason\":\"stop\"}]}",
+                "data: [DONE]",
+                // Never reached: reading stops at [DONE]
+                "data: {\"choices\":[{\"delta\":{\"content\":\" twice\"}}]}");
+            exchange.close();
+        });
+        
+        server.createContext("/broken/chat/completions", exchange -> {
+            // Promise more bytes than are sent, so closing drops the connection mid-body
+            sendEvents(exchange, 100_000, "data: {\"choices\":[{\"delta\":{\"content\":\"Hold the \"}}]}");
+            exchange.close();
+        });
+        
+        server.createContext("/stalled/chat/completions", exchange -> {
+            try {
+                sendEvents(exchange, 0, "data: {\"choices\":[{\"delta\":{\"content\":\"Hold the \"}}]}");
+                releaseStalled.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        
+        server.start();
+    }
+    
+    @AfterAll
+    static void stopServer() {
+        System.clearProperty("openai.base.url");
+        releaseStalled.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+    
+    @AfterEach
+    void slotIsReleased() throws InterruptedException {
+        // Every stream, however it ended, gives its concurrency slot back
+        AITransport transport = AITransport.getInstance();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (transport.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, transport.getInFlight(), transport.getStats());
+    }
+    
+    @Test
+    void deltasAreDeliveredUntilDone() {
+        useServer("complete");
+        
+        String answer = new AIService().streamResponse("How do I reset the router?", 1, null, tokens::add, false);
+        
+        assertEquals("Hold the reset button", answer);
+        assertEquals(List.of("Hold the ", "reset button"), tokens);
+    }
+    
+    @Test
+    void streamThatBreaksOffMidwayReportsAnError() {
+        useServer("broken");
+        long failedBefore = AIService.getStreamStats().getFailedStreams();
+        
+        String answer = new AIService().streamResponse("How do I reset the router?", 1, null, tokens::add, false);
+        
+        assertEquals(ERROR_REPLY, answer);
+        assertEquals(List.of("Hold the "), tokens);
+        assertEquals(failedBefore + 1, AIService.getStreamStats().getFailedStreams());
+    }
+    
+    @Test
+    void interruptingTheReaderCancelsAStalledStream() throws Exception {
+        useServer("stalled");
+        AIService service = new AIService();
+        CountDownLatch firstToken = new CountDownLatch(1);
+        AtomicReference<String> answer = new AtomicReference<>();
+        
+        Thread reader = new Thread(() -> answer.set(service.streamResponse(
+            "How do I reset the router?", 1, null, token -> firstToken.countDown(), false)));
+        reader.start();
+        assertTrue(firstToken.await(10, TimeUnit.SECONDS), "no token arrived");
+        
+        // The server sends nothing more, so only the interrupt can end the read
+        reader.interrupt();
+        reader.join(5_000);
+        
+        assertEquals("⚠ Response cancelled.", answer.get());
+    }
+    
+    private static void useServer(String path) {
+        System.setProperty("openai.base.url",
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/" + path);
+    }
+    
+    /**
+     * Send the response headers and event lines, each followed by a blank separator line
+     *
+     * @param length Body length, or 0 for a chunked body of any length
+     */
+    private static void sendEvents(HttpExchange exchange, long length, String... lines) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, length);
+        OutputStream body = exchange.getResponseBody();
+        for (String line : lines) {
+            body.write((line + "\n\n").getBytes(StandardCharsets.UTF_8));
+            body.flush();
+        }
+    }
+}
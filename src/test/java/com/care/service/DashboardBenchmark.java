@@ -0,0 +1,127 @@
+package com.care.service;
+
+import com.care.dao.ChatSessionDAO;
+import com.care.util.DatabaseDriver;
+import com.care.util.LatencyHistogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Admin dashboard load time on a large session history
+ * Replaces the sessions and tickets of the scratch database surefire points
+ * care.db.file at (target/test.db), rebuilds the analytics rollups, and
+ * times the aggregate queries behind the admin overview and reports views,
+ * next to one load of every session (what each metric used to do).
+ *
+ * mvn test -Pbenchmark -Dtest=DashboardBenchmark -Dbenchmark.sessions=1000000
+ */
+@Tag("benchmark")
+class DashboardBenchmark {
+    
+    // One session in this many is escalated and gets a ticket
+    private static final int ESCALATION_EVERY = 4;
+    
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+    private static final String[] TICKET_STATUSES = {"OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED"};
+    
+    @Test
+    void dashboardLoad() throws Exception {
+        int sessionCount = Integer.getInteger("benchmark.sessions", 1_000_000);
+        int runs = Integer.getInteger("benchmark.runs", 10);
+        
+        long start = System.nanoTime();
+        populate(sessionCount);
+        AnalyticsService analyticsService = new AnalyticsService();
+        analyticsService.rebuildRollups();
+        StringBuilder report = new StringBuilder(String.format("%,d sessions, %,d tickets: generated in %.1f s%n",
+            sessionCount, sessionCount / ESCALATION_EVERY, (System.nanoTime() - start) / 1e9));
+        
+        report.append(time("snapshot", runs, analyticsService::getDashboardSnapshot));
+        report.append(time("escalations by product", runs, analyticsService::getEscalationsByProduct));
+        report.append(time("ticket status distribution", runs, analyticsService::getTicketStatusDistribution));
+        report.append(time("sessions by date", runs, analyticsService::getSessionsByDate));
+        report.append(time("resolution types", runs, analyticsService::getResolutionTypeDistribution));
+        report.append(time("escalations by hour", runs, analyticsService::getEscalationsByHour));
+        report.append(time("agent performance", runs, analyticsService::getAgentPerformance));
+        report.append(time("all of the above", runs, () -> {
+            analyticsService.getDashboardSnapshot();
+            analyticsService.getEscalationsByProduct();
+            analyticsService.getTicketStatusDistribution();
+            analyticsService.getSessionsByDate();
+            analyticsService.getResolutionTypeDistribution();
+            analyticsService.getEscalationsByHour();
+            return analyticsService.getAgentPerformance();
+        }));
+        
+        ChatSessionDAO chatSessionDAO = new ChatSessionDAO();
+        report.append(time("load every session (before)", Math.min(runs, 3), chatSessionDAO::getAllSessions));
+        
+        System.out.println("Dashboard benchmark:\n" + report);
+    }
+    
+    private static String time(String label, int runs, Supplier<?> query) {
+        // One untimed run so every query starts with a warm page cache
+        query.get();
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            query.get();
+            latency.record(System.nanoTime() - start);
+        }
+        return String.format("  %-30s %s%n", label, latency);
+    }
+    
+    private static void populate(int sessionCount) throws Exception {
+        try (Connection connection = DatabaseDriver.getInstance().getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM tickets");
+                stmt.execute("DELETE FROM messages");
+                stmt.execute("DELETE FROM chat_sessions");
+            }
+            
+            connection.setAutoCommit(false);
+            try (PreparedStatement session = connection.prepareStatement(
+                     "INSERT INTO chat_sessions (session_id, user_id, product_id, status, created_at) " +
+                     "VALUES (?, ?, ?, ?, datetime('2024-01-01', '+' || ? || ' minutes'))");
+                 PreparedStatement ticket = connection.prepareStatement(
+                     "INSERT INTO tickets (session_id, priority, status, created_at) " +
+                     "VALUES (?, ?, ?, datetime('2024-01-01', '+' || ? || ' minutes'))")) {
+                for (int s = 1; s <= sessionCount; s++) {
+                    boolean escalated = s % ESCALATION_EVERY == 0;
+                    session.setInt(1, s);
+                    session.setInt(2, 2 + s % 2);
+                    session.setInt(3, 1 + s % 3);
+                    session.setString(4, escalated ? "ESCALATED" : s % 7 == 0 ? "ACTIVE" : "CLOSED");
+                    session.setInt(5, s);
+                    session.addBatch();
+                    
+                    if (escalated) {
+                        ticket.setInt(1, s);
+                        ticket.setString(2, PRIORITIES[s / ESCALATION_EVERY % PRIORITIES.length]);
+                        ticket.setString(3, TICKET_STATUSES[s / ESCALATION_EVERY % TICKET_STATUSES.length]);
+                        ticket.setInt(4, s);
+                        ticket.addBatch();
+                    }
+                    
+                    if (s % 10_000 == 0) {
+                        session.executeBatch();
+                        ticket.executeBatch();
+                    }
+                }
+                session.executeBatch();
+                ticket.executeBatch();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.care.service;
+
+import com.care.dao.KnowledgeSearchDAO;
+import com.care.model.KnowledgeSearchHit;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+import com.care.util.ScratchDatabase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Manual search latency on a generated manual library
+ * Fills a scratch database with manual pages (indexed by the migration's
+ * triggers as they are inserted) and times first pages and deep keyset pages
+ * for common, rare, phrase and multi-word queries, over all manuals, one
+ * category and one product.
+ *
+ * mvn test -Pbenchmark -Dtest=KnowledgeSearchBenchmark -Dbenchmark.manuals=3000 -Dbenchmark.pages=50
+ */
+@Tag("benchmark")
+class KnowledgeSearchBenchmark {
+    
+    // Vocabulary of generated manual pages, most frequent first (drawn with a Zipf-like skew)
+    private static final String[] WORDS = (
+        "press button select menu setting power device screen connect network reset cable " +
+        "update firmware battery charge light indicator hold seconds display mode wireless " +
+        "port adapter install driver error code warranty cleaning filter cartridge paper"
+    ).split(" ");
+    
+    // Rare terms (part numbers, error codes) after the common words
+    private static final int RARE_TERMS = 20_000;
+    
+    private static final String[] CATEGORIES = {
+        "Router", "Laptop", "Printer", "Phone", "Camera", "Television", "Smart Device", "Tablet", "Watch", "Speaker"
+    };
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void searchLatency() throws Exception {
+        int manualCount = Integer.getInteger("benchmark.manuals", 3_000);
+        int pagesPerManual = Integer.getInteger("benchmark.pages", 50);
+        int runs = Integer.getInteger("benchmark.runs", 20);
+        Path dbFile = tempDir.resolve("kb-search.db");
+        StringBuilder report = new StringBuilder();
+        
+        try (Connection connection = ScratchDatabase.open(dbFile)) {
+            long start = System.nanoTime();
+            populate(connection, manualCount, pagesPerManual);
+            long loadNanos = System.nanoTime() - start;
+            
+            report.append(String.format("%,d manuals, %,d pages: generated and indexed in %.1f s, database %,d MB%n",
+                manualCount, (long) manualCount * pagesPerManual, loadNanos / 1e9, Files.size(dbFile) / (1024 * 1024)));
+            
+            int pageSize = Math.max(1, Config.getInstance().getSearchPageSize());
+            String[][] cases = {
+                // label, text
+                {"common term", WORDS[0]},
+                {"mid-frequency term", WORDS[WORDS.length - 1]},
+                {"rare term", "part" + (RARE_TERMS / 10)},
+                {"two terms", WORDS[1] + " " + WORDS[7]},
+                {"phrase", "\"" + WORDS[0] + " " + WORDS[1] + "\""},
+                {"question with stop words", "how do I " + WORDS[10] + " the " + WORDS[4]}
+            };
+            
+            for (String[] benchmarkCase : cases) {
+                String matchQuery = KnowledgeSearchService.toMatchQuery(benchmarkCase[1]);
+                report.append(timeQuery(connection, benchmarkCase[0] + ", all manuals", matchQuery,
+                    null, null, 0, pageSize, runs));
+                report.append(timeQuery(connection, benchmarkCase[0] + ", all manuals, page 20", matchQuery,
+                    null, null, 19, pageSize, runs));
+                report.append(timeQuery(connection, benchmarkCase[0] + ", one category", matchQuery,
+                    null, CATEGORIES[0], 0, pageSize, runs));
+                report.append(timeQuery(connection, benchmarkCase[0] + ", one product", matchQuery,
+                    1, null, 0, pageSize, runs));
+            }
+        }
+        
+        System.out.println("Manual search benchmark:\n" + report);
+    }
+    
+    private static void populate(Connection connection, int manualCount, int pagesPerManual) throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = OFF");
+            stmt.execute("PRAGMA synchronous = OFF");
+        }
+        ScratchDatabase.createBaseline(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM knowledge_base");
+            stmt.execute("DELETE FROM products");
+        }
+        ScratchDatabase.migrate(connection);
+        
+        Random random = new Random(42);
+        int vocabularySize = WORDS.length + RARE_TERMS;
+        
+        connection.setAutoCommit(false);
+        try (PreparedStatement product = connection.prepareStatement(
+                 "INSERT INTO products (product_id, name, model_version, category) VALUES (?, ?, 'v1', ?)");
+             PreparedStatement manual = connection.prepareStatement(
+                 "INSERT INTO knowledge_base (kb_id, product_id, title, content) VALUES (?, ?, ?, '')");
+             PreparedStatement page = connection.prepareStatement(
+                 "INSERT INTO kb_pages (kb_id, product_id, page_number, content) VALUES (?, ?, ?, ?)")) {
+            StringBuilder content = new StringBuilder();
+            for (int m = 1; m <= manualCount; m++) {
+                product.setInt(1, m);
+                product.setString(2, "Product " + m);
+                product.setString(3, CATEGORIES[m % CATEGORIES.length]);
+                product.executeUpdate();
+                manual.setInt(1, m);
+                manual.setInt(2, m);
+                manual.setString(3, "Product " + m + " Manual");
+                manual.executeUpdate();
+                
+                for (int p = 1; p <= pagesPerManual; p++) {
+                    content.setLength(0);
+                    int words = 150 + random.nextInt(200);
+                    for (int w = 0; w < words; w++) {
+                        // A high power of a uniform draw favours the start of the vocabulary
+                        double skew = Math.pow(random.nextDouble(), 4);
+                        int index = (int) (skew * vocabularySize);
+                        content.append(index < WORDS.length ? WORDS[index] : "part" + (index - WORDS.length)).append(' ');
+                    }
+                    
+                    page.setInt(1, m);
+                    page.setInt(2, m);
+                    page.setInt(3, p);
+                    page.setString(4, content.toString());
+                    page.addBatch();
+                }
+                page.executeBatch();
+                
+                if (m % 500 == 0) {
+                    connection.commit();
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    private static String timeQuery(Connection connection, String label, String matchQuery, Integer productId,
+                                    String category, int pagesToSkip, int pageSize, int runs) throws SQLException {
+        // Walk to the requested page once; the timed runs start from its cursor
+        KnowledgeSearchHit after = null;
+        for (int page = 0; page < pagesToSkip; page++) {
+            List<KnowledgeSearchHit> hits = KnowledgeSearchDAO.search(connection, matchQuery, productId, category,
+                after, pageSize);
+            if (hits.size() < pageSize) {
+                return String.format("  %-50s fewer than %d pages%n", label, pagesToSkip + 1);
+            }
+            after = hits.get(hits.size() - 1);
+        }
+        
+        LatencyHistogram latency = new LatencyHistogram();
+        int hitCount = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            hitCount = KnowledgeSearchDAO.search(connection, matchQuery, productId, category, after, pageSize).size();
+            latency.record(System.nanoTime() - start);
+        }
+        return String.format("  %-50s %3d hits  %s%n", label, hitCount, latency);
+    }
+}
@@ -0,0 +1,75 @@
+package com.care.service;
+
+import com.care.dao.UserDAO;
+import com.care.model.User;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+import com.care.util.PasswordUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login throughput of the hashing pool
+ * Runs the full login path (lookup and password check) for one account as
+ * many times as asked, keeping the pool and its queue full. Uses the scratch
+ * database surefire points care.db.file at (target/test.db).
+ *
+ * mvn test -Pbenchmark -Dtest=LoginBenchmark -Dbenchmark.logins=200
+ */
+@Tag("benchmark")
+class LoginBenchmark {
+    
+    private static final String EMAIL = "benchmark@care.com";
+    private static final String PASSWORD = "benchmark-password";
+    
+    @Test
+    void loginThroughput() {
+        int count = Integer.getInteger("benchmark.logins", 200);
+        Config config = Config.getInstance();
+        int threads = Math.max(1, config.getAuthHashThreads());
+        int queueCapacity = Math.max(1, config.getAuthHashQueueCapacity());
+        
+        UserDAO userDAO = new UserDAO();
+        if (userDAO.findByEmail(EMAIL) == null) {
+            userDAO.insert(new User(0, EMAIL, PasswordUtil.hashPassword(PASSWORD), "USER", "Benchmark User"));
+        }
+        AuthenticationService authService = AuthenticationService.getInstance();
+        
+        // Never submit more than the pool can hold, so nothing is rejected
+        Semaphore slots = new Semaphore(threads + queueCapacity);
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger succeeded = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            slots.acquireUninterruptibly();
+            long submitted = System.nanoTime();
+            CompletableFuture<User> login;
+            // A slot frees up just before its pool thread takes the next queued login,
+            // so the queue can still be full for a moment; submit again until accepted
+            while ((login = authService.authenticateAsync(EMAIL, PASSWORD)).isCompletedExceptionally()) {
+                Thread.yield();
+            }
+            pending.add(login.whenComplete((user, error) -> {
+                latency.record(System.nanoTime() - submitted);
+                if (user != null) {
+                    succeeded.incrementAndGet();
+                }
+                slots.release();
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        System.out.println(String.format("Login benchmark: %d logins (%d ok) in %.2f s = %.1f logins/s " +
+            "on %d threads at cost %d; latency %s", count, succeeded.get(), seconds,
+            seconds > 0 ? count / seconds : 0.0, threads, PasswordUtil.getWorkload(), latency));
+    }
+}
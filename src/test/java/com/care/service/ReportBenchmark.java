@@ -0,0 +1,123 @@
+package com.care.service;
+
+import com.care.util.DatabaseDriver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * PDF report time against the size of the support history
+ * For each size, replaces the sessions, messages and tickets of the scratch
+ * database surefire points care.db.file at (target/test.db), rebuilds the
+ * analytics rollups, and times a report with cold analytics and one that
+ * reuses them.
+ *
+ * mvn test -Pbenchmark -Dtest=ReportBenchmark -Dbenchmark.sessions=1000,10000,100000
+ */
+@Tag("benchmark")
+class ReportBenchmark {
+    
+    private static final int MESSAGES_PER_SESSION = 6;
+    
+    // One session in this many is escalated and gets a ticket
+    private static final int ESCALATION_EVERY = 10;
+    
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+    private static final String[] TICKET_STATUSES = {"OPEN", "IN_PROGRESS", "RESOLVED", "CLOSED"};
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void reportTime() throws Exception {
+        String[] sizes = System.getProperty("benchmark.sessions", "1000,10000,100000").split(",");
+        StringBuilder report = new StringBuilder();
+        
+        for (String size : sizes) {
+            int sessionCount = Integer.parseInt(size.trim());
+            populate(sessionCount);
+            new AnalyticsService().rebuildRollups();
+            ReportGeneratorService.invalidateCache();
+            
+            ReportGeneratorService generator = new ReportGeneratorService();
+            long start = System.nanoTime();
+            boolean cold = generator.generateAnalyticsReport(tempDir.resolve("cold-" + sessionCount + ".pdf").toString());
+            long coldNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            boolean cached = generator.generateAnalyticsReport(tempDir.resolve("cached-" + sessionCount + ".pdf").toString());
+            long cachedNanos = System.nanoTime() - start;
+            
+            report.append(String.format("  %,9d sessions, %,6d escalations: cold %8.1f ms%s, cached analytics %8.1f ms%s%n",
+                sessionCount, sessionCount / ESCALATION_EVERY, coldNanos / 1e6, cold ? "" : " (failed)",
+                cachedNanos / 1e6, cached ? "" : " (failed)"));
+        }
+        
+        System.out.println("Report benchmark:\n" + report);
+    }
+    
+    private static void populate(int sessionCount) throws Exception {
+        try (Connection connection = DatabaseDriver.getInstance().getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM tickets");
+                stmt.execute("DELETE FROM messages");
+                stmt.execute("DELETE FROM chat_sessions");
+            }
+            
+            connection.setAutoCommit(false);
+            try (PreparedStatement session = connection.prepareStatement(
+                     "INSERT INTO chat_sessions (session_id, user_id, product_id, status, created_at) " +
+                     "VALUES (?, ?, ?, ?, datetime('2024-01-01', '+' || ? || ' minutes'))");
+                 PreparedStatement message = connection.prepareStatement(
+                     "INSERT INTO messages (session_id, sender_type, content) VALUES (?, ?, ?)");
+                 PreparedStatement ticket = connection.prepareStatement(
+                     "INSERT INTO tickets (session_id, priority, status) VALUES (?, ?, ?)")) {
+                for (int s = 1; s <= sessionCount; s++) {
+                    boolean escalated = s % ESCALATION_EVERY == 0;
+                    session.setInt(1, s);
+                    session.setInt(2, 2 + s % 2);
+                    session.setInt(3, 1 + s % 3);
+                    session.setString(4, escalated ? "ESCALATED" : s % 4 == 0 ? "ACTIVE" : "CLOSED");
+                    session.setInt(5, s * 7);
+                    session.addBatch();
+                    
+                    for (int m = 0; m < MESSAGES_PER_SESSION; m++) {
+                        message.setInt(1, s);
+                        message.setString(2, m % 2 == 0 ? "USER" : "BOT");
+                        message.setString(3, m % 2 == 0
+                            ? "My router keeps dropping the wifi connection after the update"
+                            : "Please hold the reset button for 10 seconds and try again");
+                        message.addBatch();
+                    }
+                    
+                    if (escalated) {
+                        ticket.setInt(1, s);
+                        ticket.setString(2, PRIORITIES[s / ESCALATION_EVERY % PRIORITIES.length]);
+                        ticket.setString(3, TICKET_STATUSES[s / ESCALATION_EVERY % TICKET_STATUSES.length]);
+                        ticket.addBatch();
+                    }
+                    
+                    if (s % 10_000 == 0) {
+                        session.executeBatch();
+                        message.executeBatch();
+                        ticket.executeBatch();
+                    }
+                }
+                session.executeBatch();
+                message.executeBatch();
+                ticket.executeBatch();
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
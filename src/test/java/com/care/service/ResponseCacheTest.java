@@ -0,0 +1,95 @@
+package com.care.service;
+
+import com.care.dao.KnowledgeBaseDAO;
+import com.care.util.DatabaseDriver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exact and near-duplicate lookups of the answer cache, and invalidation
+ * when a product's manual changes. Uses the scratch database surefire points
+ * care.db.file at (target/test.db) for the manual change.
+ */
+class ResponseCacheTest {
+    
+    private static final String QUESTION = "How do I reset the UltraFast router to factory settings?";
+    private static final String ANSWER = "Hold the reset button on the back for 10 seconds.";
+    
+    private final ResponseCache cache = ResponseCache.getInstance();
+    
+    @BeforeEach
+    void clearCache() {
+        assertTrue(cache.isEnabled(), "ai.cache.enabled is off in config.properties");
+        cache.clear();
+    }
+    
+    @Test
+    void sameQuestionWithOtherPunctuationAndFillerWordsHits() {
+        cache.put(1, QUESTION, ANSWER);
+        
+        assertEquals(ANSWER, cache.get(1, "how do i reset my ultrafast router to factory settings"));
+    }
+    
+    @Test
+    void nearDuplicateQuestionHits() {
+        cache.put(1, QUESTION, ANSWER);
+        
+        // Normalises to a different string, so only the MinHash/LSH tier can find it
+        assertEquals(ANSWER, cache.get(1, "How can I reset the UltraFast router to its factory setting"));
+    }
+    
+    @Test
+    void differentQuestionMisses() {
+        cache.put(1, QUESTION, ANSWER);
+        
+        assertNull(cache.get(1, "Why does the laptop overheat while gaming?"));
+        assertNull(cache.get(1, "How do I update the UltraFast router firmware?"));
+    }
+    
+    @Test
+    void sameQuestionAboutAnotherProductMisses() {
+        cache.put(1, QUESTION, ANSWER);
+        
+        assertNull(cache.get(2, QUESTION));
+    }
+    
+    @Test
+    void changingAProductsManualDropsItsAnswersOnly() throws Exception {
+        int productId = 3;
+        cache.put(productId, QUESTION, ANSWER);
+        cache.put(1, QUESTION, ANSWER);
+        
+        // Give the product a manual, then delete it through the DAO like the admin view does
+        try (Connection connection = DatabaseDriver.getInstance().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                 "INSERT INTO knowledge_base (product_id, title, content) VALUES (?, 'Test manual', 'Test content')")) {
+            stmt.setInt(1, productId);
+            stmt.executeUpdate();
+        }
+        assertTrue(new KnowledgeBaseDAO().delete(productId));
+        
+        assertNull(cache.get(productId, QUESTION));
+        assertEquals(ANSWER, cache.get(1, QUESTION));
+        
+        // Answers stored after the change are cached again
+        cache.put(productId, QUESTION, ANSWER);
+        assertEquals(ANSWER, cache.get(productId, QUESTION));
+    }
+    
+    @Test
+    void invalidatedAnswersStayGoneForNearDuplicatesToo() {
+        cache.put(1, QUESTION, ANSWER);
+        
+        cache.invalidateProduct(1);
+        
+        assertNull(cache.get(1, QUESTION));
+        assertNull(cache.get(1, "How can I reset the UltraFast router to its factory setting"));
+    }
+}
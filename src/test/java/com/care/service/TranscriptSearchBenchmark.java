@@ -0,0 +1,171 @@
+package com.care.service;
+
+import com.care.dao.MessageSearchDAO;
+import com.care.model.MessageSearchHit;
+import com.care.util.Config;
+import com.care.util.LatencyHistogram;
+import com.care.util.ScratchDatabase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Transcript search latency on a generated message history
+ * Fills a scratch database with conversations drawn from a skewed vocabulary,
+ * builds the FTS index the way migration 003 meets an existing database, and
+ * times first pages and deep keyset pages for common, rare, prefix and
+ * per-customer queries in both orders.
+ *
+ * mvn test -Pbenchmark -Dtest=TranscriptSearchBenchmark -Dbenchmark.messages=10000000
+ */
+@Tag("benchmark")
+class TranscriptSearchBenchmark {
+    
+    // Vocabulary of generated messages, most frequent first (drawn with a Zipf-like skew)
+    static final String[] WORDS = (
+        "the printer not working error please help with my order screen battery update " +
+        "reset password account login wifi connection bluetooth charger cable firmware driver " +
+        "install scanner paper jam toner refund warranty replacement shipping delivery invoice " +
+        "subscription license activation crash freeze overheating noise display resolution " +
+        "keyboard mouse touchpad speaker microphone camera sync backup restore storage memory " +
+        "calibration alignment cartridge nozzle duplex tray feeder spooler firewall router " +
+        "hotspot tethering dongle adapter docking thunderbolt hdmi displayport kernel panic"
+    ).split(" ");
+    
+    private static final int MESSAGES_PER_SESSION = 20;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void searchLatency() throws Exception {
+        int messageCount = Integer.getInteger("benchmark.messages", 1_000_000);
+        int runs = Integer.getInteger("benchmark.runs", 20);
+        Path dbFile = tempDir.resolve("search.db");
+        StringBuilder report = new StringBuilder();
+        
+        try (Connection connection = ScratchDatabase.open(dbFile)) {
+            long start = System.nanoTime();
+            populate(connection, messageCount);
+            long loadNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            ScratchDatabase.migrate(connection);
+            long indexNanos = System.nanoTime() - start;
+            
+            report.append(String.format("%,d messages: generated in %.1f s, indexed in %.1f s, database %,d MB%n",
+                messageCount, loadNanos / 1e9, indexNanos / 1e9, Files.size(dbFile) / (1024 * 1024)));
+            
+            int pageSize = Math.max(1, Config.getInstance().getSearchPageSize());
+            String[][] cases = {
+                // label, text
+                {"common term", WORDS[0]},
+                {"mid-frequency term", WORDS[WORDS.length / 2]},
+                {"rare term", WORDS[WORDS.length - 1]},
+                {"two terms", WORDS[1] + " " + WORDS[7]},
+                {"prefix while typing", WORDS[3].substring(0, 3)}
+            };
+            
+            for (String[] benchmarkCase : cases) {
+                String matchQuery = TranscriptSearchService.toMatchQuery(benchmarkCase[1]);
+                for (MessageSearchDAO.Order order : MessageSearchDAO.Order.values()) {
+                    report.append(timeQuery(connection, benchmarkCase[0] + ", first page", matchQuery,
+                        null, order, 0, pageSize, runs));
+                    report.append(timeQuery(connection, benchmarkCase[0] + ", page 20", matchQuery,
+                        null, order, 19, pageSize, runs));
+                }
+                report.append(timeQuery(connection, benchmarkCase[0] + ", one customer", matchQuery,
+                    1, MessageSearchDAO.Order.RELEVANCE, 0, pageSize, runs));
+            }
+        }
+        
+        System.out.println("Transcript search benchmark:\n" + report);
+    }
+    
+    private static void populate(Connection connection, int messageCount) throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = OFF");
+            stmt.execute("PRAGMA synchronous = OFF");
+        }
+        ScratchDatabase.createBaseline(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM messages");
+            stmt.execute("DELETE FROM chat_sessions");
+        }
+        
+        int sessionCount = Math.max(1, messageCount / MESSAGES_PER_SESSION);
+        Random random = new Random(42);
+        
+        connection.setAutoCommit(false);
+        try (PreparedStatement session = connection.prepareStatement(
+                 "INSERT INTO chat_sessions (session_id, user_id, status) VALUES (?, ?, 'CLOSED')");
+             PreparedStatement message = connection.prepareStatement(
+                 "INSERT INTO messages (session_id, sender_type, content) VALUES (?, ?, ?)")) {
+            for (int s = 1; s <= sessionCount; s++) {
+                // Spread sessions over the mock users; user 1 gets one session in 100
+                session.setInt(1, s);
+                session.setInt(2, s % 100 == 0 ? 1 : 2 + s % 3);
+                session.addBatch();
+            }
+            session.executeBatch();
+            
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < messageCount; i++) {
+                content.setLength(0);
+                int words = 8 + random.nextInt(32);
+                for (int w = 0; w < words; w++) {
+                    // Squaring a uniform draw favours the start of the vocabulary
+                    double skew = random.nextDouble();
+                    content.append(WORDS[(int) (skew * skew * WORDS.length)]).append(' ');
+                }
+                
+                message.setInt(1, 1 + i / MESSAGES_PER_SESSION % sessionCount);
+                message.setString(2, i % 2 == 0 ? "USER" : "BOT");
+                message.setString(3, content.toString());
+                message.addBatch();
+                
+                if ((i + 1) % 10_000 == 0) {
+                    message.executeBatch();
+                }
+                if ((i + 1) % 1_000_000 == 0) {
+                    connection.commit();
+                }
+            }
+            message.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    private static String timeQuery(Connection connection, String label, String matchQuery, Integer userId,
+                                    MessageSearchDAO.Order order, int pagesToSkip, int pageSize, int runs) throws SQLException {
+        // Walk to the requested page once; the timed runs start from its cursor
+        MessageSearchHit after = null;
+        for (int page = 0; page < pagesToSkip; page++) {
+            List<MessageSearchHit> hits = MessageSearchDAO.search(connection, matchQuery, userId, order, after, pageSize);
+            if (hits.size() < pageSize) {
+                return String.format("  %-40s %-9s fewer than %d pages%n", label, order, pagesToSkip + 1);
+            }
+            after = hits.get(hits.size() - 1);
+        }
+        
+        LatencyHistogram latency = new LatencyHistogram();
+        int hitCount = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            hitCount = MessageSearchDAO.search(connection, matchQuery, userId, order, after, pageSize).size();
+            latency.record(System.nanoTime() - start);
+        }
+        return String.format("  %-40s %-9s %3d hits  %s%n", label, order, hitCount, latency);
+    }
+}
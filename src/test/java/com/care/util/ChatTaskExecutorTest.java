@@ -0,0 +1,61 @@
+package com.care.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Slot limits and the wait and run histograms of the chat task executor
+ */
+class ChatTaskExecutorTest {
+    
+    // Well above any other test's user id, so the per-user limit is ours alone
+    private static final int USER_ID = 900_001;
+    
+    @Test
+    void queuedTaskWaitsForTheUsersSlotAndIsMeasured() throws Exception {
+        ChatTaskExecutor executor = ChatTaskExecutor.getInstance();
+        int perUser = Math.max(1, Config.getInstance().getChatTasksMaxPerUser());
+        long waitsBefore = executor.getWaitLatency().getCount();
+        long runsBefore = executor.getRunLatency().getCount();
+        
+        // Fill the user's slots with tasks that hold them until released
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(perUser);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < perUser; i++) {
+            tasks.add(executor.submit(null, USER_ID, this, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS), "slot holders never started");
+        
+        // One more task of the same user has to queue behind them
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        tasks.add(executor.submit(null, USER_ID, this, queuedRan::countDown));
+        assertFalse(queuedRan.await(100, TimeUnit.MILLISECONDS), "task ran past the per-user limit");
+        
+        release.countDown();
+        for (Future<?> task : tasks) {
+            task.get(5, TimeUnit.SECONDS);
+        }
+        
+        assertEquals(waitsBefore + perUser + 1, executor.getWaitLatency().getCount());
+        assertEquals(runsBefore + perUser + 1, executor.getRunLatency().getCount());
+        assertTrue(executor.getWaitLatency().getMaxMillis() >= 100,
+            "queued task's wait was not recorded: " + executor.getWaitLatency());
+    }
+}
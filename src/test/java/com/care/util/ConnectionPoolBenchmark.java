@@ -0,0 +1,174 @@
+package com.care.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrent read throughput of the connection pool
+ * Fills a scratch database with sessions and messages, then has 1, 2, 4 ...
+ * threads load one session's messages at a time, first through a single
+ * shared connection (the layout before the pool) and then through a pool
+ * with one reader per thread.
+ *
+ * mvn test -Pbenchmark -Dtest=ConnectionPoolBenchmark -Dbenchmark.sessions=50000 -Dbenchmark.reads=20000
+ */
+@Tag("benchmark")
+class ConnectionPoolBenchmark {
+    
+    private static final int MESSAGES_PER_SESSION = 20;
+    
+    // Same query as MessageDAO.getBySessionId
+    private static final String SELECT_MESSAGES =
+        "SELECT * FROM messages WHERE session_id = ? ORDER BY timestamp ASC";
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void readThroughput() throws Exception {
+        int sessionCount = Integer.getInteger("benchmark.sessions", 50_000);
+        int reads = Integer.getInteger("benchmark.reads", 20_000);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = Integer.getInteger("benchmark.threads", Math.max(8, cores * 2));
+        Path dbFile = tempDir.resolve("pool.db");
+        String url = "jdbc:sqlite:" + dbFile;
+        StorageProfile profile = StorageProfile.fromConfig(Config.getInstance());
+        
+        try (Connection connection = ScratchDatabase.create(dbFile)) {
+            populate(connection, sessionCount);
+        }
+        
+        StringBuilder report = new StringBuilder(String.format(
+            "%,d sessions, %,d messages, %,d reads per run, %d cores, %s%n",
+            sessionCount, (long) sessionCount * MESSAGES_PER_SESSION, reads, cores, profile));
+        
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            // Before the pool: every thread took turns on one connection
+            ConnectionPool shared = new ConnectionPool(url, 1, 60_000, profile);
+            Object sharedLock = new Object();
+            double sharedRate;
+            try (Connection connection = shared.leaseReader()) {
+                sharedRate = run(threads, reads, sessionCount, session -> {
+                    synchronized (sharedLock) {
+                        return readSession(connection, session);
+                    }
+                });
+            } finally {
+                shared.close();
+            }
+            
+            ConnectionPool pool = new ConnectionPool(url, threads, 60_000, profile);
+            double pooledRate;
+            ConnectionPool.PoolStats stats;
+            try {
+                pooledRate = run(threads, reads, sessionCount, session -> {
+                    try (Connection connection = pool.leaseReader()) {
+                        return readSession(connection, session);
+                    }
+                });
+                stats = pool.getStats();
+            } finally {
+                pool.close();
+            }
+            
+            report.append(String.format("  %2d threads: shared connection %,8.0f reads/s, pool %,8.0f reads/s " +
+                "(%.2fx), avg wait %.3f ms%n", threads, sharedRate, pooledRate, pooledRate / sharedRate,
+                stats.getAvgWaitMillis()));
+        }
+        
+        System.out.println("Connection pool benchmark:\n" + report);
+    }
+    
+    /**
+     * One read: load the messages of a session
+     */
+    private interface SessionRead {
+        int read(int sessionId) throws SQLException;
+    }
+    
+    private static double run(int threads, int reads, int sessionCount, SessionRead read) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                workers.add(() -> {
+                    int rows = 0;
+                    for (int i = first; i < reads; i += threads) {
+                        // Stride through the sessions so every read misses the previous one's pages
+                        rows += read.read(1 + (int) ((i * 7919L) % sessionCount));
+                    }
+                    return rows;
+                });
+            }
+            
+            long start = System.nanoTime();
+            for (Future<Integer> worker : executor.invokeAll(workers)) {
+                worker.get();
+            }
+            return reads / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static int readSession(Connection connection, int sessionId) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement stmt = connection.prepareStatement(SELECT_MESSAGES)) {
+            stmt.setInt(1, sessionId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString("content");
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+    
+    private static void populate(Connection connection, int sessionCount) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM messages");
+            stmt.execute("DELETE FROM chat_sessions");
+        }
+        
+        connection.setAutoCommit(false);
+        try (PreparedStatement session = connection.prepareStatement(
+                 "INSERT INTO chat_sessions (session_id, user_id, product_id, status) VALUES (?, ?, ?, 'CLOSED')");
+             PreparedStatement message = connection.prepareStatement(
+                 "INSERT INTO messages (session_id, sender_type, content) VALUES (?, ?, ?)")) {
+            for (int s = 1; s <= sessionCount; s++) {
+                session.setInt(1, s);
+                session.setInt(2, 2 + s % 2);
+                session.setInt(3, 1 + s % 3);
+                session.executeUpdate();
+                
+                for (int m = 0; m < MESSAGES_PER_SESSION; m++) {
+                    message.setInt(1, s);
+                    message.setString(2, m % 2 == 0 ? "USER" : "BOT");
+                    message.setString(3, "Message " + m + " of session " + s +
+                        ": the router drops the wifi connection every few minutes after the firmware update");
+                    message.addBatch();
+                }
+                message.executeBatch();
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
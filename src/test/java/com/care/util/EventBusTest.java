@@ -0,0 +1,74 @@
+package com.care.util;
+
+import com.care.model.DataEvent;
+import com.care.model.SessionEvent;
+import com.care.model.TicketEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Event delivery without the FX toolkit, as in CLI runs and tests
+ */
+class EventBusTest {
+    
+    // Well above any id the scratch database hands out
+    private static final int TICKET_ID = 900_001;
+    
+    @Test
+    void syncListenersGetEveryEventWithoutTheFxToolkit() {
+        EventBus eventBus = EventBus.getInstance();
+        List<TicketEvent> received = new ArrayList<>();
+        EventBus.Subscription listener = eventBus.subscribeSync(TicketEvent.class, received::add);
+        // A batch subscriber too, so publish() tries (and fails) to reach the FX thread
+        EventBus.Subscription batches = eventBus.subscribe(TicketEvent.class, events -> { });
+        try {
+            eventBus.publish(new TicketEvent(DataEvent.Kind.CREATED, TICKET_ID));
+            eventBus.publish(new TicketEvent(DataEvent.Kind.UPDATED, TICKET_ID));
+            eventBus.publish(new TicketEvent(DataEvent.Kind.DELETED, TICKET_ID));
+        } finally {
+            batches.unsubscribe();
+            listener.unsubscribe();
+        }
+        
+        // Not coalesced: a create, update and delete of one row are three events
+        assertEquals(3, received.size());
+        assertEquals(DataEvent.Kind.CREATED, received.get(0).getKind());
+        assertEquals(DataEvent.Kind.DELETED, received.get(2).getKind());
+    }
+    
+    @Test
+    void syncListenersOnlyGetTheirTypeUntilUnsubscribed() {
+        EventBus eventBus = EventBus.getInstance();
+        List<TicketEvent> received = new ArrayList<>();
+        EventBus.Subscription listener = eventBus.subscribeSync(TicketEvent.class, received::add);
+        
+        eventBus.publish(new SessionEvent(DataEvent.Kind.UPDATED, TICKET_ID, "CLOSED"));
+        eventBus.publish(new TicketEvent(DataEvent.Kind.UPDATED, TICKET_ID));
+        listener.unsubscribe();
+        eventBus.publish(new TicketEvent(DataEvent.Kind.UPDATED, TICKET_ID));
+        
+        assertEquals(1, received.size());
+    }
+    
+    @Test
+    void failingListenerDoesNotStopTheOthers() {
+        EventBus eventBus = EventBus.getInstance();
+        List<TicketEvent> received = new ArrayList<>();
+        EventBus.Subscription failing = eventBus.subscribeSync(TicketEvent.class, event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        EventBus.Subscription listener = eventBus.subscribeSync(TicketEvent.class, received::add);
+        try {
+            eventBus.publish(new TicketEvent(DataEvent.Kind.UPDATED, TICKET_ID));
+        } finally {
+            failing.unsubscribe();
+            listener.unsubscribe();
+        }
+        
+        assertEquals(1, received.size());
+    }
+}
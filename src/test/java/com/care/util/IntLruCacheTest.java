@@ -0,0 +1,137 @@
+package com.care.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Eviction order and lookups of the int-keyed LRU map
+ */
+class IntLruCacheTest {
+    
+    @Test
+    void evictsLeastRecentlyInsertedFirst() {
+        IntLruCache<String> cache = new IntLruCache<>(3);
+        assertFalse(cache.put(1, "one"));
+        assertFalse(cache.put(2, "two"));
+        assertFalse(cache.put(3, "three"));
+        
+        assertTrue(cache.put(4, "four"));
+        assertNull(cache.get(1));
+        assertEquals("two", cache.get(2));
+        assertEquals(3, cache.size());
+    }
+    
+    @Test
+    void getMakesAnEntryMostRecentlyUsed() {
+        IntLruCache<String> cache = new IntLruCache<>(3);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        
+        cache.get(1);
+        cache.put(4, "four");
+        
+        assertEquals("one", cache.get(1));
+        assertNull(cache.get(2));
+    }
+    
+    @Test
+    void replacingAValueMakesItMostRecentlyUsedWithoutEvicting() {
+        IntLruCache<String> cache = new IntLruCache<>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        
+        assertFalse(cache.put(1, "uno"));
+        cache.put(3, "three");
+        
+        assertEquals("uno", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(2, cache.size());
+    }
+    
+    @Test
+    void removeFreesTheSlot() {
+        IntLruCache<String> cache = new IntLruCache<>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        
+        assertTrue(cache.remove(1));
+        assertFalse(cache.remove(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.size());
+        
+        // The freed slot is used before anything is evicted
+        assertFalse(cache.put(3, "three"));
+        assertEquals("two", cache.get(2));
+        assertEquals("three", cache.get(3));
+    }
+    
+    @Test
+    void removeKeepsEveryOtherKeyReachable() {
+        // A full map has collisions; removing any key must not cut another's probe chain
+        int capacity = 512;
+        for (int removed = 0; removed < capacity; removed++) {
+            IntLruCache<Integer> cache = new IntLruCache<>(capacity);
+            for (int key = 0; key < capacity; key++) {
+                cache.put(key, key);
+            }
+            
+            cache.remove(removed);
+            
+            for (int key = 0; key < capacity; key++) {
+                assertEquals(key == removed ? null : Integer.valueOf(key), cache.get(key), "key " + key);
+            }
+        }
+    }
+    
+    @Test
+    void clearEmptiesTheMap() {
+        IntLruCache<String> cache = new IntLruCache<>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        
+        cache.clear();
+        
+        assertEquals(0, cache.size());
+        assertNull(cache.get(1));
+        assertFalse(cache.put(3, "three"));
+        assertFalse(cache.put(4, "four"));
+    }
+    
+    @Test
+    void behavesLikeAnAccessOrderedLinkedHashMap() {
+        int capacity = 64;
+        IntLruCache<Integer> cache = new IntLruCache<>(capacity);
+        Map<Integer, Integer> expected = new LinkedHashMap<>(16, 0.75f, true);
+        Random random = new Random(1);
+        
+        for (int op = 0; op < 200_000; op++) {
+            int key = random.nextInt(200) - 50;
+            int action = random.nextInt(10);
+            if (action < 5) {
+                assertEquals(expected.get(key), cache.get(key), "get " + key);
+            } else if (action < 9) {
+                boolean expectEviction = !expected.containsKey(key) && expected.size() == capacity;
+                expected.put(key, op);
+                if (expectEviction) {
+                    Iterator<Integer> eldest = expected.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                assertEquals(expectEviction, cache.put(key, op), "put " + key);
+            } else {
+                assertEquals(expected.remove(key) != null, cache.remove(key), "remove " + key);
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.care.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Throwaway SQLite databases with the application schema, for tests and benchmarks
+ * Never touches care.db: every database lives in a file the caller picks
+ * (usually under a JUnit temporary directory).
+ */
+public final class ScratchDatabase {
+    
+    private ScratchDatabase() {
+    }
+    
+    /**
+     * Open a database with schema.sql and every migration applied
+     */
+    public static Connection create(Path file) throws IOException, SQLException {
+        Connection connection = open(file);
+        createBaseline(connection);
+        migrate(connection);
+        return connection;
+    }
+    
+    public static Connection open(Path file) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + file);
+    }
+    
+    /**
+     * Run schema.sql the way DatabaseDriver does (mock rows that already exist are skipped)
+     */
+    public static void createBaseline(Connection connection) throws IOException, SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : SqlScript.load("/com/care/sql/schema.sql")) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (!e.getMessage().contains("UNIQUE constraint failed")) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Apply the pending migrations
+     *
+     * @throws SQLException if the database does not end up at the latest version
+     */
+    public static void migrate(Connection connection) throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(connection);
+        migrator.migrate();
+        if (migrator.getCurrentVersion() != SchemaMigrator.getLatestVersion()) {
+            throw new SQLException("Migrations stopped at version " + migrator.getCurrentVersion());
+        }
+    }
+}
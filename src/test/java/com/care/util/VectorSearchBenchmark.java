@@ -0,0 +1,159 @@
+package com.care.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Nearest-chunk search latency at growing index sizes
+ * Embeds generated manual chunks with the hashing embedder, writes them to a
+ * memory-mapped vector file, builds the HNSW graph with the configured
+ * parameters, and times top-k queries against a full scan of the same
+ * vectors. Recall is the share of the exact top k that HNSW also returns.
+ *
+ * mvn test -Pbenchmark -Dtest=VectorSearchBenchmark -Dbenchmark.chunks=10000,100000,1000000 -DargLine=-Xmx3g
+ * (add -Dbenchmark.ef=64,128,256 to compare search candidate list sizes on the same graph;
+ * by default the configured ef is scaled to each graph size as the service does)
+ */
+@Tag("benchmark")
+class VectorSearchBenchmark {
+    
+    // Vocabulary of generated chunks, most frequent first (drawn with a Zipf-like skew)
+    private static final String[] WORDS = (
+        "press button select menu setting power device screen connect network reset cable " +
+        "update firmware battery charge light indicator hold seconds display mode wireless " +
+        "port adapter install driver error code warranty cleaning filter cartridge paper " +
+        "router laptop printer phone camera television tablet watch speaker bluetooth wifi " +
+        "password account login restart factory default backup restore storage memory"
+    ).split(" ");
+    
+    // Rare terms (part numbers, error codes) after the common words
+    private static final int RARE_TERMS = 50_000;
+    
+    private static final int TOP_K = 5;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void searchLatency() throws Exception {
+        String[] sizes = System.getProperty("benchmark.chunks", "10000,100000").split(",");
+        int queries = Integer.getInteger("benchmark.queries", 200);
+        int exactQueries = Integer.getInteger("benchmark.exact.queries", 20);
+        Config config = Config.getInstance();
+        String efList = System.getProperty("benchmark.ef");
+        HashingEmbedder embedder = new HashingEmbedder(config.getKbEmbeddingDimension());
+        System.out.println("Vector search benchmark:");
+        
+        // Each size is reported as soon as it is done; the largest can take hours to build
+        for (String size : sizes) {
+            StringBuilder report = new StringBuilder();
+            int chunkCount = Integer.parseInt(size.trim());
+            int[] ids = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                ids[i] = i + 1;
+            }
+            // Embedded one at a time while the file is written, so a million vectors never sit on the heap
+            List<float[]> vectors = new AbstractList<float[]>() {
+                @Override
+                public float[] get(int index) {
+                    return embedder.embed(chunkText(index));
+                }
+                
+                @Override
+                public int size() {
+                    return chunkCount;
+                }
+            };
+            
+            Path file = tempDir.resolve("chunks-" + chunkCount + ".vec");
+            long start = System.nanoTime();
+            VectorStore store = VectorStore.write(file, embedder.getDimension(), 0, ids, vectors);
+            long writeNanos = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            HnswIndex index = new HnswIndex(store, config.getKbHnswM(), config.getKbHnswEfConstruction());
+            long buildNanos = System.nanoTime() - start;
+            
+            // Queries are short questions drawn from the same vocabulary
+            Random random = new Random(7);
+            float[][] queryVectors = new float[queries][];
+            for (int q = 0; q < queries; q++) {
+                queryVectors[q] = embedder.embed(randomText(random, 4 + random.nextInt(6)));
+            }
+            
+            // Exact top k of the recall queries, timed as the full scan
+            LatencyHistogram exactLatency = new LatencyHistogram();
+            List<Set<Integer>> exactResults = new ArrayList<>();
+            for (int q = 0; q < Math.min(exactQueries, queries); q++) {
+                long queryStart = System.nanoTime();
+                List<HnswIndex.Result> exact = HnswIndex.scan(store, queryVectors[q], TOP_K);
+                exactLatency.record(System.nanoTime() - queryStart);
+                Set<Integer> positions = new HashSet<>();
+                for (HnswIndex.Result result : exact) {
+                    positions.add(result.getPosition());
+                }
+                exactResults.add(positions);
+            }
+            
+            report.append(String.format("%,d chunks (dimension %d, %,d MB mapped): embedded and written in %.1f s, " +
+                "graph built in %.1f s%n", chunkCount, embedder.getDimension(), Files.size(file) / (1024 * 1024),
+                writeNanos / 1e9, buildNanos / 1e9));
+            // Without -Dbenchmark.ef, the candidate list size the service would use for this graph
+            String[] efValues = efList != null ? efList.split(",")
+                : new String[] { String.valueOf(HnswIndex.scaledEf(config.getKbHnswEfSearch(), chunkCount)) };
+            for (String efValue : efValues) {
+                int ef = Integer.parseInt(efValue.trim());
+                LatencyHistogram hnswLatency = new LatencyHistogram();
+                for (float[] query : queryVectors) {
+                    long queryStart = System.nanoTime();
+                    index.search(query, TOP_K, ef);
+                    hnswLatency.record(System.nanoTime() - queryStart);
+                }
+                
+                int found = 0;
+                int expected = 0;
+                for (int q = 0; q < exactResults.size(); q++) {
+                    for (HnswIndex.Result result : index.search(queryVectors[q], TOP_K, ef)) {
+                        if (exactResults.get(q).contains(result.getPosition())) {
+                            found++;
+                        }
+                    }
+                    expected += exactResults.get(q).size();
+                }
+                report.append(String.format("  HNSW top %d (ef %d): %s, recall %.3f%n", TOP_K, ef, hnswLatency,
+                    expected > 0 ? (double) found / expected : 0.0));
+            }
+            report.append(String.format("  full scan top %d:  %s%n", TOP_K, exactLatency));
+            System.out.print(report);
+        }
+    }
+    
+    /**
+     * Text of a generated chunk (the same index always gives the same text)
+     */
+    private static String chunkText(int index) {
+        Random random = new Random(index * 31L + 17);
+        return randomText(random, 60 + random.nextInt(140));
+    }
+    
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        int vocabularySize = WORDS.length + RARE_TERMS;
+        for (int w = 0; w < words; w++) {
+            // A high power of a uniform draw favours the start of the vocabulary
+            int word = (int) (Math.pow(random.nextDouble(), 3) * vocabularySize);
+            text.append(word < WORDS.length ? WORDS[word] : "part" + (word - WORDS.length)).append(' ');
+        }
+        return text.toString();
+    }
+}